@@ -1,62 +1,249 @@
 package com.example.demo.client;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.time.Duration;
+import java.util.ServiceLoader;
+
 import org.springframework.web.reactive.function.client.WebClient;
+import com.example.demo.client.config.ClientProperties;
 import com.example.demo.client.config.WebClientConfig;
+import com.example.demo.client.engine.Report;
+import com.example.demo.client.engine.ReportProvider;
+import com.example.demo.client.engine.TaskEngine;
+import com.example.demo.client.engine.TaskTiming;
+import com.example.demo.client.join.Joins;
 import com.example.demo.client.service.PetServiceClient;
+import com.example.demo.client.utils.AdaptiveLimiter;
+import com.example.demo.client.utils.ExternalSorter;
+import com.example.demo.client.utils.RequestStats;
 import com.example.demo.server.model.Owner;
 import com.example.demo.server.model.Pet;
 
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+/**
+ * Runs all the tasks against the server.
+ *
+ * The tasks are reports run by a TaskEngine over three sources: "owners"
+ * (GET /owner), "pets" (GET /pet) and, with --join, "ownersWithPets" (the
+ * owners joined with their pets). Each source is fetched once for all the
+ * reports that read it. The reports come from the ReportProviders found with
+ * java.util.ServiceLoader (TaskReports for the tasks of Tasks): a new report
+ * only needs a provider listed in
+ * META-INF/services/com.example.demo.client.engine.ReportProvider. The start,
+ * end and CPU time of every report are printed at the end.
+ *
+ * Options (see ClientProperties for all of them, including the server URL
+ * and the HTTP transport, e.g. --base-url, --max-connections, --http2,
+ * --pool-metrics-interval=5s):
+ * --shared: accepted for compatibility; owners and pets are now always
+ * fetched once and replayed to every task.
+ * --shared-max-in-memory=1000000: elements of each shared collection kept in
+ * memory; the rest are spilled to a temporary file.
+ * --task-concurrency=4: reports run at once (all of them by default).
+ * --single-pass: compute tasks 2, 3, 5, 6 and 7 from one traversal of the pets
+ * instead of one per task.
+ * --batch-window=5ms: send the pet lookups of task 9 made within this window
+ * as one GET /pet/batch request (off by default).
+ * --batch-max-size=100: distinct pet ids that send a batch right away.
+ * --join=hash|merge: compute tasks 7, 8 and 9 by joining all owners with all
+ * pets locally (merge sorts both sides by owner id first), instead of one
+ * request per owner and pet.
+ * --max-in-memory=100000: run in bounded memory: the owners and pets are
+ * consumed --limit-rate=256 at a time, and every sort (task 4, 8 and 9, and
+ * the merge join) keeps at most this many elements in memory, spilling sorted
+ * runs to temporary files beyond that (see ExternalSorter). Also caps
+ * --shared-max-in-memory. Not compatible with --join=hash, whose index holds
+ * all the pets.
+ * --limit=10: write only the first 10 lines of tasks 4, 8 and 9, keeping just
+ * those elements instead of sorting all of them (see TopK).
+ * --adaptive-limit: keep as many pet requests in flight as the server answers
+ * without slowing down (see AdaptiveLimiter), starting from
+ * --adaptive-limit-initial=20; task 9 then no longer caps its fan-out at 16.
+ * With --pool-metrics-interval=1s the limit and the queue are printed every
+ * second.
+ * --rails=4: aggregate the pets for tasks 3, 5 and 7 (or the single pass) on 4
+ * parallel rails merged at the end, and sort tasks 4, 8 and 9 in memory with a
+ * fork-join merge sort on 4 threads (see ParallelMergeSort). The files are the
+ * same.
+ * --servers=http://localhost:8080,http://localhost:8081: spread the requests
+ * over several server instances (see LoadBalancer), sending each to the one
+ * with the fewest requests in flight, or with --load-balancing=p2c to the
+ * less busy of two picked at random. An instance is ejected for
+ * --ejection-duration=10s after --ejection-failures=5 failures in a row. The
+ * requests, failures and latency of each instance are printed at the end.
+ */
 public class ClientApplication {
 
-    private final WebClient webClient;
-    private final Tasks tasks;
+    /**
+     * The sources the reports can read.
+     */
+    public static final String OWNERS = "owners";
+    public static final String PETS = "pets";
+    public static final String OWNERS_WITH_PETS = "ownersWithPets";
 
-    private Flux<Owner> allOwners;
-    private Flux<Pet> allPets;
+    private final ClientProperties properties;
+    private final WebClientConfig webClientConfig;
+    private final WebClient webClient;
+    private final RequestStats requestStats = new RequestStats();
+    private final String join;
+    private final int maxInMemory;
+    private final List<ExternalSorter<?>> sorters = new ArrayList<>();
+    private final TaskEngine engine;
 
     private final PetServiceClient petServiceClient;
 
     public static void main(String[] args) {
-        ClientApplication app = new ClientApplication();
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--")) {
+                options.put(separator < 0 ? arg.substring(2) : arg.substring(2, separator),
+                        separator < 0 ? "true" : arg.substring(separator + 1));
+            }
+        }
+
+        ClientApplication app = new ClientApplication(ClientProperties.fromOptions(options));
         app.run();
     }
 
     public ClientApplication() {
-        WebClientConfig webClientConfig = new WebClientConfig();
-        this.webClient = webClientConfig.webClient();
-        this.tasks = new Tasks(webClient);
-        this.allOwners = webClient.get().uri("http://localhost:8080/owner").retrieve().bodyToFlux(Owner.class);
-        this.allPets = webClient.get().uri("http://localhost:8080/pet").retrieve().bodyToFlux(Pet.class);
+        this(new ClientProperties());
+    }
+
+    /**
+     * @param properties The client settings.
+     */
+    public ClientApplication(ClientProperties properties) {
+        String join = properties.getJoin();
+        if (join != null && !join.equals("hash") && !join.equals("merge")) {
+            throw new IllegalArgumentException("Unknown join: " + join + " (expected hash or merge)");
+        }
+        int maxInMemory = properties.getMaxInMemory();
+        if (maxInMemory > 0 && "hash".equals(join)) {
+            throw new IllegalArgumentException("The hash join keeps all the pets in memory: use --join=merge with"
+                    + " --max-in-memory");
+        }
+        this.properties = properties;
+        this.join = join;
+        this.maxInMemory = maxInMemory;
+        this.webClientConfig = new WebClientConfig(properties);
+        this.webClient = webClientConfig.webClient().mutate().filter(requestStats).build();
+        this.petServiceClient = new PetServiceClient(webClient, properties);
+
+        int sharedMaxInMemory = maxInMemory > 0 ? Math.min(maxInMemory, properties.getSharedMaxInMemory())
+                : properties.getSharedMaxInMemory();
+        this.engine = new TaskEngine(properties.getTaskConcurrency(), sharedMaxInMemory, properties,
+                petServiceClient);
+        engine.source(OWNERS, Owner.class, () -> limitRate(webClient.get().uri("/owner").retrieve()
+                .bodyToFlux(Owner.class)));
+        engine.source(PETS, Pet.class, () -> limitRate(webClient.get().uri("/pet").retrieve()
+                .bodyToFlux(Pet.class)));
+        if (join != null) {
+            engine.source(OWNERS_WITH_PETS, null, List.of(OWNERS, PETS),
+                    context -> ownersWithPets(context.source(OWNERS), context.source(PETS)));
+        }
+    }
 
-        this.petServiceClient = new PetServiceClient(webClient);
+    /**
+     * In bounded memory, ask for the elements a few at a time, as they are
+     * consumed.
+     */
+    private <T> Flux<T> limitRate(Flux<T> elements) {
+        return maxInMemory > 0 ? elements.limitRate(properties.getLimitRate()) : elements;
     }
 
     /**
      * The entry point of the client application.
-     * It initializes the web client and concurrently executes various tasks.
+     * It runs the reports of every ReportProvider and waits for all of them.
      */
     public void run() {
+        List<ReportProvider> providers = new ArrayList<>();
+        ServiceLoader.load(ReportProvider.class).forEach(providers::add);
+        List<Report> reports = new ArrayList<>();
+        for (ReportProvider provider : providers) {
+            reports.addAll(provider.reports(properties));
+        }
 
-        // Combine all tasks into a single Mono
-        Mono<Void> combinedTasks = Mono.when(
-                tasks.ownersNamesPhones(this.allOwners).then(),
-                tasks.numberOfPets(this.allPets).then(),
-                tasks.numberOfDogs(this.allPets).then(),
-                tasks.petsSortedByWeight(this.allPets).then(),
-                tasks.averageAndStdDevOfWeights(this.allPets).then(),
-                tasks.nameOfEldestPet(this.allPets).then(),
-                tasks.averagePetsPerOwner(this.allPets).then(),
-                tasks.ownerNamesAndPetCountsSorted(this.allOwners, this.petServiceClient).then(),
-                tasks.ownerNamesAndPetNamesForTask9(this.allOwners, this.petServiceClient).then(),
-                tasks.taskGetPetByIdWithRetry(this.allPets, this.petServiceClient));
+        // Log the adaptive limit over time, with the pool metrics
+        AdaptiveLimiter limiter = petServiceClient.getLimiter();
+        Duration interval = properties.getPoolMetricsInterval();
+        Disposable limitLogger = limiter == null || interval == null ? null
+                : Flux.interval(interval, interval).subscribe(tick -> System.out.println("Limit " + limiter.getState()));
 
-        // Subscribe to the Mono and wait for it to complete before exiting
-        combinedTasks.doOnTerminate(() -> {
+        // Run the reports and wait for all of them to complete before exiting
+        List<TaskTiming> timings = engine.run(reports).doOnTerminate(() -> {
+            System.out.println("Run used " + requestStats + ", " + webClientConfig.getPoolStats());
+            if (petServiceClient.getBatchLoader() != null) {
+                System.out.println("Batched " + petServiceClient.getBatchLoader());
+            }
+            if (petServiceClient.getHedging() != null) {
+                System.out.println("Hedged " + petServiceClient.getHedging());
+            }
+            if (petServiceClient.getLimiter() != null) {
+                System.out.println("Limited " + petServiceClient.getLimiter());
+            }
+            if (petServiceClient.getResilience() != null) {
+                System.out.println("Resilience " + petServiceClient.getResilience());
+            }
+            if (webClientConfig.getLoadBalancer() != null) {
+                System.out.println("Balanced " + webClientConfig.getLoadBalancer());
+            }
+            for (ReportProvider provider : providers) {
+                if (provider.getSummary() != null) {
+                    System.out.println(provider.getSummary());
+                }
+            }
+            if (!sorters.isEmpty()) {
+                System.out.println("Sorted externally " + sorters);
+            }
+        }).block();
 
-        }).block(); // Block until all tasks are complete
+        System.out.println("Task timings:");
+        List<String> failed = new ArrayList<>();
+        for (TaskTiming timing : timings) {
+            System.out.println("  " + timing);
+            if (timing.getError() != null) {
+                failed.add(timing.getName());
+            }
+        }
 
+        if (limitLogger != null) {
+            limitLogger.dispose();
+        }
+        webClientConfig.dispose();
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Reports failed: " + failed);
+        }
+    }
+
+    /**
+     * Each owner with the list of its pets, joined locally from all owners and
+     * all pets.
+     */
+    private Flux<Tuple2<Owner, List<Pet>>> ownersWithPets(Flux<Owner> allOwners, Flux<Pet> allPets) {
+        Flux<Pet> ownedPets = allPets.filter(pet -> pet.getOwnerid() != null);
+        if ("merge".equals(join)) {
+            Comparator<Owner> byIdentifier = Comparator.comparing(Owner::getIdentifier);
+            Comparator<Pet> byOwner = Comparator.comparing(Pet::getOwnerid);
+            if (maxInMemory > 0) {
+                ExternalSorter<Owner> ownersSorter = ExternalSorter.json("ownersById", Owner.class, byIdentifier,
+                        maxInMemory);
+                ExternalSorter<Pet> petsSorter = ExternalSorter.json("petsByOwner", Pet.class, byOwner, maxInMemory);
+                sorters.add(ownersSorter);
+                sorters.add(petsSorter);
+                return Joins.mergeGroupJoin(ownersSorter.sort(allOwners), Owner::getIdentifier,
+                        petsSorter.sort(ownedPets), Pet::getOwnerid);
+            }
+            return Joins.mergeGroupJoin(allOwners.sort(byIdentifier), Owner::getIdentifier, ownedPets.sort(byOwner),
+                    Pet::getOwnerid);
+        }
+        return Joins.groupJoin(allOwners, Owner::getIdentifier, ownedPets, Pet::getOwnerid);
     }
 }
@@ -0,0 +1,114 @@
+package com.example.demo.client;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.config.WebClientConfig;
+import com.example.demo.client.load.EndpointMix;
+import com.example.demo.client.load.LoadGenerator;
+import com.example.demo.client.load.LoadReport;
+import com.example.demo.client.utils.AsyncFileOutput;
+import com.example.demo.client.utils.HedgedRequests;
+
+/**
+ * Command line entry point that load tests a running server and reports the
+ * latency percentiles, throughput and errors of each endpoint.
+ *
+ * Options (all optional):
+ * --url=http://localhost:8080
+ * --mode=open|closed --rate=200 (open, req/s) --users=16 (closed)
+ * --duration=30s --warmup=5s
+ * --mix=pet:50,owner:20,pet-owner:20,pet-count:10
+ * (endpoints: pet, pet-delay, pet-owner, pets, owner, owners, pet-count)
+ * --pets=10000 --owners=1000 (ranges of the random ids) --seed=42
+ * --max-in-flight=1024 (open) --connections=256
+ * --http2=false (h2c) --pool-metrics-interval=5s (log active/idle/pending)
+ * --hedge=false --hedge-quantile=0.9 --hedge-budget-ratio=0.1 (hedged
+ * requests, see HedgedRequests)
+ *
+ * The report is printed and written to output/LoadTest_report.txt, and the
+ * full latency distribution of each endpoint to output/LoadTest_<endpoint>.hgrm.
+ */
+public class LoadGeneratorApplication {
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        String mode = options.getOrDefault("mode", "open");
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "5s"));
+        EndpointMix mix = EndpointMix.parse(options.getOrDefault("mix", "pet:50,owner:20,pet-owner:20,pet-count:10"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "256"));
+
+        // Enough pooled connections for the load, and no limit on requests waiting for one
+        ClientProperties properties = new ClientProperties();
+        properties.setBaseUrl(url);
+        properties.setMaxConnections(connections);
+        properties.setPendingAcquireMaxCount(-1);
+        properties.setHttp2(Boolean.parseBoolean(options.getOrDefault("http2", "false")));
+        if (options.containsKey("pool-metrics-interval")) {
+            properties.setPoolMetricsInterval(DurationStyle.detectAndParse(options.get("pool-metrics-interval")));
+        }
+        properties.setHedgeQuantile(Double.parseDouble(options.getOrDefault("hedge-quantile", "0.9")));
+        properties.setHedgeBudgetRatio(Double.parseDouble(options.getOrDefault("hedge-budget-ratio", "0.1")));
+        HedgedRequests hedging = Boolean.parseBoolean(options.getOrDefault("hedge", "false"))
+                ? new HedgedRequests("load", properties)
+                : null;
+        WebClientConfig webClientConfig = new WebClientConfig(properties);
+        WebClient webClient = webClientConfig.webClient();
+
+        LoadGenerator generator = new LoadGenerator(webClient, mix,
+                Long.parseLong(options.getOrDefault("pets", "10000")),
+                Long.parseLong(options.getOrDefault("owners", "1000")),
+                Long.parseLong(options.getOrDefault("seed", "42")), hedging);
+
+        System.out.println("Load testing " + url + " (" + mode + " model) for " + warmup.toSeconds() + " s warm-up + "
+                + duration.toSeconds() + " s...");
+
+        LoadReport report;
+        try {
+            if ("closed".equalsIgnoreCase(mode)) {
+                report = generator.runClosed(Integer.parseInt(options.getOrDefault("users", "16")), warmup, duration)
+                        .block();
+            } else {
+                report = generator.runOpen(Double.parseDouble(options.getOrDefault("rate", "200")), warmup, duration,
+                        Integer.parseInt(options.getOrDefault("max-in-flight", "1024"))).block();
+            }
+        } finally {
+            webClientConfig.dispose();
+        }
+
+        String summary = report.format();
+        if (hedging != null) {
+            summary += "\nHedged " + hedging + "\n";
+        }
+        System.out.println(summary);
+
+        Flux.concat(
+                AsyncFileOutput.writeLines("LoadTest_report.txt", Mono.just(summary)),
+                Flux.fromIterable(report.getStats().keySet())
+                        .concatMap(endpoint -> AsyncFileOutput.writeLines("LoadTest_" + endpoint.getKey() + ".hgrm",
+                                Mono.just(report.percentileDistribution(endpoint)))))
+                .blockLast();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.client;
+
+import static com.example.demo.client.ClientApplication.OWNERS;
+import static com.example.demo.client.ClientApplication.OWNERS_WITH_PETS;
+import static com.example.demo.client.ClientApplication.PETS;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.engine.Report;
+import com.example.demo.client.engine.ReportProvider;
+import com.example.demo.client.engine.Workload;
+
+/**
+ * The tasks of Tasks as reports, in the variants picked by the options:
+ * --single-pass computes tasks 2, 3, 5, 6 and 7 together, and --join computes
+ * tasks 7, 8 and 9 from the owners joined with their pets instead of one
+ * request per owner and pet (Task 7 then left out of the single pass, so
+ * that one report writes each file), and --rails spreads the aggregations
+ * and sorts over several threads.
+ */
+public class TaskReports implements ReportProvider {
+
+    private Tasks tasks;
+
+    @Override
+    public List<Report> reports(ClientProperties properties) {
+        tasks = new Tasks(null, properties.getMaxInMemory(), properties.getLimit(), properties.getRails(),
+                properties.getExpectedOwners());
+        List<Report> reports = new ArrayList<>();
+
+        reports.add(Report.of("task1OwnersNamesPhones", Workload.NON_BLOCKING, List.of(OWNERS),
+                context -> tasks.ownersNamesPhones(context.source(OWNERS))));
+
+        // Tasks 2, 3, 5, 6 and 7, either from one traversal or one each; with a join, Task 7 is the join's
+        boolean joined = properties.getJoin() != null;
+        if (properties.isSinglePass()) {
+            reports.add(Report.of("petStatisticsSinglePass", Workload.CPU, List.of(PETS),
+                    context -> tasks.petStatisticsSinglePass(context.source(PETS), !joined)));
+        } else {
+            reports.add(Report.of("task2NumberOfPets", Workload.NON_BLOCKING, List.of(PETS),
+                    context -> tasks.numberOfPets(context.source(PETS))));
+            reports.add(Report.of("task3NumberOfDogs", Workload.NON_BLOCKING, List.of(PETS),
+                    context -> tasks.numberOfDogs(context.source(PETS))));
+            reports.add(Report.of("task5AverageAndStdDev", Workload.NON_BLOCKING, List.of(PETS),
+                    context -> tasks.averageAndStdDevOfWeights(context.source(PETS))));
+            reports.add(Report.of("task6NameOfEldestPet", Workload.NON_BLOCKING, List.of(PETS),
+                    context -> tasks.nameOfEldestPet(context.source(PETS))));
+            if (!joined) {
+                reports.add(Report.of("task7AveragePetsPerOwner", Workload.NON_BLOCKING, List.of(PETS),
+                        context -> tasks.averagePetsPerOwner(context.source(PETS))));
+            }
+        }
+
+        reports.add(Report.of("task4PetsSortedByWeight", Workload.CPU, List.of(PETS),
+                context -> tasks.petsSortedByWeight(context.source(PETS))));
+
+        // Tasks 8 and 9 (and 7), either from a local join or with requests per owner and pet
+        if (joined) {
+            reports.add(Report.of("task7AveragePetsPerOwnerJoin", Workload.CPU, List.of(OWNERS_WITH_PETS),
+                    context -> tasks.averagePetsPerOwnerJoined(context.source(OWNERS_WITH_PETS))));
+            reports.add(Report.of("task8PetCountsSortedJoin", Workload.CPU, List.of(OWNERS_WITH_PETS),
+                    context -> tasks.ownerNamesAndPetCountsSortedJoined(context.source(OWNERS_WITH_PETS))));
+            reports.add(Report.of("task9PetNamesSortedJoin", Workload.CPU, List.of(OWNERS_WITH_PETS),
+                    context -> tasks.ownerNamesAndPetNamesForTask9Joined(context.source(OWNERS_WITH_PETS))));
+        } else {
+            reports.add(Report.of("task8PetCountsSorted", Workload.NON_BLOCKING, List.of(OWNERS),
+                    context -> tasks.ownerNamesAndPetCountsSorted(context.source(OWNERS),
+                            context.getPetServiceClient())));
+            reports.add(Report.of("task9PetNamesSorted", Workload.NON_BLOCKING, List.of(OWNERS),
+                    context -> tasks.ownerNamesAndPetNamesForTask9(context.source(OWNERS),
+                            context.getPetServiceClient())));
+        }
+
+        reports.add(Report.of("task10GetPetByIdWithRetry", Workload.NON_BLOCKING, List.of(PETS),
+                context -> tasks.taskGetPetByIdWithRetry(context.source(PETS), context.getPetServiceClient())));
+        return reports;
+    }
+
+    @Override
+    public String getSummary() {
+        return tasks == null || tasks.getSorters().isEmpty() ? null : "Sorted externally " + tasks.getSorters();
+    }
+}
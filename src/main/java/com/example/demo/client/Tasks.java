@@ -3,25 +3,144 @@ package com.example.demo.client;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
 import org.springframework.web.reactive.function.client.WebClient;
 
 import com.example.demo.client.service.PetServiceClient;
+import com.example.demo.client.stats.KeyCounter;
+import com.example.demo.client.stats.PetStatistics;
+import com.example.demo.client.stats.QuantileSketch;
+import com.example.demo.client.stats.RunningStats;
+import com.example.demo.client.stats.TopK;
 import com.example.demo.server.model.Owner;
 import com.example.demo.server.model.Pet;
-import com.example.demo.client.utils.FileOutputUtil;
+import com.example.demo.client.utils.AsyncFileOutput;
+import com.example.demo.client.utils.ExternalSorter;
+import com.example.demo.client.utils.ParallelMergeSort;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuples;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+import reactor.util.function.Tuple2;
 
 public class Tasks {
 
+    private static final Comparator<CountedLine> BY_COUNT_DESCENDING = (line1, line2) -> Long.compare(line2.count,
+            line1.count);
+
+    private static final Comparator<Pet> BY_WEIGHT = Comparator.comparingDouble(Pet::getWeight);
+    // Owners the counts are pre-sized for at most; beyond that they grow as they count
+    private static final int MAX_EXPECTED_OWNERS = 1 << 20;
+
+    // Null to sort in memory
+    private final ExternalSorter<Pet> petsByWeight;
+    private final ExternalSorter<CountedLine> linesByCount;
+    private final int limit;
+    private final int rails;
+    private final int expectedOwners; // 0 if unknown
+    private final ForkJoinPool sortPool; // null to sort on the subscriber thread
+
     public Tasks(WebClient webClient) {
+        this(webClient, 0, 0);
+    }
+
+    /**
+     * @param webClient   The configured WebClient instance.
+     * @param maxInMemory Elements a sort keeps in memory before spilling to
+     *                    disk (see ExternalSorter), or 0 to sort in memory.
+     */
+    public Tasks(WebClient webClient, int maxInMemory) {
+        this(webClient, maxInMemory, 0);
+    }
+
+    /**
+     * @param webClient   The configured WebClient instance.
+     * @param maxInMemory Elements a sort keeps in memory before spilling to
+     *                    disk (see ExternalSorter), or 0 to sort in memory.
+     * @param limit       Lines written by the sorted tasks (4, 8 and 9), which
+     *                    then only keep that many elements (see TopK), or 0
+     *                    for all of them.
+     */
+    public Tasks(WebClient webClient, int maxInMemory, int limit) {
+        this(webClient, maxInMemory, limit, 1);
+    }
+
+    /**
+     * @param webClient   The configured WebClient instance.
+     * @param maxInMemory Elements a sort keeps in memory before spilling to
+     *                    disk (see ExternalSorter), or 0 to sort in memory.
+     * @param limit       Lines written by the sorted tasks (4, 8 and 9), which
+     *                    then only keep that many elements (see TopK), or 0
+     *                    for all of them.
+     * @param rails       Threads the CPU-heavy tasks use: tasks 3, 5, 7 and
+     *                    the single pass aggregate on that many parallel
+     *                    rails, and the in-memory sorts run on a fork-join
+     *                    pool of that size (see ParallelMergeSort); 0 or 1 to
+     *                    run them all on the subscriber thread.
+     */
+    public Tasks(WebClient webClient, int maxInMemory, int limit, int rails) {
+        this(webClient, maxInMemory, limit, rails, 0);
+    }
 
+    /**
+     * @param webClient      The configured WebClient instance.
+     * @param maxInMemory    Elements a sort keeps in memory before spilling
+     *                       to disk (see ExternalSorter), or 0 to sort in
+     *                       memory.
+     * @param limit          Lines written by the sorted tasks (4, 8 and 9),
+     *                       which then only keep that many elements (see
+     *                       TopK), or 0 for all of them.
+     * @param rails          Threads the CPU-heavy tasks use: tasks 3, 5, 7
+     *                       and the single pass aggregate on that many
+     *                       parallel rails, and the in-memory sorts run on a
+     *                       fork-join pool of that size (see
+     *                       ParallelMergeSort); 0 or 1 to run them all on the
+     *                       subscriber thread.
+     * @param expectedOwners Owners expected to have pets, which the counts of
+     *                       pets per owner (Task 7) are sized for so that
+     *                       they do not grow while counting (at most
+     *                       MAX_EXPECTED_OWNERS), or 0 if unknown: the
+     *                       counts then start small.
+     */
+    public Tasks(WebClient webClient, int maxInMemory, int limit, int rails, int expectedOwners) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit cannot be negative: " + limit);
+        }
+        if (rails < 0) {
+            throw new IllegalArgumentException("The number of rails cannot be negative: " + rails);
+        }
+        if (expectedOwners < 0) {
+            throw new IllegalArgumentException("The expected owners cannot be negative: " + expectedOwners);
+        }
+        this.limit = limit;
+        this.rails = Math.max(1, rails);
+        this.expectedOwners = Math.min(expectedOwners, MAX_EXPECTED_OWNERS);
+        this.sortPool = rails > 1 && maxInMemory <= 0 ? new ForkJoinPool(rails) : null;
+        if (maxInMemory > 0) {
+            this.petsByWeight = ExternalSorter.json("petsByWeight", Pet.class, BY_WEIGHT, maxInMemory);
+            this.linesByCount = new ExternalSorter<>("linesByCount", BY_COUNT_DESCENDING, maxInMemory,
+                    CountedLine::encode, CountedLine::decode);
+        } else {
+            this.petsByWeight = null;
+            this.linesByCount = null;
+        }
+    }
+
+    /**
+     * @return The sorters spilling to disk, empty if the tasks sort in memory.
+     */
+    public List<ExternalSorter<?>> getSorters() {
+        return petsByWeight == null ? List.of() : List.of(petsByWeight, linesByCount);
     }
 
     /**
@@ -33,31 +152,17 @@ public class Tasks {
         // Define the file path
         String filePath = "Task1_ownersNamesPhones.txt";
 
-        // Clear the file
-        FileOutputUtil.clearFile(filePath);
-
-        // Create a StringBuilder to buffer the owner details
-        StringBuilder ownerDetailsBuffer = new StringBuilder();
-
         // Start the timer
         Instant start = Instant.now();
 
-        // Use a copy of allOwners to avoid multiple subscriptions
-        return allOwners
-                .doOnNext(owner -> {
-                    // Handle each received owner here
-                    String ownerDetails = "Owner Name: " + owner.getName() + " -> phone number: "
-                            + owner.getPhone_number();
-                    ownerDetailsBuffer.append(ownerDetails).append("\n"); // Append to the buffer with a newline
-                })
-                .then() // Ignore element emission and only react on completion signal
+        // Each owner's line is written as it arrives
+        return AsyncFileOutput.writeLines(filePath, allOwners
+                .map(owner -> "Owner Name: " + owner.getName() + " -> phone number: " + owner.getPhone_number()))
                 .doOnError(error -> {
                     // Handle errors if they occur
                     System.err.println("Error fetching owners: " + error.getMessage());
                 })
                 .doOnSuccess(aVoid -> {
-                    // Write the buffered owner details to the file
-                    FileOutputUtil.writeToFile(filePath, ownerDetailsBuffer.toString());
                     Duration duration = Duration.between(start, Instant.now());
                     System.out.println("Task 1: ✅ -> " + duration.toMillis() + " ms");
                 });
@@ -73,32 +178,19 @@ public class Tasks {
         // Define the file path
         String filePath = "Task2_totalPets.txt";
 
-        // Clear the file
-        FileOutputUtil.clearFile(filePath);
-
-        // Create a buffer for the result string
-        StringBuilder resultBuffer = new StringBuilder();
-
         // Start the timer
         Instant start = Instant.now();
 
         // Chain the operations and return a Mono<Void> that represents the completion
         // of this task
-        return allPets
+        return AsyncFileOutput.writeLines(filePath, allPets
                 .count() // This returns a Mono<Long> with the count of pets
-                .doOnNext(count -> {
-                    // Handle the received pet count here
-                    String petCount = "Total number of pets: " + count;
-                    resultBuffer.append(petCount); // Store the result in the buffer
-                })
+                .map(count -> "Total number of pets: " + count))
                 .doOnError(error -> {
                     // Handle errors if they occur
                     System.err.println("Error fetching pet count: " + error.getMessage());
                 })
-                .then() // Use then to return a Mono<Void> after the operation completes
                 .doOnSuccess(aVoid -> {
-                    // Write the result to the file
-                    FileOutputUtil.writeToFile(filePath, resultBuffer.toString());
                     Duration duration = Duration.between(start, Instant.now());
                     System.out.println("Task 2: ✅ -> " + duration.toMillis() + " ms");
                 });
@@ -113,40 +205,34 @@ public class Tasks {
         // Define the path
         String filePath = "Task3_totalDogs.txt";
 
-        // Clear the file
-        FileOutputUtil.clearFile(filePath);
-
-        // Create a buffer for the result string
-        StringBuilder resultBuffer = new StringBuilder();
-
         // Start the timer
         Instant start = Instant.now();
 
         // Return a Mono<Void> that represents the completion of counting dogs
-        return allPets
-                .filter(pet -> "dog".equalsIgnoreCase(pet.getSpecies()))
-                .count() // This returns a Mono<Long> with the count of dogs
-                .doOnNext(count -> {
-                    // Handle the count here
-                    String dogCount = "Number of dogs: " + count;
-                    resultBuffer.append(dogCount); // Store the result in the buffer
-                })
+        return AsyncFileOutput.writeLines(filePath, aggregate(allPets,
+                () -> new long[1],
+                (count, pet) -> {
+                    if ("dog".equalsIgnoreCase(pet.getSpecies())) {
+                        count[0]++;
+                    }
+                },
+                (count1, count2) -> {
+                    count1[0] += count2[0];
+                    return count1;
+                }) // This returns a Mono<long[]> with the count of dogs
+                .map(count -> "Number of dogs: " + count[0]))
                 .doOnError(error -> {
                     // Handle errors if they occur
                     System.err.println("Error fetching number of dogs: " + error.getMessage());
                 })
-                .then() // Use then to return a Mono<Void> after the operation completes
                 .doOnSuccess(aVoid -> {
-                    // Write the result to the file upon successful completion
-                    FileOutputUtil.writeToFile(filePath, resultBuffer.toString());
-
                     Duration duration = Duration.between(start, Instant.now());
                     System.out.println("Task 3: ✅ -> " + duration.toMillis() + " ms");
                 });
     }
 
     /**
-     * Task 4: Get pets sorted by weight.
+     * Task 4: Get pets sorted by weight (only the lightest ones with a limit).
      * 
      * @param webClient The configured WebClient instance.
      */
@@ -154,28 +240,18 @@ public class Tasks {
         // Define the path
         String filePath = "Task4_sortedWeight.txt";
 
-        // Clear the file
-        FileOutputUtil.clearFile(filePath);
-
-        // Create a buffer to store pets' details
-        StringBuilder petDetailsBuffer = new StringBuilder();
+        // The last pet written, returned once the file is complete
+        AtomicReference<Pet> heaviest = new AtomicReference<>();
 
         // Start the timer
         Instant start = Instant.now();
 
         // Process the allPets flux
-        return allPets
+        return AsyncFileOutput.writeLines(filePath, allPets
                 .filter(pet -> pet.getWeight() > 10) // Only keep pets with weight greater than 10
-                .sort(Comparator.comparingDouble(Pet::getWeight)) // Sort the pets by weight
-                .doOnNext(pet -> {
-                    // Append each pet's details to the buffer
-                    String petDetails = "Pet Name: " + pet.getName() + " -> weight: " + pet.getWeight() + "\n";
-                    petDetailsBuffer.append(petDetails);
-                })
-                .doOnComplete(() -> {
-                    // Write the pet details to the file upon completion
-                    FileOutputUtil.writeToFile(filePath, petDetailsBuffer.toString());
-                })
+                .transform(pets -> ordered(pets, BY_WEIGHT, petsByWeight)) // Sort the pets by weight
+                .doOnNext(heaviest::set)
+                .map(pet -> "Pet Name: " + pet.getName() + " -> weight: " + pet.getWeight()))
                 .doOnError(error -> {
                     // Handle errors if they occur
                     System.err.println("Error fetching pets: " + error.getMessage());
@@ -185,7 +261,8 @@ public class Tasks {
                     Duration duration = Duration.between(start, Instant.now());
                     System.out.println("Task 4: ✅ -> " + duration.toMillis() + " ms");
                 })
-                .last(); // Return the last pet in the sorted list as a Mono<Pet>
+                .then(Mono.fromCallable(heaviest::get))
+                .single(); // Return the last pet in the sorted list as a Mono<Pet>
     }
 
     /**
@@ -198,49 +275,20 @@ public class Tasks {
         // Define the path
         String filePath = "Task5_stdDevWeights.txt";
 
-        // Clear the file
-        FileOutputUtil.clearFile(filePath);
-
-        StringBuilder resultBuffer = new StringBuilder();
-
         // Start the timer
         Instant start = Instant.now();
 
-        // Calculate sum of weights
-        Mono<Double> sumMono = allPets.map(Pet::getWeight)
-                .reduce((Double) 0.0, (a, b) -> Double.sum(a.doubleValue(), b.doubleValue()));
-
-        // Calculate sum of squares of weights
-        Mono<Double> sumOfSquaresMono = allPets.map(pet -> Math.pow(pet.getWeight(), 2))
-                .reduce((Double) 0.0, (a, b) -> Double.sum(a.doubleValue(), b.doubleValue()));
-
-        // Count the pets
-        Mono<Long> countMono = allPets.count();
-
-        // Combine the results and calculate average and standard deviation
-        return Mono.zip(sumMono, sumOfSquaresMono, countMono)
-                .flatMap(tuple -> {
-                    double sum = tuple.getT1();
-                    double sumOfSquares = tuple.getT2();
-                    long count = tuple.getT3();
-
-                    if (count > 0) {
-                        double average = sum / count;
-                        double variance = (sumOfSquares / count) - (average * average);
-                        double stdDev = Math.sqrt(variance);
-
-                        resultBuffer.append("Average Weight: ").append(String.format("%.2f", average)).append("\n");
-                        resultBuffer.append("Standard Deviation: ").append(String.format("%.2f", stdDev)).append("\n");
-                    } else {
-                        return Mono.error(new IllegalStateException("No pets found."));
+        // Mean and variance in a single pass (Welford), which stays accurate when
+        // the weights are large compared to their spread
+        return AsyncFileOutput.writeLines(filePath,
+                aggregate(allPets, RunningStats::new, (stats, pet) -> stats.accept(pet.getWeight()),
+                        RunningStats::merge)
+                .flatMapMany(stats -> {
+                    if (stats.getCount() == 0) {
+                        return Flux.error(new IllegalStateException("No pets found."));
                     }
-                    // No need to return anything as the next step is doOnSuccess
-                    return Mono.empty();
-                })
-                .doOnSuccess(aVoid -> {
-                    // This executes if the above flatMap completes without emitting an error
-                    FileOutputUtil.writeToFile(filePath, resultBuffer.toString());
-                })
+                    return Flux.fromIterable(weightStatisticsLines(stats));
+                }))
                 .doOnError(error -> {
                     // Handle errors if they occur
                     System.err.println("Error calculating weights: " + error.getMessage());
@@ -248,8 +296,7 @@ public class Tasks {
                 .doFinally(signalType -> {
                     Duration duration = Duration.between(start, Instant.now());
                     System.out.println("Task 5: ✅ -> " + duration.toMillis() + " ms");
-                })
-                .then(); // Return an empty Mono<Void> to complete the chain
+                });
     }
 
     /**
@@ -260,82 +307,119 @@ public class Tasks {
     public Mono<Void> nameOfEldestPet(Flux<Pet> allPets) {
         // Define the path
         String filePath = "Task6_eldestPet.txt";
-        StringBuilder resultBuffer = new StringBuilder();
-
-        FileOutputUtil.clearFile(filePath);
 
         // Start the timer
         Instant start = Instant.now();
 
-        // Find the eldest pet by comparing birth dates
-        return allPets
-                .reduce((pet1, pet2) -> pet1.getBirth_date().isBefore(pet2.getBirth_date()) ? pet1 : pet2)
+        // Find the eldest pet by comparing birth dates, then ids, as the single pass does
+        return AsyncFileOutput.writeLines(filePath, allPets
+                .reduce((pet1, pet2) -> PetStatistics.ELDEST_FIRST.compare(pet1, pet2) <= 0 ? pet1 : pet2)
+                .map(eldestPet -> "Name of the eldest pet: " + eldestPet.getName()))
                 .doOnError(error -> {
                     // Handle errors if they occur
                     System.err.println("Error fetching pets: " + error.getMessage());
                 })
-                .doOnSuccess(eldestPet -> {
-                    // Handle the eldest pet here (if there is one)
-                    if (eldestPet != null) {
-                        resultBuffer.append("Name of the eldest pet: ").append(eldestPet.getName()).append("\n");
-                        FileOutputUtil.writeToFile(filePath, resultBuffer.toString());
-                    }
-                })
                 .doFinally(signalType -> {
 
                     Duration duration = Duration.between(start, Instant.now());
                     System.out.println("Task 6: ✅ -> " + duration.toMillis() + " ms");
-                })
-                .then(); // Return an empty Mono<Void> to complete the chain
+                });
     }
 
     /***
      * Task 7: Get the Average number of Pets per Owner, considering
      * only the owners with more than one animal.
      * 
+     * The owners are the owner ids of the pets and the pets without an owner
+     * are left out, as in the single pass and the join (see
+     * averagePetsPerOwnerLine).
+     * 
      * @param webClient The WebClient to use for making requests.
      */
     public Mono<Void> averagePetsPerOwner(Flux<Pet> allPets) {
         // Define the path
         String filePath = "Task7_averagePetsOwner.txt";
-        StringBuilder resultBuffer = new StringBuilder();
-
-        // CLEAR THE FILE
-        FileOutputUtil.clearFile(filePath);
 
         // Start the timer
         Instant start = Instant.now();
 
-        return allPets
-                .collect(
-                        // Use a collector to aggregate the counts into a map
-                        HashMap<Long, Long>::new,
-                        (map, pet) -> map.merge(pet.getOwnerid(), 1L, (existing, increment) -> existing + increment))
-                .flatMap(map -> {
-                    long totalPets = map.values().stream().mapToLong(Long::longValue).sum();
-                    long totalOwners = map.size();
+        return AsyncFileOutput.writeLines(filePath,
+                // Count the pets of each owner without boxing the owner ids, adding up
+                // the counts of the rails
+                aggregate(allPets, () -> new PetsPerOwner(expectedOwners), PetsPerOwner::accept,
+                        PetsPerOwner::merge)
+                .map(petsPerOwner -> averagePetsPerOwnerLine(petsPerOwner.counts.total(),
+                        petsPerOwner.counts.size())))
+                .doOnError(error -> {
+                    // Handle errors if they occur
+                    System.err.println("Error computing average: " + error.getMessage());
+                })
+                .doFinally(signalType -> {
+                    Duration duration = Duration.between(start, Instant.now());
+                    System.out.println("Task 7: ✅ -> " + duration.toMillis() + " ms");
+                });
+    }
 
-                    double average = totalOwners == 0 ? 0 : (double) totalPets / totalOwners;
-                    resultBuffer.append("Average number of pets per owner: ").append(String.format("%.2f", average))
-                            .append("\n");
+    /**
+     * Tasks 2, 3, 5, 6 and 7 computed from a single traversal of the pets,
+     * writing the same files as the individual tasks.
+     *
+     * @param allPets The pets.
+     */
+    public Mono<Void> petStatisticsSinglePass(Flux<Pet> allPets) {
+        return petStatisticsSinglePass(allPets, true);
+    }
 
-                    return Mono.just(resultBuffer.toString());
+    /**
+     * Tasks 2, 3, 5 and 6, and optionally 7, computed from a single traversal
+     * of the pets, writing the same files as the individual tasks.
+     *
+     * @param allPets             The pets.
+     * @param averagePetsPerOwner Whether to write Task 7 too, false when
+     *                            another report (the join) writes it.
+     */
+    public Mono<Void> petStatisticsSinglePass(Flux<Pet> allPets, boolean averagePetsPerOwner) {
+        // Start the timer
+        Instant start = Instant.now();
+
+        return PetStatistics.of(allPets, rails, expectedOwners)
+                .flatMap(stats -> {
+                    QuantileSketch quantiles = stats.getWeightQuantiles();
+                    System.out.println(String.format("Weight quantiles: p50 %.2f, p90 %.2f, p99 %.2f",
+                            quantiles.quantile(0.5), quantiles.quantile(0.9), quantiles.quantile(0.99)));
+
+                    Pet eldestPet = stats.getEldest();
+                    return Mono.when(
+                            AsyncFileOutput.writeLines("Task2_totalPets.txt",
+                                    Mono.just("Total number of pets: " + stats.getCount())),
+                            AsyncFileOutput.writeLines("Task3_totalDogs.txt",
+                                    Mono.just("Number of dogs: " + stats.getDogs())),
+                            stats.getWeights().getCount() == 0 ? Mono.empty()
+                                    : AsyncFileOutput.writeLines("Task5_stdDevWeights.txt",
+                                            Flux.fromIterable(weightStatisticsLines(stats.getWeights()))),
+                            eldestPet == null ? Mono.empty()
+                                    : AsyncFileOutput.writeLines("Task6_eldestPet.txt",
+                                            Mono.just("Name of the eldest pet: " + eldestPet.getName())),
+                            !averagePetsPerOwner ? Mono.empty()
+                                    : AsyncFileOutput.writeLines("Task7_averagePetsOwner.txt",
+                                            Mono.just(averagePetsPerOwnerLine(stats.getPetsPerOwner().total(),
+                                                    stats.getPetsPerOwner().size()))));
                 })
-                .doOnSuccess(content -> FileOutputUtil.writeToFile(filePath, resultBuffer.toString()))
                 .doOnError(error -> {
                     // Handle errors if they occur
-                    System.err.println("Error computing average: " + error.getMessage());
+                    System.err.println("Error computing pet statistics: " + error.getMessage());
                 })
                 .doFinally(signalType -> {
                     Duration duration = Duration.between(start, Instant.now());
-                    System.out.println("Task 7: ✅ -> " + duration.toMillis() + " ms");
+                    System.out.println("Tasks 2, 3, 5, 6" + (averagePetsPerOwner ? ", 7" : "")
+                            + " (single pass): ✅ -> " + duration.toMillis() + " ms");
                 })
-                .then(); // Return an empty Mono<Void> to complete the chain
+                .then();
     }
 
     /**
      * Task 8: Get the Owner Names and the number of Pets they have, sorted by the
-     * number of Pets.
+     * number of Pets (only the owners with the most pets with a limit).
      *
      * 
      * @param webClient The WebClient to use for making requests.
@@ -344,47 +428,33 @@ public class Tasks {
         // Define the path
         String filePath = "Task8_ownerNamesPetCountsSorted.txt";
 
-        // Clear the file
-        FileOutputUtil.clearFile(filePath);
-
-        StringBuilder resultBuffer = new StringBuilder();
-
         // Start the timer
         Instant start = Instant.now();
 
-        return allOwners
+        return AsyncFileOutput.writeLines(filePath, allOwners
                 // .subscribeOn(Schedulers.boundedElastic())
                 .flatMap(owner -> petServiceClient.getPetIdsByOwnerId(owner.getIdentifier())
                         .count()
-                        .map(count -> Tuples.of(owner, count)))
+                        .map(count -> new CountedLine(count,
+                                "Owner Name: " + owner.getName() + " -> Number of Pets: " + count)))
                 // .subscribeOn(Schedulers.boundedElastic()))
-                .sort((tuple1, tuple2) -> Long.compare(tuple2.getT2(), tuple1.getT2())) // Sort by pet count
+                .transform(this::sortByCountDescending) // Sort by pet count
                 // .retryWhen(Retry.backoff(3,
                 // Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(10)))
-                .doOnNext(tuple -> {
-                    // Process each tuple and append the results to the buffer
-                    Owner owner = tuple.getT1();
-                    long count = tuple.getT2();
-                    resultBuffer.append("Owner Name: ").append(owner.getName()).append(" -> Number of Pets: ")
-                            .append(count).append("\n");
-                })
+                .map(CountedLine::getLine))
                 .doOnError(error -> {
                     System.err.println("Error fetching owner and pet details: " + error.getMessage());
                 })
-                .doOnComplete(() -> {
-                    // Once all the data is collected, write it to the file.
-                    FileOutputUtil.writeToFile(filePath, resultBuffer.toString());
-                })
                 .doFinally(signalType -> {
                     // When the flux completes, calculate the duration and print it.
                     Duration duration = Duration.between(start, Instant.now());
                     System.out.println("Task 8: ✅ -> " + duration.toMillis() + " ms");
-                })
-                .then(); // Complete the Mono<Void> chain.
+                });
     }
 
     /**
-     * Task 9: Get the owner names and pet names sorted by pet count
+     * Task 9: Get the owner names and pet names sorted by pet count (only the
+     * owners with the most pets with a limit)
      * 
      *
      * @param webClient The WebClient instance for making the requests.
@@ -394,93 +464,297 @@ public class Tasks {
         // Define the path
         String filePath = "Task9_ownerNamesAndPetNamesSorted.txt";
 
-        // Clear the file
-        FileOutputUtil.clearFile(filePath);
-
-        // Create a buffer for the result string
-        StringBuilder resultBuffer = new StringBuilder();
-
         // Start the timer
         Instant start = Instant.now();
 
+        // With an adaptive limit the client keeps as many requests in flight as the
+        // server can take, so the fan-out does not have to be bounded here as well
+        int fanOut = petServiceClient.getLimiter() == null ? 16 : Queues.SMALL_BUFFER_SIZE;
+
         // Begin processing
-        return allOwners
+        return AsyncFileOutput.writeLines(filePath, allOwners
                 .flatMap(owner -> petServiceClient.getPetIdsByOwnerId(owner.getIdentifier())
-                        .flatMap(petId -> petServiceClient.getPetById(petId), 16) // Adjusted concurrency
+                        .flatMap(petId -> petServiceClient.getPetById(petId), fanOut) // Adjusted concurrency
                         .map(Pet::getName) // Extract pet names
                         .reduce(new ArrayList<String>(), (names, name) -> {
                             names.add(name); // Accumulate pet names into the list
                             return names;
                         })
-                        .map(names -> Tuples.of(owner, names)), 16) // Create a tuple of owner and List<String>
-                .sort((tuple1, tuple2) -> Integer.compare(tuple2.getT2().size(), tuple1.getT2().size()))
-                .doOnNext(tuple -> {
-                    Owner owner = tuple.getT1();
-                    List<String> petNames = tuple.getT2();
-                    resultBuffer.append("Owner Name: ").append(owner.getName()).append(" -> Pets: ")
-                            .append(String.join(", ", petNames)).append("\n");
-                })
+                        .map(names -> new CountedLine(names.size(), "Owner Name: " + owner.getName() + " -> Pets: "
+                                + String.join(", ", names))), fanOut) // The owner's line with its number of pets
+                .transform(this::sortByCountDescending)
+                .map(CountedLine::getLine))
                 .doOnError(error -> {
                     System.err.println("Error fetching owner and pet details: " + error.getMessage());
                 })
-                .doOnComplete(() -> {
-                    // Once all the data is collected, write it to the file.
-                    FileOutputUtil.writeToFile(filePath, resultBuffer.toString());
-                })
                 .doFinally(signalType -> {
                     // When the flux completes, calculate the duration and print it.
                     Duration duration = Duration.between(start, Instant.now());
                     System.out.println("Task 9: ✅ -> " + duration.toMillis() + " ms");
+                }); // Signal completion without emitting any elements
+
+    }
+
+    /**
+     * Task 7 computed from the owners joined with their pets (see Joins), with
+     * no requests per owner. The owners without pets are left out, like the
+     * pets without an owner (which the join drops), so the average is the one
+     * of averagePetsPerOwner as long as every owner id of a pet is an owner's.
+     *
+     * @param ownersWithPets Each owner with the list of its pets.
+     */
+    public Mono<Void> averagePetsPerOwnerJoined(Flux<Tuple2<Owner, List<Pet>>> ownersWithPets) {
+        // Define the path
+        String filePath = "Task7_averagePetsOwner.txt";
+
+        // Start the timer
+        Instant start = Instant.now();
+
+        // Count the owners that have pets and their pets
+        return AsyncFileOutput.writeLines(filePath, ownersWithPets
+                .filter(tuple -> !tuple.getT2().isEmpty())
+                .collect(() -> new long[2], (totals, tuple) -> {
+                    totals[0]++;
+                    totals[1] += tuple.getT2().size();
+                })
+                .map(totals -> averagePetsPerOwnerLine(totals[1], totals[0])))
+                .doOnError(error -> {
+                    // Handle errors if they occur
+                    System.err.println("Error computing average: " + error.getMessage());
                 })
-                .then(); // Signal completion without emitting any elements
+                .doFinally(signalType -> {
+                    Duration duration = Duration.between(start, Instant.now());
+                    System.out.println("Task 7 (join): ✅ -> " + duration.toMillis() + " ms");
+                });
+    }
+
+    /**
+     * Task 8 computed from the owners joined with their pets (see Joins), with
+     * no requests per owner.
+     *
+     * @param ownersWithPets Each owner with the list of its pets.
+     */
+    public Mono<Void> ownerNamesAndPetCountsSortedJoined(Flux<Tuple2<Owner, List<Pet>>> ownersWithPets) {
+        // Define the path
+        String filePath = "Task8_ownerNamesPetCountsSorted.txt";
+
+        // Start the timer
+        Instant start = Instant.now();
 
+        return AsyncFileOutput.writeLines(filePath, ownersWithPets
+                .map(tuple -> new CountedLine(tuple.getT2().size(), "Owner Name: " + tuple.getT1().getName()
+                        + " -> Number of Pets: " + tuple.getT2().size()))
+                .transform(this::sortByCountDescending)
+                .map(CountedLine::getLine))
+                .doOnError(error -> {
+                    System.err.println("Error fetching owner and pet details: " + error.getMessage());
+                })
+                .doFinally(signalType -> {
+                    Duration duration = Duration.between(start, Instant.now());
+                    System.out.println("Task 8 (join): ✅ -> " + duration.toMillis() + " ms");
+                });
+    }
+
+    /**
+     * Task 9 computed from the owners joined with their pets (see Joins), with
+     * no requests per owner or pet.
+     *
+     * @param ownersWithPets Each owner with the list of its pets.
+     */
+    public Mono<Void> ownerNamesAndPetNamesForTask9Joined(Flux<Tuple2<Owner, List<Pet>>> ownersWithPets) {
+        // Define the path
+        String filePath = "Task9_ownerNamesAndPetNamesSorted.txt";
+
+        // Start the timer
+        Instant start = Instant.now();
+
+        return AsyncFileOutput.writeLines(filePath, ownersWithPets
+                .map(tuple -> {
+                    StringBuilder line = new StringBuilder("Owner Name: ").append(tuple.getT1().getName())
+                            .append(" -> Pets: ");
+                    List<Pet> pets = tuple.getT2();
+                    for (int i = 0; i < pets.size(); i++) {
+                        line.append(i == 0 ? "" : ", ").append(pets.get(i).getName());
+                    }
+                    return new CountedLine(pets.size(), line.toString());
+                })
+                .transform(this::sortByCountDescending)
+                .map(CountedLine::getLine))
+                .doOnError(error -> {
+                    System.err.println("Error fetching owner and pet details: " + error.getMessage());
+                })
+                .doFinally(signalType -> {
+                    Duration duration = Duration.between(start, Instant.now());
+                    System.out.println("Task 9 (join): ✅ -> " + duration.toMillis() + " ms");
+                });
     }
 
     /**
      * Task to retrieve a pet by its identifier with retries and delay.
      *
-     * @param webClient The WebClient instance for making the requests.
+     * @param AllPets          The pets; the first one is fetched.
+     * @param petServiceClient The client making the request.
      */
     public Mono<Void> taskGetPetByIdWithRetry(Flux<Pet> AllPets, PetServiceClient petServiceClient) {
-        return Mono.fromRunnable(() -> {
-
-            // Define the path
-            String filePath = "Task10_GetPetByIdWithRetry.txt";
-
-            // Clear the file
-            FileOutputUtil.clearFile(filePath);
-
-            // Generate random pet identifier from allPets
-            long randomId = AllPets.map(Pet::getIdentifier).collectList().block().get(0);
-
-            // Create a buffer for the result string
-            StringBuilder resultBuffer = new StringBuilder();
-
-            // Start the timer
-            Instant start = Instant.now();
-
-            // Work the magic with retry
-            petServiceClient.getPetByIdWithRetry(randomId)
-                    .doOnNext(pet -> {
-                        // Add pet details to the buffer
-                        resultBuffer.append("Pet Name: ").append(pet.getName()).append("\n");
-                    })
-                    .doOnError(error -> {
-                        // Handle errors if they occur
-                        System.err.println("Error fetching pet details: " + error.getMessage());
-                    })
-                    .doOnSuccess(pet -> {
-                        // On success, write the buffer to the file
-                        FileOutputUtil.writeToFile(filePath, resultBuffer.toString());
-                    })
-                    .doFinally(signalType -> {
-                        // On termination, successful or not, print the duration
-                        Duration duration = Duration.between(start, Instant.now());
-                        System.out.println("Task Delay: ✅ -> " + duration.toMillis() + " ms");
-                    })
-                    .subscribe();
-
-        }).then(); // then() converts this to Mono<Void>, completing after the Runnable
+        // Define the path
+        String filePath = "Task10_GetPetByIdWithRetry.txt";
+
+        // Take the identifier of the first pet, without waiting for the others
+        return AllPets.map(Pet::getIdentifier).next()
+                .flatMap(randomId -> {
+                    // Start the timer
+                    Instant start = Instant.now();
+
+                    // Work the magic with retry
+                    return AsyncFileOutput.writeLines(filePath, petServiceClient.getPetByIdWithRetry(randomId)
+                            .map(pet -> "Pet Name: " + pet.getName()))
+                            .doOnError(error -> {
+                                // Handle errors if they occur
+                                System.err.println("Error fetching pet details: " + error.getMessage());
+                            })
+                            .doFinally(signalType -> {
+                                // On termination, successful or not, print the duration
+                                Duration duration = Duration.between(start, Instant.now());
+                                System.out.println("Task Delay: ✅ -> " + duration.toMillis() + " ms");
+                            });
+                });
+    }
+
+    /**
+     * Sort lines by their count, largest first, keeping the order of the lines
+     * with the same count.
+     */
+    private Flux<CountedLine> sortByCountDescending(Flux<CountedLine> lines) {
+        return ordered(lines, BY_COUNT_DESCENDING, linesByCount);
+    }
+
+    /**
+     * Sort the elements (stable), keeping only the first `limit` if there is
+     * a limit.
+     *
+     * @param sorter The external sorter to use, or null to sort in memory.
+     */
+    private <T> Flux<T> ordered(Flux<T> elements, Comparator<? super T> comparator, ExternalSorter<T> sorter) {
+        if (limit > 0) {
+            return elements.transform(TopK.top(limit, comparator));
+        }
+        if (sorter != null) {
+            return sorter.sort(elements);
+        }
+        return sortPool == null ? elements.sort(comparator) : parallelSort(elements, comparator);
+    }
+
+    /**
+     * Sort the elements in memory on the fork-join pool, once they are all
+     * collected: the subscriber thread only collects them and is not blocked
+     * while they are sorted.
+     */
+    private <T> Flux<T> parallelSort(Flux<T> elements, Comparator<? super T> comparator) {
+        return elements.collectList()
+                .flatMap(list -> Mono.fromFuture(CompletableFuture.supplyAsync(() -> {
+                    @SuppressWarnings("unchecked")
+                    T[] array = (T[]) list.toArray();
+                    ParallelMergeSort.sort(array, comparator, sortPool);
+                    return Arrays.asList(array);
+                }, sortPool)))
+                .flatMapIterable(sorted -> sorted);
+    }
+
+    /**
+     * Aggregate the pets in one subscription: with several rails, each rail
+     * aggregates a part of the pets into its own container and the containers
+     * are merged at the end.
+     *
+     * @param supplier    A new, empty container.
+     * @param accumulator Adds a pet to a container.
+     * @param merger      Adds the second container to the first and returns
+     *                    it; the order of the pets across rails is not kept,
+     *                    so it must not depend on it.
+     */
+    private <A> Mono<A> aggregate(Flux<Pet> pets, Supplier<A> supplier, BiConsumer<A, Pet> accumulator,
+            BinaryOperator<A> merger) {
+        if (rails <= 1) {
+            return pets.collect(supplier, accumulator);
+        }
+        return pets.parallel(rails)
+                .runOn(Schedulers.parallel())
+                .collect(supplier, accumulator)
+                .reduce(merger)
+                .switchIfEmpty(Mono.fromSupplier(supplier));
+    }
+
+    /**
+     * A line of a result sorted by a count (tasks 8 and 9), which is all that
+     * is kept of an owner while sorting.
+     */
+    private static final class CountedLine {
+        private final long count;
+        private final String line;
+
+        CountedLine(long count, String line) {
+            this.count = count;
+            this.line = line;
+        }
+
+        String getLine() {
+            return line;
+        }
+
+        String encode() {
+            return count + "\t" + line;
+        }
+
+        static CountedLine decode(String encoded) {
+            int tab = encoded.indexOf('\t');
+            return new CountedLine(Long.parseLong(encoded.substring(0, tab)), encoded.substring(tab + 1));
+        }
+    }
+
+    /**
+     * The number of pets of each owner (Task 7), in a KeyCounter rather than a
+     * map of boxed ids and counts. The pets without an owner are left out.
+     */
+    private static final class PetsPerOwner {
+        private final KeyCounter counts;
+
+        /**
+         * @param expectedOwners Owners the counts are sized for, or 0 if
+         *                       unknown.
+         */
+        PetsPerOwner(int expectedOwners) {
+            counts = expectedOwners > 0 ? new KeyCounter(expectedOwners) : new KeyCounter();
+        }
+
+        void accept(Pet pet) {
+            if (pet.getOwnerid() != null) {
+                counts.increment(pet.getOwnerid());
+            }
+        }
+
+        PetsPerOwner merge(PetsPerOwner other) {
+            counts.merge(other.counts);
+            return this;
+        }
+    }
+
+    /**
+     * The line of Task 7, the same in all its variants: the pets with an
+     * owner over the owners with at least one pet.
+     *
+     * @param pets   The pets with an owner.
+     * @param owners The owners with at least one pet.
+     */
+    private static String averagePetsPerOwnerLine(long pets, long owners) {
+        double average = owners == 0 ? 0 : (double) pets / owners;
+        return "Average number of pets per owner: " + String.format("%.2f", average);
+    }
+
+    /**
+     * The average and standard deviation of the weights, as written by Task 5.
+     */
+    private static List<String> weightStatisticsLines(RunningStats stats) {
+        return List.of("Average Weight: " + String.format("%.2f", stats.getMean()),
+                "Standard Deviation: " + String.format("%.2f", stats.getStandardDeviation()));
     }
 
 }
\ No newline at end of file
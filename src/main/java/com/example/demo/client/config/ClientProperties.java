@@ -0,0 +1,188 @@
+package com.example.demo.client.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import lombok.Data;
+
+/**
+ * Settings of the client: the server it talks to, its HTTP transport and the
+ * way ClientApplication runs the tasks.
+ *
+ * Every setting has a default and can be given on the command line as
+ * --name=value, with the names listed in fromOptions.
+ */
+@Data
+public class ClientProperties {
+
+    // Server
+    private String baseUrl = "http://localhost:8080";
+    // Server instances to balance over (see LoadBalancer), instead of the base URL
+    private List<String> servers;
+    private String loadBalancing = "least-outstanding"; // or "p2c"
+    private int ejectionFailures = 5;
+    private Duration ejectionDuration = Duration.ofSeconds(10);
+
+    // Connection pool
+    private int maxConnections = 500;
+    private int pendingAcquireMaxCount = 1000; // -1 for no limit
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    // Timeouts and protocol
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    private boolean keepAlive = true;
+    private boolean http2 = false; // h2c, falling back to HTTP/1.1
+    private boolean compression = true;
+    private Duration poolMetricsInterval; // null to not log the pool metrics
+
+    // Resilience (see NetworkResilienceUtil)
+    private boolean resilience = true;
+    private Duration attemptTimeout = Duration.ofSeconds(10);
+    private Duration callDeadline = Duration.ofSeconds(30);
+    private boolean deadlinePropagation = true; // Send the deadlines to the server (see RequestDeadline)
+    private int maxRetries = 3;
+    private Duration retryInitialBackoff = Duration.ofMillis(100);
+    private Duration retryMaxBackoff = Duration.ofSeconds(2);
+    private double retryJitter = 0.5;
+    private double retryBudgetRatio = 0.1;
+    private double retryBudgetMinPerSecond = 10;
+    private double circuitFailureRateThreshold = 0.5;
+    private int circuitWindowSize = 50;
+    private int circuitMinimumCalls = 20;
+    private Duration circuitOpenDuration = Duration.ofSeconds(10);
+    private int circuitHalfOpenProbes = 3;
+
+    // Hedged reads (see HedgedRequests)
+    private boolean hedge = false;
+    private double hedgeQuantile = 0.9;
+    private Duration hedgeMinDelay = Duration.ofMillis(1);
+    private Duration hedgeMaxDelay = Duration.ofSeconds(1);
+    private double hedgeBudgetRatio = 0.1;
+    private int hedgeWindow = 1000;
+
+    // Adaptive concurrency limit of the requests (see AdaptiveLimiter)
+    private boolean adaptiveLimit = false;
+    private int adaptiveLimitInitial = 20;
+    private int adaptiveLimitMin = 1;
+    private int adaptiveLimitMax = 500;
+    private double adaptiveLimitTolerance = 2.0;
+    private double adaptiveLimitBackoff = 0.9;
+
+    // Tasks
+    private boolean shared = false;
+    private int sharedMaxInMemory = 1_000_000;
+    private boolean singlePass = false;
+    private Duration batchWindow; // null to not batch pet lookups
+    private int batchMaxSize = 100;
+    private String join; // "hash", "merge" or null
+    private int maxInMemory; // 0 for no bound (see ExternalSorter)
+    private int limitRate = 256;
+    private int limit; // 0 to write every line of tasks 4, 8 and 9
+    private int taskConcurrency; // 0 to run all the reports at once
+    private int rails; // 0 or 1 to aggregate and sort on one thread (see Tasks)
+    private int expectedOwners; // 0 if unknown: the pets-per-owner counts then start small
+
+    /**
+     * Read the settings from command line options, keeping the defaults of
+     * the ones that are not given.
+     *
+     * Options: base-url, servers (comma-separated base URLs), load-balancing,
+     * ejection-failures, ejection-duration, max-connections,
+     * pending-acquire-max-count, pending-acquire-timeout, max-idle-time,
+     * max-life-time, connect-timeout, read-timeout, response-timeout,
+     * keep-alive, http2, compression, pool-metrics-interval, resilience,
+     * attempt-timeout, call-deadline, deadline-propagation, max-retries,
+     * retry-initial-backoff, retry-max-backoff, retry-jitter,
+     * retry-budget-ratio, retry-budget-min-per-second,
+     * circuit-failure-rate-threshold, circuit-window-size,
+     * circuit-minimum-calls, circuit-open-duration, circuit-half-open-probes,
+     * hedge, hedge-quantile, hedge-min-delay, hedge-max-delay,
+     * hedge-budget-ratio, hedge-window, adaptive-limit, adaptive-limit-initial,
+     * adaptive-limit-min, adaptive-limit-max, adaptive-limit-tolerance,
+     * adaptive-limit-backoff, shared, shared-max-in-memory, single-pass, batch-window, batch-max-size,
+     * join, max-in-memory, limit-rate, limit, task-concurrency, rails,
+     * expected-owners.
+     *
+     * @param options The options by name (without the leading "--"); flags
+     *                without a value are "true".
+     * @return The settings.
+     */
+    public static ClientProperties fromOptions(Map<String, String> options) {
+        ClientProperties properties = new ClientProperties();
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            String value = option.getValue();
+            switch (option.getKey()) {
+                case "base-url" -> properties.setBaseUrl(value);
+                case "servers" -> properties.setServers(List.of(value.split(",")));
+                case "load-balancing" -> properties.setLoadBalancing(value);
+                case "ejection-failures" -> properties.setEjectionFailures(Integer.parseInt(value));
+                case "ejection-duration" -> properties.setEjectionDuration(duration(value));
+                case "max-connections" -> properties.setMaxConnections(Integer.parseInt(value));
+                case "pending-acquire-max-count" -> properties.setPendingAcquireMaxCount(Integer.parseInt(value));
+                case "pending-acquire-timeout" -> properties.setPendingAcquireTimeout(duration(value));
+                case "max-idle-time" -> properties.setMaxIdleTime(duration(value));
+                case "max-life-time" -> properties.setMaxLifeTime(duration(value));
+                case "connect-timeout" -> properties.setConnectTimeout(duration(value));
+                case "read-timeout" -> properties.setReadTimeout(duration(value));
+                case "response-timeout" -> properties.setResponseTimeout(duration(value));
+                case "keep-alive" -> properties.setKeepAlive(Boolean.parseBoolean(value));
+                case "http2" -> properties.setHttp2(Boolean.parseBoolean(value));
+                case "compression" -> properties.setCompression(Boolean.parseBoolean(value));
+                case "pool-metrics-interval" -> properties.setPoolMetricsInterval(duration(value));
+                case "resilience" -> properties.setResilience(Boolean.parseBoolean(value));
+                case "attempt-timeout" -> properties.setAttemptTimeout(duration(value));
+                case "call-deadline" -> properties.setCallDeadline(duration(value));
+                case "deadline-propagation" -> properties.setDeadlinePropagation(Boolean.parseBoolean(value));
+                case "max-retries" -> properties.setMaxRetries(Integer.parseInt(value));
+                case "retry-initial-backoff" -> properties.setRetryInitialBackoff(duration(value));
+                case "retry-max-backoff" -> properties.setRetryMaxBackoff(duration(value));
+                case "retry-jitter" -> properties.setRetryJitter(Double.parseDouble(value));
+                case "retry-budget-ratio" -> properties.setRetryBudgetRatio(Double.parseDouble(value));
+                case "retry-budget-min-per-second" -> properties.setRetryBudgetMinPerSecond(Double.parseDouble(value));
+                case "circuit-failure-rate-threshold" ->
+                    properties.setCircuitFailureRateThreshold(Double.parseDouble(value));
+                case "circuit-window-size" -> properties.setCircuitWindowSize(Integer.parseInt(value));
+                case "circuit-minimum-calls" -> properties.setCircuitMinimumCalls(Integer.parseInt(value));
+                case "circuit-open-duration" -> properties.setCircuitOpenDuration(duration(value));
+                case "circuit-half-open-probes" -> properties.setCircuitHalfOpenProbes(Integer.parseInt(value));
+                case "hedge" -> properties.setHedge(Boolean.parseBoolean(value));
+                case "hedge-quantile" -> properties.setHedgeQuantile(Double.parseDouble(value));
+                case "hedge-min-delay" -> properties.setHedgeMinDelay(duration(value));
+                case "hedge-max-delay" -> properties.setHedgeMaxDelay(duration(value));
+                case "hedge-budget-ratio" -> properties.setHedgeBudgetRatio(Double.parseDouble(value));
+                case "hedge-window" -> properties.setHedgeWindow(Integer.parseInt(value));
+                case "adaptive-limit" -> properties.setAdaptiveLimit(Boolean.parseBoolean(value));
+                case "adaptive-limit-initial" -> properties.setAdaptiveLimitInitial(Integer.parseInt(value));
+                case "adaptive-limit-min" -> properties.setAdaptiveLimitMin(Integer.parseInt(value));
+                case "adaptive-limit-max" -> properties.setAdaptiveLimitMax(Integer.parseInt(value));
+                case "adaptive-limit-tolerance" -> properties.setAdaptiveLimitTolerance(Double.parseDouble(value));
+                case "adaptive-limit-backoff" -> properties.setAdaptiveLimitBackoff(Double.parseDouble(value));
+                case "shared" -> properties.setShared(Boolean.parseBoolean(value));
+                case "shared-max-in-memory" -> properties.setSharedMaxInMemory(Integer.parseInt(value));
+                case "single-pass" -> properties.setSinglePass(Boolean.parseBoolean(value));
+                case "batch-window" -> properties.setBatchWindow(duration(value));
+                case "batch-max-size" -> properties.setBatchMaxSize(Integer.parseInt(value));
+                case "join" -> properties.setJoin(value);
+                case "max-in-memory" -> properties.setMaxInMemory(Integer.parseInt(value));
+                case "limit-rate" -> properties.setLimitRate(Integer.parseInt(value));
+                case "limit" -> properties.setLimit(Integer.parseInt(value));
+                case "task-concurrency" -> properties.setTaskConcurrency(Integer.parseInt(value));
+                case "rails" -> properties.setRails(Integer.parseInt(value));
+                case "expected-owners" -> properties.setExpectedOwners(Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("Unknown option: --" + option.getKey());
+            }
+        }
+        return properties;
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+}
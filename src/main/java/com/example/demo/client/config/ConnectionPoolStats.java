@@ -0,0 +1,58 @@
+package com.example.demo.client.config;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Collects the metrics of the connection pools of a ConnectionProvider (one
+ * pool per remote address), without needing Micrometer.
+ *
+ * With HTTP/2 these are connection metrics: a multiplexed connection counts
+ * as active for as long as it is open, whatever the number of streams on it.
+ */
+public class ConnectionPoolStats implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+            ConnectionPoolMetrics metrics) {
+        pools.put(id, metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(id);
+    }
+
+    /**
+     * @return The connections in use, summed over all pools.
+     */
+    public int getActive() {
+        return pools.values().stream().mapToInt(ConnectionPoolMetrics::acquiredSize).sum();
+    }
+
+    /**
+     * @return The open connections that are not in use, summed over all pools.
+     */
+    public int getIdle() {
+        return pools.values().stream().mapToInt(ConnectionPoolMetrics::idleSize).sum();
+    }
+
+    /**
+     * @return The requests waiting for a connection, summed over all pools.
+     */
+    public int getPending() {
+        return pools.values().stream().mapToInt(ConnectionPoolMetrics::pendingAcquireSize).sum();
+    }
+
+    @Override
+    public String toString() {
+        return "connection pool: " + getActive() + " active, " + getIdle() + " idle, " + getPending() + " pending ("
+                + pools.size() + " pools)";
+    }
+}
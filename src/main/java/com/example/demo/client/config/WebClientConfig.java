@@ -1,24 +1,57 @@
 package com.example.demo.client.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.example.demo.client.utils.LoadBalancer;
+import com.example.demo.client.utils.RequestDeadline;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
 /**
  * Configuration class responsible for creating and configuring the WebClient
  * bean.
  * WebClient is used to make reactive HTTP calls in a non-blocking manner.
+ *
+ * The WebClient uses the server's base URL and a dedicated reactor-netty
+ * connection pool, with the limits, timeouts, keep-alive, HTTP/2 (h2c) and
+ * gzip settings of ClientProperties. Unless disabled, the deadline of each
+ * request is sent to the server (see RequestDeadline). With several servers,
+ * the requests are spread over them (see LoadBalancer), and only the path of
+ * the base URL is used. The pool's metrics are available from getPoolStats
+ * and, if configured, logged periodically. Call dispose when done to close
+ * the pool's connections.
  */
 @Configuration
 public class WebClientConfig {
 
+    private final ClientProperties properties;
+    private final ConnectionPoolStats poolStats = new ConnectionPoolStats();
+    private ConnectionProvider connectionProvider;
+    private Disposable poolMetricsLogger;
+    private LoadBalancer loadBalancer;
+
+    public WebClientConfig() {
+        this(new ClientProperties());
+    }
+
     /**
-     * Base URL of the server fetched from application properties or defaults to
-     * "http://localhost:8080".
+     * @param properties The client settings.
      */
-    @Value("http://localhost:8080")
-    private String serverBaseUrl;
+    public WebClientConfig(ClientProperties properties) {
+        this.properties = properties;
+    }
 
     /**
      * Defines and configures a WebClient bean to be used throughout the
@@ -28,10 +61,74 @@ public class WebClientConfig {
      */
     @Bean
     public WebClient webClient() {
-
-        return WebClient.builder()
-                .baseUrl(serverBaseUrl)
-                // You can add filters, default headers, etc. here if needed
+        connectionProvider = ConnectionProvider.builder("client")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true, () -> poolStats)
                 .build();
+
+        Duration readTimeout = properties.getReadTimeout();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+                .keepAlive(properties.isKeepAlive())
+                .responseTimeout(properties.getResponseTimeout())
+                .compress(properties.isCompression())
+                // Per request: handlers are removed when a connection goes back to the pool
+                .doOnRequest((request, connection) -> connection.addHandlerLast(
+                        new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+        if (properties.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        if (properties.getPoolMetricsInterval() != null) {
+            Duration interval = properties.getPoolMetricsInterval();
+            poolMetricsLogger = Flux.interval(interval, interval)
+                    .subscribe(tick -> System.out.println("Client " + poolStats));
+        }
+
+        WebClient.Builder builder = WebClient.builder()
+                .baseUrl(properties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+        if (properties.isDeadlinePropagation()) {
+            builder.filter(RequestDeadline.propagate());
+        }
+        if (properties.getServers() != null) {
+            // Chooses as each request is sent, so every attempt and hedge picks its own instance
+            loadBalancer = new LoadBalancer(properties);
+            builder.filter(loadBalancer);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return The load balancer over the servers, with the statistics of each
+     *         instance, or null if there is only the base URL.
+     */
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    /**
+     * @return The metrics of the connection pool (active, idle, pending).
+     */
+    public ConnectionPoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    /**
+     * Stop logging the pool metrics and close the pool's connections.
+     */
+    public void dispose() {
+        if (poolMetricsLogger != null) {
+            poolMetricsLogger.dispose();
+        }
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
     }
 }
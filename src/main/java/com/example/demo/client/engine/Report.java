@@ -0,0 +1,79 @@
+package com.example.demo.client.engine;
+
+import java.util.List;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A task run by the TaskEngine: it declares the sources it reads and produces
+ * its output (usually a file) from them.
+ *
+ * Reports are supplied by a ReportProvider, so new ones are added without
+ * changing ClientApplication.
+ */
+public interface Report {
+
+    /**
+     * @return A unique name, used in the timings.
+     */
+    String getName();
+
+    /**
+     * @return The names of the sources the report reads; the only ones
+     *         TaskContext.source gives it.
+     */
+    List<String> getSources();
+
+    /**
+     * @return What the report spends its time on.
+     */
+    default Workload getWorkload() {
+        return Workload.NON_BLOCKING;
+    }
+
+    /**
+     * Build the report. The returned Mono is subscribed to once and the report
+     * is done when it completes.
+     *
+     * @param context Gives the declared sources and the client services.
+     */
+    Mono<Void> run(TaskContext context);
+
+    /**
+     * A report from its parts.
+     *
+     * @param name     The name.
+     * @param workload What it spends its time on.
+     * @param sources  The sources it reads.
+     * @param run      Builds the report.
+     */
+    static Report of(String name, Workload workload, List<String> sources, Function<TaskContext, Mono<?>> run) {
+        return new Report() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public List<String> getSources() {
+                return sources;
+            }
+
+            @Override
+            public Workload getWorkload() {
+                return workload;
+            }
+
+            @Override
+            public Mono<Void> run(TaskContext context) {
+                return run.apply(context).then();
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+}
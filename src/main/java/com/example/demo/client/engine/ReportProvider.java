@@ -0,0 +1,29 @@
+package com.example.demo.client.engine;
+
+import java.util.List;
+
+import com.example.demo.client.config.ClientProperties;
+
+/**
+ * Supplies reports to ClientApplication, which finds the providers with
+ * java.util.ServiceLoader: a provider is a public class with a public no-arg
+ * constructor, listed in
+ * META-INF/services/com.example.demo.client.engine.ReportProvider.
+ */
+public interface ReportProvider {
+
+    /**
+     * @param properties The client settings, e.g. to pick the variant of a
+     *                   report.
+     * @return The reports to run; they may only read the sources that
+     *         ClientApplication defines.
+     */
+    List<Report> reports(ClientProperties properties);
+
+    /**
+     * @return A line to print once all reports are done, or null.
+     */
+    default String getSummary() {
+        return null;
+    }
+}
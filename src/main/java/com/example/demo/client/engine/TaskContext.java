@@ -0,0 +1,174 @@
+package com.example.demo.client.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.reactivestreams.Subscription;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.service.PetServiceClient;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
+
+/**
+ * What the TaskEngine gives a report (or a derived source): the sources it
+ * declared and the client services.
+ *
+ * The sources are delivered on the scheduler of the report's workload, and
+ * the CPU time spent handling their elements on those threads (everything
+ * the report does synchronously with them: filtering, sorting, formatting
+ * lines) is added to the report's CPU time. Work the report moves to other
+ * threads is not counted.
+ */
+public class TaskContext {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // Whether a signal of a measured source is being handled on this thread, so
+    // that nested signals (a source emitting from within another's) count once
+    private static final ThreadLocal<boolean[]> MEASURING = ThreadLocal.withInitial(() -> new boolean[1]);
+
+    private final String name;
+    private final List<String> declared;
+    private final Function<String, Flux<?>> sources;
+    private final Scheduler scheduler; // null to stay on the delivering threads
+    private final AtomicLong cpuNanos; // null to not measure
+    private final ClientProperties properties;
+    private final PetServiceClient petServiceClient;
+
+    TaskContext(String name, List<String> declared, Function<String, Flux<?>> sources, Scheduler scheduler,
+            AtomicLong cpuNanos, ClientProperties properties, PetServiceClient petServiceClient) {
+        this.name = name;
+        this.declared = declared;
+        this.sources = sources;
+        this.scheduler = scheduler;
+        this.cpuNanos = cpuNanos;
+        this.properties = properties;
+        this.petServiceClient = petServiceClient;
+    }
+
+    /**
+     * A source. It is fetched once for all the reports that read it, whether
+     * they subscribe to it together or one after the other.
+     *
+     * @param name The name of a source the report declared.
+     * @return The elements of the source; subscribe to it at most once.
+     * @throws IllegalArgumentException If the report did not declare it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> source(String name) {
+        if (!declared.contains(name)) {
+            throw new IllegalArgumentException(this.name + " reads source " + name + " without declaring it");
+        }
+        Flux<T> source = (Flux<T>) sources.apply(name);
+        if (scheduler != null) {
+            source = source.publishOn(scheduler);
+        }
+        if (cpuNanos != null) {
+            source = source.transform(Operators.<T, T>lift((scannable, actual) -> new CpuTimed<>(actual, cpuNanos)));
+        }
+        return source;
+    }
+
+    public ClientProperties getProperties() {
+        return properties;
+    }
+
+    public PetServiceClient getPetServiceClient() {
+        return petServiceClient;
+    }
+
+    /**
+     * @return The CPU time of the current thread, or 0 if the JVM does not
+     *         measure it.
+     */
+    static long currentThreadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Start measuring the CPU time of the current thread.
+     *
+     * @return The CPU time so far, or -1 if it is already being measured (the
+     *         signal is nested in another one).
+     */
+    static long begin() {
+        boolean[] measuring = MEASURING.get();
+        if (measuring[0]) {
+            return -1;
+        }
+        measuring[0] = true;
+        return currentThreadCpuTime();
+    }
+
+    /**
+     * Add the CPU time of the current thread since begin to a total.
+     */
+    static void end(AtomicLong total, long start) {
+        if (start >= 0) {
+            total.addAndGet(currentThreadCpuTime() - start);
+            MEASURING.get()[0] = false;
+        }
+    }
+
+    /**
+     * Passes the signals of a source on, measuring the CPU time the report
+     * spends handling them.
+     */
+    private static final class CpuTimed<T> implements CoreSubscriber<T> {
+        private final CoreSubscriber<? super T> actual;
+        private final AtomicLong cpuNanos;
+
+        CpuTimed(CoreSubscriber<? super T> actual, AtomicLong cpuNanos) {
+            this.actual = actual;
+            this.cpuNanos = cpuNanos;
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            actual.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(T element) {
+            long start = begin();
+            try {
+                actual.onNext(element);
+            } finally {
+                end(cpuNanos, start);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            long start = begin();
+            try {
+                actual.onError(error);
+            } finally {
+                end(cpuNanos, start);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            long start = begin();
+            try {
+                actual.onComplete();
+            } finally {
+                end(cpuNanos, start);
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.demo.client.engine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.service.PetServiceClient;
+import com.example.demo.client.utils.SharedSource;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs reports over shared sources.
+ *
+ * Sources are named Fluxes: fetched ones (e.g. GET /pet) and derived ones,
+ * computed from other sources (e.g. the owners joined with their pets).
+ * Reports declare the sources they read, and the engine builds the graph of
+ * sources and reports, checks it (unknown sources, cycles) and gets each
+ * source once, whatever the number of readers:
+ * - a source with one reader is passed to it as is;
+ * - a source with several readers and a type is replayed to them by a
+ * SharedSource, which fetches it once and keeps it in memory up to
+ * `sharedMaxInMemory` elements (spilling the rest to disk), so the readers can
+ * run at any time;
+ * - a source with several readers and no type (it cannot be spilled) is
+ * published to them as it is produced: its readers are started together, as
+ * one unit.
+ *
+ * Reports (or units) run at most `concurrency` at a time, each on the
+ * scheduler of its Workload. Every report is awaited, even if others fail,
+ * and its start, end and CPU time are recorded (see TaskTiming).
+ */
+public class TaskEngine {
+
+    private final int concurrency;
+    private final int sharedMaxInMemory;
+    private final ClientProperties properties;
+    private final PetServiceClient petServiceClient;
+    private final Map<String, SourceDefinition> definitions = new LinkedHashMap<>();
+
+    /**
+     * A source as it was defined.
+     */
+    private static final class SourceDefinition {
+        final String name;
+        final Class<?> type; // null if it cannot be spilled
+        final List<String> inputs;
+        final Function<TaskContext, Flux<?>> factory;
+
+        SourceDefinition(String name, Class<?> type, List<String> inputs, Function<TaskContext, Flux<?>> factory) {
+            this.name = name;
+            this.type = type;
+            this.inputs = inputs;
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * @param concurrency       Reports (or units of reports) run at once, 0 for
+     *                          all of them.
+     * @param sharedMaxInMemory Elements of a replayed source kept in memory.
+     * @param properties        The client settings, passed to the reports.
+     * @param petServiceClient  Passed to the reports.
+     */
+    public TaskEngine(int concurrency, int sharedMaxInMemory, ClientProperties properties,
+            PetServiceClient petServiceClient) {
+        this.concurrency = concurrency > 0 ? concurrency : Integer.MAX_VALUE;
+        this.sharedMaxInMemory = sharedMaxInMemory;
+        this.properties = properties;
+        this.petServiceClient = petServiceClient;
+    }
+
+    /**
+     * Define a fetched source.
+     *
+     * @param name  The name reports declare.
+     * @param type  The type of the elements, to spill them if needed.
+     * @param fetch Fetches the source; called at most once per run.
+     */
+    public <T> void source(String name, Class<T> type, Supplier<Flux<T>> fetch) {
+        define(new SourceDefinition(name, type, List.of(), context -> fetch.get()));
+    }
+
+    /**
+     * Define a source computed from other sources.
+     *
+     * @param name   The name reports declare.
+     * @param type   The type of the elements, to spill them if needed, or null
+     *               if they cannot be.
+     * @param inputs The sources it is computed from.
+     * @param derive Computes it from the inputs, read with
+     *               TaskContext.source; called at most once per run.
+     */
+    public <T> void source(String name, Class<T> type, List<String> inputs, Function<TaskContext, Flux<T>> derive) {
+        define(new SourceDefinition(name, type, List.copyOf(inputs), derive::apply));
+    }
+
+    private void define(SourceDefinition definition) {
+        if (definitions.putIfAbsent(definition.name, definition) != null) {
+            throw new IllegalArgumentException("Source " + definition.name + " is already defined");
+        }
+    }
+
+    /**
+     * Run the reports.
+     *
+     * @param reports The reports, with unique names.
+     * @return The timings of the reports, in the given order, once all of them
+     *         are done; failed reports have an error rather than failing the
+     *         Mono.
+     */
+    public Mono<List<TaskTiming>> run(List<Report> reports) {
+        return Mono.defer(() -> {
+            Run run = new Run(reports);
+            return Flux.fromIterable(run.units())
+                    .flatMap(unit -> Flux.fromIterable(unit).flatMap(run::execute), concurrency)
+                    .collectList()
+                    .map(timings -> {
+                        List<TaskTiming> ordered = new ArrayList<>(timings);
+                        ordered.sort((timing1, timing2) -> Integer.compare(run.indexOf(timing1.getName()),
+                                run.indexOf(timing2.getName())));
+                        return ordered;
+                    })
+                    .doFinally(signalType -> run.close());
+        });
+    }
+
+    /**
+     * The state of one run: how many readers each source has and the Fluxes
+     * that share it between them.
+     */
+    private final class Run {
+        final List<Report> reports;
+        final Map<String, Integer> readers = new HashMap<>();
+        final Map<String, Flux<?>> shared = new HashMap<>();
+        final List<SharedSource<?>> replayed = new ArrayList<>();
+        final long startNanos = System.nanoTime();
+
+        Run(List<Report> reports) {
+            this.reports = reports;
+            Set<String> names = new HashSet<>();
+            for (Report report : reports) {
+                if (!names.add(report.getName())) {
+                    throw new IllegalArgumentException("Two reports are named " + report.getName());
+                }
+                for (String source : report.getSources()) {
+                    read(source, new ArrayList<>(List.of(report.getName())));
+                }
+            }
+        }
+
+        /**
+         * Count one reader of a source and, the first time, one reader of each
+         * of its inputs (a source reads its inputs once, however many readers
+         * it has).
+         *
+         * @param path The reports and sources that lead here, to find cycles.
+         */
+        void read(String source, List<String> path) {
+            SourceDefinition definition = definitions.get(source);
+            if (definition == null) {
+                throw new IllegalArgumentException(path.get(path.size() - 1) + " reads unknown source " + source);
+            }
+            if (path.contains(source)) {
+                path.add(source);
+                throw new IllegalArgumentException("Sources depend on each other: " + String.join(" -> ", path));
+            }
+            if (readers.merge(source, 1, Integer::sum) == 1) {
+                path.add(source);
+                for (String input : definition.inputs) {
+                    read(input, path);
+                }
+                path.remove(path.size() - 1);
+            }
+        }
+
+        /**
+         * Whether a source is published as it is produced, which needs all its
+         * readers to subscribe before it starts.
+         */
+        boolean published(String source) {
+            return definitions.get(source).type == null && readers.get(source) > 1;
+        }
+
+        /**
+         * The published sources a report depends on, directly or through other
+         * sources.
+         */
+        void collectPublished(String source, Set<String> published) {
+            if (published(source)) {
+                published.add(source);
+            }
+            for (String input : definitions.get(source).inputs) {
+                collectPublished(input, published);
+            }
+        }
+
+        /**
+         * Group the reports that depend on the same published source: they
+         * must start together.
+         */
+        List<List<Report>> units() {
+            int[] parent = new int[reports.size()];
+            Map<String, Integer> firstReader = new HashMap<>();
+            for (int i = 0; i < reports.size(); i++) {
+                parent[i] = i;
+                Set<String> published = new HashSet<>();
+                for (String source : reports.get(i).getSources()) {
+                    collectPublished(source, published);
+                }
+                for (String source : published) {
+                    Integer first = firstReader.putIfAbsent(source, i);
+                    if (first != null) {
+                        parent[root(parent, i)] = root(parent, first);
+                    }
+                }
+            }
+
+            Map<Integer, List<Report>> units = new LinkedHashMap<>();
+            for (int i = 0; i < reports.size(); i++) {
+                units.computeIfAbsent(root(parent, i), root -> new ArrayList<>()).add(reports.get(i));
+            }
+            return new ArrayList<>(units.values());
+        }
+
+        private int root(int[] parent, int i) {
+            while (parent[i] != i) {
+                i = parent[i];
+            }
+            return i;
+        }
+
+        /**
+         * The Flux a reader of a source subscribes to.
+         */
+        synchronized Flux<?> flux(String source) {
+            Flux<?> flux = shared.get(source);
+            if (flux != null) {
+                return flux;
+            }
+
+            SourceDefinition definition = definitions.get(source);
+            TaskContext inputs = new TaskContext(source, definition.inputs, this::flux, null, null, properties,
+                    petServiceClient);
+            Flux<?> produced = Flux.defer(() -> definition.factory.apply(inputs));
+            int count = readers.get(source);
+            if (count == 1) {
+                flux = produced;
+            } else if (definition.type != null) {
+                flux = replay(source, definition.type, produced);
+            } else {
+                flux = produced.publish().autoConnect(count);
+            }
+            shared.put(source, flux);
+            return flux;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> Flux<T> replay(String source, Class<T> type, Flux<?> produced) {
+            SharedSource<T> sharedSource = new SharedSource<>(source, (Flux<T>) produced, type, sharedMaxInMemory);
+            replayed.add(sharedSource);
+            return sharedSource.flux();
+        }
+
+        /**
+         * Run a report and time it.
+         */
+        Mono<TaskTiming> execute(Report report) {
+            return Mono.defer(() -> {
+                Duration start = sinceStart();
+                AtomicLong cpuNanos = new AtomicLong();
+                TaskContext context = new TaskContext(report.getName(), report.getSources(), this::flux,
+                        scheduler(report.getWorkload()), cpuNanos, properties, petServiceClient);
+
+                Mono<Void> task;
+                long cpuStart = TaskContext.begin();
+                try {
+                    task = report.run(context);
+                } catch (RuntimeException e) {
+                    task = Mono.error(e);
+                } finally {
+                    TaskContext.end(cpuNanos, cpuStart);
+                }
+
+                return task
+                        .then(Mono.fromCallable(() -> new TaskTiming(report.getName(), report.getWorkload(), start,
+                                sinceStart(), cpuNanos.get(), null)))
+                        .onErrorResume(error -> Mono.just(new TaskTiming(report.getName(), report.getWorkload(),
+                                start, sinceStart(), cpuNanos.get(), error)));
+            });
+        }
+
+        Duration sinceStart() {
+            return Duration.ofNanos(System.nanoTime() - startNanos);
+        }
+
+        int indexOf(String report) {
+            for (int i = 0; i < reports.size(); i++) {
+                if (reports.get(i).getName().equals(report)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void close() {
+            for (SharedSource<?> sharedSource : replayed) {
+                sharedSource.close();
+            }
+        }
+    }
+
+    private static Scheduler scheduler(Workload workload) {
+        return switch (workload) {
+            case NON_BLOCKING -> null;
+            case CPU -> Schedulers.parallel();
+            case BLOCKING -> Schedulers.boundedElastic();
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.client.engine;
+
+import java.time.Duration;
+
+/**
+ * When a report ran, relative to the start of the run, and the CPU time it
+ * used (see TaskContext).
+ */
+public class TaskTiming {
+
+    private final String name;
+    private final Workload workload;
+    private final Duration start;
+    private final Duration end;
+    private final long cpuNanos;
+    private final Throwable error;
+
+    public TaskTiming(String name, Workload workload, Duration start, Duration end, long cpuNanos, Throwable error) {
+        this.name = name;
+        this.workload = workload;
+        this.start = start;
+        this.end = end;
+        this.cpuNanos = cpuNanos;
+        this.error = error;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    /**
+     * @return When the report started, since the start of the run.
+     */
+    public Duration getStart() {
+        return start;
+    }
+
+    /**
+     * @return When the report completed or failed, since the start of the run.
+     */
+    public Duration getEnd() {
+        return end;
+    }
+
+    public Duration getWallTime() {
+        return end.minus(start);
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * @return Why the report failed, or null if it completed.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-28s %-12s start %6d ms, end %6d ms, wall %6d ms, CPU %6d ms%s", name, workload,
+                start.toMillis(), end.toMillis(), getWallTime().toMillis(), cpuNanos / 1_000_000,
+                error == null ? "" : ", failed: " + error);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.client.engine;
+
+/**
+ * What a report spends its time on, which decides the threads its sources are
+ * delivered on.
+ */
+public enum Workload {
+
+    /**
+     * Waits for the network or the disk without blocking: the elements are
+     * processed on the threads that deliver them (e.g. the Netty event loops).
+     */
+    NON_BLOCKING,
+
+    /**
+     * Computes (sorts, joins, statistics): the elements are processed on the
+     * parallel scheduler, one thread per core, off the event loops.
+     */
+    CPU,
+
+    /**
+     * Makes blocking calls: the elements are processed on the bounded elastic
+     * scheduler.
+     */
+    BLOCKING
+}
@@ -6,6 +6,8 @@ package com.example.demo.client.exceptions;
  */
 public class ClientException extends RuntimeException {
 
+    private final int statusCode;
+
     /**
      * Constructor with a message parameter.
      *
@@ -13,6 +15,18 @@ public class ClientException extends RuntimeException {
      */
     public ClientException(String message) {
         super(message);
+        this.statusCode = 0;
+    }
+
+    /**
+     * Constructor for an error response of the server.
+     *
+     * @param message    The error message.
+     * @param statusCode The HTTP status code of the response.
+     */
+    public ClientException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
     }
 
     /**
@@ -23,5 +37,14 @@ public class ClientException extends RuntimeException {
      */
     public ClientException(String message, Throwable cause) {
         super(message, cause);
+        this.statusCode = 0;
+    }
+
+    /**
+     * @return The HTTP status code of the error response, or 0 if the error
+     *         was not a response of the server.
+     */
+    public int getStatusCode() {
+        return statusCode;
     }
 }
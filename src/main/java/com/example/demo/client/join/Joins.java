@@ -0,0 +1,153 @@
+package com.example.demo.client.join;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Join operators that correlate two streams by a long key (e.g. owners and
+ * pets by owner id) locally, instead of one request per element.
+ *
+ * The hash joins collect one side into a LongHashIndex and stream the other
+ * side through it; memory grows with the indexed side. The merge join needs
+ * both sides sorted by key and only keeps the elements of one key in memory.
+ * Keys must not be null: filter such elements out first.
+ */
+public final class Joins {
+
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+
+    private static final Comparator<Keyed> BY_KEY_LEFT_FIRST = Comparator.<Keyed>comparingLong(keyed -> keyed.key)
+            .thenComparingInt(keyed -> keyed.side);
+
+    private Joins() {
+    }
+
+    /**
+     * Inner join: index the build side by key and emit the combination of each
+     * probe element with the build element of the same key. Probe elements
+     * without one are dropped. If several build elements have the same key,
+     * the first one is used.
+     *
+     * @param build    The side to index, e.g. owners.
+     * @param buildKey Key of a build element, e.g. the owner id.
+     * @param probe    The side to stream, e.g. pets.
+     * @param probeKey Key of a probe element, e.g. the pet's owner id.
+     * @param combiner Combines a matching build and probe element.
+     * @return The combined elements, in the order of the probe side.
+     */
+    public static <B, P, O> Flux<O> hashJoin(Flux<B> build, ToLongFunction<? super B> buildKey, Flux<P> probe,
+            ToLongFunction<? super P> probeKey, BiFunction<? super B, ? super P, ? extends O> combiner) {
+        return build
+                .collect(LongHashIndex<B>::new, (index, element) -> index.putIfAbsent(buildKey.applyAsLong(element),
+                        element))
+                .flatMapMany(index -> probe.handle((element, sink) -> {
+                    B match = index.get(probeKey.applyAsLong(element));
+                    if (match != null) {
+                        sink.next(combiner.apply(match, element));
+                    }
+                }));
+    }
+
+    /**
+     * Group join: index the right side grouped by key and emit each left
+     * element with the list of right elements of its key (empty if there are
+     * none). Right elements whose key has no left element are dropped.
+     *
+     * @param left     The side to stream, e.g. owners.
+     * @param leftKey  Key of a left element, e.g. the owner id.
+     * @param right    The side to index, e.g. pets.
+     * @param rightKey Key of a right element, e.g. the pet's owner id.
+     * @return Each left element with its right elements, in the order of the
+     *         left side; right elements stay in their order.
+     */
+    public static <L, R> Flux<Tuple2<L, List<R>>> groupJoin(Flux<L> left, ToLongFunction<? super L> leftKey,
+            Flux<R> right, ToLongFunction<? super R> rightKey) {
+        return right
+                .collect(LongHashIndex<List<R>>::new, (index, element) -> index
+                        .computeIfAbsent(rightKey.applyAsLong(element), key -> new ArrayList<>()).add(element))
+                .flatMapMany(index -> left.map(element -> {
+                    List<R> group = index.get(leftKey.applyAsLong(element));
+                    return Tuples.of(element, group == null ? Collections.<R>emptyList() : group);
+                }));
+    }
+
+    /**
+     * Sort-merge group join: like groupJoin, but both sides must be sorted by
+     * ascending key, and only the right elements of the current key are kept
+     * in memory. Fails with an IllegalStateException if a side is not sorted.
+     *
+     * @param left     The left side, sorted by key, e.g. owners by id.
+     * @param leftKey  Key of a left element.
+     * @param right    The right side, sorted by key, e.g. pets by owner id.
+     * @param rightKey Key of a right element.
+     * @return Each left element with its right elements, in key order.
+     */
+    @SuppressWarnings("unchecked")
+    public static <L, R> Flux<Tuple2<L, List<R>>> mergeGroupJoin(Flux<L> left, ToLongFunction<? super L> leftKey,
+            Flux<R> right, ToLongFunction<? super R> rightKey) {
+        Flux<Keyed> lefts = ascending(left.map(element -> new Keyed(leftKey.applyAsLong(element), LEFT, element)),
+                "left");
+        Flux<Keyed> rights = ascending(
+                right.map(element -> new Keyed(rightKey.applyAsLong(element), RIGHT, element)), "right");
+
+        // Left elements come before the right elements of the same key
+        return Flux.mergeComparing(BY_KEY_LEFT_FIRST, lefts, rights)
+                .bufferUntilChanged(keyed -> keyed.key)
+                .handle((group, sink) -> {
+                    List<L> leftElements = new ArrayList<>(1);
+                    List<R> rightElements = new ArrayList<>(group.size());
+                    for (Keyed keyed : group) {
+                        if (keyed.side == LEFT) {
+                            leftElements.add((L) keyed.element);
+                        } else {
+                            rightElements.add((R) keyed.element);
+                        }
+                    }
+                    for (L element : leftElements) {
+                        sink.next(Tuples.of(element, rightElements));
+                    }
+                });
+    }
+
+    /**
+     * Fail the stream as soon as a key is smaller than the one before it.
+     */
+    private static Flux<Keyed> ascending(Flux<Keyed> keyed, String side) {
+        return Flux.defer(() -> {
+            long[] previous = { Long.MIN_VALUE };
+            return keyed.handle((element, sink) -> {
+                if (element.key < previous[0]) {
+                    sink.error(new IllegalStateException("The " + side + " side of the merge join is not sorted by key: "
+                            + element.key + " after " + previous[0]));
+                    return;
+                }
+                previous[0] = element.key;
+                sink.next(element);
+            });
+        });
+    }
+
+    /**
+     * An element of either side with its key.
+     */
+    private static final class Keyed {
+        private final long key;
+        private final int side;
+        private final Object element;
+
+        private Keyed(long key, int side, Object element) {
+            this.key = key;
+            this.side = side;
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.client.join;
+
+import com.example.demo.client.utils.LongOpenAddressing;
+
+import java.util.function.IntPredicate;
+import java.util.function.LongFunction;
+
+/**
+ * Hash index from a long key (e.g. an owner id) to a value.
+ *
+ * Keys are kept in a primitive array with open addressing (see
+ * LongOpenAddressing), so lookups neither box the key nor follow entry
+ * objects. Values cannot be null.
+ * Not thread-safe.
+ *
+ * @param <V> The type of the values.
+ */
+public class LongHashIndex<V> {
+
+    private long[] keys;
+    private Object[] values; // null marks an empty slot
+    private final IntPredicate occupied = slot -> values[slot] != null;
+    private int size;
+
+    public LongHashIndex() {
+        this(64);
+    }
+
+    /**
+     * @param expectedKeys Number of distinct keys expected.
+     */
+    public LongHashIndex(int expectedKeys) {
+        int capacity = LongOpenAddressing.capacity(expectedKeys);
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * @param key The key.
+     * @return The value of the key, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) values[LongOpenAddressing.probe(keys, key, occupied)]; // null if the slot is empty
+    }
+
+    /**
+     * Add a value unless the key already has one.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @return The value the key had, or null if the value was added.
+     */
+    public V putIfAbsent(long key, V value) {
+        V existing = get(key);
+        if (existing == null) {
+            insert(key, value);
+        }
+        return existing;
+    }
+
+    /**
+     * Get the value of a key, creating it first if there is none.
+     *
+     * @param key     The key.
+     * @param factory Creates the value of a new key.
+     * @return The value of the key.
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            insert(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return The number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void insert(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Values cannot be null (key " + key + ")");
+        }
+        if (LongOpenAddressing.isFull(size + 1, keys.length)) {
+            resize(keys.length * 2);
+        }
+        int slot = LongOpenAddressing.probe(keys, key, occupied); // The key is not in the table yet
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldValues[old] != null) {
+                int slot = LongOpenAddressing.probe(keys, oldKeys[old], occupied);
+                keys[slot] = oldKeys[old];
+                values[slot] = oldValues[old];
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.client.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Weighted mix of endpoints, e.g. `pet:60,owner:25,pet-owner:15`.
+ */
+public class EndpointMix {
+
+    private final LoadEndpoint[] endpoints;
+    private final double[] cumulativeWeights;
+
+    private EndpointMix(List<LoadEndpoint> endpoints, List<Double> weights) {
+        this.endpoints = endpoints.toArray(new LoadEndpoint[0]);
+        this.cumulativeWeights = new double[weights.size()];
+
+        double total = weights.stream().mapToDouble(Double::doubleValue).sum();
+        double cumulative = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            cumulative += weights.get(i) / total;
+            cumulativeWeights[i] = cumulative;
+        }
+    }
+
+    /**
+     * Parse a mix of `endpoint:weight` pairs separated by commas. The weights
+     * are relative and do not need to add up to 100; a missing weight is 1.
+     *
+     * @param mix The mix, e.g. "pet:60,owner:40".
+     * @return The parsed mix.
+     * @throws IllegalArgumentException If an endpoint is unknown, a weight is
+     *                                  not a finite number at least 0, or no
+     *                                  weight is above 0.
+     */
+    public static EndpointMix parse(String mix) {
+        List<LoadEndpoint> endpoints = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":", -1);
+            if (parts.length > 2) {
+                throw new IllegalArgumentException("Malformed entry in endpoint mix: " + entry);
+            }
+            double weight = parts.length > 1 ? parseWeight(parts[1].trim(), entry) : 1;
+            endpoints.add(LoadEndpoint.fromKey(parts[0].trim()));
+            weights.add(weight);
+        }
+        if (weights.stream().mapToDouble(Double::doubleValue).sum() <= 0) {
+            throw new IllegalArgumentException("Endpoint mix has no positive weight: " + mix);
+        }
+
+        return new EndpointMix(endpoints, weights);
+    }
+
+    private static double parseWeight(String weight, String entry) {
+        double value;
+        try {
+            value = Double.parseDouble(weight);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed weight in endpoint mix: " + entry, e);
+        }
+        if (value < 0 || !Double.isFinite(value)) {
+            throw new IllegalArgumentException("Weights in the endpoint mix must be finite and not negative: "
+                    + entry);
+        }
+        return value;
+    }
+
+    /**
+     * @param random Source of randomness.
+     * @return An endpoint chosen according to the weights.
+     */
+    public LoadEndpoint next(SplittableRandom random) {
+        double u = random.nextDouble();
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (u < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    /**
+     * @return The endpoints in the mix.
+     */
+    public List<LoadEndpoint> getEndpoints() {
+        return List.of(endpoints);
+    }
+}
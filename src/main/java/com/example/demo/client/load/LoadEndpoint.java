@@ -0,0 +1,78 @@
+package com.example.demo.client.load;
+
+import java.util.SplittableRandom;
+
+/**
+ * Server endpoints the load generator can call.
+ *
+ * Each endpoint has a name used in the endpoint mix (e.g. `pet:60,owner:40`)
+ * and builds its request path, picking a random id where the path needs one.
+ */
+public enum LoadEndpoint {
+
+    PET("pet", "GET /pet/{id}"),
+    PET_DELAY("pet-delay", "GET /pet/delay/{id}"),
+    PETS_BY_OWNER("pet-owner", "GET /pet/owner/{id}"),
+    PETS("pets", "GET /pet"),
+    OWNER("owner", "GET /owner/{id}"),
+    OWNERS("owners", "GET /owner"),
+    PET_COUNT("pet-count", "GET /analytics/pet/count");
+
+    private final String key;
+    private final String description;
+
+    LoadEndpoint(String key, String description) {
+        this.key = key;
+        this.description = description;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Build the path of one request.
+     *
+     * @param random Source of the random ids.
+     * @param pets   Pet ids are drawn from 1..pets.
+     * @param owners Owner ids are drawn from 1..owners.
+     * @return The request path.
+     */
+    public String path(SplittableRandom random, long pets, long owners) {
+        switch (this) {
+            case PET:
+                return "/pet/" + (random.nextLong(pets) + 1);
+            case PET_DELAY:
+                return "/pet/delay/" + (random.nextLong(pets) + 1);
+            case PETS_BY_OWNER:
+                return "/pet/owner/" + (random.nextLong(owners) + 1);
+            case PETS:
+                return "/pet";
+            case OWNER:
+                return "/owner/" + (random.nextLong(owners) + 1);
+            case OWNERS:
+                return "/owner";
+            case PET_COUNT:
+                return "/analytics/pet/count?species=dog";
+            default:
+                throw new IllegalStateException("Unknown endpoint " + this);
+        }
+    }
+
+    /**
+     * @param key The name used in the endpoint mix.
+     * @return The endpoint with that name.
+     */
+    public static LoadEndpoint fromKey(String key) {
+        for (LoadEndpoint endpoint : values()) {
+            if (endpoint.key.equalsIgnoreCase(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint '" + key + "'");
+    }
+}
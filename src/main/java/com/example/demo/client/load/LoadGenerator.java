@@ -0,0 +1,196 @@
+package com.example.demo.client.load;
+
+import com.example.demo.client.utils.HedgedRequests;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drives a mix of server endpoints and records their latencies.
+ *
+ * Two workload models are supported:
+ * - open: requests arrive at a fixed rate, whether or not earlier requests
+ * have completed. Latency is measured from the time each request was
+ * scheduled to start, so time spent queued behind a slow server (or a
+ * saturated client) counts, instead of being hidden (coordinated omission);
+ * - closed: a fixed number of users each send a request, wait for the
+ * response, and send the next one. Latency is measured from the send.
+ *
+ * Requests started during the warm-up period are sent but not recorded.
+ */
+public class LoadGenerator {
+
+    private final WebClient webClient;
+    private final EndpointMix mix;
+    private final long pets;
+    private final long owners;
+    private final SplittableRandom random;
+    private final HedgedRequests hedging;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param webClient The WebClient, with the server base URL.
+     * @param mix       The endpoints to call and their weights.
+     * @param pets      Pet ids are drawn from 1..pets.
+     * @param owners    Owner ids are drawn from 1..owners.
+     * @param seed      Seed of the endpoint and id choices.
+     */
+    public LoadGenerator(WebClient webClient, EndpointMix mix, long pets, long owners, long seed) {
+        this(webClient, mix, pets, owners, seed, null);
+    }
+
+    /**
+     * @param webClient The WebClient, with the server base URL.
+     * @param mix       The endpoints to call and their weights.
+     * @param pets      Pet ids are drawn from 1..pets.
+     * @param owners    Owner ids are drawn from 1..owners.
+     * @param seed      Seed of the endpoint and id choices.
+     * @param hedging   Hedges the requests (all of them are GETs), or null.
+     */
+    public LoadGenerator(WebClient webClient, EndpointMix mix, long pets, long owners, long seed,
+            HedgedRequests hedging) {
+        this(webClient, mix, pets, owners, seed, hedging, System::nanoTime);
+    }
+
+    /**
+     * @param webClient The WebClient, with the server base URL.
+     * @param mix       The endpoints to call and their weights.
+     * @param pets      Pet ids are drawn from 1..pets.
+     * @param owners    Owner ids are drawn from 1..owners.
+     * @param seed      Seed of the endpoint and id choices.
+     * @param hedging   Hedges the requests (all of them are GETs), or null.
+     * @param nanoClock Source of System.nanoTime-like timestamps, for the
+     *                  schedule and the latencies.
+     */
+    public LoadGenerator(WebClient webClient, EndpointMix mix, long pets, long owners, long seed,
+            HedgedRequests hedging, LongSupplier nanoClock) {
+        this.webClient = webClient;
+        this.mix = mix;
+        this.pets = Math.max(1, pets);
+        this.owners = Math.max(1, owners);
+        this.random = new SplittableRandom(seed);
+        this.hedging = hedging;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Run an open-model test.
+     *
+     * @param rate        Requests per second.
+     * @param warmup      Period before recording starts.
+     * @param duration    Recorded period.
+     * @param maxInFlight Maximum concurrent requests; requests beyond it wait
+     *                    (and that wait counts in their latency).
+     * @return A reactive stream (Mono) with the report, when all requests are done.
+     */
+    public Mono<LoadReport> runOpen(double rate, Duration warmup, Duration duration, int maxInFlight) {
+        LoadReport report = new LoadReport(String.format("Open model: %.0f req/s, max %d in flight, mix %s", rate,
+                maxInFlight, mix.getEndpoints()), mix);
+        long periodNanos = Math.max(1, (long) (1_000_000_000L / rate));
+
+        long warmupTicks = warmup.toNanos() / periodNanos;
+        int ticks = (int) Math.min(Integer.MAX_VALUE, warmupTicks + duration.toNanos() / periodNanos);
+
+        return Mono.defer(() -> {
+            long origin = nanoClock.getAsLong();
+
+            // Each request waits for its intended start; late ones (client or server falling
+            // behind) start at once, and how late they are counts in their latency
+            return Flux.range(0, ticks)
+                    .concatMap(tick -> {
+                        long intended = origin + tick * periodNanos;
+                        long wait = intended - nanoClock.getAsLong();
+                        return wait > 0 ? Mono.delay(Duration.ofNanos(wait)).thenReturn(tick) : Mono.just(tick);
+                    })
+                    .map(tick -> {
+                        LoadEndpoint endpoint = mix.next(random);
+                        return new Request(endpoint, endpoint.path(random, pets, owners),
+                                origin + tick * periodNanos, tick >= warmupTicks);
+                    })
+                    .flatMap(request -> call(request, report), maxInFlight)
+                    .then(Mono.fromSupplier(() -> {
+                        report.setSeconds(duration.toNanos() / 1e9);
+                        return report;
+                    }));
+        });
+    }
+
+    /**
+     * Run a closed-model test.
+     *
+     * @param users    Number of concurrent users.
+     * @param warmup   Period before recording starts.
+     * @param duration Recorded period.
+     * @return A reactive stream (Mono) with the report, when all users are done.
+     */
+    public Mono<LoadReport> runClosed(int users, Duration warmup, Duration duration) {
+        LoadReport report = new LoadReport("Closed model: " + users + " users, mix " + mix.getEndpoints(), mix);
+
+        return Mono.defer(() -> {
+            long start = nanoClock.getAsLong();
+            long recordFrom = start + warmup.toNanos();
+            long end = recordFrom + duration.toNanos();
+
+            return Flux.range(0, users)
+                    .map(user -> random.split()) // One random per user, they run concurrently
+                    .flatMap(userRandom -> Mono.defer(() -> {
+                        LoadEndpoint endpoint = mix.next(userRandom);
+                        long now = nanoClock.getAsLong();
+                        return call(new Request(endpoint, endpoint.path(userRandom, pets, owners), now,
+                                now >= recordFrom), report);
+                    }).repeat(() -> nanoClock.getAsLong() < end), users)
+                    .then(Mono.fromSupplier(() -> {
+                        report.setSeconds(duration.toNanos() / 1e9);
+                        return report;
+                    }));
+        });
+    }
+
+    /**
+     * Send one request, reading the whole response body, and record the outcome.
+     */
+    private Mono<Void> call(Request request, LoadReport report) {
+        Supplier<Mono<ResponseEntity<Void>>> send = () -> webClient.get()
+                .uri(request.path)
+                .retrieve()
+                .toBodilessEntity();
+        return (hedging == null ? send.get() : hedging.hedge(send))
+                .doOnSuccess(response -> {
+                    if (request.recorded) {
+                        report.record(request.endpoint, nanoClock.getAsLong() - request.intended);
+                    }
+                })
+                .onErrorResume(e -> {
+                    if (request.recorded) {
+                        report.recordError(request.endpoint, e instanceof WebClientResponseException response
+                                ? "HTTP " + response.getStatusCode().value()
+                                : e.getClass().getSimpleName());
+                    }
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static final class Request {
+        final LoadEndpoint endpoint;
+        final String path;
+        final long intended; // When the request should start (nanoClock)
+        final boolean recorded; // False during the warm-up
+
+        Request(LoadEndpoint endpoint, String path, long intended, boolean recorded) {
+            this.endpoint = endpoint;
+            this.path = path;
+            this.intended = intended;
+            this.recorded = recorded;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.client.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and errors recorded by a load test, per endpoint.
+ *
+ * Latencies are kept in HdrHistograms (microsecond resolution, 3 significant
+ * digits), so percentiles are exact up to that precision no matter how many
+ * requests were made. Recording is thread-safe.
+ */
+public class LoadReport {
+
+    private static final long HIGHEST_LATENCY_MICROS = 3_600_000_000L; // One hour
+
+    private final String description;
+    private final Map<LoadEndpoint, EndpointStats> stats = new EnumMap<>(LoadEndpoint.class);
+    private volatile double seconds;
+
+    /**
+     * Latencies and errors of one endpoint.
+     */
+    public static class EndpointStats {
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private final Map<String, AtomicLong> errorTypes = new ConcurrentHashMap<>();
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public Map<String, AtomicLong> getErrorTypes() {
+            return errorTypes;
+        }
+    }
+
+    /**
+     * @param description What was run (mode, rate or users, mix), for the report.
+     * @param mix         The endpoints that will be recorded.
+     */
+    public LoadReport(String description, EndpointMix mix) {
+        this.description = description;
+        for (LoadEndpoint endpoint : mix.getEndpoints()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    /**
+     * Record a successful request.
+     *
+     * @param endpoint     The endpoint called.
+     * @param latencyNanos The latency of the request.
+     */
+    public void record(LoadEndpoint endpoint, long latencyNanos) {
+        long micros = Math.max(1, Math.min(latencyNanos / 1_000, HIGHEST_LATENCY_MICROS));
+        stats.get(endpoint).histogram.recordValue(micros);
+    }
+
+    /**
+     * Record a failed request.
+     *
+     * @param endpoint The endpoint called.
+     * @param type     The kind of error (e.g. HTTP status or exception name).
+     */
+    public void recordError(LoadEndpoint endpoint, String type) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        endpointStats.errors.incrementAndGet();
+        endpointStats.errorTypes.computeIfAbsent(type, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * @param seconds Length of the measured period, used for the throughput.
+     */
+    public void setSeconds(double seconds) {
+        this.seconds = seconds;
+    }
+
+    public Map<LoadEndpoint, EndpointStats> getStats() {
+        return stats;
+    }
+
+    /**
+     * @return The summary table: requests, errors, throughput and latency
+     *         percentiles (in milliseconds) per endpoint and in total.
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        report.append(description).append("\n");
+        report.append(String.format("Measured period: %.1f s%n", seconds));
+        report.append(String.format("%-28s %9s %7s %9s %9s %9s %9s %9s %9s %9s%n", "Endpoint", "Requests", "Errors",
+                "Req/s", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"));
+
+        Histogram total = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        long totalErrors = 0;
+        for (Map.Entry<LoadEndpoint, EndpointStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().histogram.copy();
+            total.add(histogram);
+            totalErrors += entry.getValue().getErrors();
+            appendRow(report, entry.getKey().getDescription(), histogram, entry.getValue().getErrors());
+        }
+        appendRow(report, "Total", total, totalErrors);
+
+        for (Map.Entry<LoadEndpoint, EndpointStats> entry : stats.entrySet()) {
+            entry.getValue().errorTypes.forEach((type, count) -> report.append("Errors on ")
+                    .append(entry.getKey().getDescription()).append(": ").append(count.get()).append(" x ")
+                    .append(type).append("\n"));
+        }
+        return report.toString();
+    }
+
+    private void appendRow(StringBuilder report, String name, Histogram histogram, long errors) {
+        long count = histogram.getTotalCount();
+        report.append(String.format("%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, count, errors,
+                seconds > 0 ? (count + errors) / seconds : 0,
+                count == 0 ? 0 : histogram.getMean() / 1000,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * @param endpoint The endpoint.
+     * @return The full percentile distribution of the endpoint (HdrHistogram
+     *         text format, in milliseconds), e.g. for plotting.
+     */
+    public String percentileDistribution(LoadEndpoint endpoint) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            stats.get(endpoint).histogram.copy().outputPercentileDistribution(out, 1000.0);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.demo.client.service;
+
+import com.example.demo.client.stats.RunningStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Collects individual loads by key and dispatches them as batched requests
+ * (like DataLoader).
+ *
+ * The first load opens a batch; it is dispatched when the window has passed
+ * since then or when it reaches the maximum batch size, whichever comes first.
+ * A key loaded more than once in the same batch is requested only once. Each
+ * caller's Mono completes with the value for its key, empty if the batch had
+ * no value for it, or the batch's error.
+ *
+ * Loads are lazy: a batch is only joined when the returned Mono is subscribed.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public class BatchLoader<K, V> {
+
+    private final String name;
+    private final Function<List<K>, Flux<V>> batchFunction;
+    private final Function<V, K> keyOf;
+    private final Duration window;
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+    private Batch pending;
+
+    // Statistics, guarded by lock
+    private long loads;
+    private long deduplicated;
+    private final RunningStats batchSizes = new RunningStats();
+    private final RunningStats waitMicros = new RunningStats();
+
+    /**
+     * @param name          Name used in the statistics.
+     * @param batchFunction Requests the values of a batch of distinct keys.
+     * @param keyOf         Extracts the key of a value returned by the batch
+     *                      function.
+     * @param window        How long a batch stays open after its first load.
+     * @param maxBatchSize  Number of distinct keys that dispatches a batch
+     *                      right away.
+     */
+    public BatchLoader(String name, Function<List<K>, Flux<V>> batchFunction, Function<V, K> keyOf,
+            Duration window, int maxBatchSize) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("The batch window must be positive: " + window);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size must be at least 1: " + maxBatchSize);
+        }
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.keyOf = keyOf;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Load the value of a key as part of the next batch.
+     *
+     * @param key The key.
+     * @return A Mono with the value, empty if there is none.
+     */
+    public Mono<V> load(K key) {
+        return Mono.defer(() -> {
+            Batch full = null;
+            Sinks.One<V> sink;
+
+            synchronized (lock) {
+                loads++;
+                if (pending == null) {
+                    Batch batch = new Batch();
+                    pending = batch;
+                    batch.timer = Schedulers.parallel().schedule(() -> dispatchIfPending(batch), window.toNanos(),
+                            TimeUnit.NANOSECONDS);
+                }
+
+                sink = pending.sinks.get(key);
+                if (sink == null) {
+                    sink = Sinks.one();
+                    pending.sinks.put(key, sink);
+                } else {
+                    deduplicated++;
+                }
+                pending.addLoad(System.nanoTime());
+
+                if (pending.sinks.size() >= maxBatchSize) {
+                    full = close(pending);
+                }
+            }
+
+            Mono<V> value = sink.asMono();
+            if (full != null) {
+                dispatch(full);
+            }
+            return value;
+        });
+    }
+
+    /**
+     * Called by the window timer: dispatch the batch unless it reached its
+     * maximum size first.
+     */
+    private void dispatchIfPending(Batch batch) {
+        synchronized (lock) {
+            if (pending != batch) {
+                return;
+            }
+            close(batch);
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * Stop a batch from taking more loads and record its statistics. Must hold
+     * the lock.
+     */
+    private Batch close(Batch batch) {
+        pending = null;
+        batch.timer.dispose();
+
+        long now = System.nanoTime();
+        batchSizes.accept(batch.sinks.size());
+        for (int i = 0; i < batch.loadCount; i++) {
+            waitMicros.accept((now - batch.loadTimes[i]) / 1_000.0);
+        }
+        return batch;
+    }
+
+    private void dispatch(Batch batch) {
+        List<K> keys = new ArrayList<>(batch.sinks.keySet());
+        Flux<V> values;
+        try {
+            values = batchFunction.apply(keys);
+        } catch (RuntimeException e) {
+            values = Flux.error(e);
+        }
+
+        values.subscribe(
+                value -> {
+                    Sinks.One<V> sink = batch.sinks.get(keyOf.apply(value));
+                    if (sink != null) {
+                        sink.tryEmitValue(value);
+                    }
+                },
+                error -> batch.sinks.values().forEach(sink -> sink.tryEmitError(error)),
+                // Keys the batch returned no value for complete empty
+                () -> batch.sinks.values().forEach(Sinks.One::tryEmitEmpty));
+    }
+
+    public long getLoads() {
+        synchronized (lock) {
+            return loads;
+        }
+    }
+
+    /**
+     * @return The number of loads that joined a batch already requesting
+     *         their key.
+     */
+    public long getDeduplicated() {
+        synchronized (lock) {
+            return deduplicated;
+        }
+    }
+
+    public long getBatches() {
+        synchronized (lock) {
+            return batchSizes.getCount();
+        }
+    }
+
+    /**
+     * @return The average number of distinct keys per batch, or NaN if no
+     *         batch was dispatched.
+     */
+    public double getAverageBatchSize() {
+        synchronized (lock) {
+            return batchSizes.getMean();
+        }
+    }
+
+    /**
+     * @return The average time between a load and the dispatch of its batch,
+     *         in microseconds, or NaN if no batch was dispatched.
+     */
+    public double getAverageWaitMicros() {
+        synchronized (lock) {
+            return waitMicros.getMean();
+        }
+    }
+
+    /**
+     * @return The longest time between a load and the dispatch of its batch,
+     *         in microseconds.
+     */
+    public double getMaxWaitMicros() {
+        synchronized (lock) {
+            return waitMicros.getCount() == 0 ? 0 : waitMicros.getMax();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            if (batchSizes.getCount() == 0) {
+                return name + ": " + loads + " loads, no batches";
+            }
+            return String.format("%s: %d loads (%d deduplicated) in %d batches, batch size avg %.1f max %.0f,"
+                    + " wait avg %.0f us max %.0f us", name, loads, deduplicated, batchSizes.getCount(),
+                    batchSizes.getMean(), batchSizes.getMax(), waitMicros.getMean(), waitMicros.getMax());
+        }
+    }
+
+    /**
+     * The loads collected for one batched request.
+     */
+    private class Batch {
+        private final Map<K, Sinks.One<V>> sinks = new LinkedHashMap<>();
+        private long[] loadTimes = new long[16];
+        private int loadCount;
+        private Disposable timer;
+
+        private void addLoad(long time) {
+            if (loadCount == loadTimes.length) {
+                loadTimes = Arrays.copyOf(loadTimes, loadCount * 2);
+            }
+            loadTimes[loadCount++] = time;
+        }
+    }
+}
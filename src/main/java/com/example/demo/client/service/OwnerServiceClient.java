@@ -1,7 +1,15 @@
 package com.example.demo.client.service;
 
+import com.example.demo.client.config.ClientProperties;
 import com.example.demo.client.exceptions.ClientException;
+import com.example.demo.client.utils.AdaptiveLimiter;
+import com.example.demo.client.utils.NetworkResilienceUtil;
 import com.example.demo.server.model.Owner;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
@@ -10,11 +18,23 @@ import reactor.core.publisher.Mono;
 /**
  * Service class to interact with the Owner-related endpoints of the server.
  * Utilizes WebClient to make reactive HTTP calls.
+ *
+ * When created with a batch window, getOwnerById calls made close together
+ * are sent as one GET /owner/batch request (see BatchLoader).
+ *
+ * Unless disabled in the properties, every request goes through a
+ * NetworkResilienceUtil (timeouts, retries and a circuit breaker).
+ *
+ * With the adaptive limit enabled, the calls for given owners (but not the
+ * stream of all the owners) go through an AdaptiveLimiter, retries included.
  */
 @Service
 public class OwnerServiceClient {
 
     private final WebClient webClient;
+    private final BatchLoader<Long, Owner> ownerLoader;
+    private final NetworkResilienceUtil resilience;
+    private final AdaptiveLimiter limiter;
 
     /**
      * Constructor to inject the WebClient.
@@ -22,7 +42,23 @@ public class OwnerServiceClient {
      * @param webClient The WebClient instance for making HTTP calls.
      */
     public OwnerServiceClient(WebClient webClient) {
+        this(webClient, new ClientProperties());
+    }
+
+    /**
+     * Constructor for a client set up from the client properties: batching of
+     * getOwnerById calls if a batch window is set, and the resilience layer.
+     *
+     * @param webClient  The WebClient instance for making HTTP calls.
+     * @param properties The client settings.
+     */
+    public OwnerServiceClient(WebClient webClient, ClientProperties properties) {
         this.webClient = webClient;
+        this.resilience = properties.isResilience() ? new NetworkResilienceUtil("owners", properties) : null;
+        this.limiter = properties.isAdaptiveLimit() ? new AdaptiveLimiter("owners", properties) : null;
+        this.ownerLoader = properties.getBatchWindow() == null ? null
+                : new BatchLoader<>("owners", this::getOwnersByIds, Owner::getIdentifier,
+                        properties.getBatchWindow(), properties.getBatchMaxSize());
     }
 
     /**
@@ -31,12 +67,13 @@ public class OwnerServiceClient {
      * @return A Flux of Owner objects.
      */
     public Flux<Owner> getAllOwners() {
-        return webClient.get()
-                .uri("http://localhost:8080/owner")
+        return protect(webClient.get()
+                .uri("/owner")
                 .retrieve()
                 .onStatus(status -> !status.is2xxSuccessful(),
-                        response -> Mono.error(new ClientException("Error fetching owners")))
-                .bodyToFlux(Owner.class);
+                        response -> Mono.error(new ClientException("Error fetching owners",
+                                response.statusCode().value())))
+                .bodyToFlux(Owner.class));
     }
 
     /**
@@ -46,11 +83,72 @@ public class OwnerServiceClient {
      * @return A Mono of Owner object.
      */
     public Mono<Owner> getOwnerById(Long id) {
-        return webClient.get()
-                .uri("http://localhost:8080/owner/{id}", id)
+        if (ownerLoader != null) {
+            return ownerLoader.load(id);
+        }
+        return limited(() -> protect(webClient.get()
+                .uri("/owner/{id}", id)
                 .retrieve()
                 .onStatus(status -> !status.is2xxSuccessful(),
-                        response -> Mono.error(new ClientException("Error fetching owner with ID: " + id)))
-                .bodyToMono(Owner.class);
+                        response -> Mono.error(new ClientException("Error fetching owner with ID: " + id,
+                                response.statusCode().value())))
+                .bodyToMono(Owner.class)));
+    }
+
+    /**
+     * Fetches several owners by their IDs in one request.
+     *
+     * @param ids The IDs of the owners.
+     * @return A Flux with the owners found, in no particular order.
+     */
+    public Flux<Owner> getOwnersByIds(List<Long> ids) {
+        return limitedMany(() -> protect(webClient.get()
+                .uri("/owner/batch?ids={ids}",
+                        ids.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .retrieve()
+                .onStatus(status -> !status.is2xxSuccessful(),
+                        response -> Mono.error(new ClientException("Error fetching owners with IDs: " + ids,
+                                response.statusCode().value())))
+                .bodyToFlux(Owner.class)));
+    }
+
+    /**
+     * @return The batch loader behind getOwnerById, with its statistics, or
+     *         null if calls are not batched.
+     */
+    public BatchLoader<Long, Owner> getBatchLoader() {
+        return ownerLoader;
+    }
+
+    /**
+     * @return The resilience layer of the requests, with its statistics, or
+     *         null if it is disabled.
+     */
+    public NetworkResilienceUtil getResilience() {
+        return resilience;
+    }
+
+    /**
+     * @return The adaptive limit of the requests, with its statistics, or
+     *         null if it is disabled.
+     */
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    private <T> Mono<T> limited(Supplier<Mono<T>> request) {
+        return limiter == null ? request.get() : limiter.limit(request);
+    }
+
+    private <T> Flux<T> limitedMany(Supplier<Flux<T>> request) {
+        return limiter == null ? request.get() : limiter.limitMany(request);
+    }
+
+    private <T> Mono<T> protect(Mono<T> call) {
+        return resilience == null ? call : resilience.protect(call);
+    }
+
+    private <T> Flux<T> protect(Flux<T> call) {
+        return resilience == null ? call : resilience.protect(call);
     }
 }
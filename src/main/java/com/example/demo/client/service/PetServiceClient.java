@@ -1,7 +1,16 @@
 package com.example.demo.client.service;
 
+import com.example.demo.client.config.ClientProperties;
 import com.example.demo.client.exceptions.ClientException;
+import com.example.demo.client.utils.AdaptiveLimiter;
+import com.example.demo.client.utils.HedgedRequests;
+import com.example.demo.client.utils.NetworkResilienceUtil;
 import com.example.demo.server.model.Pet;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
@@ -10,11 +19,31 @@ import reactor.core.publisher.Mono;
 /**
  * Service class to interact with the Pet-related endpoints of the server.
  * Utilizes WebClient to make reactive HTTP calls.
+ *
+ * When created with a batch window, getPetById calls made close together are
+ * sent as one GET /pet/batch request (see BatchLoader).
+ *
+ * Unless disabled in the properties, every request goes through a
+ * NetworkResilienceUtil (timeouts, retries and a circuit breaker).
+ *
+ * With hedging enabled, the reads of one pet (getPetById when not batched,
+ * and getPetByIdWithRetry) are hedged (see HedgedRequests): a slow read is
+ * sent again and the first answer is used.
+ *
+ * With the adaptive limit enabled, the calls for a pet or the pets of an
+ * owner (but not the stream of all the pets) go through an AdaptiveLimiter,
+ * which keeps as many in flight as the server answers without slowing down
+ * and queues the others. A call holds its place through its retries and
+ * hedge, and its timeouts only start once it has one.
  */
 @Service
 public class PetServiceClient {
 
         private final WebClient webClient;
+        private final BatchLoader<Long, Pet> petLoader;
+        private final NetworkResilienceUtil resilience;
+        private final HedgedRequests hedging;
+        private final AdaptiveLimiter limiter;
 
         /**
          * Constructor to inject the WebClient.
@@ -23,7 +52,25 @@ public class PetServiceClient {
          */
 
         public PetServiceClient(WebClient webClient) {
+                this(webClient, new ClientProperties());
+        }
+
+        /**
+         * Constructor for a client set up from the client properties: batching
+         * of getPetById calls if a batch window is set, hedging, and the
+         * resilience layer.
+         *
+         * @param webClient  The WebClient instance for making HTTP calls.
+         * @param properties The client settings.
+         */
+        public PetServiceClient(WebClient webClient, ClientProperties properties) {
                 this.webClient = webClient;
+                this.resilience = properties.isResilience() ? new NetworkResilienceUtil("pets", properties) : null;
+                this.hedging = properties.isHedge() ? new HedgedRequests("pets", properties) : null;
+                this.limiter = properties.isAdaptiveLimit() ? new AdaptiveLimiter("pets", properties) : null;
+                this.petLoader = properties.getBatchWindow() == null ? null
+                                : new BatchLoader<>("pets", this::getPetsByIds, Pet::getIdentifier,
+                                                properties.getBatchWindow(), properties.getBatchMaxSize());
         }
 
         /**
@@ -32,12 +79,13 @@ public class PetServiceClient {
          * @return A Flux of Pet objects.
          */
         public Flux<Pet> getAllPets() {
-                return webClient.get()
-                                .uri("http://localhost:8080/pet")
+                return protect(webClient.get()
+                                .uri("/pet")
                                 .retrieve()
                                 .onStatus(status -> !status.is2xxSuccessful(),
-                                                response -> Mono.error(new ClientException("Error fetching pets")))
-                                .bodyToFlux(Pet.class);
+                                                response -> Mono.error(new ClientException("Error fetching pets",
+                                                                response.statusCode().value())))
+                                .bodyToFlux(Pet.class));
         }
 
         /**
@@ -47,13 +95,87 @@ public class PetServiceClient {
          * @return A Mono of Pet object.
          */
         public Mono<Pet> getPetById(Long id) {
-                return webClient.get()
-                                .uri("http://localhost:8080/pet/{id}", id)
+                if (petLoader != null) {
+                        return petLoader.load(id);
+                }
+                return limited(() -> protect(hedged(() -> webClient.get()
+                                .uri("/pet/{id}", id)
+                                .retrieve()
+                                .onStatus(status -> !status.is2xxSuccessful(),
+                                                response -> Mono.error(new ClientException(
+                                                                "Error fetching pet with ID: " + id,
+                                                                response.statusCode().value())))
+                                .bodyToMono(Pet.class))));
+        }
+
+        /**
+         * Fetches several pets by their IDs in one request.
+         *
+         * @param ids The IDs of the pets.
+         * @return A Flux with the pets found, in no particular order.
+         */
+        public Flux<Pet> getPetsByIds(List<Long> ids) {
+                return limitedMany(() -> protect(webClient.get()
+                                .uri("/pet/batch?ids={ids}",
+                                                ids.stream().map(String::valueOf).collect(Collectors.joining(",")))
                                 .retrieve()
                                 .onStatus(status -> !status.is2xxSuccessful(),
                                                 response -> Mono.error(new ClientException(
-                                                                "Error fetching pet with ID: " + id)))
-                                .bodyToMono(Pet.class);
+                                                                "Error fetching pets with IDs: " + ids,
+                                                                response.statusCode().value())))
+                                .bodyToFlux(Pet.class)));
+        }
+
+        /**
+         * @return The batch loader behind getPetById, with its statistics, or
+         *         null if calls are not batched.
+         */
+        public BatchLoader<Long, Pet> getBatchLoader() {
+                return petLoader;
+        }
+
+        /**
+         * @return The resilience layer of the requests, with its statistics, or
+         *         null if it is disabled.
+         */
+        public NetworkResilienceUtil getResilience() {
+                return resilience;
+        }
+
+        /**
+         * @return The hedging of the reads of one pet, with its statistics, or
+         *         null if it is disabled.
+         */
+        public HedgedRequests getHedging() {
+                return hedging;
+        }
+
+        /**
+         * @return The adaptive limit of the requests, with its statistics, or
+         *         null if it is disabled.
+         */
+        public AdaptiveLimiter getLimiter() {
+                return limiter;
+        }
+
+        private <T> Mono<T> limited(Supplier<Mono<T>> request) {
+                return limiter == null ? request.get() : limiter.limit(request);
+        }
+
+        private <T> Flux<T> limitedMany(Supplier<Flux<T>> request) {
+                return limiter == null ? request.get() : limiter.limitMany(request);
+        }
+
+        private Mono<Pet> hedged(Supplier<Mono<Pet>> read) {
+                return hedging == null ? read.get() : hedging.hedge(read);
+        }
+
+        private <T> Mono<T> protect(Mono<T> call) {
+                return resilience == null ? call : resilience.protect(call);
+        }
+
+        private <T> Flux<T> protect(Flux<T> call) {
+                return resilience == null ? call : resilience.protect(call);
         }
 
         private static final int MAX_RETRIES = 3;
@@ -61,16 +183,23 @@ public class PetServiceClient {
         /**
          * Retrieve a pet by its identifier with retries and delay.
          *
+         * Failures are retried by the resilience layer, i.e. only if they are
+         * retryable; without it, up to MAX_RETRIES times whatever the failure.
+         *
          * @param id The identifier of the pet to retrieve.
          * @return A reactive stream (Mono) containing the pet or empty if not found.
          */
         public Mono<Pet> getPetByIdWithRetry(Long id) {
-                return webClient
+                Mono<Pet> call = hedged(() -> webClient
                                 .get()
-                                .uri("http://localhost:8080/pet/delay/{id}", id)
+                                .uri("/pet/delay/{id}", id)
                                 .retrieve()
-                                .bodyToMono(Pet.class)
-                                .retry(MAX_RETRIES);
+                                .onStatus(status -> !status.is2xxSuccessful(),
+                                                response -> Mono.error(new ClientException(
+                                                                "Error fetching pet with ID: " + id,
+                                                                response.statusCode().value())))
+                                .bodyToMono(Pet.class));
+                return limited(() -> resilience == null ? call.retry(MAX_RETRIES) : resilience.protect(call));
         }
 
         /**
@@ -80,13 +209,14 @@ public class PetServiceClient {
          * @return A Flux with the Pets IDs.
          */
         public Flux<Long> getPetIdsByOwnerId(Long ownerId) {
-                return webClient.get()
-                                .uri("http://localhost:8080/pet/owner/" + ownerId) // Replace with the actual endpoint
+                return limitedMany(() -> protect(webClient.get()
+                                .uri("/pet/owner/" + ownerId) // Replace with the actual endpoint
                                 .retrieve()
                                 .onStatus(status -> !status.is2xxSuccessful(),
                                                 response -> Mono.error(new ClientException(
-                                                                "Error fetching pets ids with owner ID: " + ownerId)))
-                                .bodyToFlux(Long.class);
+                                                                "Error fetching pets ids with owner ID: " + ownerId,
+                                                                response.statusCode().value())))
+                                .bodyToFlux(Long.class)));
         }
 
 }
@@ -0,0 +1,148 @@
+package com.example.demo.client.stats;
+
+import com.example.demo.client.utils.LongOpenAddressing;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Counts occurrences by a long key, e.g. pets by owner id.
+ *
+ * Keys and counts are kept in primitive arrays with open addressing (see
+ * LongOpenAddressing), so counting does not box the keys or allocate an entry
+ * per key; the arrays only grow when they are half full. Not thread-safe.
+ */
+public class KeyCounter {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] keys;
+    private long[] counts; // 0 marks an empty slot
+    private final IntPredicate occupied = slot -> counts[slot] != 0;
+    private int size;
+    private long total;
+
+    public KeyCounter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedKeys Number of distinct keys expected.
+     */
+    public KeyCounter(int expectedKeys) {
+        int capacity = LongOpenAddressing.capacity(expectedKeys);
+        keys = new long[capacity];
+        counts = new long[capacity];
+    }
+
+    /**
+     * Count one occurrence of a key.
+     *
+     * @param key The key.
+     */
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    /**
+     * Count several occurrences of a key.
+     *
+     * @param key   The key.
+     * @param delta The number of occurrences, greater than zero.
+     */
+    public void add(long key, long delta) {
+        if (delta <= 0) {
+            throw new IllegalArgumentException("delta must be positive: " + delta);
+        }
+
+        int slot = LongOpenAddressing.probe(keys, key, occupied);
+        if (counts[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot] += delta;
+        total += delta;
+
+        if (LongOpenAddressing.isFull(size, keys.length)) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * @param key The key.
+     * @return The number of occurrences of the key.
+     */
+    public long get(long key) {
+        return counts[LongOpenAddressing.probe(keys, key, occupied)]; // 0 if the slot is empty
+    }
+
+    /**
+     * Add the counts of another counter.
+     *
+     * @param other The other counter, left unchanged.
+     * @return This counter.
+     */
+    public KeyCounter merge(KeyCounter other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.counts[slot] != 0) {
+                add(other.keys[slot], other.counts[slot]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Call the consumer once per key, in no particular order.
+     *
+     * @param consumer Receives each key and its count.
+     */
+    public void forEach(KeyCountConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (counts[slot] != 0) {
+                consumer.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * @return The number of distinct keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The sum of all the counts.
+     */
+    public long total() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, count) -> builder.append(builder.length() > 1 ? ", " : "").append(key).append('=').append(count));
+        return builder.append('}').toString();
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldCounts[old] != 0) {
+                int slot = LongOpenAddressing.probe(keys, oldKeys[old], occupied);
+                keys[slot] = oldKeys[old];
+                counts[slot] = oldCounts[old];
+            }
+        }
+    }
+
+    /**
+     * Receives a key and its count without boxing them.
+     */
+    @FunctionalInterface
+    public interface KeyCountConsumer {
+        void accept(long key, long count);
+    }
+}
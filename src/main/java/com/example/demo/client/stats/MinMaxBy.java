@@ -0,0 +1,86 @@
+package com.example.demo.client.stats;
+
+import java.util.Comparator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps the elements with the smallest and the largest key of a stream, e.g.
+ * the eldest pet by birth date.
+ *
+ * Ties go to the element the tie-breaker orders first (e.g. the lowest id),
+ * so the result does not depend on the order of the elements, nor on the
+ * order in which the accumulators of parallel rails are merged. Not
+ * thread-safe.
+ *
+ * @param <T> The type of the elements.
+ */
+public class MinMaxBy<T> {
+
+    private final ToLongFunction<? super T> key;
+    private final Comparator<? super T> tieBreaker;
+    private T min;
+    private T max;
+    private long minKey = Long.MAX_VALUE;
+    private long maxKey = Long.MIN_VALUE;
+
+    /**
+     * @param key        Extracts the key to compare the elements by.
+     * @param tieBreaker Orders the elements with equal keys; the first one is
+     *                   kept, both as the min and the max.
+     */
+    public MinMaxBy(ToLongFunction<? super T> key, Comparator<? super T> tieBreaker) {
+        this.key = key;
+        this.tieBreaker = tieBreaker;
+    }
+
+    /**
+     * Add one element.
+     *
+     * @param element The element.
+     */
+    public void accept(T element) {
+        long value = key.applyAsLong(element);
+        if (min == null || value < minKey || value == minKey && tieBreaker.compare(element, min) < 0) {
+            min = element;
+            minKey = value;
+        }
+        if (max == null || value > maxKey || value == maxKey && tieBreaker.compare(element, max) < 0) {
+            max = element;
+            maxKey = value;
+        }
+    }
+
+    /**
+     * Add the elements of another accumulator.
+     *
+     * @param other The other accumulator, left unchanged.
+     * @return This accumulator.
+     */
+    public MinMaxBy<T> merge(MinMaxBy<T> other) {
+        if (other.min != null && (min == null || other.minKey < minKey
+                || other.minKey == minKey && tieBreaker.compare(other.min, min) < 0)) {
+            min = other.min;
+            minKey = other.minKey;
+        }
+        if (other.max != null && (max == null || other.maxKey > maxKey
+                || other.maxKey == maxKey && tieBreaker.compare(other.max, max) < 0)) {
+            max = other.max;
+            maxKey = other.maxKey;
+        }
+        return this;
+    }
+
+    /**
+     * @return The element with the smallest key, or null if there are none.
+     */
+    public T getMin() {
+        return min;
+    }
+
+    /**
+     * @return The element with the largest key, or null if there are none.
+     */
+    public T getMax() {
+        return max;
+    }
+}
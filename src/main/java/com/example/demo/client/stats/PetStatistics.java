@@ -0,0 +1,185 @@
+package com.example.demo.client.stats;
+
+import com.example.demo.server.model.Pet;
+
+import java.util.Comparator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * All the statistics the client tasks report about the pets, computed in a
+ * single pass: the number of pets and of dogs, the mean, standard deviation
+ * and quantiles of the weights, the eldest pet and the pets per owner.
+ *
+ * Pets without a weight, a birth date or an owner are counted but left out
+ * of the weight statistics, the eldest pet or the pets per owner. Statistics
+ * over separate parts of the pets can be merged, so they can be computed on
+ * parallel rails. Not thread-safe.
+ */
+public class PetStatistics {
+
+    /**
+     * Relative accuracy of the weight quantiles.
+     */
+    public static final double QUANTILE_ACCURACY = 0.01;
+
+    private static final Comparator<Pet> BY_ID = Comparator.comparing(Pet::getIdentifier,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * Orders the pets from the eldest, those born the same day by id, so
+     * that the eldest pet does not depend on the order of the pets (or of
+     * the rails). Pets without a birth date cannot be compared.
+     */
+    public static final Comparator<Pet> ELDEST_FIRST = Comparator.comparing(Pet::getBirth_date).thenComparing(BY_ID);
+
+    private long count;
+    private long dogs;
+    private final RunningStats weights = new RunningStats();
+    private final QuantileSketch weightQuantiles = new QuantileSketch(QUANTILE_ACCURACY);
+    private final MinMaxBy<Pet> birthDates = new MinMaxBy<>(pet -> pet.getBirth_date().toEpochDay(), BY_ID);
+    private final KeyCounter petsPerOwner;
+
+    public PetStatistics() {
+        this(0);
+    }
+
+    /**
+     * @param expectedOwners Owners the counts of pets per owner are sized
+     *                       for, so that they do not grow while counting, or
+     *                       0 if unknown.
+     */
+    public PetStatistics(int expectedOwners) {
+        petsPerOwner = expectedOwners > 0 ? new KeyCounter(expectedOwners) : new KeyCounter();
+    }
+
+    /**
+     * Compute the statistics of the pets in one subscription.
+     *
+     * @param pets The pets.
+     * @return A reactive stream (Mono) with the statistics.
+     */
+    public static Mono<PetStatistics> of(Flux<Pet> pets) {
+        return of(pets, 1, 0);
+    }
+
+    /**
+     * Compute the statistics of the pets in one subscription, splitting the
+     * work over parallel rails and merging the results.
+     *
+     * @param pets  The pets.
+     * @param rails The number of rails.
+     * @return A reactive stream (Mono) with the statistics.
+     */
+    public static Mono<PetStatistics> of(Flux<Pet> pets, int rails) {
+        return of(pets, rails, 0);
+    }
+
+    /**
+     * Compute the statistics of the pets in one subscription, splitting the
+     * work over parallel rails and merging the results if there are several.
+     *
+     * @param pets           The pets.
+     * @param rails          The number of rails, 1 to compute them on the
+     *                       subscriber thread.
+     * @param expectedOwners Owners expected to have pets, or 0 if unknown;
+     *                       each rail may see all of them.
+     * @return A reactive stream (Mono) with the statistics.
+     */
+    public static Mono<PetStatistics> of(Flux<Pet> pets, int rails, int expectedOwners) {
+        if (rails <= 1) {
+            return pets.collect(() -> new PetStatistics(expectedOwners), PetStatistics::accept);
+        }
+        return pets.parallel(rails)
+                .runOn(Schedulers.parallel())
+                .collect(() -> new PetStatistics(expectedOwners), PetStatistics::accept)
+                .reduce(PetStatistics::merge)
+                .defaultIfEmpty(new PetStatistics());
+    }
+
+    /**
+     * Add one pet.
+     *
+     * @param pet The pet.
+     */
+    public void accept(Pet pet) {
+        count++;
+        if ("dog".equalsIgnoreCase(pet.getSpecies())) {
+            dogs++;
+        }
+        if (pet.getWeight() != null) {
+            double weight = pet.getWeight();
+            weights.accept(weight);
+            weightQuantiles.accept(weight);
+        }
+        if (pet.getBirth_date() != null) {
+            birthDates.accept(pet);
+        }
+        if (pet.getOwnerid() != null) {
+            petsPerOwner.increment(pet.getOwnerid());
+        }
+    }
+
+    /**
+     * Add the statistics of pets that come after the ones already added.
+     *
+     * @param other The other statistics, left unchanged.
+     * @return These statistics.
+     */
+    public PetStatistics merge(PetStatistics other) {
+        count += other.count;
+        dogs += other.dogs;
+        weights.merge(other.weights);
+        weightQuantiles.merge(other.weightQuantiles);
+        birthDates.merge(other.birthDates);
+        petsPerOwner.merge(other.petsPerOwner);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getDogs() {
+        return dogs;
+    }
+
+    /**
+     * @return The mean, standard deviation, minimum and maximum of the weights.
+     */
+    public RunningStats getWeights() {
+        return weights;
+    }
+
+    /**
+     * @return The quantiles of the weights, within QUANTILE_ACCURACY.
+     */
+    public QuantileSketch getWeightQuantiles() {
+        return weightQuantiles;
+    }
+
+    /**
+     * @return The eldest pet (the one with the lowest id, on ties; see
+     *         ELDEST_FIRST), or null if there are none.
+     */
+    public Pet getEldest() {
+        return birthDates.getMin();
+    }
+
+    /**
+     * @return The number of pets by owner id.
+     */
+    public KeyCounter getPetsPerOwner() {
+        return petsPerOwner;
+    }
+
+    /**
+     * @return The average number of pets per owner, over the owners with at
+     *         least one pet and the pets with an owner; 0 if there are none.
+     */
+    public double getAveragePetsPerOwner() {
+        return petsPerOwner.size() == 0 ? 0 : (double) petsPerOwner.total() / petsPerOwner.size();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.client.stats;
+
+import java.util.Arrays;
+
+/**
+ * Approximate quantiles of a stream of positive values, with a bounded
+ * relative error.
+ *
+ * Values are counted in logarithmic buckets: bucket i holds the values in
+ * (gamma^(i-1), gamma^i] with gamma = (1 + accuracy) / (1 - accuracy), so any
+ * quantile is returned within the relative accuracy of the true value
+ * (DDSketch). Memory depends on the ratio between the largest and smallest
+ * values, not on their number: 1% accuracy over 0.01 to 1000 takes about 580
+ * buckets. Values that are zero or negative are counted together and reported
+ * as 0. Sketches with the same accuracy can be merged. Not thread-safe.
+ */
+public class QuantileSketch {
+
+    private final double accuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private long[] counts = new long[0];
+    private int offset; // Bucket index of counts[0]
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param accuracy The relative accuracy of the quantiles, e.g. 0.01 for 1%.
+     */
+    public QuantileSketch(double accuracy) {
+        if (accuracy <= 0 || accuracy >= 1) {
+            throw new IllegalArgumentException("accuracy must be between 0 and 1: " + accuracy);
+        }
+        this.accuracy = accuracy;
+        this.gamma = (1 + accuracy) / (1 - accuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Add one value.
+     *
+     * @param value The value.
+     */
+    public void accept(double value) {
+        count++;
+        if (!(value > 0)) {
+            zeroCount++;
+            return;
+        }
+
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        ensureBucket(index);
+        counts[index - offset]++;
+    }
+
+    /**
+     * Add the values of another sketch.
+     *
+     * @param other The other sketch, with the same accuracy, left unchanged.
+     * @return This sketch.
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.accuracy != accuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with accuracy " + accuracy + " and "
+                    + other.accuracy);
+        }
+        if (other.counts.length > 0) {
+            ensureBucket(other.offset);
+            ensureBucket(other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * @param quantile The quantile, between 0 and 1 (e.g. 0.5 for the median).
+     * @return The approximate value at the quantile, or NaN if there are no
+     *         values.
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1: " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = (long) (quantile * (count - 1)); // Zero-based rank of the value
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // Middle of the bucket (relative to its bounds), which is within the accuracy of any value in it
+                return 2 * Math.pow(gamma, i + offset) / (gamma + 1);
+            }
+        }
+        throw new IllegalStateException("Bucket counts do not add up to " + count);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Grow the bucket array, if needed, so that it covers the index.
+     */
+    private void ensureBucket(int index) {
+        if (counts.length == 0) {
+            counts = new long[16];
+            offset = index - 8;
+            return;
+        }
+
+        int last = offset + counts.length - 1;
+        if (index >= offset && index <= last) {
+            return;
+        }
+
+        // Grow by at least half the current size, so growing is amortised
+        int margin = counts.length / 2;
+        int newOffset = index < offset ? index - margin : offset;
+        int newLast = index > last ? index + margin : last;
+        long[] grown = new long[newLast - newOffset + 1];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch[count=" + count + ", accuracy=" + accuracy + ", buckets=" + counts.length
+                + ", nonEmpty=" + Arrays.stream(counts).filter(c -> c > 0).count() + "]";
+    }
+}
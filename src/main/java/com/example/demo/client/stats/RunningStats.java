@@ -0,0 +1,109 @@
+package com.example.demo.client.stats;
+
+/**
+ * Count, mean, variance, minimum and maximum of a stream of values, updated in
+ * one pass with Welford's algorithm.
+ *
+ * Unlike the sum / sum-of-squares formula (E[x²] - E[x]²), the variance does
+ * not lose its precision when the mean is large compared to the spread.
+ * Accumulators built over separate parts of a stream (e.g. parallel rails)
+ * can be merged. Not thread-safe; no allocation per value.
+ */
+public class RunningStats {
+
+    private long count;
+    private double mean;
+    private double m2; // Sum of squared differences from the current mean
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Add one value.
+     *
+     * @param value The value.
+     */
+    public void accept(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add the values of another accumulator (Chan et al.).
+     *
+     * @param other The other accumulator, left unchanged.
+     * @return This accumulator.
+     */
+    public RunningStats merge(RunningStats other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return this;
+        }
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The mean, or NaN if there are no values.
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return The population variance, or NaN if there are no values.
+     */
+    public double getVariance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    /**
+     * @return The sample variance (n - 1 denominator), or NaN with fewer than
+     *         two values.
+     */
+    public double getSampleVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * @return The population standard deviation, or NaN if there are no values.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return The minimum, or +Infinity if there are no values.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return The maximum, or -Infinity if there are no values.
+     */
+    public double getMax() {
+        return max;
+    }
+}
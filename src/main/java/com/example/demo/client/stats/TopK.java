@@ -0,0 +1,130 @@
+package com.example.demo.client.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Keeps the first k elements of a stream in a given order, e.g. the 10
+ * heaviest pets, in O(k) memory and O(n log k) time instead of sorting the
+ * whole stream.
+ *
+ * The elements are kept in a heap of at most k elements with the last one
+ * (the one to drop first) on top. Ties go to the element seen first, and when
+ * merging, to the accumulator that covers the earlier part of the stream, so
+ * the result is the first k elements of a stable sort. Not thread-safe.
+ *
+ * @param <T> The type of the elements.
+ */
+public class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> comparator;
+    private final PriorityQueue<Ranked<T>> heap;
+    private long count;
+
+    /**
+     * An element with its position in the stream, to break ties.
+     */
+    private static final class Ranked<T> {
+        final T element;
+        final long position;
+
+        Ranked(T element, long position) {
+            this.element = element;
+            this.position = position;
+        }
+    }
+
+    /**
+     * @param k          Number of elements to keep.
+     * @param comparator The order; the first elements in it are kept.
+     */
+    public TopK(int k, Comparator<? super T> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Cannot keep a negative number of elements: " + k);
+        }
+        this.k = k;
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), this::compareLastFirst);
+    }
+
+    /**
+     * An operator for Flux.transform that emits the first k elements in
+     * order, once the source completes.
+     *
+     * @param k          Number of elements to emit.
+     * @param comparator The order.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> top(int k, Comparator<? super T> comparator) {
+        return elements -> elements
+                .collect(() -> new TopK<T>(k, comparator), TopK::accept)
+                .flatMapIterable(TopK::toList);
+    }
+
+    private int compareLastFirst(Ranked<T> ranked1, Ranked<T> ranked2) {
+        return -compare(ranked1.element, ranked1.position, ranked2);
+    }
+
+    private int compare(T element, long position, Ranked<T> ranked) {
+        int order = comparator.compare(element, ranked.element);
+        return order != 0 ? order : Long.compare(position, ranked.position);
+    }
+
+    /**
+     * Add one element.
+     *
+     * @param element The element.
+     */
+    public void accept(T element) {
+        offer(element, count++);
+    }
+
+    private void offer(T element, long position) {
+        if (heap.size() < k) {
+            heap.add(new Ranked<>(element, position));
+        } else if (k > 0 && compare(element, position, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(new Ranked<>(element, position));
+        }
+    }
+
+    /**
+     * Add the elements of an accumulator over a later part of the stream.
+     *
+     * @param other The other accumulator, left unchanged.
+     * @return This accumulator.
+     */
+    public TopK<T> merge(TopK<T> other) {
+        for (Ranked<T> ranked : other.heap) {
+            offer(ranked.element, count + ranked.position);
+        }
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * @return The number of elements seen.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The first k elements (or all of them if there are fewer), in
+     *         order.
+     */
+    public List<T> toList() {
+        List<Ranked<T>> ranked = new ArrayList<>(heap);
+        ranked.sort((ranked1, ranked2) -> -compareLastFirst(ranked1, ranked2));
+        List<T> elements = new ArrayList<>(ranked.size());
+        for (Ranked<T> element : ranked) {
+            elements.add(element.element);
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.demo.client.utils;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.server.utils.LatencyGradientLimit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Adaptive concurrency limit for the requests of a service client: at most
+ * `limit` requests are in flight and the others wait in a FIFO queue.
+ *
+ * The limit follows the round-trip times the server shows (see
+ * LatencyGradientLimit): it falls when the server is queueing requests or a
+ * request fails because the server is overloaded (see
+ * NetworkResilienceUtil.isRetryable: timeouts, connection errors, 5xx and
+ * 429), and rises while the requests use at least half of it. The time a
+ * request waits in the queue is not part of its round-trip time. Cancelled
+ * requests free their place without changing the limit. Thread-safe.
+ */
+public class AdaptiveLimiter {
+
+    private final String name;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this
+    private final LatencyGradientLimit gradient;
+    private int inFlight;
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private int maxQueued;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong queueNanos = new AtomicLong();
+
+    /**
+     * @param name       Name used in the statistics.
+     * @param properties The client settings.
+     */
+    public AdaptiveLimiter(String name, ClientProperties properties) {
+        this(name, properties.getAdaptiveLimitInitial(), properties.getAdaptiveLimitMin(),
+                properties.getAdaptiveLimitMax(), properties.getAdaptiveLimitTolerance(),
+                properties.getAdaptiveLimitBackoff(), System::nanoTime);
+    }
+
+    /**
+     * @param name         Name used in the statistics.
+     * @param initialLimit The limit until latencies are known.
+     * @param minLimit     The lowest limit, at least 1.
+     * @param maxLimit     The highest limit.
+     * @param tolerance    Round-trip time, relative to the baseline, beyond
+     *                     which the server is taken to be queueing, e.g. 2.
+     * @param backoff      Factor applied to the limit when it decreases,
+     *                     e.g. 0.9.
+     * @param nanoClock    Source of System.nanoTime-like timestamps.
+     */
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, double tolerance,
+            double backoff, LongSupplier nanoClock) {
+        this.name = name;
+        this.nanoClock = nanoClock;
+        this.gradient = new LatencyGradientLimit(initialLimit, minLimit, maxLimit, tolerance, backoff,
+                nanoClock.getAsLong());
+    }
+
+    /**
+     * Make a request within the limit, waiting for a place if needed.
+     *
+     * @param request Makes the request; called once it has a place.
+     * @return The answer of the request.
+     */
+    public <T> Mono<T> limit(Supplier<Mono<T>> request) {
+        return Mono.usingWhen(acquire(), permit -> request.get(), Permit::succeeded, Permit::failed,
+                Permit::cancelled);
+    }
+
+    /**
+     * Make a request within the limit, waiting for a place if needed. The
+     * place is held, and the round-trip time measured, until the last
+     * element.
+     *
+     * @param request Makes the request; called once it has a place.
+     * @return The answer of the request.
+     */
+    public <T> Flux<T> limitMany(Supplier<Flux<T>> request) {
+        return Flux.usingWhen(acquire(), permit -> request.get(), Permit::succeeded, Permit::failed,
+                Permit::cancelled);
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            requests.incrementAndGet();
+            Waiter waiter = new Waiter(sink, nanoClock.getAsLong());
+            sink.onCancel(waiter::cancel);
+            boolean granted = false;
+            synchronized (this) {
+                if (inFlight < gradient.getLimit()) {
+                    granted = waiter.grant(waiter.enqueuedNanos);
+                    if (granted) {
+                        inFlight++;
+                    }
+                } else if (!waiter.isDecided()) {
+                    queue.add(waiter);
+                    maxQueued = Math.max(maxQueued, queue.size());
+                }
+            }
+            if (granted) {
+                sink.success(waiter.permit);
+            } else {
+                queued.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Free a place, adapt the limit and hand the free places to the waiting
+     * requests.
+     *
+     * @param rttNanos The round-trip time of the request, or -1 if it failed
+     *                 because of an overload, or 0 if it says nothing (it was
+     *                 cancelled).
+     */
+    private void release(long rttNanos) {
+        List<Waiter> granted = new ArrayList<>();
+        long now = nanoClock.getAsLong();
+        synchronized (this) {
+            int used = inFlight;
+            inFlight--;
+            if (rttNanos != 0) {
+                gradient.update(rttNanos, used, now);
+            }
+            while (inFlight < gradient.getLimit() && !queue.isEmpty()) {
+                Waiter waiter = queue.poll();
+                if (waiter.grant(now)) {
+                    inFlight++;
+                    granted.add(waiter);
+                }
+            }
+        }
+        for (Waiter waiter : granted) {
+            queueNanos.addAndGet(now - waiter.enqueuedNanos);
+            waiter.sink.success(waiter.permit);
+        }
+    }
+
+    /**
+     * @return The current limit on the requests in flight.
+     */
+    public synchronized int getLimit() {
+        return gradient.getLimit();
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return The number of requests waiting for a place.
+     */
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * @return The largest number of requests that waited at once.
+     */
+    public synchronized int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of requests that had to wait for a place.
+     */
+    public long getRequestsQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return The time the requests waited for a place, in total, in
+     *         nanoseconds.
+     */
+    public long getQueueNanos() {
+        return queueNanos.get();
+    }
+
+    /**
+     * @return The number of times the limit was lowered.
+     */
+    public synchronized long getDecreases() {
+        return gradient.getDecreases();
+    }
+
+    /**
+     * @return The current state: limit, requests in flight and waiting, for
+     *         logging over time.
+     */
+    public synchronized String getState() {
+        return String.format("%s: limit %d, %d in flight, %d queued, RTT %.1f ms (baseline %.1f ms)", name,
+                gradient.getLimit(), inFlight, queue.size(), gradient.getRecentNanos() / 1e6,
+                gradient.getBaselineNanos() / 1e6);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d requests, %d queued (at most %d at once, %.1f ms on average),"
+                + " limit %d (between %d and %d, lowered %d times), RTT %.1f ms (baseline %.1f ms)", name,
+                requests.get(), queued.get(), maxQueued, queued.get() == 0 ? 0 : queueNanos.get() / 1e6 / queued.get(),
+                gradient.getLimit(), gradient.getLowestLimit(), gradient.getHighestLimit(), gradient.getDecreases(),
+                gradient.getRecentNanos() / 1e6, gradient.getBaselineNanos() / 1e6);
+    }
+
+    /**
+     * A request waiting for a place.
+     */
+    private final class Waiter {
+        final MonoSink<Permit> sink;
+        final long enqueuedNanos;
+        // Set once, under the lock of the limiter, by whichever of the grant
+        // and the cancellation comes first
+        private boolean decided;
+        private Permit permit;
+
+        Waiter(MonoSink<Permit> sink, long enqueuedNanos) {
+            this.sink = sink;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        /**
+         * Give it a place, unless it was cancelled. Called under the lock.
+         */
+        boolean grant(long startNanos) {
+            if (decided) {
+                return false;
+            }
+            decided = true;
+            permit = new Permit(startNanos);
+            return true;
+        }
+
+        boolean isDecided() {
+            return decided;
+        }
+
+        void cancel() {
+            Permit granted;
+            synchronized (AdaptiveLimiter.this) {
+                if (!decided) {
+                    decided = true;
+                    queue.remove(this);
+                    return;
+                }
+                granted = permit;
+            }
+            // It had a place: free it, whether or not the request got to start
+            // (the permit is only released once)
+            granted.cancelled().subscribe();
+        }
+    }
+
+    /**
+     * A place for one request; released once, however the request ends.
+     */
+    private final class Permit {
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        Mono<Void> succeeded() {
+            return Mono.fromRunnable(() -> release(Math.max(1, nanoClock.getAsLong() - startNanos)));
+        }
+
+        Mono<Void> failed(Throwable error) {
+            return Mono.fromRunnable(() -> release(NetworkResilienceUtil.isRetryable(error) ? -1
+                    : Math.max(1, nanoClock.getAsLong() - startNanos)));
+        }
+
+        Mono<Void> cancelled() {
+            return Mono.fromRunnable(() -> release(0));
+        }
+
+        private void release(long rttNanos) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveLimiter.this.release(rttNanos);
+            }
+        }
+    }
+}
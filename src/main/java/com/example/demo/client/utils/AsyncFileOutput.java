@@ -0,0 +1,180 @@
+package com.example.demo.client.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking file output for the task results, replacing FileOutputUtil.
+ *
+ * The lines are written as they are produced: they are grouped into batches
+ * of about BATCH_CHARS characters and each batch is one write of an
+ * AsynchronousFileChannel, so no thread waits for the disk. The lines go to a
+ * temporary file in the same directory, which replaces the target file only
+ * once all of them are written: readers see either the old file or the whole
+ * new one, and a failed or cancelled write leaves the old file in place.
+ *
+ * Opening and renaming the file are blocking calls, made on a small dedicated
+ * scheduler rather than on the caller's thread (which may be a Netty event
+ * loop).
+ */
+public final class AsyncFileOutput {
+
+    /**
+     * Characters of lines collected before they are written.
+     */
+    public static final int BATCH_CHARS = 64 * 1024;
+
+    /**
+     * Base directory for the output files.
+     */
+    private static final Path OUTPUT_DIR = Paths.get("output");
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final Scheduler FILE_SCHEDULER = Schedulers.newBoundedElastic(2, Integer.MAX_VALUE,
+            "file-output", 60, true);
+
+    private AsyncFileOutput() {
+    }
+
+    /**
+     * Write lines to a file in the output directory, replacing it.
+     *
+     * @param fileName The name of the file (without path).
+     * @param lines    The lines, each written followed by a line separator.
+     * @return A Mono that completes once the file is replaced.
+     */
+    public static Mono<Void> writeLines(String fileName, Publisher<String> lines) {
+        return writeLines(OUTPUT_DIR.resolve(fileName), lines);
+    }
+
+    /**
+     * Write lines to a file, replacing it.
+     *
+     * @param target The file; its directory is created if needed.
+     * @param lines  The lines, each written followed by a line separator.
+     * @return A Mono that completes once the file is replaced.
+     */
+    public static Mono<Void> writeLines(Path target, Publisher<String> lines) {
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> TempFile.open(target)).subscribeOn(FILE_SCHEDULER),
+                file -> batches(lines).concatMap(file::write).then(),
+                file -> Mono.fromCallable(file::commit).subscribeOn(FILE_SCHEDULER).then(),
+                (file, error) -> Mono.fromRunnable(file::discard).subscribeOn(FILE_SCHEDULER),
+                file -> Mono.fromRunnable(file::discard).subscribeOn(FILE_SCHEDULER));
+    }
+
+    /**
+     * Group the lines into encoded batches of about BATCH_CHARS characters.
+     */
+    private static Flux<ByteBuffer> batches(Publisher<String> lines) {
+        return Flux.defer(() -> {
+            int[] pendingChars = { 0 };
+            return Flux.from(lines)
+                    .bufferUntil(line -> {
+                        pendingChars[0] += line.length() + LINE_SEPARATOR.length();
+                        if (pendingChars[0] < BATCH_CHARS) {
+                            return false;
+                        }
+                        pendingChars[0] = 0;
+                        return true;
+                    })
+                    .map(AsyncFileOutput::encode);
+        });
+    }
+
+    private static ByteBuffer encode(List<String> lines) {
+        StringBuilder batch = new StringBuilder();
+        for (String line : lines) {
+            batch.append(line).append(LINE_SEPARATOR);
+        }
+        return ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The temporary file a write goes to.
+     */
+    private static final class TempFile {
+        private final Path target;
+        private final Path path;
+        private final AsynchronousFileChannel channel;
+        private long position; // Only written from the write chain, one batch at a time
+
+        private TempFile(Path target, Path path, AsynchronousFileChannel channel) {
+            this.target = target;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        static TempFile open(Path target) throws IOException {
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path path = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+            try {
+                return new TempFile(target, path, AsynchronousFileChannel.open(path, StandardOpenOption.WRITE));
+            } catch (IOException e) {
+                Files.deleteIfExists(path);
+                throw e;
+            }
+        }
+
+        /**
+         * Write a whole batch at the end of the file.
+         */
+        Mono<Void> write(ByteBuffer batch) {
+            return Mono.create(sink -> channel.write(batch, position, batch,
+                    new CompletionHandler<Integer, ByteBuffer>() {
+                        @Override
+                        public void completed(Integer written, ByteBuffer buffer) {
+                            position += written;
+                            if (buffer.hasRemaining()) {
+                                channel.write(buffer, position, buffer, this);
+                            } else {
+                                sink.success();
+                            }
+                        }
+
+                        @Override
+                        public void failed(Throwable error, ByteBuffer buffer) {
+                            sink.error(error);
+                        }
+                    }));
+        }
+
+        /**
+         * Replace the target with the written file.
+         */
+        Path commit() throws IOException {
+            channel.close();
+            return Files.move(path, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        /**
+         * Give up on the write, leaving the target as it was.
+         */
+        void discard() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("Error deleting temporary file " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
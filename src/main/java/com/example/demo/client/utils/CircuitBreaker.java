@@ -0,0 +1,215 @@
+package com.example.demo.client.utils;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker over the outcomes of the last calls.
+ *
+ * CLOSED: calls are permitted and their outcomes recorded in a window of the
+ * last windowSize calls. Once at least minimumCalls are recorded and the
+ * failure rate reaches the threshold, the breaker opens.
+ * OPEN: calls are rejected until openDuration has passed; the next call then
+ * moves the breaker to half-open.
+ * HALF_OPEN: up to halfOpenProbes calls are let through as probes. If they
+ * all succeed the breaker closes with an empty window; any failure opens it
+ * again.
+ *
+ * Thread-safe. Each permitted call must end with exactly one of onSuccess,
+ * onFailure or onIgnored.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Notified of every state transition.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onTransition(String name, State from, State to);
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+    private final Listener listener;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private final boolean[] window; // true for a failure
+    private int windowCount;
+    private int windowNext;
+    private int windowFailures;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long transitions;
+
+    /**
+     * @param name                 Name used in the transitions.
+     * @param failureRateThreshold Failure rate (0 to 1) that opens the breaker.
+     * @param windowSize           Number of recent calls the rate is computed
+     *                             over.
+     * @param minimumCalls         Calls needed in the window before it can open.
+     * @param openDuration         How long the breaker stays open.
+     * @param halfOpenProbes       Calls let through while half-open.
+     * @param nanoClock            Source of System.nanoTime-like timestamps.
+     * @param listener             Notified of the state transitions.
+     */
+    public CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumCalls,
+            Duration openDuration, int halfOpenProbes, LongSupplier nanoClock, Listener listener) {
+        if (windowSize < 1 || minimumCalls < 1 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("The window size, minimum calls and half-open probes must be positive");
+        }
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+        this.listener = listener;
+    }
+
+    /**
+     * Ask to make a call.
+     *
+     * @return Whether the call is permitted.
+     */
+    public boolean tryAcquirePermission() {
+        State from;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    return false;
+                }
+                from = transition(State.HALF_OPEN);
+            } else {
+                from = null;
+            }
+            if (probesStarted >= halfOpenProbes) {
+                return false;
+            }
+            probesStarted++;
+        }
+        notifyTransition(from, State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * Record a permitted call that succeeded.
+     */
+    public void onSuccess() {
+        State from = null;
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                probesSucceeded++;
+                if (probesSucceeded >= halfOpenProbes) {
+                    from = transition(State.CLOSED);
+                }
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        }
+        notifyTransition(from, State.CLOSED);
+    }
+
+    /**
+     * Record a permitted call that failed.
+     */
+    public void onFailure() {
+        State from = null;
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                from = transition(State.OPEN);
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+                    from = transition(State.OPEN);
+                }
+            }
+        }
+        notifyTransition(from, State.OPEN);
+    }
+
+    /**
+     * Record a permitted call whose outcome says nothing about the server (e.g.
+     * it was cancelled), giving back its probe if half-open.
+     */
+    public void onIgnored() {
+        synchronized (this) {
+            if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+                probesStarted--;
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return The number of state transitions so far.
+     */
+    public synchronized long getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * @return The failure rate of the current window, or 0 if it is empty.
+     */
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0 : (double) windowFailures / windowCount;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+    }
+
+    /**
+     * Move to a state. Must hold the lock.
+     *
+     * @return The previous state.
+     */
+    private State transition(State to) {
+        State from = state;
+        state = to;
+        transitions++;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (to == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        } else if (to == State.CLOSED) {
+            windowCount = 0;
+            windowNext = 0;
+            windowFailures = 0;
+        }
+        return from;
+    }
+
+    private void notifyTransition(State from, State to) {
+        if (from != null && listener != null) {
+            listener.onTransition(name, from, to);
+        }
+    }
+}
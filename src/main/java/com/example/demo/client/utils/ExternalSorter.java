@@ -0,0 +1,352 @@
+package com.example.demo.client.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Sorts a Flux of any size in bounded memory (external merge sort).
+ *
+ * Up to `maxInMemory` elements are buffered; when the buffer is full it is
+ * sorted and spilled to a temporary file as a run of lines. Once the source
+ * completes, the runs (and what is left in the buffer) are merged lazily,
+ * one element per request, keeping only the head of each run in memory. If
+ * there are more than MAX_FAN_IN runs, the oldest ones are first merged into
+ * bigger runs so that the number of open files stays bounded.
+ *
+ * Like Flux.sort, the sort is stable. Sources with at most `maxInMemory`
+ * elements are sorted in memory, without touching the disk. Each temporary
+ * file is deleted once it is merged, or when the sorted Flux fails or is
+ * cancelled.
+ *
+ * @param <T> The type of the elements.
+ */
+public class ExternalSorter<T> {
+
+    /**
+     * Runs merged at once.
+     */
+    public static final int MAX_FAN_IN = 64;
+
+    private final String name;
+    private final Comparator<? super T> comparator;
+    private final int maxInMemory;
+    private final Function<? super T, String> encoder;
+    private final Function<String, ? extends T> decoder;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    /**
+     * @param name        Name of the sorted collection, for the temporary files
+     *                    and the logs.
+     * @param comparator  The order.
+     * @param maxInMemory Elements buffered before a run is spilled.
+     * @param encoder     Writes an element as a single line.
+     * @param decoder     Reads an element back from its line.
+     */
+    public ExternalSorter(String name, Comparator<? super T> comparator, int maxInMemory,
+            Function<? super T, String> encoder, Function<String, ? extends T> decoder) {
+        if (maxInMemory <= 0) {
+            throw new IllegalArgumentException("The sort needs room for at least one element: " + maxInMemory);
+        }
+        this.name = name;
+        this.comparator = comparator;
+        this.maxInMemory = maxInMemory;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * A sorter that spills the elements as JSON lines, like SharedSource.
+     *
+     * @param type The type of the elements, to read spilled ones back.
+     */
+    public static <T> ExternalSorter<T> json(String name, Class<T> type, Comparator<? super T> comparator,
+            int maxInMemory) {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        return new ExternalSorter<>(name, comparator, maxInMemory, element -> {
+            try {
+                return objectMapper.writeValueAsString(element);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException("Error spilling " + name + " to disk", e);
+            }
+        }, line -> {
+            try {
+                return objectMapper.readValue(line, type);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading spilled " + name, e);
+            }
+        });
+    }
+
+    /**
+     * Sort the elements.
+     *
+     * @param source The elements; subscribed to once per subscription.
+     * @return The elements in order.
+     */
+    public Flux<T> sort(Flux<T> source) {
+        return Flux.defer(() -> {
+            Runs state = new Runs();
+            return source
+                    .publishOn(Schedulers.boundedElastic()) // Spilling writes to disk
+                    .collect(() -> state, this::add)
+                    .flatMapMany(this::merge)
+                    .doFinally(signalType -> state.delete());
+        });
+    }
+
+    /**
+     * @return The number of runs spilled from the buffer, over all sorts.
+     */
+    public long getRuns() {
+        return runs.get();
+    }
+
+    /**
+     * @return The number of elements spilled to disk, over all sorts.
+     */
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + spilled.get() + " elements spilled in " + runs.get() + " runs";
+    }
+
+    /**
+     * The state of one sort: the buffer and the runs spilled so far, oldest
+     * first.
+     */
+    private final class Runs {
+        final List<T> buffer = new ArrayList<>();
+        final List<Path> files = new ArrayList<>();
+
+        void delete() {
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("Error deleting " + file + ": " + e.getMessage());
+                }
+            }
+            files.clear();
+        }
+    }
+
+    private void add(Runs state, T element) {
+        state.buffer.add(element);
+        if (state.buffer.size() >= maxInMemory) {
+            state.buffer.sort(comparator);
+            state.files.add(spill(state.buffer.iterator()));
+            runs.incrementAndGet();
+            spilled.addAndGet(state.buffer.size());
+            state.buffer.clear();
+            if (state.files.size() > MAX_FAN_IN) {
+                compact(state.files);
+            }
+        }
+    }
+
+    /**
+     * Merge the oldest runs into one, which takes their place: the runs stay
+     * in the order of the source, so the merge stays stable.
+     */
+    private void compact(List<Path> files) {
+        List<Path> oldest = files.subList(0, MAX_FAN_IN);
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < oldest.size(); i++) {
+                readers.add(new RunReader(i, oldest.get(i)));
+            }
+            PriorityQueue<RunReader> heads = heads(readers);
+            Path merged = spill(new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return !heads.isEmpty();
+                }
+
+                @Override
+                public T next() {
+                    return poll(heads);
+                }
+            });
+            closeAll(readers); // Deletes the merged runs
+            oldest.clear();
+            files.add(0, merged);
+        } catch (IOException e) {
+            closeAll(readers);
+            throw new UncheckedIOException("Error merging spilled " + name, e);
+        }
+    }
+
+    private Path spill(Iterator<? extends T> elements) {
+        Path file = null;
+        try {
+            file = Files.createTempFile("sort-" + name + "-", ".jsonl");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                while (elements.hasNext()) {
+                    writer.write(encoder.apply(elements.next()));
+                    writer.newLine();
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException("Error spilling " + name + " to disk", e);
+        }
+    }
+
+    /**
+     * Merge the runs and the sorted buffer, which holds the last elements of
+     * the source.
+     */
+    private Flux<T> merge(Runs state) {
+        state.buffer.sort(comparator);
+        if (state.files.isEmpty()) {
+            return Flux.fromIterable(state.buffer);
+        }
+
+        return Flux.<T, PriorityQueue<RunReader>>generate(() -> {
+            List<RunReader> readers = new ArrayList<>();
+            try {
+                for (int i = 0; i < state.files.size(); i++) {
+                    readers.add(new RunReader(i, state.files.get(i)));
+                }
+            } catch (IOException e) {
+                closeAll(readers);
+                throw new UncheckedIOException("Error reading spilled " + name, e);
+            }
+            readers.add(new RunReader(state.files.size(), state.buffer.iterator()));
+            return heads(readers);
+        }, (heads, sink) -> {
+            emit(heads, sink);
+            return heads;
+        }, this::closeAll)
+                .subscribeOn(Schedulers.boundedElastic()); // Reading the runs blocks
+    }
+
+    private void emit(PriorityQueue<RunReader> heads, SynchronousSink<T> sink) {
+        if (heads.isEmpty()) {
+            sink.complete();
+        } else {
+            sink.next(poll(heads));
+        }
+    }
+
+    /**
+     * The runs that are not empty, by their head and then by their index.
+     */
+    private PriorityQueue<RunReader> heads(List<RunReader> readers) {
+        PriorityQueue<RunReader> heads = new PriorityQueue<>(Math.max(1, readers.size()),
+                Comparator.<RunReader, T>comparing(reader -> reader.head, comparator)
+                        .thenComparingInt(reader -> reader.index));
+        for (RunReader reader : readers) {
+            if (reader.advance()) {
+                heads.add(reader);
+            }
+        }
+        return heads;
+    }
+
+    private T poll(PriorityQueue<RunReader> heads) {
+        RunReader reader = heads.poll();
+        T element = reader.head;
+        if (reader.advance()) {
+            heads.add(reader);
+        } else {
+            reader.close();
+        }
+        return element;
+    }
+
+    private void closeAll(Iterable<RunReader> readers) {
+        for (RunReader reader : readers) {
+            reader.close();
+        }
+    }
+
+    /**
+     * A run being merged: a spilled file, deleted once read or closed, or the
+     * in-memory buffer.
+     */
+    private final class RunReader {
+        final int index;
+        final Path file;
+        final BufferedReader reader;
+        final Iterator<T> memory;
+        T head;
+
+        RunReader(int index, Path file) throws IOException {
+            this.index = index;
+            this.file = file;
+            this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            this.memory = null;
+        }
+
+        RunReader(int index, Iterator<T> memory) {
+            this.index = index;
+            this.file = null;
+            this.reader = null;
+            this.memory = memory;
+        }
+
+        /**
+         * Move to the next element of the run.
+         *
+         * @return false at the end of the run.
+         */
+        boolean advance() {
+            if (memory != null) {
+                head = memory.hasNext() ? memory.next() : null;
+                return head != null;
+            }
+            try {
+                String line = reader.readLine();
+                head = line == null ? null : decoder.apply(line);
+                return line != null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading spilled " + name, e);
+            }
+        }
+
+        void close() {
+            if (reader != null) {
+                try {
+                    reader.close();
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("Error deleting " + file + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -8,7 +8,13 @@ import java.nio.file.Paths;
 /**
  * Utility class to manage file outputs for client queries.
  * Provides methods to write data to specific files.
+ *
+ * @deprecated Every call opens a FileWriter and blocks the calling thread,
+ *             which in a Reactor callback may be a Netty event loop. Use
+ *             AsyncFileOutput, which streams the lines without blocking and
+ *             replaces the file atomically.
  */
+@Deprecated
 public class FileOutputUtil {
 
     /**
@@ -0,0 +1,175 @@
+package com.example.demo.client.utils;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.stats.QuantileSketch;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Hedged requests: if a request has not answered after a delay, a second
+ * identical request is sent, the first of the two to answer is used and the
+ * other is cancelled.
+ *
+ * The delay is a quantile (e.g. p90) of the latencies of the requests that
+ * completed recently, kept between a minimum and a maximum; until enough
+ * latencies are known it is the maximum. Recent means the last one to two
+ * windows of requests. Requests that were cancelled are not counted, so the
+ * delay follows the latency of the normal requests rather than creeping up
+ * with the slow ones that were hedged.
+ *
+ * Hedges are limited by a RetryBudget: at most budgetRatio hedges per request
+ * (plus an initial 10). When the budget is spent the request just waits.
+ *
+ * Errors are those of the first request: the hedge can only supply a value,
+ * and the request is not hedged once it has failed. Thread-safe.
+ */
+public class HedgedRequests {
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final String name;
+    private final double quantile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final int window;
+    private final RetryBudget budget;
+
+    // Guarded by this
+    private QuantileSketch current = new QuantileSketch(0.01);
+    private QuantileSketch previous = new QuantileSketch(0.01);
+    private long delayNanos;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong hedgesDenied = new AtomicLong();
+
+    /**
+     * @param name       Name used in the statistics.
+     * @param properties The client settings.
+     */
+    public HedgedRequests(String name, ClientProperties properties) {
+        this(name, properties.getHedgeQuantile(), properties.getHedgeMinDelay(), properties.getHedgeMaxDelay(),
+                properties.getHedgeBudgetRatio(), properties.getHedgeWindow());
+    }
+
+    /**
+     * @param name        Name used in the statistics.
+     * @param quantile    Quantile of the latencies used as the delay, e.g. 0.9.
+     * @param minDelay    Shortest delay.
+     * @param maxDelay    Longest delay, also used until latencies are known.
+     * @param budgetRatio Hedges allowed per request, e.g. 0.1 for 10% extra
+     *                    requests.
+     * @param window      Number of latencies in a window.
+     */
+    public HedgedRequests(String name, double quantile, Duration minDelay, Duration maxDelay, double budgetRatio,
+            int window) {
+        if (quantile <= 0 || quantile >= 1) {
+            throw new IllegalArgumentException("The hedge quantile must be between 0 and 1: " + quantile);
+        }
+        if (minDelay.compareTo(maxDelay) > 0) {
+            throw new IllegalArgumentException("The minimum hedge delay " + minDelay + " is above the maximum "
+                    + maxDelay);
+        }
+        this.name = name;
+        this.quantile = quantile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.window = Math.max(MIN_SAMPLES, window);
+        this.budget = new RetryBudget(budgetRatio, 0, System::nanoTime);
+        this.delayNanos = maxDelayNanos;
+    }
+
+    /**
+     * Make a request, hedged.
+     *
+     * @param request Makes the request; called once for the request and once
+     *                more for the hedge, if any.
+     * @return The answer of the first request to answer.
+     */
+    public <T> Mono<T> hedge(Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            requests.incrementAndGet();
+            budget.deposit();
+
+            Mono<T> first = timed(request.get());
+            Mono<T> second = Mono.delay(Duration.ofNanos(getDelayNanos()))
+                    .flatMap(tick -> {
+                        if (!budget.tryWithdraw()) {
+                            hedgesDenied.incrementAndGet();
+                            return Mono.<T>never();
+                        }
+                        hedges.incrementAndGet();
+                        return timed(request.get())
+                                .doOnSuccess(value -> hedgesWon.incrementAndGet())
+                                .onErrorResume(e -> Mono.never());
+                    });
+            return Mono.firstWithSignal(first, second);
+        });
+    }
+
+    private <T> Mono<T> timed(Mono<T> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request.doOnSuccess(value -> record(System.nanoTime() - start));
+        });
+    }
+
+    private synchronized void record(long latencyNanos) {
+        current.accept(latencyNanos / 1_000.0);
+        if (current.getCount() >= window) {
+            previous = current;
+            current = new QuantileSketch(0.01);
+        }
+        long count = current.getCount() + previous.getCount();
+        if (count >= MIN_SAMPLES && count % RECOMPUTE_EVERY == 0) {
+            double micros = new QuantileSketch(0.01).merge(previous).merge(current).quantile(quantile);
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, (long) (micros * 1_000)));
+        }
+    }
+
+    /**
+     * @return The current hedge delay, in nanoseconds.
+     */
+    public synchronized long getDelayNanos() {
+        return delayNanos;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of hedges sent.
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * @return The number of hedges that answered before the first request.
+     */
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    /**
+     * @return The number of hedges not sent because the budget was spent.
+     */
+    public long getHedgesDenied() {
+        return hedgesDenied.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d requests, %d hedged (%.1f%%, %d won, %d denied by the budget),"
+                + " hedge delay %.1f ms", name, requests.get(), hedges.get(),
+                requests.get() == 0 ? 0 : 100.0 * hedges.get() / requests.get(), hedgesWon.get(),
+                hedgesDenied.get(), getDelayNanos() / 1e6);
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.demo.client.utils;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.stats.QuantileSketch;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebClient filter that spreads the requests over several server instances.
+ *
+ * Each request is sent to the scheme, host and port of one instance (its
+ * path and query are kept), chosen when the request is subscribed, so a
+ * retried call may go to another instance. The choice:
+ * - LEAST_OUTSTANDING: the instance with the fewest requests in flight (ties
+ * broken at random);
+ * - POWER_OF_TWO_CHOICES: the one with the fewer requests in flight of two
+ * instances picked at random (then the one with the lower recent latency),
+ * which avoids sending every request to the same idle instance when many
+ * clients balance over the same servers.
+ *
+ * A request is in flight until its response body has been read. Passive
+ * health checks: after `ejectionFailures` failures in a row (connection
+ * errors and 5xx responses) an instance is ejected for `ejectionDuration`.
+ * Once back, a single failure ejects it again, for longer each time until it
+ * succeeds (up to 10 times the duration). When every instance is ejected,
+ * they are all used again rather than failing every request. Cancelled
+ * requests count as neither a success nor a failure.
+ *
+ * Every instance keeps its requests, failures, ejections and the latency of
+ * its responses (time to the response headers). Thread-safe.
+ */
+public class LoadBalancer implements ExchangeFilterFunction {
+
+    /**
+     * How an instance is chosen for a request.
+     */
+    public enum Strategy {
+        LEAST_OUTSTANDING, POWER_OF_TWO_CHOICES;
+
+        /**
+         * @param name "least-outstanding" or "p2c" (or the constant name).
+         */
+        public static Strategy of(String name) {
+            return switch (name.toLowerCase().replace('_', '-')) {
+                case "least-outstanding" -> LEAST_OUTSTANDING;
+                case "p2c", "power-of-two-choices" -> POWER_OF_TWO_CHOICES;
+                default -> throw new IllegalArgumentException("Unknown load balancing: " + name
+                        + " (expected least-outstanding or p2c)");
+            };
+        }
+    }
+
+    private static final int MAX_EJECTION_FACTOR = 10;
+
+    private final List<Instance> instances = new ArrayList<>();
+    private final Strategy strategy;
+    private final int ejectionFailures;
+    private final long ejectionNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong allEjected = new AtomicLong();
+
+    /**
+     * @param properties The client settings, with the servers to balance
+     *                   over.
+     */
+    public LoadBalancer(ClientProperties properties) {
+        this(properties.getServers(), Strategy.of(properties.getLoadBalancing()), properties.getEjectionFailures(),
+                properties.getEjectionDuration(), System::nanoTime);
+    }
+
+    /**
+     * @param servers          The base URLs of the instances, e.g.
+     *                         http://localhost:8081.
+     * @param strategy         How an instance is chosen.
+     * @param ejectionFailures Failures in a row that eject an instance.
+     * @param ejectionDuration How long an instance is ejected the first time.
+     * @param nanoClock        Source of System.nanoTime-like timestamps.
+     */
+    public LoadBalancer(List<String> servers, Strategy strategy, int ejectionFailures, Duration ejectionDuration,
+            LongSupplier nanoClock) {
+        if (servers == null || servers.isEmpty()) {
+            throw new IllegalArgumentException("No servers to balance over");
+        }
+        if (ejectionFailures < 1) {
+            throw new IllegalArgumentException("The ejection failures must be at least 1: " + ejectionFailures);
+        }
+        for (String server : servers) {
+            instances.add(new Instance(URI.create(server.trim())));
+        }
+        this.strategy = strategy;
+        this.ejectionFailures = ejectionFailures;
+        this.ejectionNanos = ejectionDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            Instance instance = choose();
+            URI url = UriComponentsBuilder.fromUri(request.url())
+                    .scheme(instance.uri.getScheme())
+                    .host(instance.uri.getHost())
+                    .port(instance.uri.getPort())
+                    .build(true)
+                    .toUri();
+            long start = nanoClock.getAsLong();
+            AtomicBoolean done = new AtomicBoolean();
+            instance.outstanding.incrementAndGet();
+            instance.requests.incrementAndGet();
+
+            return next.exchange(ClientRequest.from(request).url(url).build())
+                    .map(response -> {
+                        instance.onResponse(nanoClock.getAsLong() - start,
+                                response.statusCode().is5xxServerError());
+                        return response.mutate()
+                                // Before the end of the body reaches the caller, so that a
+                                // caller that saw its response finish no longer counts
+                                .body(body -> body.doOnTerminate(() -> finish(instance, done))
+                                        .doOnCancel(() -> finish(instance, done)))
+                                .build();
+                    })
+                    .doOnError(error -> {
+                        instance.onFailure();
+                        finish(instance, done);
+                    })
+                    .doOnCancel(() -> finish(instance, done));
+        });
+    }
+
+    private void finish(Instance instance, AtomicBoolean done) {
+        if (done.compareAndSet(false, true)) {
+            instance.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return The instance for the next request.
+     */
+    Instance choose() {
+        long now = nanoClock.getAsLong();
+        List<Instance> candidates = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            if (!instance.isEjected(now)) {
+                candidates.add(instance);
+            }
+        }
+        if (candidates.isEmpty()) {
+            allEjected.incrementAndGet();
+            candidates.addAll(instances);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        if (strategy == Strategy.POWER_OF_TWO_CHOICES) {
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            Instance a = candidates.get(first);
+            Instance b = candidates.get(second >= first ? second + 1 : second);
+            int byOutstanding = Integer.compare(a.outstanding.get(), b.outstanding.get());
+            if (byOutstanding != 0) {
+                return byOutstanding < 0 ? a : b;
+            }
+            return a.getRecentLatencyNanos() <= b.getRecentLatencyNanos() ? a : b;
+        }
+
+        // Least outstanding, scanning from a random instance so that ties are spread
+        int start = random.nextInt(size);
+        Instance best = null;
+        for (int i = 0; i < size; i++) {
+            Instance instance = candidates.get((start + i) % size);
+            if (best == null || instance.outstanding.get() < best.outstanding.get()) {
+                best = instance;
+            }
+        }
+        return best;
+    }
+
+    public List<Instance> getInstances() {
+        return instances;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return The number of requests sent while every instance was ejected.
+     */
+    public long getAllEjected() {
+        return allEjected.get();
+    }
+
+    @Override
+    public String toString() {
+        return strategy + " over " + instances.size() + " instances" + (allEjected.get() == 0 ? ""
+                : " (" + allEjected.get() + " requests with all of them ejected)") + ":\n"
+                + instances.stream().map(instance -> "  " + instance).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * A server instance, with its statistics and health.
+     */
+    public final class Instance {
+        private static final double RECENT_WEIGHT = 1.0 / 10;
+
+        private final URI uri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+
+        // Guarded by this
+        private long failures;
+        private int consecutiveFailures;
+        private int ejectionsInARow;
+        private long ejections;
+        private long ejectedUntilNanos;
+        private boolean ejected;
+        private double recentLatency; // 0 until the first response
+        private final QuantileSketch latencies = new QuantileSketch(0.01);
+
+        Instance(URI uri) {
+            this.uri = uri;
+        }
+
+        synchronized boolean isEjected(long now) {
+            if (ejected && now - ejectedUntilNanos >= 0) {
+                ejected = false; // Back in rotation; one more failure in a row ejects it again
+                consecutiveFailures = ejectionFailures - 1;
+            }
+            return ejected;
+        }
+
+        synchronized void onResponse(long latencyNanos, boolean serverError) {
+            recentLatency = recentLatency == 0 ? latencyNanos
+                    : recentLatency + (latencyNanos - recentLatency) * RECENT_WEIGHT;
+            latencies.accept(latencyNanos / 1e6);
+            if (serverError) {
+                onFailure();
+            } else {
+                consecutiveFailures = 0;
+                ejectionsInARow = 0;
+            }
+        }
+
+        synchronized void onFailure() {
+            failures++;
+            consecutiveFailures++;
+            if (!ejected && consecutiveFailures >= ejectionFailures) {
+                ejected = true;
+                ejections++;
+                ejectionsInARow = Math.min(ejectionsInARow + 1, MAX_EJECTION_FACTOR);
+                ejectedUntilNanos = nanoClock.getAsLong() + ejectionNanos * ejectionsInARow;
+                consecutiveFailures = 0;
+                System.out.println("Load balancer: ejected " + uri + " for "
+                        + Duration.ofNanos(ejectionNanos * ejectionsInARow) + " after " + ejectionFailures
+                        + " failures in a row");
+            }
+        }
+
+        public URI getUri() {
+            return uri;
+        }
+
+        /**
+         * @return The requests in flight.
+         */
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public synchronized long getFailures() {
+            return failures;
+        }
+
+        public synchronized long getEjections() {
+            return ejections;
+        }
+
+        /**
+         * @return Whether the instance is out of rotation now.
+         */
+        public boolean isEjected() {
+            return isEjected(nanoClock.getAsLong());
+        }
+
+        /**
+         * @return The recent latency (about the last 10 responses), in
+         *         nanoseconds, or 0 before the first response.
+         */
+        public synchronized long getRecentLatencyNanos() {
+            return (long) recentLatency;
+        }
+
+        /**
+         * @param quantile The quantile, e.g. 0.99.
+         * @return The latency at that quantile, in milliseconds.
+         */
+        public synchronized double getLatencyMillis(double quantile) {
+            return latencies.quantile(quantile);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%s: %d requests, %d in flight, %d failures, %d ejections%s,"
+                    + " latency p50 %.1f ms, p99 %.1f ms (recent %.1f ms)", uri, requests.get(), outstanding.get(),
+                    failures, ejections, ejected ? " (ejected)" : "",
+                    latencies.getCount() == 0 ? 0 : latencies.quantile(0.5),
+                    latencies.getCount() == 0 ? 0 : latencies.quantile(0.99), recentLatency / 1e6);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.client.utils;
+
+import java.util.function.IntPredicate;
+
+/**
+ * The open addressing shared by the hash tables with primitive long keys
+ * (KeyCounter, LongHashIndex): the table sizes, the hash of a key and the
+ * linear probing.
+ *
+ * A table keeps its keys in a long array whose length is a power of two, and
+ * marks its empty slots in a parallel array of its own (a zero count, a null
+ * value), which the probing reads through an IntPredicate. Tables grow when
+ * they are more than half full.
+ */
+public final class LongOpenAddressing {
+
+    private LongOpenAddressing() {
+    }
+
+    /**
+     * @param expectedKeys Number of distinct keys expected.
+     * @return The capacity of a table that holds that many keys without
+     *         growing: a power of two, at least 8.
+     */
+    public static int capacity(int expectedKeys) {
+        return Integer.highestOneBit(Math.max(4, expectedKeys * 2 - 1)) << 1;
+    }
+
+    /**
+     * @param size     The number of keys in the table.
+     * @param capacity The length of the table.
+     * @return Whether the table must grow to keep at most half its slots used.
+     */
+    public static boolean isFull(int size, int capacity) {
+        return size * 2 > capacity;
+    }
+
+    /**
+     * Find the slot of a key: the slot holding it, or else the empty slot
+     * where it goes.
+     *
+     * @param keys     The keys of the table.
+     * @param key      The key.
+     * @param occupied Whether a slot holds a key.
+     * @return The slot.
+     */
+    public static int probe(long[] keys, long key, IntPredicate occupied) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (occupied.test(slot) && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int slot(long key, int mask) {
+        // Spread the bits of sequential ids over the table (Fibonacci hashing)
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.demo.client.utils;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.exceptions.ClientException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+/**
+ * Resilience layer for the calls of a service client.
+ *
+ * Each attempt of a call:
+ * - is only made if the circuit breaker permits it, and fails fast with a
+ * ClientException otherwise;
+ * - has a timeout (for a Mono, on the whole attempt; for a Flux, between
+ * elements, as streams can be long).
+ *
+ * Failed attempts are retried with capped exponential backoff and jitter, but
+ * only if the failure is retryable (timeouts, connection errors, HTTP 5xx and
+ * 429), the retry budget allows it and, for a Flux, nothing has been emitted
+ * yet. A Mono call as a whole, retries included, must finish within the call
+ * deadline. Once the retries are exhausted the last failure is propagated.
+ * The deadline of each attempt of a Mono call (the attempt timeout or the
+ * call deadline, whichever comes first) is sent to the server (see
+ * RequestDeadline); the timeouts of a Flux call do not bound the whole
+ * stream, so they are not.
+ *
+ * Timeouts, connection errors and 5xx responses count as failures for the
+ * circuit breaker; other responses (including 4xx) count as successes.
+ */
+public class NetworkResilienceUtil {
+
+    private final String name;
+    private final Duration attemptTimeout;
+    private final Duration callDeadline;
+    private final int maxRetries;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+    private final RetryBudget retryBudget;
+    private final CircuitBreaker circuitBreaker;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong retriesDenied = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param name       Name used in the statistics and breaker transitions.
+     * @param properties The client settings.
+     */
+    public NetworkResilienceUtil(String name, ClientProperties properties) {
+        this.name = name;
+        this.attemptTimeout = properties.getAttemptTimeout();
+        this.callDeadline = properties.getCallDeadline();
+        this.maxRetries = properties.getMaxRetries();
+        this.initialBackoff = properties.getRetryInitialBackoff();
+        this.maxBackoff = properties.getRetryMaxBackoff();
+        this.jitter = properties.getRetryJitter();
+        this.retryBudget = new RetryBudget(properties.getRetryBudgetRatio(),
+                properties.getRetryBudgetMinPerSecond(), System::nanoTime);
+        this.circuitBreaker = new CircuitBreaker(name, properties.getCircuitFailureRateThreshold(),
+                properties.getCircuitWindowSize(), properties.getCircuitMinimumCalls(),
+                properties.getCircuitOpenDuration(), properties.getCircuitHalfOpenProbes(), System::nanoTime,
+                (breaker, from, to) -> System.out.println("Circuit breaker '" + breaker + "': " + from + " -> " + to));
+    }
+
+    /**
+     * Make a call that returns one value with timeouts, retries and the
+     * circuit breaker.
+     *
+     * @param call The call; subscribed once per attempt.
+     * @return The call's result.
+     */
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            retryBudget.deposit();
+            return attempt(call).retryWhen(retrySpec(e -> true));
+        }).timeout(callDeadline, Mono.defer(() -> {
+            timeouts.incrementAndGet();
+            return Mono.error(new TimeoutException("Call '" + name + "' did not finish within " + callDeadline));
+        })).contextWrite(context -> RequestDeadline.within(context, callDeadline));
+    }
+
+    /**
+     * Make a call that returns a stream with timeouts, retries and the circuit
+     * breaker. The stream is only retried if it failed before its first
+     * element.
+     *
+     * @param call The call; subscribed once per attempt.
+     * @return The call's elements.
+     */
+    public <T> Flux<T> protect(Flux<T> call) {
+        return Flux.defer(() -> {
+            calls.incrementAndGet();
+            retryBudget.deposit();
+            AtomicBoolean emitted = new AtomicBoolean();
+            return attempt(call.doOnNext(element -> emitted.set(true)))
+                    .retryWhen(retrySpec(e -> !emitted.get()));
+        });
+    }
+
+    private <T> Mono<T> attempt(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                rejected.incrementAndGet();
+                return Mono.error(new ClientException("Circuit breaker '" + name + "' is open"));
+            }
+            return call.contextWrite(context -> RequestDeadline.within(context, attemptTimeout))
+                    .timeout(attemptTimeout)
+                    .doOnSuccess(value -> circuitBreaker.onSuccess())
+                    .doOnError(this::record)
+                    .doOnCancel(circuitBreaker::onIgnored);
+        });
+    }
+
+    private <T> Flux<T> attempt(Flux<T> call) {
+        return Flux.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                rejected.incrementAndGet();
+                return Flux.error(new ClientException("Circuit breaker '" + name + "' is open"));
+            }
+            return call.timeout(attemptTimeout)
+                    .doOnComplete(circuitBreaker::onSuccess)
+                    .doOnError(this::record)
+                    .doOnCancel(circuitBreaker::onIgnored);
+        });
+    }
+
+    private void record(Throwable error) {
+        if (error instanceof TimeoutException) {
+            timeouts.incrementAndGet();
+        }
+        if (isServerFailure(error)) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private RetryBackoffSpec retrySpec(Predicate<Throwable> canRetry) {
+        return Retry.backoff(maxRetries, initialBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(jitter)
+                .filter(error -> {
+                    if (!isRetryable(error) || !canRetry.test(error)) {
+                        return false;
+                    }
+                    if (!retryBudget.tryWithdraw()) {
+                        retriesDenied.incrementAndGet();
+                        return false;
+                    }
+                    return true;
+                })
+                .doBeforeRetry(signal -> retries.incrementAndGet())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * @param error The failure of an attempt.
+     * @return Whether another attempt could succeed: timeouts, connection
+     *         errors and HTTP 5xx and 429 responses.
+     */
+    public static boolean isRetryable(Throwable error) {
+        if (error instanceof ClientException clientException) {
+            return clientException.getStatusCode() >= 500 || clientException.getStatusCode() == 429;
+        }
+        return isServerFailure(error);
+    }
+
+    /**
+     * Whether the failure says the server is unhealthy: timeouts, connection
+     * errors and HTTP 5xx responses.
+     */
+    private static boolean isServerFailure(Throwable error) {
+        if (error instanceof ClientException clientException) {
+            return clientException.getStatusCode() >= 500;
+        }
+        return error instanceof TimeoutException || error instanceof WebClientRequestException
+                || error instanceof IOException;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return The retries that were not made because the budget was spent.
+     */
+    public long getRetriesDenied() {
+        return retriesDenied.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return The attempts rejected by the open circuit breaker.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + calls.get() + " calls, " + retries.get() + " retries (" + retriesDenied.get()
+                + " denied by the budget), " + timeouts.get() + " timeouts, " + rejected.get()
+                + " rejected by the circuit breaker (" + circuitBreaker.getState() + ", "
+                + circuitBreaker.getTransitions() + " transitions)";
+    }
+}
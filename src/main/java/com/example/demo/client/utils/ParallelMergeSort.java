@@ -0,0 +1,100 @@
+package com.example.demo.client.utils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A stable merge sort of an array on a given ForkJoinPool.
+ *
+ * Arrays.parallelSort is stable too, but it sizes its work by the common
+ * pool (and sorts sequentially when that has one thread), so it cannot be
+ * limited to, or scaled up to, a given number of threads. Here the array is
+ * split into about four parts per thread of the pool, each part is sorted
+ * with Arrays.sort and the parts are merged back pairwise, the merges of
+ * disjoint ranges running in parallel.
+ */
+public final class ParallelMergeSort {
+
+    /**
+     * Parts smaller than this are not split any further.
+     */
+    static final int MIN_PART = 8192;
+
+    private ParallelMergeSort() {
+    }
+
+    /**
+     * Sort the array, keeping the order of equal elements. Runs on the pool:
+     * the calling thread waits, unless it is one of the pool's own.
+     *
+     * @param array      The elements, sorted in place.
+     * @param comparator The order.
+     * @param pool       The threads to sort on.
+     */
+    public static <T> void sort(T[] array, Comparator<? super T> comparator, ForkJoinPool pool) {
+        int parts = pool.getParallelism() * 4;
+        if (pool.getParallelism() <= 1 || array.length <= MIN_PART) {
+            Arrays.sort(array, comparator);
+            return;
+        }
+        int partSize = Math.max(MIN_PART, (array.length + parts - 1) / parts);
+        pool.invoke(new SortTask<>(array, array.clone(), 0, array.length, partSize, comparator));
+    }
+
+    /**
+     * Sorts a range of the array, using the same range of the buffer to merge.
+     */
+    private static final class SortTask<T> extends RecursiveAction {
+        private final T[] array;
+        private final T[] buffer;
+        private final int from;
+        private final int to;
+        private final int partSize;
+        private final Comparator<? super T> comparator;
+
+        SortTask(T[] array, T[] buffer, int from, int to, int partSize, Comparator<? super T> comparator) {
+            this.array = array;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.partSize = partSize;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= partSize) {
+                Arrays.sort(array, from, to, comparator);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask<>(array, buffer, from, middle, partSize, comparator),
+                    new SortTask<>(array, buffer, middle, to, partSize, comparator));
+            merge(middle);
+        }
+
+        /**
+         * Merge the sorted halves, taking from the first one on ties.
+         */
+        private void merge(int middle) {
+            if (comparator.compare(array[middle - 1], array[middle]) <= 0) {
+                return; // Already in order
+            }
+            System.arraycopy(array, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            int out = from;
+            while (left < middle && right < to) {
+                array[out++] = comparator.compare(buffer[right], buffer[left]) < 0 ? buffer[right++] : buffer[left++];
+            }
+            while (left < middle) {
+                array[out++] = buffer[left++];
+            }
+            while (right < to) {
+                array[out++] = buffer[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.client.utils;
+
+import com.example.demo.server.utils.Deadlines;
+
+import java.time.Duration;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Deadline of a request, propagated to the server.
+ *
+ * The resilience layer puts the time by which it gives up on a call into the
+ * Reactor context (`within`): the call deadline, then, for each attempt, the
+ * attempt timeout if that comes first. The `propagate` filter of the
+ * WebClient sends the time left, in milliseconds, in the
+ * Deadlines.DEADLINE_HEADER header, so the server stops working on requests
+ * nobody waits for any more. Requests without a deadline (streams, calls
+ * without the resilience layer) are sent without the header.
+ */
+public final class RequestDeadline {
+
+    /**
+     * Key of the deadline (a Long, in System.nanoTime terms) in the Reactor
+     * context.
+     */
+    public static final String CONTEXT_KEY = "client.deadline";
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * @param context The context of the call.
+     * @param timeout The time from now by which the call gives up.
+     * @return The context with that deadline, unless it has an earlier one.
+     */
+    public static Context within(Context context, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        return context.put(CONTEXT_KEY, Math.min(deadline, context.<Long>getOrDefault(CONTEXT_KEY, Long.MAX_VALUE)));
+    }
+
+    /**
+     * @return A WebClient filter that sends the time left before the
+     *         deadline of each request that has one.
+     */
+    public static ExchangeFilterFunction propagate() {
+        return (request, next) -> Mono.deferContextual(context -> {
+            if (!context.hasKey(CONTEXT_KEY)) {
+                return next.exchange(request);
+            }
+            long millis = Math.max(0, (context.<Long>get(CONTEXT_KEY) - System.nanoTime()) / 1_000_000);
+            return next.exchange(ClientRequest.from(request)
+                    .header(Deadlines.DEADLINE_HEADER, Long.toString(millis))
+                    .build());
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.client.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * WebClient filter that counts the HTTP requests sent and the response body
+ * bytes received.
+ */
+public class RequestStats implements ExchangeFilterFunction {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        requests.incrementAndGet();
+
+        return next.exchange(request)
+                .map(response -> response.mutate()
+                        .body(body -> body.doOnNext(buffer -> responseBytes.addAndGet(buffer.readableByteCount())))
+                        .build());
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return requests.get() + " HTTP requests, " + responseBytes.get() / 1024 + " KiB received";
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.client.utils;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Limits retries to a fraction of the calls, so that retries cannot multiply
+ * the load on a server that is already failing. HedgedRequests uses it the
+ * same way for its hedges.
+ *
+ * Every call deposits ratio tokens and every retry withdraws one, so retries
+ * stay below ratio times the calls. On top of that, minPerSecond tokens are
+ * added every second, so that a client making few calls can still retry. The
+ * balance is capped at ten seconds' worth of the minimum (at least 10 tokens).
+ * Thread-safe.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * @param ratio        Retries allowed per call, e.g. 0.1 for 10%.
+     * @param minPerSecond Retries allowed per second regardless of the calls.
+     * @param nanoClock    Source of System.nanoTime-like timestamps.
+     */
+    public RetryBudget(double ratio, double minPerSecond, LongSupplier nanoClock) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.capacity = Math.max(10, minPerSecond * 10);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Record a call.
+     */
+    public synchronized void deposit() {
+        refill();
+        tokens = Math.min(capacity, tokens + ratio);
+    }
+
+    /**
+     * Ask to make a retry.
+     *
+     * @return Whether the retry is within the budget.
+     */
+    public synchronized boolean tryWithdraw() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    /**
+     * @return The retries currently available.
+     */
+    public synchronized double getBalance() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) / 1e9 * minPerSecond);
+        refilledAt = now;
+    }
+}
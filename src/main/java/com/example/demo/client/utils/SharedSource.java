@@ -0,0 +1,278 @@
+package com.example.demo.client.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A collection that is fetched from the server once and replayed to every
+ * subscriber as it arrives.
+ *
+ * The upstream Flux is subscribed to only once, on the first subscription,
+ * and its elements are appended to a log: the first `maxInMemory` elements
+ * are kept in memory, the others are spilled to a temporary file as JSON
+ * lines, so memory stays bounded for any collection size. Each subscriber
+ * reads the log through its own cursor, at its own pace and as far as the
+ * upstream got: a subscriber sees the first elements while the rest are
+ * still being fetched, a slow task does not hold back the others, and a late
+ * one replays everything from the start. The spilled part is read lazily, on
+ * demand, and becomes visible to the subscribers FLUSH_EVERY elements at a
+ * time.
+ *
+ * @param <T> The type of the elements.
+ */
+public class SharedSource<T> implements AutoCloseable {
+
+    private static final int FLUSH_EVERY = 256;
+
+    private final String name;
+    private final Flux<T> upstream;
+    private final Class<T> type;
+    private final int maxInMemory;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final AtomicBoolean connected = new AtomicBoolean();
+    private final List<Cursor> cursors = new CopyOnWriteArrayList<>();
+
+    // The log, appended by the upstream (the lists and the writer under this lock)
+    private final List<T> memory = new ArrayList<>();
+    private Path spillFile;
+    private BufferedWriter spillWriter;
+    private long spilled;
+    private volatile long readable; // Elements the cursors can read: in memory, or spilled and flushed
+    private volatile boolean done; // Set after the last update of readable
+    private volatile Throwable error;
+    private volatile Disposable subscription;
+    private boolean closed;
+
+    /**
+     * @param name        Name of the collection, for the logs.
+     * @param upstream    The fetch of the collection.
+     * @param type        The type of the elements, to read spilled ones back.
+     * @param maxInMemory Number of elements kept in memory before spilling.
+     */
+    public SharedSource(String name, Flux<T> upstream, Class<T> type, int maxInMemory) {
+        this.name = name;
+        this.upstream = upstream;
+        this.type = type;
+        this.maxInMemory = maxInMemory;
+    }
+
+    /**
+     * @return A Flux that replays the whole collection, from the start, as
+     *         fast as it is fetched (the first subscription starts the fetch).
+     */
+    public Flux<T> flux() {
+        return Flux.create(sink -> {
+            Cursor cursor = new Cursor(sink);
+            cursors.add(cursor);
+            sink.onRequest(n -> cursor.signal());
+            sink.onDispose(() -> {
+                cursors.remove(cursor);
+                cursor.signal(); // Closes its reader on the drain thread
+            });
+            connect();
+        });
+    }
+
+    private void connect() {
+        if (connected.compareAndSet(false, true)) {
+            subscription = upstream
+                    .publishOn(Schedulers.boundedElastic()) // Spilling writes to disk
+                    .subscribe(this::append, this::fail, this::complete);
+        }
+    }
+
+    private void append(T element) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (memory.size() < maxInMemory) {
+                memory.add(element);
+                readable++;
+            } else {
+                try {
+                    if (spillWriter == null) {
+                        spillFile = Files.createTempFile("shared-" + name + "-", ".jsonl");
+                        spillWriter = Files.newBufferedWriter(spillFile);
+                    }
+                    spillWriter.write(objectMapper.writeValueAsString(element));
+                    spillWriter.newLine();
+                    if (++spilled % FLUSH_EVERY != 0) {
+                        return;
+                    }
+                    spillWriter.flush();
+                    readable = memory.size() + spilled;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error spilling " + name + " to disk", e);
+                }
+            }
+        }
+        cursors.forEach(Cursor::signal);
+    }
+
+    private void complete() {
+        synchronized (this) {
+            try {
+                if (spillWriter != null) {
+                    spillWriter.close();
+                }
+            } catch (IOException e) {
+                fail(new UncheckedIOException("Error spilling " + name + " to disk", e));
+                return;
+            }
+            readable = memory.size() + spilled;
+            System.out.println("Fetched " + name + " once: " + readable + " elements"
+                    + (spilled > 0 ? " (" + spilled + " spilled to " + spillFile + ")" : ""));
+        }
+        done = true;
+        cursors.forEach(Cursor::signal);
+    }
+
+    private void fail(Throwable e) {
+        synchronized (this) {
+            // The subscribers still get what was spilled before the error
+            try {
+                if (spillWriter != null) {
+                    spillWriter.close();
+                    readable = memory.size() + spilled;
+                }
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+        }
+        error = e;
+        done = true;
+        cursors.forEach(Cursor::signal);
+    }
+
+    private synchronized T inMemory(long index) {
+        return memory.get((int) index);
+    }
+
+    /**
+     * The position of one subscriber in the log. Its drain emits the
+     * elements it can read, as far as the subscriber requested them; it runs
+     * on one thread at a time, on the bounded elastic scheduler since it may
+     * read the spill file.
+     */
+    private final class Cursor {
+        private final FluxSink<T> sink;
+        private final AtomicInteger wip = new AtomicInteger();
+        private long position;
+        private BufferedReader reader; // Opened at the first spilled element
+        private boolean terminated;
+
+        Cursor(FluxSink<T> sink) {
+            this.sink = sink;
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                Schedulers.boundedElastic().schedule(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (terminated) {
+                    return;
+                }
+                if (sink.isCancelled()) {
+                    terminate();
+                    return;
+                }
+
+                boolean finished = done;
+                long available = readable;
+                try {
+                    while (position < available && sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                        sink.next(next());
+                    }
+                } catch (RuntimeException e) {
+                    terminate();
+                    sink.error(e);
+                    return;
+                }
+                if (finished && position == available) {
+                    terminate();
+                    if (error != null) {
+                        sink.error(error);
+                    } else {
+                        sink.complete();
+                    }
+                    return;
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private T next() {
+            if (position < maxInMemory) {
+                return inMemory(position++);
+            }
+            try {
+                if (reader == null) {
+                    reader = Files.newBufferedReader(spillFile);
+                }
+                position++;
+                return objectMapper.readValue(reader.readLine(), type);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading spilled " + name, e);
+            }
+        }
+
+        private void terminate() {
+            terminated = true;
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing spilled " + name + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the fetch if it is still running and delete the spill file, if
+     * any.
+     */
+    @Override
+    public void close() {
+        Disposable fetch = subscription;
+        if (fetch != null) {
+            fetch.dispose();
+        }
+        synchronized (this) {
+            closed = true;
+            if (spillFile != null) {
+                try {
+                    spillWriter.close();
+                    Files.deleteIfExists(spillFile);
+                } catch (IOException e) {
+                    System.err.println("Error deleting " + spillFile + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
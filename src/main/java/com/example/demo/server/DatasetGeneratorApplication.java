@@ -0,0 +1,118 @@
+package com.example.demo.server;
+
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetLoader;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.repository.BulkInsertRepository;
+
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Command line entry point that generates a synthetic dataset and loads it into
+ * the configured database (or writes it as CSV files).
+ *
+ * Options (all optional):
+ * --owners=1000 --pets=10000 --seed=42 --owner-skew=1.0
+ * --species=dog:0.4,cat:0.35,bird:0.1,fish:0.1,capybara:0.05
+ * --weight=lognormal|normal|uniform --weight-mean=12 --weight-stddev=8
+ * --birth-from=2005-01-01 --birth-to=2023-12-31
+ * --batch-size=1000 --concurrency=4 --csv=<directory>
+ *
+ * Other arguments (e.g. --spring.r2dbc.url=...) are passed on to Spring.
+ */
+public class DatasetGeneratorApplication {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGeneratorApplication.class);
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        DatasetGenerator generator = new DatasetGenerator(toSpec(options));
+
+        try {
+            if (options.containsKey("csv")) {
+                DatasetLoader.writeCsv(generator, Paths.get(options.get("csv")));
+                logger.info("Dataset written to " + options.get("csv"));
+                return;
+            }
+
+            // Only the database beans are needed, so the web server is not started
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ServerApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run(args)) {
+
+                DatasetLoader loader = new DatasetLoader(context.getBean(BulkInsertRepository.class),
+                        Integer.parseInt(options.getOrDefault("batch-size", "1000")),
+                        Integer.parseInt(options.getOrDefault("concurrency", "4")));
+
+                loader.load(generator).block();
+            }
+        } catch (Exception e) {
+            logger.error("Dataset generation failed.", e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Build a dataset spec from the command line options, keeping the defaults
+     * of DatasetSpec for missing ones.
+     *
+     * @param options The parsed options.
+     * @return The dataset spec.
+     */
+    public static DatasetSpec toSpec(Map<String, String> options) {
+        DatasetSpec spec = new DatasetSpec();
+
+        if (options.containsKey("seed")) {
+            spec.setSeed(Long.parseLong(options.get("seed")));
+        }
+        if (options.containsKey("owners")) {
+            spec.setOwners(Long.parseLong(options.get("owners")));
+        }
+        if (options.containsKey("pets")) {
+            spec.setPets(Long.parseLong(options.get("pets")));
+        }
+        if (options.containsKey("owner-skew")) {
+            spec.setOwnerSkew(Double.parseDouble(options.get("owner-skew")));
+        }
+        if (options.containsKey("species")) {
+            spec.setSpeciesMix(DatasetSpec.parseSpeciesMix(options.get("species")));
+        }
+        if (options.containsKey("weight")) {
+            spec.setWeightDistribution(DatasetSpec.WeightDistribution.valueOf(options.get("weight").toUpperCase()));
+        }
+        if (options.containsKey("weight-mean")) {
+            spec.setWeightMean(Double.parseDouble(options.get("weight-mean")));
+        }
+        if (options.containsKey("weight-stddev")) {
+            spec.setWeightStdDev(Double.parseDouble(options.get("weight-stddev")));
+        }
+        if (options.containsKey("birth-from")) {
+            spec.setBirthDateFrom(LocalDate.parse(options.get("birth-from")));
+        }
+        if (options.containsKey("birth-to")) {
+            spec.setBirthDateTo(LocalDate.parse(options.get("birth-to")));
+        }
+
+        return spec;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+}
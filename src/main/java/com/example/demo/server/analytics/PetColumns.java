@@ -0,0 +1,594 @@
+package com.example.demo.server.analytics;
+
+import com.example.demo.server.model.Pet;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Immutable columnar snapshot of the pets, used for analytics queries.
+ *
+ * Instead of one Pet object per row (boxed Long/Double, a LocalDate and a
+ * String per pet), each attribute is kept in its own primitive array:
+ * - weights as double[], owner ids as long[], birth dates as int[] epoch days
+ * (NO_BIRTH_DATE for none);
+ * - species dictionary-encoded as short[] codes into a small String[];
+ * - ids and names, only needed to describe the pets a query returns.
+ *
+ * Queries are tight loops over one or two arrays. When a query is run with
+ * `parallel` set, large snapshots are split into ranges that are scanned on the
+ * common fork-join pool and the partial results are merged.
+ */
+public final class PetColumns {
+
+    /**
+     * Ranges smaller than this are scanned sequentially by a fork-join task.
+     */
+    private static final int MIN_TASK_ROWS = 1 << 14;
+
+    /**
+     * The epoch day stored for a pet without a birth date: later than any
+     * date, so the eldest pet is never one without a birth date.
+     */
+    public static final int NO_BIRTH_DATE = Integer.MAX_VALUE;
+
+    private final int size;
+    private final long[] ids;
+    private final String[] names;
+    private final short[] species;
+    private final String[] speciesDictionary;
+    private final long[] ownerIds;
+    private final int[] birthEpochDays;
+    private final double[] weights;
+
+    private PetColumns(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.species = Arrays.copyOf(builder.species, size);
+        this.speciesDictionary = builder.dictionary.keySet().toArray(new String[0]);
+        for (Map.Entry<String, Short> entry : builder.dictionary.entrySet()) {
+            speciesDictionary[entry.getValue()] = entry.getKey();
+        }
+        this.ownerIds = Arrays.copyOf(builder.ownerIds, size);
+        this.birthEpochDays = Arrays.copyOf(builder.birthEpochDays, size);
+        this.weights = Arrays.copyOf(builder.weights, size);
+    }
+
+    private PetColumns(long[] ids, String[] names, short[] species, String[] speciesDictionary, long[] ownerIds,
+            int[] birthEpochDays, double[] weights) {
+        this.size = ids.length;
+        this.ids = ids;
+        this.names = names;
+        this.species = species;
+        this.speciesDictionary = speciesDictionary;
+        this.ownerIds = ownerIds;
+        this.birthEpochDays = birthEpochDays;
+        this.weights = weights;
+    }
+
+    /**
+     * @return A builder that accumulates pets one at a time.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Accumulates pets into growing primitive arrays. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] ids = new long[1024];
+        private String[] names = new String[1024];
+        private short[] species = new short[1024];
+        private long[] ownerIds = new long[1024];
+        private int[] birthEpochDays = new int[1024];
+        private double[] weights = new double[1024];
+        private final Map<String, Short> dictionary = new HashMap<>();
+
+        /**
+         * Add one pet. Missing values are stored as 0 (or an empty species, or
+         * NO_BIRTH_DATE).
+         */
+        public Builder add(Pet pet) {
+            if (size == ids.length) {
+                grow();
+            }
+
+            ids[size] = pet.getIdentifier() == null ? 0 : pet.getIdentifier();
+            names[size] = pet.getName();
+            species[size] = speciesCode(pet.getSpecies());
+            ownerIds[size] = pet.getOwnerid() == null ? 0 : pet.getOwnerid();
+            birthEpochDays[size] = pet.getBirth_date() == null ? NO_BIRTH_DATE
+                    : (int) pet.getBirth_date().toEpochDay();
+            weights[size] = pet.getWeight() == null ? 0 : pet.getWeight();
+            size++;
+            return this;
+        }
+
+        /**
+         * Add one pet from already decoded values (NO_BIRTH_DATE for no birth
+         * date).
+         */
+        public Builder add(long id, String name, String petSpecies, long ownerId, int birthEpochDay, double weight) {
+            if (size == ids.length) {
+                grow();
+            }
+
+            ids[size] = id;
+            names[size] = name;
+            species[size] = speciesCode(petSpecies);
+            ownerIds[size] = ownerId;
+            birthEpochDays[size] = birthEpochDay;
+            weights[size] = weight;
+            size++;
+            return this;
+        }
+
+        private short speciesCode(String name) {
+            String key = name == null ? "" : name;
+            Short code = dictionary.get(key);
+            if (code == null) {
+                if (dictionary.size() == Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct species");
+                }
+                code = (short) dictionary.size();
+                dictionary.put(key, code);
+            }
+            return code;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            species = Arrays.copyOf(species, capacity);
+            ownerIds = Arrays.copyOf(ownerIds, capacity);
+            birthEpochDays = Arrays.copyOf(birthEpochDays, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PetColumns build() {
+            return new PetColumns(this);
+        }
+    }
+
+    /**
+     * Mean, spread and range of a set of values.
+     */
+    public static final class Moments {
+        public final long count;
+        public final double mean;
+        public final double m2; // Sum of squared differences from the mean
+        public final double min;
+        public final double max;
+
+        Moments(long count, double mean, double m2, double min, double max) {
+            this.count = count;
+            this.mean = mean;
+            this.m2 = m2;
+            this.min = min;
+            this.max = max;
+        }
+
+        public double variance() {
+            return count == 0 ? 0 : m2 / count;
+        }
+
+        /**
+         * Combine the moments of two disjoint sets (Chan et al.).
+         */
+        Moments merge(Moments other) {
+            if (count == 0) {
+                return other;
+            }
+            if (other.count == 0) {
+                return this;
+            }
+            long n = count + other.count;
+            double delta = other.mean - mean;
+            return new Moments(n, mean + delta * other.count / n,
+                    m2 + other.m2 + delta * delta * count * other.count / n,
+                    Math.min(min, other.min), Math.max(max, other.max));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String[] getSpeciesDictionary() {
+        return speciesDictionary.clone();
+    }
+
+    /**
+     * @return The pet stored at a row.
+     */
+    public Pet pet(int row) {
+        LocalDate birthDate = birthEpochDays[row] == NO_BIRTH_DATE ? null : LocalDate.ofEpochDay(birthEpochDays[row]);
+        return new Pet(ids[row], names[row], speciesDictionary[species[row]], birthDate, weights[row],
+                ownerIds[row]);
+    }
+
+    /**
+     * @return The ids of all the rows, in row order (a copy).
+     */
+    public long[] ids() {
+        return ids.clone();
+    }
+
+    /**
+     * Write the columns in snapshot file order: row count, species dictionary,
+     * then each fixed-size column in full, then the names.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        out.writeShort(speciesDictionary.length);
+        for (String name : speciesDictionary) {
+            SnapshotFile.writeString(out, name);
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeLong(ids[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeLong(ownerIds[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(weights[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeInt(birthEpochDays[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeShort(species[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            SnapshotFile.writeString(out, names[i]);
+        }
+    }
+
+    /**
+     * Read columns written by writeTo. Fixed-size columns are copied in bulk
+     * from the buffer; the buffer is left positioned after the columns.
+     */
+    static PetColumns readFrom(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        short dictionarySize = buffer.getShort();
+        SnapshotFile.checkRemaining(buffer, dictionarySize, Integer.BYTES, "species");
+        String[] dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = SnapshotFile.readString(buffer);
+        }
+
+        // The fixed-size columns and the length of each name
+        SnapshotFile.checkRemaining(buffer, size, 2 * Long.BYTES + Double.BYTES + 2 * Integer.BYTES + Short.BYTES,
+                "pets");
+        long[] ids = new long[size];
+        buffer.asLongBuffer().get(ids);
+        buffer.position(buffer.position() + size * Long.BYTES);
+        long[] ownerIds = new long[size];
+        buffer.asLongBuffer().get(ownerIds);
+        buffer.position(buffer.position() + size * Long.BYTES);
+        double[] weights = new double[size];
+        buffer.asDoubleBuffer().get(weights);
+        buffer.position(buffer.position() + size * Double.BYTES);
+        int[] birthEpochDays = new int[size];
+        buffer.asIntBuffer().get(birthEpochDays);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        short[] species = new short[size];
+        buffer.asShortBuffer().get(species);
+        buffer.position(buffer.position() + size * Short.BYTES);
+
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = SnapshotFile.readString(buffer);
+        }
+
+        for (short code : species) {
+            if (code < 0 || code >= dictionary.length) {
+                throw new IllegalStateException("Species code " + code + " is not in the snapshot dictionary");
+            }
+        }
+        return new PetColumns(ids, names, species, dictionary, ownerIds, birthEpochDays, weights);
+    }
+
+    /**
+     * Count the pets of a species (case-insensitive) that weigh more than a
+     * given weight.
+     *
+     * @param speciesName The species, or null for any species.
+     * @param minWeight   Exclusive lower bound of the weight, or
+     *                    Double.NEGATIVE_INFINITY for any weight.
+     * @param parallel    Whether the scan may be split over the fork-join pool.
+     */
+    public long count(String speciesName, double minWeight, boolean parallel) {
+        boolean[] speciesMask = speciesName == null ? null : speciesMask(speciesName);
+
+        return scan(parallel, (from, to) -> {
+            long count = 0;
+            if (speciesMask == null) {
+                for (int i = from; i < to; i++) {
+                    if (weights[i] > minWeight) {
+                        count++;
+                    }
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    if (speciesMask[species[i]] && weights[i] > minWeight) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }, Long::sum);
+    }
+
+    /**
+     * @return The moments (count, mean, variance, min, max) of the weights.
+     */
+    public Moments weightMoments(boolean parallel) {
+        return scan(parallel, (from, to) -> {
+            if (from == to) {
+                return new Moments(0, 0, 0, Double.NaN, Double.NaN);
+            }
+
+            // Two passes over a cache-friendly range: mean first, then squared deviations
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double w = weights[i];
+                sum += w;
+                min = Math.min(min, w);
+                max = Math.max(max, w);
+            }
+            double mean = sum / (to - from);
+            double m2 = 0;
+            for (int i = from; i < to; i++) {
+                double d = weights[i] - mean;
+                m2 += d * d;
+            }
+            return new Moments(to - from, mean, m2, min, max);
+        }, Moments::merge);
+    }
+
+    /**
+     * @return The row of the eldest pet (earliest birth date, the first row on
+     *         ties), or -1 if no pet has a birth date.
+     */
+    public int eldestRow(boolean parallel) {
+        return scan(parallel, (from, to) -> {
+            int best = -1;
+            int bestDay = NO_BIRTH_DATE; // Rows without a birth date are never below it
+            for (int i = from; i < to; i++) {
+                if (birthEpochDays[i] < bestDay) {
+                    bestDay = birthEpochDays[i];
+                    best = i;
+                }
+            }
+            return best;
+        }, (a, b) -> a < 0 ? b : b < 0 ? a : birthEpochDays[b] < birthEpochDays[a] ? b : a);
+    }
+
+    /**
+     * Find the heaviest pets in O(n log k) time and O(k) memory per range.
+     *
+     * @param k Number of pets to return; more than there are returns them
+     *          all.
+     * @return The rows of the k heaviest pets, heaviest first.
+     */
+    public int[] heaviestRows(int k, boolean parallel) {
+        int kept = Math.min(k, size);
+        if (kept <= 0) {
+            return new int[0];
+        }
+
+        int[] rows = scan(parallel, (from, to) -> topK(kept, from, to, null),
+                (a, b) -> topK(kept, 0, 0, concat(a, b)));
+
+        // Heaviest first, ties by row for a stable answer
+        return Arrays.stream(rows)
+                .boxed()
+                .sorted((row1, row2) -> weights[row1] != weights[row2]
+                        ? Double.compare(weights[row2], weights[row1])
+                        : Integer.compare(row1, row2))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Bounded min-heap selection over a range of rows, or over the given
+     * candidate rows when `candidates` is not null.
+     */
+    private int[] topK(int k, int from, int to, int[] candidates) {
+        int n = candidates == null ? to - from : candidates.length;
+        int[] heap = new int[Math.min(k, n)];
+        int heapSize = 0;
+
+        for (int j = 0; j < n; j++) {
+            int row = candidates == null ? from + j : candidates[j];
+            if (heapSize < k) {
+                heap[heapSize] = row;
+                siftUp(heap, heapSize++);
+            } else if (weights[row] > weights[heap[0]]) {
+                // Lighter than the new row: replace the root (the lightest kept)
+                heap[0] = row;
+                siftDown(heap, heapSize);
+            }
+        }
+        return Arrays.copyOf(heap, heapSize);
+    }
+
+    private void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (weights[heap[i]] >= weights[heap[parent]]) {
+                break;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left + 1 < size && weights[heap[left + 1]] < weights[heap[left]] ? left + 1 : left;
+            if (weights[heap[i]] <= weights[heap[smallest]]) {
+                break;
+            }
+            swap(heap, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * Group the pets by owner.
+     *
+     * The owner column is copied and sorted, after which every owner is a run of
+     * equal ids: no hash map and no boxing.
+     *
+     * @return Two parallel arrays: owner ids (ascending) and their pet counts.
+     */
+    public OwnerCounts petCountsByOwner(boolean parallel) {
+        long[] sorted = ownerIds.clone();
+        if (parallel && size >= MIN_TASK_ROWS) {
+            Arrays.parallelSort(sorted);
+        } else {
+            Arrays.sort(sorted);
+        }
+
+        long[] owners = new long[Math.min(size, 16)];
+        int[] counts = new int[owners.length];
+        int groups = 0;
+
+        for (int i = 0; i < size;) {
+            int j = i + 1;
+            while (j < size && sorted[j] == sorted[i]) {
+                j++;
+            }
+            if (groups == owners.length) {
+                owners = Arrays.copyOf(owners, groups * 2);
+                counts = Arrays.copyOf(counts, groups * 2);
+            }
+            owners[groups] = sorted[i];
+            counts[groups] = j - i;
+            groups++;
+            i = j;
+        }
+
+        return new OwnerCounts(Arrays.copyOf(owners, groups), Arrays.copyOf(counts, groups));
+    }
+
+    /**
+     * Owner ids and their pet counts, as parallel arrays.
+     */
+    public static final class OwnerCounts {
+        public final long[] ownerIds;
+        public final int[] petCounts;
+
+        OwnerCounts(long[] ownerIds, int[] petCounts) {
+            this.ownerIds = ownerIds;
+            this.petCounts = petCounts;
+        }
+
+        public int size() {
+            return ownerIds.length;
+        }
+    }
+
+    /**
+     * Species are compared case-insensitively, like the client's dog filter, so
+     * several codes ("dog", "Dog") may match the same name.
+     */
+    private boolean[] speciesMask(String speciesName) {
+        boolean[] mask = new boolean[speciesDictionary.length];
+        for (int i = 0; i < speciesDictionary.length; i++) {
+            mask[i] = speciesDictionary[i].equalsIgnoreCase(speciesName);
+        }
+        return mask;
+    }
+
+    /**
+     * Computes a partial result over a range of rows.
+     */
+    @FunctionalInterface
+    private interface RangeKernel<R> {
+        R compute(int from, int to);
+    }
+
+    /**
+     * Combines two partial results.
+     */
+    @FunctionalInterface
+    private interface Merger<R> {
+        R merge(R left, R right);
+    }
+
+    private <R> R scan(boolean parallel, RangeKernel<R> kernel, Merger<R> merger) {
+        if (!parallel || size < 2 * MIN_TASK_ROWS) {
+            return kernel.compute(0, size);
+        }
+        return ForkJoinPool.commonPool().invoke(new RangeTask<>(kernel, merger, 0, size));
+    }
+
+    /**
+     * Splits a range in halves until it is small enough to scan directly.
+     */
+    private static final class RangeTask<R> extends RecursiveTask<R> {
+
+        private final RangeKernel<R> kernel;
+        private final Merger<R> merger;
+        private final int from;
+        private final int to;
+
+        RangeTask(RangeKernel<R> kernel, Merger<R> merger, int from, int to) {
+            this.kernel = kernel;
+            this.merger = merger;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= MIN_TASK_ROWS) {
+                return kernel.compute(from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            RangeTask<R> left = new RangeTask<>(kernel, merger, from, middle);
+            left.fork();
+            R right = new RangeTask<>(kernel, merger, middle, to).compute();
+            return merger.merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.demo.server.analytics;
+
+import com.example.demo.server.model.Owner;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary snapshot of the owners and pets, used to warm start the
+ * server without reading the whole dataset from the database.
+ *
+ * Layout (big-endian):
+ * - header: magic "PETS", format version, creation time (epoch millis);
+ * - owners: count, then identifier, name and phone number of each owner;
+ * - pets: the PetColumns, one column after the other.
+ * Strings are written as a byte length (-1 for null) followed by UTF-8 bytes.
+ * Every count and length read is checked against the bytes left, so a
+ * corrupted file fails with a clear error instead of a huge allocation.
+ *
+ * A snapshot is written to a temporary file that is then renamed over the
+ * previous one, so a crash while writing never leaves a truncated snapshot.
+ * Reading memory-maps the file and copies the numeric columns in bulk.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x50455453; // "PETS"
+    private static final short FORMAT_VERSION = 1;
+
+    // Identifier and the lengths of the name and phone number
+    private static final int MIN_OWNER_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+    private final long createdAt;
+    private final int ownerCount;
+    private final List<Owner> owners;
+    private final PetColumns pets;
+
+    private SnapshotFile(long createdAt, int ownerCount, List<Owner> owners, PetColumns pets) {
+        this.createdAt = createdAt;
+        this.ownerCount = ownerCount;
+        this.owners = owners;
+        this.pets = pets;
+    }
+
+    /**
+     * @return When the snapshot was written (epoch millis).
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return The number of owners in the snapshot, also when they were not
+     *         read.
+     */
+    public int getOwnerCount() {
+        return ownerCount;
+    }
+
+    /**
+     * @return The owners, or an empty list if they were not read.
+     */
+    public List<Owner> getOwners() {
+        return owners;
+    }
+
+    public PetColumns getPets() {
+        return pets;
+    }
+
+    /**
+     * Write a snapshot, replacing the file atomically.
+     *
+     * @param file   The snapshot file.
+     * @param owners All the owners.
+     * @param pets   All the pets.
+     * @return The size of the file in bytes.
+     */
+    public static long write(Path file, List<Owner> owners, PetColumns pets) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 20))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+
+                out.writeInt(owners.size());
+                for (Owner owner : owners) {
+                    out.writeLong(owner.getIdentifier() == null ? 0 : owner.getIdentifier());
+                    writeString(out, owner.getName());
+                    writeString(out, owner.getPhone_number());
+                }
+
+                pets.writeTo(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        return Files.size(file);
+    }
+
+    /**
+     * Read a snapshot.
+     *
+     * @param file The snapshot file.
+     * @return The snapshot contents.
+     * @throws IllegalStateException If the file is not a snapshot in this format.
+     */
+    public static SnapshotFile read(Path file) throws IOException {
+        return read(file, true);
+    }
+
+    /**
+     * Read a snapshot, optionally skipping the owners without decoding them
+     * (when only the pets are restored).
+     *
+     * @param file       The snapshot file.
+     * @param withOwners Whether to read the owners.
+     * @return The snapshot contents.
+     * @throws IllegalStateException If the file is not a snapshot in this format.
+     */
+    public static SnapshotFile read(Path file, boolean withOwners) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot " + file + " is larger than 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            try {
+                if (buffer.getInt() != MAGIC) {
+                    throw new IllegalStateException(file + " is not a snapshot file");
+                }
+                short version = buffer.getShort();
+                if (version != FORMAT_VERSION) {
+                    throw new IllegalStateException("Unsupported snapshot format version " + version);
+                }
+                long createdAt = buffer.getLong();
+
+                int ownerCount = buffer.getInt();
+                checkRemaining(buffer, ownerCount, MIN_OWNER_BYTES, "owners");
+                List<Owner> owners = new ArrayList<>(withOwners ? ownerCount : 0);
+                for (int i = 0; i < ownerCount; i++) {
+                    if (withOwners) {
+                        owners.add(new Owner(buffer.getLong(), readString(buffer), readString(buffer)));
+                    } else {
+                        buffer.position(buffer.position() + Long.BYTES);
+                        skipString(buffer);
+                        skipString(buffer);
+                    }
+                }
+
+                PetColumns pets = PetColumns.readFrom(buffer);
+                return new SnapshotFile(createdAt, ownerCount, owners, pets);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IllegalStateException("Snapshot " + file + " is truncated or corrupted", e);
+            }
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = readStringLength(buffer);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        int length = readStringLength(buffer);
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private static int readStringLength(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < -1) {
+            throw new IllegalStateException("Corrupt snapshot: string length " + length);
+        }
+        checkRemaining(buffer, Math.max(0, length), 1, "string");
+        return length;
+    }
+
+    /**
+     * Check that a count read from the file fits in the bytes left.
+     *
+     * @param count        The number of elements.
+     * @param elementBytes The smallest size of an element.
+     * @param what         What the elements are, for the error.
+     * @throws IllegalStateException If the count is negative or the elements
+     *                               cannot fit.
+     */
+    static void checkRemaining(ByteBuffer buffer, int count, int elementBytes, String what) {
+        if (count < 0 || (long) count * elementBytes > buffer.remaining()) {
+            throw new IllegalStateException("Corrupt snapshot: " + count + " " + what + " of at least "
+                    + elementBytes + " bytes, with only " + buffer.remaining() + " bytes left");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.server.controller;
+
+import com.example.demo.server.filter.AdmissionControlFilter;
+import com.example.demo.server.model.AdmissionStats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * Controller class for the admission statistics.
+ *
+ * Reports, for each route class of AdmissionControlFilter, the live
+ * concurrency limit and the requests accepted and rejected so far.
+ */
+@RestController
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    /**
+     * Retrieve the admission statistics.
+     *
+     * @return The statistics of each route class (all zero when admission
+     *         control is off).
+     */
+    @GetMapping("/admission")
+    public Flux<AdmissionStats> getAdmissionStats() {
+        logger.debug("Got request: GET /admission");
+
+        return Flux.fromIterable(admissionControlFilter.getStats());
+    }
+}
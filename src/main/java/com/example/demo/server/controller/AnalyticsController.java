@@ -0,0 +1,110 @@
+package com.example.demo.server.controller;
+
+import com.example.demo.server.model.OwnerPetCount;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.model.WeightStatistics;
+import com.example.demo.server.service.PetAnalyticsService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller class for analytics queries over all the pets.
+ */
+@RestController
+@RequestMapping("/analytics") // Mapping for analytics queries
+public class AnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
+
+    @Autowired
+    private PetAnalyticsService petAnalyticsService;
+
+    @Value("${analytics.max-k:10000}")
+    private int maxK;
+
+    /**
+     * Count the pets, optionally filtered by species and minimum weight.
+     *
+     * @param species   The species to count (case-insensitive).
+     * @param minWeight Only pets heavier than this are counted.
+     * @return The number of matching pets.
+     */
+    @GetMapping("/pet/count")
+    public Mono<Long> countPets(@RequestParam(required = false) String species,
+            @RequestParam(required = false) Double minWeight) {
+        logger.debug("Got request: GET /analytics/pet/count?species=" + species + "&minWeight=" + minWeight);
+
+        return petAnalyticsService.countPets(species, minWeight);
+    }
+
+    /**
+     * Retrieve the average, standard deviation and range of the pet weights.
+     *
+     * @return The weight statistics.
+     */
+    @GetMapping("/pet/weight")
+    public Mono<WeightStatistics> weightStatistics() {
+        logger.debug("Got request: GET /analytics/pet/weight");
+
+        return petAnalyticsService.weightStatistics();
+    }
+
+    /**
+     * Retrieve the heaviest pets.
+     *
+     * @param k The number of pets to return, from 1 to `analytics.max-k`.
+     * @return The k heaviest pets, heaviest first, or a 400 for another k.
+     */
+    @GetMapping("/pet/heaviest")
+    public Flux<Pet> heaviestPets(@RequestParam(defaultValue = "10") int k) {
+        logger.debug("Got request: GET /analytics/pet/heaviest?k=" + k);
+
+        if (k <= 0 || k > maxK) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "k must be between 1 and " + maxK + ": " + k));
+        }
+        return petAnalyticsService.heaviestPets(k);
+    }
+
+    /**
+     * Retrieve the eldest pet.
+     *
+     * @return The pet with the earliest birth date.
+     */
+    @GetMapping("/pet/eldest")
+    public Mono<Pet> eldestPet() {
+        logger.debug("Got request: GET /analytics/pet/eldest");
+
+        return petAnalyticsService.eldestPet();
+    }
+
+    /**
+     * Retrieve the number of pets of each owner, sorted by that number in
+     * descending order.
+     *
+     * @param minPets Only owners with at least this many pets are returned
+     *                (not negative).
+     * @param limit   The maximum number of owners to return (not negative).
+     * @return The owners and their pet counts, or a 400 for a negative
+     *         parameter.
+     */
+    @GetMapping("/owner/pet-count")
+    public Flux<OwnerPetCount> petCountsByOwner(@RequestParam(defaultValue = "1") int minPets,
+            @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int limit) {
+        logger.debug("Got request: GET /analytics/owner/pet-count?minPets=" + minPets + "&limit=" + limit);
+
+        if (minPets < 0 || limit < 0) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "minPets and limit cannot be negative: " + minPets + ", " + limit));
+        }
+        return petAnalyticsService.petCountsByOwner(minPets, limit);
+    }
+}
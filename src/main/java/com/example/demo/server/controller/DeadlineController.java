@@ -0,0 +1,39 @@
+package com.example.demo.server.controller;
+
+import com.example.demo.server.filter.DeadlineFilter;
+import com.example.demo.server.model.DeadlineStats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller class for the deadline statistics.
+ *
+ * Reports what became of the requests that came with a deadline (see
+ * DeadlineFilter): how much work completed and how much was cancelled.
+ */
+@RestController
+public class DeadlineController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineController.class);
+
+    @Autowired
+    private DeadlineFilter deadlineFilter;
+
+    /**
+     * Retrieve the deadline statistics.
+     *
+     * @return The requests with a deadline, completed, expired, cancelled and
+     *         failed.
+     */
+    @GetMapping("/deadline")
+    public Mono<DeadlineStats> getDeadlineStats() {
+        logger.debug("Got request: GET /deadline");
+
+        return Mono.just(deadlineFilter.getStats());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.server.controller;
+
+import com.example.demo.server.model.ImportReport;
+import com.example.demo.server.service.ImportService;
+
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller class for importing reference datasets from CSV files that are
+ * available on the server's file system, in its import directory
+ * (`importer.directory`).
+ */
+@RestController
+@RequestMapping("/import") // Mapping for import actions
+public class ImportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportController.class);
+
+    @Autowired
+    private ImportService importService;
+
+    /**
+     * Import owners from a CSV file.
+     *
+     * @param file   The path of the CSV file, relative to the import
+     *               directory.
+     * @param header Whether the first line of the file is a header.
+     * @return The import report, including the throughput in rows per second.
+     */
+    @PostMapping("/owner")
+    public Mono<ImportReport> importOwners(@RequestParam String file,
+            @RequestParam(defaultValue = "true") boolean header) {
+        logger.debug("Got request: POST /import/owner?file=" + file);
+
+        return importService.importOwners(Paths.get(file), header);
+    }
+
+    /**
+     * Import pets from a CSV file.
+     *
+     * @param file   The path of the CSV file, relative to the import
+     *               directory.
+     * @param header Whether the first line of the file is a header.
+     * @return The import report, including the throughput in rows per second.
+     */
+    @PostMapping("/pet")
+    public Mono<ImportReport> importPets(@RequestParam String file,
+            @RequestParam(defaultValue = "true") boolean header) {
+        logger.debug("Got request: POST /import/pet?file=" + file);
+
+        return importService.importPets(Paths.get(file), header);
+    }
+}
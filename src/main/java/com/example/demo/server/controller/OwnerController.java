@@ -3,6 +3,8 @@ package com.example.demo.server.controller;
 import com.example.demo.server.model.Owner;
 import com.example.demo.server.service.OwnerService;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,6 +50,20 @@ public class OwnerController {
         return ownerService.getOwnerById(id);
     }
 
+    /**
+     * Retrieve several owners by their identifiers in one request, e.g.
+     * GET /owner/batch?ids=1,2,3.
+     *
+     * @param ids The identifiers of the owners to retrieve.
+     * @return The owners found; identifiers without an owner are skipped.
+     */
+    @GetMapping("/batch")
+    public Flux<Owner> getOwnersByIds(@RequestParam List<Long> ids) {
+        logger.debug("Got request: GET /owner/batch?ids=" + ids);
+
+        return ownerService.getOwnersByIds(ids);
+    }
+
     /**
      * Create a new owner.
      *
@@ -3,6 +3,8 @@ package com.example.demo.server.controller;
 import com.example.demo.server.model.Pet;
 import com.example.demo.server.service.PetService;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,7 +49,21 @@ public class PetController {
     }
 
     /**
-     * Retrieve a pet by its identifier with a 50% chance of simulated delay.
+     * Retrieve several pets by their identifiers in one request, e.g.
+     * GET /pet/batch?ids=1,2,3.
+     *
+     * @param ids The identifiers of the pets to retrieve.
+     * @return The pets found; identifiers without a pet are skipped.
+     */
+    @GetMapping("/batch")
+    public Flux<Pet> getPetsByIds(@RequestParam List<Long> ids) {
+        logger.debug("Got request: GET /pet/batch?ids=" + ids);
+        return petService.getPetsByIds(ids);
+    }
+
+    /**
+     * Retrieve a pet by its identifier, with a chance (pet.delay.probability) of
+     * a simulated delay.
      *
      * @param id The identifier of the pet to retrieve.
      * @return The pet with the specified identifier.
@@ -0,0 +1,42 @@
+package com.example.demo.server.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller class for the readiness probe.
+ *
+ * The server becomes ready once startup has finished, including the snapshot
+ * restore, the in-memory seeding and the warm-up, so load balancers should
+ * only route traffic to it after GET /ready returns 200.
+ */
+@RestController
+public class ReadinessController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadinessController.class);
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    /**
+     * Check whether the server accepts traffic.
+     *
+     * @return 200 with the readiness state when ready, 503 otherwise.
+     */
+    @GetMapping("/ready")
+    public Mono<ResponseEntity<ReadinessState>> ready() {
+        logger.debug("Got request: GET /ready");
+
+        ReadinessState state = applicationAvailability.getReadinessState();
+        HttpStatus status = state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return Mono.just(ResponseEntity.status(status).body(state));
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.demo.server.filter;
+
+import com.example.demo.server.model.AdmissionStats;
+import com.example.demo.server.service.WarmupService;
+import com.example.demo.server.utils.Deadlines.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Web filter that sheds load in front of PetController and OwnerController,
+ * so that under overload the excess requests are refused at once instead of
+ * all waiting on the R2DBC pool and timing out together.
+ *
+ * The requests are split into route classes, each with its own
+ * AdmissionLimit (an adaptive concurrency limit):
+ * - point: the id lookups (GET /pet/{id}, /pet/batch, /pet/owner/{id},
+ * /owner/{id}, /owner/batch) and the writes;
+ * - scan: the full listings (GET /pet, GET /owner);
+ * - delay: GET /pet/delay/{id}, which is slow on purpose.
+ *
+ * A request beyond the limit of its class gets a 503 with a Retry-After of
+ * the recent latency of the class (at least 1 second). Point reads come
+ * first: while they use all their places, the scans and the delayed reads are
+ * refused too. The live limits and the accepted and rejected counts are
+ * served by GET /admission and logged every `admission.report-interval` while
+ * requests come in.
+ *
+ * Off unless `admission.enabled` is set; the readiness probe, the analytics,
+ * the imports and the warm-up requests (X-Warmup) are never limited, so the
+ * warm-up burst does not drive the limits down before the server is ready.
+ * A request whose deadline expired (a 504) says nothing about the load of
+ * the server, only about the deadline its client chose, so it frees its
+ * place without adapting the limit, as a cancelled request does.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE) // Refuse before any other work
+public class AdmissionControlFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    /**
+     * The route classes, each with its own limit.
+     */
+    public enum RouteClass {
+        POINT, SCAN, DELAY
+    }
+
+    private final boolean enabled;
+    private final LongSupplier nanoClock;
+    private final Map<RouteClass, AdmissionLimit> limits = new EnumMap<>(RouteClass.class);
+    private Disposable reporter;
+    private long reported; // Requests seen at the last report
+
+    @Autowired
+    public AdmissionControlFilter(@Value("${admission.enabled:false}") boolean enabled,
+            @Value("${admission.point-limit:100}") int pointLimit,
+            @Value("${admission.scan-limit:4}") int scanLimit,
+            @Value("${admission.delay-limit:20}") int delayLimit,
+            @Value("${admission.tolerance:2.0}") double tolerance,
+            @Value("${admission.backoff:0.9}") double backoff,
+            @Value("${admission.report-interval:10s}") Duration reportInterval) {
+        this(enabled, pointLimit, scanLimit, delayLimit, tolerance, backoff, System::nanoTime);
+        if (enabled) {
+            reporter = Flux.interval(reportInterval, reportInterval)
+                    .subscribe(tick -> report());
+            logger.info("Admission control on: " + limits.values());
+        }
+    }
+
+    /**
+     * Each limit starts at the given value and stays between a tenth of it
+     * (at least 1) and 10 times it.
+     *
+     * @param nanoClock Source of System.nanoTime-like timestamps.
+     */
+    public AdmissionControlFilter(boolean enabled, int pointLimit, int scanLimit, int delayLimit, double tolerance,
+            double backoff, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.nanoClock = nanoClock;
+        limits.put(RouteClass.POINT, limit("point", pointLimit, tolerance, backoff));
+        limits.put(RouteClass.SCAN, limit("scan", scanLimit, tolerance, backoff));
+        limits.put(RouteClass.DELAY, limit("delay", delayLimit, tolerance, backoff));
+    }
+
+    private AdmissionLimit limit(String name, int initialLimit, double tolerance, double backoff) {
+        return new AdmissionLimit(name, initialLimit, Math.max(1, initialLimit / 10), initialLimit * 10, tolerance,
+                backoff, nanoClock);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        RouteClass routeClass = enabled ? classify(exchange.getRequest()) : null;
+        if (routeClass == null || exchange.getRequest().getHeaders().containsKey(WarmupService.WARMUP_HEADER)) {
+            return chain.filter(exchange);
+        }
+
+        AdmissionLimit limit = limits.get(routeClass);
+        if (routeClass != RouteClass.POINT && limits.get(RouteClass.POINT).isSaturated()) {
+            limit.reject();
+            return reject(exchange, limit);
+        }
+        if (!limit.tryAcquire()) {
+            return reject(exchange, limit);
+        }
+
+        long start = nanoClock.getAsLong();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (HttpStatus.GATEWAY_TIMEOUT.equals(status)) {
+                        limit.release(0); // The deadline expired (see DeadlineFilter)
+                    } else {
+                        release(limit, start, isServerError(status));
+                    }
+                })
+                .doOnError(e -> {
+                    if (e instanceof DeadlineExceededException) {
+                        limit.release(0);
+                    } else {
+                        release(limit, start, isServerError(e));
+                    }
+                })
+                .doOnCancel(() -> limit.release(0));
+    }
+
+    /**
+     * The route class of a request, or null if it is not limited.
+     */
+    public static RouteClass classify(ServerHttpRequest request) {
+        String path = request.getPath().pathWithinApplication().value();
+        if (path.startsWith("/pet/delay/")) {
+            return RouteClass.DELAY;
+        }
+        boolean pets = path.equals("/pet") || path.startsWith("/pet/");
+        boolean owners = path.equals("/owner") || path.startsWith("/owner/");
+        if (!pets && !owners) {
+            return null;
+        }
+        if (HttpMethod.GET.equals(request.getMethod()) && (path.equals("/pet") || path.equals("/owner"))) {
+            return RouteClass.SCAN;
+        }
+        return RouteClass.POINT;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, AdmissionLimit limit) {
+        long retryAfter = Math.max(1, (limit.getRecentLatencyNanos() + 999_999_999) / 1_000_000_000);
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        return exchange.getResponse().setComplete();
+    }
+
+    private void release(AdmissionLimit limit, long start, boolean serverError) {
+        limit.release(serverError ? -1 : Math.max(1, nanoClock.getAsLong() - start));
+    }
+
+    private static boolean isServerError(HttpStatusCode status) {
+        return status != null && status.is5xxServerError();
+    }
+
+    private static boolean isServerError(Throwable error) {
+        // Errors that are not a ResponseStatusException end up as a 500
+        return !(error instanceof ResponseStatusException)
+                || ((ResponseStatusException) error).getStatusCode().is5xxServerError();
+    }
+
+    /**
+     * Log the limits and counts, if requests came in since the last report.
+     */
+    private void report() {
+        long seen = limits.values().stream().mapToLong(limit -> limit.getAccepted() + limit.getRejected()).sum();
+        if (seen != reported) {
+            reported = seen;
+            logger.info("Admission " + limits.values());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reporter != null) {
+            reporter.dispose();
+        }
+    }
+
+    public AdmissionLimit getLimit(RouteClass routeClass) {
+        return limits.get(routeClass);
+    }
+
+    /**
+     * @return The counts and the live limit of each route class.
+     */
+    public List<AdmissionStats> getStats() {
+        List<AdmissionStats> stats = new ArrayList<>();
+        limits.values().forEach(limit -> stats.add(limit.getStats()));
+        return stats;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.demo.server.filter;
+
+import com.example.demo.server.model.AdmissionStats;
+import com.example.demo.server.utils.LatencyGradientLimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive concurrency limit of one class of requests: at most `limit` of
+ * them are handled at once, and the others are refused at once rather than
+ * queued (load shedding).
+ *
+ * The limit follows the latency the requests take inside the server (see
+ * LatencyGradientLimit): it falls when they are queueing (for a connection of
+ * the R2DBC pool, a thread, the CPU) or fail with a server error, and rises
+ * while they use at least half of it. Thread-safe.
+ */
+public class AdmissionLimit {
+
+    private final String name;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this
+    private final LatencyGradientLimit gradient;
+    private int inFlight;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param name         Name of the class of requests.
+     * @param initialLimit The limit until latencies are known.
+     * @param minLimit     The lowest limit, at least 1.
+     * @param maxLimit     The highest limit.
+     * @param tolerance    Latency, relative to the baseline, beyond which the
+     *                     requests are taken to be queueing, e.g. 2.
+     * @param backoff      Factor applied to the limit when it decreases,
+     *                     e.g. 0.9.
+     * @param nanoClock    Source of System.nanoTime-like timestamps.
+     */
+    public AdmissionLimit(String name, int initialLimit, int minLimit, int maxLimit, double tolerance,
+            double backoff, LongSupplier nanoClock) {
+        this.name = name;
+        this.nanoClock = nanoClock;
+        this.gradient = new LatencyGradientLimit(initialLimit, minLimit, maxLimit, tolerance, backoff,
+                nanoClock.getAsLong());
+    }
+
+    /**
+     * Take a place for a request, if there is one.
+     *
+     * @return Whether the request was accepted; if so, release must be called
+     *         once it completes.
+     */
+    public boolean tryAcquire() {
+        synchronized (this) {
+            if (inFlight < gradient.getLimit()) {
+                inFlight++;
+                accepted.incrementAndGet();
+                return true;
+            }
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Count a request refused for another reason than the limit (e.g. to give
+     * way to requests of higher priority).
+     */
+    public void reject() {
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * Whether the requests use all the places, i.e. the next one would be
+     * refused.
+     */
+    public synchronized boolean isSaturated() {
+        return inFlight >= gradient.getLimit();
+    }
+
+    /**
+     * Free the place of a request and adapt the limit.
+     *
+     * @param latencyNanos The latency of the request, or -1 if it failed with
+     *                     a server error, or 0 if it says nothing (the client
+     *                     went away).
+     */
+    public synchronized void release(long latencyNanos) {
+        int used = inFlight;
+        inFlight--;
+        if (latencyNanos != 0) {
+            gradient.update(latencyNanos, used, nanoClock.getAsLong());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The current limit on the requests handled at once.
+     */
+    public synchronized int getLimit() {
+        return gradient.getLimit();
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return The recent latency of the requests, in nanoseconds (0 until one
+     *         completes).
+     */
+    public synchronized long getRecentLatencyNanos() {
+        return (long) gradient.getRecentNanos();
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return The number of times the limit was lowered.
+     */
+    public synchronized long getDecreases() {
+        return gradient.getDecreases();
+    }
+
+    /**
+     * @return The counts and the live limit, as reported by GET /admission.
+     */
+    public synchronized AdmissionStats getStats() {
+        return new AdmissionStats(name, gradient.getLimit(), inFlight, accepted.get(), rejected.get(),
+                gradient.getDecreases(), gradient.getRecentNanos() / 1e6, gradient.getBaselineNanos() / 1e6);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: limit %d, %d in flight, %d accepted, %d rejected, latency %.1f ms"
+                + " (baseline %.1f ms)", name, gradient.getLimit(), inFlight, accepted.get(), rejected.get(),
+                gradient.getRecentNanos() / 1e6, gradient.getBaselineNanos() / 1e6);
+    }
+}
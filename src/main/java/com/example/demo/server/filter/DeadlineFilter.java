@@ -0,0 +1,89 @@
+package com.example.demo.server.filter;
+
+import com.example.demo.server.model.DeadlineStats;
+import com.example.demo.server.utils.Deadlines;
+import com.example.demo.server.utils.Deadlines.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Web filter that turns the deadline sent by the client (the milliseconds it
+ * still waits, in the Deadlines.DEADLINE_HEADER header) into a deadline in
+ * the Reactor context of the request, which PetService and OwnerService bound
+ * their work with (see Deadlines).
+ *
+ * Deadlines are capped at `deadline.max`, which is also the statement timeout
+ * of the R2DBC connections, so no statement outlives the longest deadline.
+ * A request whose deadline has already passed gets a 504 without any work.
+ *
+ * Counts what becomes of the requests with a deadline: completed, expired
+ * (cancelled at the deadline), cancelled (the client went away first, e.g.
+ * after its own timeout, and the connection closed) or failed otherwise;
+ * served by GET /deadline.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1) // Right after the admission control
+public class DeadlineFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineFilter.class);
+
+    private final long maxDeadlineMillis;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public DeadlineFilter(@Value("${deadline.max:60s}") Duration maxDeadline) {
+        this.maxDeadlineMillis = maxDeadline.toMillis();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(Deadlines.DEADLINE_HEADER);
+        if (header == null) {
+            return chain.filter(exchange);
+        }
+        long millis;
+        try {
+            millis = Math.min(Long.parseLong(header.trim()), maxDeadlineMillis);
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring malformed " + Deadlines.DEADLINE_HEADER + ": " + header);
+            return chain.filter(exchange);
+        }
+
+        requests.incrementAndGet();
+        if (millis <= 0) {
+            expired.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+            return exchange.getResponse().setComplete();
+        }
+
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        return chain.filter(exchange)
+                .doOnSuccess(done -> completed.incrementAndGet())
+                .doOnError(e -> (e instanceof DeadlineExceededException ? expired : failed).incrementAndGet())
+                .doOnCancel(cancelled::incrementAndGet)
+                .contextWrite(context -> context.put(Deadlines.CONTEXT_KEY, deadline));
+    }
+
+    /**
+     * @return What became of the requests with a deadline.
+     */
+    public DeadlineStats getStats() {
+        return new DeadlineStats(requests.get(), completed.get(), expired.get(), cancelled.get(), failed.get());
+    }
+}
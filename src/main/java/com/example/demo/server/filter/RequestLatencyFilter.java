@@ -0,0 +1,68 @@
+package com.example.demo.server.filter;
+
+import com.example.demo.server.service.WarmupService;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Web filter that reports the latency of the first requests served after
+ * startup, to compare starts with and without warm-up.
+ *
+ * Warm-up requests (with the X-Warmup header) and readiness probes are not
+ * counted. The first
+ * request is logged on its own; once `latency.first-requests` requests have
+ * completed, their average and maximum latency are logged.
+ */
+@Component
+public class RequestLatencyFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestLatencyFilter.class);
+
+    private final int firstRequests;
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public RequestLatencyFilter(@Value("${latency.first-requests:1000}") int firstRequests) {
+        this.firstRequests = firstRequests;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (exchange.getRequest().getHeaders().containsKey(WarmupService.WARMUP_HEADER)
+                || "/ready".equals(exchange.getRequest().getPath().value())
+                || started.get() >= firstRequests || started.getAndIncrement() >= firstRequests) {
+            return chain.filter(exchange);
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> record(exchange, System.nanoTime() - start));
+    }
+
+    private void record(ServerWebExchange exchange, long nanos) {
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulate(nanos);
+        long count = completed.incrementAndGet();
+
+        if (count == 1) {
+            logger.info("First request (" + exchange.getRequest().getMethod() + " "
+                    + exchange.getRequest().getPath() + ") took " + nanos / 1_000 + " us");
+        }
+        if (count == firstRequests) {
+            logger.info("First " + count + " requests: average " + totalNanos.get() / count / 1_000 + " us, max "
+                    + maxNanos.get() / 1_000 + " us");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.demo.server.generator;
+
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Deterministic generator of synthetic owners and pets.
+ *
+ * Every entity is derived only from the seed and its own identifier, so the
+ * same spec always yields the same dataset, any entity can be generated on its
+ * own (e.g. `pet(1234)`), and ranges of identifiers can be generated in
+ * parallel without changing the result.
+ *
+ * Identifiers start at 1. Pet owner ids always refer to a generated owner.
+ */
+public class DatasetGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Ana", "Bruno", "Carla", "Diogo", "Eva", "Filipe", "Gabriela", "Hugo", "Inês", "João",
+            "Leonor", "Miguel", "Nuno", "Olga", "Pedro", "Rita", "Sofia", "Tiago", "Vasco", "Zara" };
+
+    private static final String[] LAST_NAMES = {
+            "Almeida", "Barros", "Costa", "Dias", "Esteves", "Ferreira", "Gomes", "Henriques", "Lopes",
+            "Martins", "Nunes", "Oliveira", "Pereira", "Ribeiro", "Santos", "Teixeira", "Vieira" };
+
+    private static final String[] PET_NAMES = {
+            "Alberto", "Bolinhas", "Max", "Luna", "Bobi", "Nala", "Tareco", "Kiko", "Mel", "Simba",
+            "Pantufa", "Rex", "Pipoca", "Faísca", "Nina", "Oscar", "Piloto", "Riscas", "Tobias", "Xana" };
+
+    // Distinct streams so that owners and pets with the same id are unrelated
+    private static final long OWNER_STREAM = 0x6F776E6572L;
+    private static final long PET_STREAM = 0x706574L;
+
+    private final DatasetSpec spec;
+    private final String[] species;
+    private final double[] speciesCumulative;
+    private final long birthEpochDayFrom;
+    private final long birthDays;
+    private final double lognormalMu;
+    private final double lognormalSigma;
+
+    public DatasetGenerator(DatasetSpec spec) {
+        if (spec.getOwners() <= 0 || spec.getPets() < 0) {
+            throw new IllegalArgumentException("A dataset needs at least one owner and a non-negative number of pets");
+        }
+        if (spec.getSpeciesMix().isEmpty()) {
+            throw new IllegalArgumentException("The species mix cannot be empty");
+        }
+
+        this.spec = spec;
+
+        // Cumulative distribution of the species mix
+        this.species = new String[spec.getSpeciesMix().size()];
+        this.speciesCumulative = new double[species.length];
+        double total = spec.getSpeciesMix().values().stream().mapToDouble(Double::doubleValue).sum();
+        double cumulative = 0;
+        int i = 0;
+        for (Map.Entry<String, Double> entry : spec.getSpeciesMix().entrySet()) {
+            cumulative += entry.getValue() / total;
+            species[i] = entry.getKey();
+            speciesCumulative[i] = cumulative;
+            i++;
+        }
+        speciesCumulative[species.length - 1] = 1.0;
+
+        this.birthEpochDayFrom = spec.getBirthDateFrom().toEpochDay();
+        this.birthDays = spec.getBirthDateTo().toEpochDay() - birthEpochDayFrom + 1;
+
+        // Lognormal parameters that give the requested mean and standard deviation
+        double variance = spec.getWeightStdDev() * spec.getWeightStdDev();
+        double mean = spec.getWeightMean();
+        this.lognormalSigma = Math.sqrt(Math.log(1 + variance / (mean * mean)));
+        this.lognormalMu = Math.log(mean) - lognormalSigma * lognormalSigma / 2;
+    }
+
+    public DatasetSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return A Flux with all the owners, ordered by identifier.
+     */
+    public Flux<Owner> owners() {
+        return owners(1, spec.getOwners() + 1);
+    }
+
+    /**
+     * @param fromId First identifier (inclusive).
+     * @param toId   Last identifier (exclusive).
+     * @return A Flux with the owners in the given identifier range.
+     */
+    public Flux<Owner> owners(long fromId, long toId) {
+        return Flux.<Owner, Long>generate(() -> fromId, (id, sink) -> {
+            if (id < toId) {
+                sink.next(owner(id));
+            } else {
+                sink.complete();
+            }
+            return id + 1;
+        });
+    }
+
+    /**
+     * @return A Flux with all the pets, ordered by identifier.
+     */
+    public Flux<Pet> pets() {
+        return pets(1, spec.getPets() + 1);
+    }
+
+    /**
+     * @param fromId First identifier (inclusive).
+     * @param toId   Last identifier (exclusive).
+     * @return A Flux with the pets in the given identifier range.
+     */
+    public Flux<Pet> pets(long fromId, long toId) {
+        return Flux.<Pet, Long>generate(() -> fromId, (id, sink) -> {
+            if (id < toId) {
+                sink.next(pet(id));
+            } else {
+                sink.complete();
+            }
+            return id + 1;
+        });
+    }
+
+    /**
+     * Generate a single owner.
+     *
+     * @param id The identifier of the owner.
+     * @return The owner with the given identifier.
+     */
+    public Owner owner(long id) {
+        SplittableRandom random = random(OWNER_STREAM, id);
+
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String phoneNumber = "9" + (10_000_000 + random.nextInt(90_000_000));
+
+        return new Owner(id, name, phoneNumber);
+    }
+
+    /**
+     * Generate a single pet.
+     *
+     * @param id The identifier of the pet.
+     * @return The pet with the given identifier.
+     */
+    public Pet pet(long id) {
+        SplittableRandom random = random(PET_STREAM, id);
+
+        String name = PET_NAMES[random.nextInt(PET_NAMES.length)];
+        String petSpecies = species[speciesIndex(random.nextDouble())];
+        LocalDate birthDate = LocalDate.ofEpochDay(birthEpochDayFrom + random.nextLong(birthDays));
+        double weight = weight(random);
+
+        // Power-law owner choice: u^skew pushes the samples towards the first owners
+        long ownerIndex = (long) (spec.getOwners() * Math.pow(random.nextDouble(), spec.getOwnerSkew()));
+        long ownerId = 1 + Math.min(ownerIndex, spec.getOwners() - 1);
+
+        return new Pet(id, name, petSpecies, birthDate, weight, ownerId);
+    }
+
+    private int speciesIndex(double u) {
+        for (int i = 0; i < speciesCumulative.length; i++) {
+            if (u < speciesCumulative[i]) {
+                return i;
+            }
+        }
+        return speciesCumulative.length - 1;
+    }
+
+    private double weight(SplittableRandom random) {
+        double weight;
+        switch (spec.getWeightDistribution()) {
+            case NORMAL:
+                weight = spec.getWeightMean() + spec.getWeightStdDev() * random.nextGaussian();
+                break;
+            case UNIFORM:
+                // A uniform distribution with this half-width has the requested standard deviation
+                double halfWidth = spec.getWeightStdDev() * Math.sqrt(3);
+                weight = spec.getWeightMean() + (2 * random.nextDouble() - 1) * halfWidth;
+                break;
+            case LOGNORMAL:
+            default:
+                weight = Math.exp(lognormalMu + lognormalSigma * random.nextGaussian());
+                break;
+        }
+
+        // Two decimal places, and no weightless pets
+        return Math.max(0.1, Math.round(weight * 100) / 100.0);
+    }
+
+    private SplittableRandom random(long stream, long id) {
+        return new SplittableRandom(mix(spec.getSeed() ^ mix(stream + id)));
+    }
+
+    /**
+     * SplitMix64 finalizer, so that consecutive ids give unrelated seeds.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.server.generator;
+
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.BulkInsertRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Writes generated datasets to the database or to CSV files.
+ *
+ * Identifier ranges are generated in parallel and inserted with multi-row
+ * batches, so loading millions of pets only keeps a few batches in memory.
+ * The CSV files use the format expected by the CSV import endpoints.
+ */
+public class DatasetLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetLoader.class);
+
+    private static final int CSV_PREFETCH = 1024;
+
+    private final BulkInsertRepository bulkInsertRepository;
+    private final int batchSize;
+    private final int concurrency;
+
+    public DatasetLoader(BulkInsertRepository bulkInsertRepository, int batchSize, int concurrency) {
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Insert all the owners and then all the pets of a dataset.
+     *
+     * @param generator The generator of the dataset.
+     * @return A reactive stream (Mono) with the total number of inserted rows.
+     */
+    public Mono<Long> load(DatasetGenerator generator) {
+        DatasetSpec spec = generator.getSpec();
+        long start = System.nanoTime();
+
+        // Owners first, so that pets never reference a missing owner
+        Mono<Long> owners = insertInBatches(spec.getOwners(),
+                (from, to) -> generator.owners(from, to).collectList().flatMap(bulkInsertRepository::insertOwners))
+                .flatMap(rows -> bulkInsertRepository.resetOwnerSequence().thenReturn(rows));
+
+        Mono<Long> pets = insertInBatches(spec.getPets(),
+                (from, to) -> generator.pets(from, to).collectList().flatMap(bulkInsertRepository::insertPets))
+                .flatMap(rows -> bulkInsertRepository.resetPetSequence().thenReturn(rows));
+
+        // Only subscribed to once the owners and their sequence are done
+        return owners.flatMap(ownerRows -> pets.map(petRows -> ownerRows + petRows))
+                .doOnNext(rows -> {
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    logger.info("Loaded " + spec.getOwners() + " owners and " + spec.getPets() + " pets in "
+                            + String.format("%.1f", seconds) + " s ("
+                            + String.format("%.0f", rows / seconds) + " rows/s)");
+                });
+    }
+
+    /**
+     * Split identifiers 1..count into batches that are generated on parallel
+     * workers and inserted with bounded concurrency.
+     */
+    private Mono<Long> insertInBatches(long count, BatchInserter inserter) {
+        long batches = (count + batchSize - 1) / batchSize;
+
+        return Flux.range(0, (int) batches)
+                .flatMap(batch -> {
+                    long from = 1 + (long) batch * batchSize;
+                    long to = Math.min(count + 1, from + batchSize);
+                    return Mono.defer(() -> inserter.insert(from, to)).subscribeOn(Schedulers.parallel());
+                }, concurrency)
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Write a dataset as owners.csv and pets.csv in the given directory.
+     *
+     * @param generator The generator of the dataset.
+     * @param directory The output directory, created if needed.
+     * @throws IOException If the files cannot be written.
+     */
+    public static void writeCsv(DatasetGenerator generator, Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("owners.csv"), StandardCharsets.UTF_8)) {
+            writer.write("identifier,name,phone_number\n");
+            for (Owner owner : generator.owners().toIterable(CSV_PREFETCH)) {
+                writer.write(owner.getIdentifier() + "," + owner.getName() + "," + owner.getPhone_number() + "\n");
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("pets.csv"), StandardCharsets.UTF_8)) {
+            writer.write("identifier,name,species,birth_date,weight,ownerid\n");
+            for (Pet pet : generator.pets().toIterable(CSV_PREFETCH)) {
+                writer.write(pet.getIdentifier() + "," + pet.getName() + "," + pet.getSpecies() + ","
+                        + pet.getBirth_date() + "," + pet.getWeight() + "," + pet.getOwnerid() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Generates and inserts the entities of an identifier range.
+     */
+    @FunctionalInterface
+    private interface BatchInserter {
+        Mono<Long> insert(long fromId, long toId);
+    }
+}
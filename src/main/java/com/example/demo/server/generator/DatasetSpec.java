@@ -0,0 +1,80 @@
+package com.example.demo.server.generator;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * Describes a synthetic dataset of owners and pets.
+ *
+ * A DatasetSpec is characterized by:
+ * - A seed, so that the same spec always produces the same dataset.
+ * - The number of owners and pets.
+ * - The owner skew, which controls the pets-per-owner distribution: 1.0 spreads
+ * pets uniformly, larger values concentrate them on the first owners (a
+ * power-law where a few owners have many pets and most have few).
+ * - The species mix, as relative weights per species.
+ * - The weight distribution of the pets, with its mean and standard deviation.
+ * - The range of birth dates.
+ */
+@Data
+public class DatasetSpec {
+
+    /**
+     * Shape of the pet weight distribution.
+     */
+    public enum WeightDistribution {
+        NORMAL, LOGNORMAL, UNIFORM
+    }
+
+    private long seed = 42;
+    private long owners = 1_000;
+    private long pets = 10_000;
+    private double ownerSkew = 1.0;
+    private Map<String, Double> speciesMix = defaultSpeciesMix();
+    private WeightDistribution weightDistribution = WeightDistribution.LOGNORMAL;
+    private double weightMean = 12.0;
+    private double weightStdDev = 8.0;
+    private LocalDate birthDateFrom = LocalDate.of(2005, 1, 1);
+    private LocalDate birthDateTo = LocalDate.of(2023, 12, 31);
+
+    // Constructors
+    public DatasetSpec() {
+    }
+
+    public DatasetSpec(long seed, long owners, long pets) {
+        this.seed = seed;
+        this.owners = owners;
+        this.pets = pets;
+    }
+
+    /**
+     * Parse a species mix written as "dog:0.4,cat:0.35,bird:0.25".
+     *
+     * @param text The species mix.
+     * @return The relative weight of each species, in the given order.
+     */
+    public static Map<String, Double> parseSpeciesMix(String text) {
+        Map<String, Double> mix = new LinkedHashMap<>();
+        for (String entry : text.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid species mix entry: '" + entry + "'");
+            }
+            mix.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    private static Map<String, Double> defaultSpeciesMix() {
+        Map<String, Double> mix = new LinkedHashMap<>();
+        mix.put("dog", 0.40);
+        mix.put("cat", 0.35);
+        mix.put("bird", 0.10);
+        mix.put("fish", 0.10);
+        mix.put("capybara", 0.05);
+        return mix;
+    }
+}
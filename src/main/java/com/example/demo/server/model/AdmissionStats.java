@@ -0,0 +1,41 @@
+package com.example.demo.server.model;
+
+import lombok.Data;
+
+/**
+ * Admission statistics of one class of requests.
+ *
+ * An AdmissionStats is characterized by:
+ * - The name of the class (point, scan, delay).
+ * - The live concurrency limit and the requests in flight.
+ * - The numbers of requests accepted and rejected, and of limit decreases.
+ * - The recent and baseline latencies, in milliseconds.
+ */
+@Data
+public class AdmissionStats {
+
+    private String routeClass;
+    private int limit;
+    private int inFlight;
+    private long accepted;
+    private long rejected;
+    private long decreases;
+    private double recentLatencyMs;
+    private double baselineLatencyMs;
+
+    // Constructors
+    public AdmissionStats() {
+    }
+
+    public AdmissionStats(String routeClass, int limit, int inFlight, long accepted, long rejected, long decreases,
+            double recentLatencyMs, double baselineLatencyMs) {
+        this.routeClass = routeClass;
+        this.limit = limit;
+        this.inFlight = inFlight;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.decreases = decreases;
+        this.recentLatencyMs = recentLatencyMs;
+        this.baselineLatencyMs = baselineLatencyMs;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.server.model;
+
+import lombok.Data;
+
+/**
+ * What became of the requests that came with a deadline.
+ *
+ * A DeadlineStats is characterized by:
+ * - The number of requests with a deadline.
+ * - How many completed, expired (their work was cancelled at the deadline),
+ * were cancelled (the client went away first) or failed otherwise.
+ */
+@Data
+public class DeadlineStats {
+
+    private long requests;
+    private long completed;
+    private long expired;
+    private long cancelled;
+    private long failed;
+
+    // Constructors
+    public DeadlineStats() {
+    }
+
+    public DeadlineStats(long requests, long completed, long expired, long cancelled, long failed) {
+        this.requests = requests;
+        this.completed = completed;
+        this.expired = expired;
+        this.cancelled = cancelled;
+        this.failed = failed;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.server.model;
+
+import lombok.Data;
+
+/**
+ * Summary of a CSV import.
+ *
+ * An ImportReport is characterized by:
+ * - The entity that was imported (owner or pet).
+ * - The file that was read and its size in bytes.
+ * - The number of segments the file was split into for parallel parsing.
+ * - The number of rows inserted and the time it took, in milliseconds.
+ * - The resulting throughput, in rows per second.
+ */
+@Data
+public class ImportReport {
+
+    private String entity;
+    private String file;
+    private long bytes;
+    private int segments;
+    private long rows;
+    private long millis;
+    private double rowsPerSecond;
+
+    // Constructors
+    public ImportReport() {
+    }
+
+    public ImportReport(String entity, String file, long bytes, int segments, long rows, long millis) {
+        this.entity = entity;
+        this.file = file;
+        this.bytes = bytes;
+        this.segments = segments;
+        this.rows = rows;
+        this.millis = millis;
+        this.rowsPerSecond = millis == 0 ? rows * 1000.0 : rows * 1000.0 / millis;
+    }
+}
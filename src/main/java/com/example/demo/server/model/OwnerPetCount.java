@@ -0,0 +1,26 @@
+package com.example.demo.server.model;
+
+import lombok.Data;
+
+/**
+ * Number of pets of an owner.
+ *
+ * An OwnerPetCount is characterized by:
+ * - The identifier of the owner.
+ * - The number of pets with that owner identifier.
+ */
+@Data
+public class OwnerPetCount {
+
+    private Long ownerid;
+    private long pets;
+
+    // Constructors
+    public OwnerPetCount() {
+    }
+
+    public OwnerPetCount(Long ownerid, long pets) {
+        this.ownerid = ownerid;
+        this.pets = pets;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.server.model;
+
+import lombok.Data;
+
+/**
+ * Statistics of the pet weights.
+ *
+ * A WeightStatistics is characterized by:
+ * - The number of pets.
+ * - The average weight and its (population) standard deviation.
+ * - The lightest and heaviest weights.
+ */
+@Data
+public class WeightStatistics {
+
+    private long count;
+    private double average;
+    private double standardDeviation;
+    private double min;
+    private double max;
+
+    // Constructors
+    public WeightStatistics() {
+    }
+
+    public WeightStatistics(long count, double average, double standardDeviation, double min, double max) {
+        this.count = count;
+        this.average = average;
+        this.standardDeviation = standardDeviation;
+        this.min = min;
+        this.max = max;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.server.repository;
+
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+
+import java.util.List;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Repository interface for inserting large numbers of Owner and Pet rows.
+ *
+ * Used by the CSV import and the dataset generator. Rows keep the identifiers
+ * they are given, which is what reference datasets need to preserve the
+ * relationship between pets and owners.
+ */
+public interface BulkInsertRepository {
+
+    /**
+     * Insert a batch of owners.
+     *
+     * @param owners The owners to insert, with their identifiers set.
+     * @return A reactive stream (Mono) with the number of inserted rows.
+     */
+    Mono<Long> insertOwners(List<Owner> owners);
+
+    /**
+     * Insert a batch of pets.
+     *
+     * @param pets The pets to insert, with their identifiers set.
+     * @return A reactive stream (Mono) with the number of inserted rows.
+     */
+    Mono<Long> insertPets(List<Pet> pets);
+
+    /**
+     * Make sure owners created afterwards get identifiers above the inserted
+     * ones.
+     *
+     * @return A reactive stream (Mono) indicating completion.
+     */
+    Mono<Void> resetOwnerSequence();
+
+    /**
+     * Make sure pets created afterwards get identifiers above the inserted ones.
+     *
+     * @return A reactive stream (Mono) indicating completion.
+     */
+    Mono<Void> resetPetSequence();
+}
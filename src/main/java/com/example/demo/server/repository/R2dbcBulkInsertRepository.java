@@ -0,0 +1,150 @@
+package com.example.demo.server.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC implementation of BulkInsertRepository, used unless the "inmemory"
+ * profile is active.
+ *
+ * ReactiveCrudRepository.saveAll issues one INSERT per entity; this repository
+ * binds a whole batch of rows to a single statement so that each batch costs
+ * one round trip. Rows keep the identifiers they are given, which is what
+ * reference datasets need to preserve the relationship between pets and
+ * owners.
+ */
+@Repository
+@Profile("!inmemory")
+public class R2dbcBulkInsertRepository implements BulkInsertRepository {
+
+    private static final String INSERT_OWNER = "INSERT INTO owner (identifier, name, phone_number) VALUES ($1, $2, $3)";
+
+    private static final String INSERT_PET = "INSERT INTO pet (identifier, name, species, birth_date, weight, ownerid) "
+            + "VALUES ($1, $2, $3, $4, $5, $6)";
+
+    private static final String RESET_OWNER_SEQUENCE = "SELECT setval(pg_get_serial_sequence('owner', 'identifier'), "
+            + "COALESCE(MAX(identifier), 1)) FROM owner";
+
+    private static final String RESET_PET_SEQUENCE = "SELECT setval(pg_get_serial_sequence('pet', 'identifier'), "
+            + "COALESCE(MAX(identifier), 1)) FROM pet";
+
+    private final ConnectionFactory connectionFactory;
+
+    public R2dbcBulkInsertRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Insert a batch of owners using a single statement.
+     *
+     * @param owners The owners to insert, with their identifiers set.
+     * @return A reactive stream (Mono) with the number of inserted rows.
+     */
+    @Override
+    public Mono<Long> insertOwners(List<Owner> owners) {
+        if (owners.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        return execute(INSERT_OWNER, statement -> {
+            for (int i = 0; i < owners.size(); i++) {
+                Owner owner = owners.get(i);
+                if (i > 0) {
+                    statement.add();
+                }
+                bind(statement, 0, owner.getIdentifier(), Long.class);
+                bind(statement, 1, owner.getName(), String.class);
+                bind(statement, 2, owner.getPhone_number(), String.class);
+            }
+        });
+    }
+
+    /**
+     * Insert a batch of pets using a single statement.
+     *
+     * @param pets The pets to insert, with their identifiers set.
+     * @return A reactive stream (Mono) with the number of inserted rows.
+     */
+    @Override
+    public Mono<Long> insertPets(List<Pet> pets) {
+        if (pets.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        return execute(INSERT_PET, statement -> {
+            for (int i = 0; i < pets.size(); i++) {
+                Pet pet = pets.get(i);
+                if (i > 0) {
+                    statement.add();
+                }
+                bind(statement, 0, pet.getIdentifier(), Long.class);
+                bind(statement, 1, pet.getName(), String.class);
+                bind(statement, 2, pet.getSpecies(), String.class);
+                bind(statement, 3, pet.getBirth_date(), LocalDate.class);
+                bind(statement, 4, pet.getWeight(), Double.class);
+                bind(statement, 5, pet.getOwnerid(), Long.class);
+            }
+        });
+    }
+
+    /**
+     * Move the owner identifier sequence past the highest stored identifier, so
+     * that owners created afterwards do not collide with imported ones.
+     *
+     * @return A reactive stream (Mono) indicating completion.
+     */
+    @Override
+    public Mono<Void> resetOwnerSequence() {
+        return execute(RESET_OWNER_SEQUENCE, statement -> {
+        }).then();
+    }
+
+    /**
+     * Move the pet identifier sequence past the highest stored identifier.
+     *
+     * @return A reactive stream (Mono) indicating completion.
+     */
+    @Override
+    public Mono<Void> resetPetSequence() {
+        return execute(RESET_PET_SEQUENCE, statement -> {
+        }).then();
+    }
+
+    /**
+     * Run a statement on a connection of the pool and sum the updated rows.
+     */
+    private Mono<Long> execute(String sql, Consumer<Statement> binder) {
+        return Mono.usingWhen(
+                connectionFactory.create(),
+                connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    binder.accept(statement);
+                    return Flux.from(statement.execute())
+                            .flatMap(Result::getRowsUpdated)
+                            .reduce(0L, Long::sum);
+                },
+                Connection::close);
+    }
+
+    private static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+}
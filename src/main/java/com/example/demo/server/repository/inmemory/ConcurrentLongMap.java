@@ -0,0 +1,323 @@
+package com.example.demo.server.repository.inmemory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Concurrent map from primitive long keys to values.
+ *
+ * Keys are spread over a fixed number of stripes. Each stripe is an
+ * open-addressing hash table (linear probing, no boxed keys, no entry objects)
+ * guarded by its own StampedLock: writers to different stripes never contend,
+ * and readers use optimistic reads that only fall back to a read lock when a
+ * writer got in the way.
+ *
+ * Null values are not allowed; a null value means "absent".
+ */
+public class ConcurrentLongMap<V> {
+
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe<V>[] stripes;
+    private final int stripeMask;
+
+    public ConcurrentLongMap() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes Number of stripes, rounded up to a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongMap(int stripes) {
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe<>();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /**
+     * @param key The key to look up.
+     * @return The value for the key, or null if absent.
+     */
+    public V get(long key) {
+        long hash = hash(key);
+        return stripeFor(hash).get(key, hash);
+    }
+
+    /**
+     * @return true if the key is present.
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associate a value with a key.
+     *
+     * @return The previous value, or null if absent.
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        long hash = hash(key);
+        return stripeFor(hash).update(key, hash, previous -> value);
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @return The removed value, or null if absent.
+     */
+    public V remove(long key) {
+        long hash = hash(key);
+        return stripeFor(hash).update(key, hash, previous -> null);
+    }
+
+    /**
+     * Atomically replace the value of a key. The function receives the current
+     * value (or null) and returns the new one (or null to remove the key). It
+     * runs while the key's stripe is locked, so it must be short and must not
+     * access this map.
+     *
+     * @return The previous value, or null if absent.
+     */
+    public V update(long key, UnaryOperator<V> remapping) {
+        long hash = hash(key);
+        return stripeFor(hash).update(key, hash, remapping);
+    }
+
+    /**
+     * @return The number of keys (not an atomic snapshot under concurrent writes).
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Calls the action for each value. Each stripe is visited under its read
+     * lock, so the action must not write to this map.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        for (Stripe<V> stripe : stripes) {
+            stripe.forEachValue(action);
+        }
+    }
+
+    /**
+     * @return A copy of the values.
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        forEachValue(values::add);
+        return values;
+    }
+
+    /**
+     * Remove every key.
+     */
+    public void clear() {
+        for (Stripe<V> stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private Stripe<V> stripeFor(long hash) {
+        // High bits pick the stripe, low bits pick the slot inside it
+        return stripes[(int) (hash >>> 40) & stripeMask];
+    }
+
+    /**
+     * SplitMix64 finalizer: sequential ids end up spread over stripes and slots.
+     */
+    private static long hash(long key) {
+        long z = key;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The arrays of a stripe, replaced as a whole on resize so that optimistic
+     * readers always see arrays of the same length.
+     */
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+
+    private static final class Stripe<V> {
+
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(INITIAL_STRIPE_CAPACITY);
+        private int size;
+
+        V get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                V value = find(table, key, hash);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+
+            // A writer got in the way, read again under the lock
+            stamp = lock.readLock();
+            try {
+                return find(table, key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> V find(Table table, long key, long hash) {
+            long[] keys = table.keys;
+            Object[] values = table.values;
+            int mask = keys.length - 1;
+
+            // Bounded by the capacity in case an optimistic read races with a writer
+            for (int i = (int) hash & mask, probes = 0; probes < keys.length; i = (i + 1) & mask, probes++) {
+                Object value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return (V) value;
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        V update(long key, long hash, UnaryOperator<V> remapping) {
+            long stamp = lock.writeLock();
+            try {
+                long[] keys = table.keys;
+                Object[] values = table.values;
+                int mask = keys.length - 1;
+
+                int i = (int) hash & mask;
+                while (values[i] != null && keys[i] != key) {
+                    i = (i + 1) & mask;
+                }
+
+                V previous = (V) values[i];
+                V next = remapping.apply(previous);
+
+                if (next != null) {
+                    keys[i] = key;
+                    values[i] = next;
+                    if (previous == null && ++size * 4 > keys.length * 3) {
+                        resize(keys.length * 2);
+                    }
+                } else if (previous != null) {
+                    deleteSlot(i);
+                    size--;
+                }
+
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Backward-shift deletion: moves later entries of the probe chain into the
+         * hole so that lookups never stop early.
+         */
+        private void deleteSlot(int hole) {
+            long[] keys = table.keys;
+            Object[] values = table.values;
+            int mask = keys.length - 1;
+
+            int i = hole;
+            while (true) {
+                i = (i + 1) & mask;
+                if (values[i] == null) {
+                    break;
+                }
+
+                int home = (int) hash(keys[i]) & mask;
+                // Move the entry if its home slot is not in (hole, i]
+                boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+                if (movable) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+
+            values[hole] = null;
+            keys[hole] = 0;
+        }
+
+        private void resize(int capacity) {
+            Table old = table;
+            Table grown = new Table(capacity);
+            int mask = capacity - 1;
+
+            for (int i = 0; i < old.keys.length; i++) {
+                if (old.values[i] != null) {
+                    int j = (int) hash(old.keys[i]) & mask;
+                    while (grown.values[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+                    grown.keys[j] = old.keys[i];
+                    grown.values[j] = old.values[i];
+                }
+            }
+
+            table = grown;
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEachValue(Consumer<? super V> action) {
+            long stamp = lock.readLock();
+            try {
+                for (Object value : table.values) {
+                    if (value != null) {
+                        action.accept((V) value);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                table = new Table(INITIAL_STRIPE_CAPACITY);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
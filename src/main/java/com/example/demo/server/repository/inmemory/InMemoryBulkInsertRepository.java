@@ -0,0 +1,51 @@
+package com.example.demo.server.repository.inmemory;
+
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.BulkInsertRepository;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory implementation of BulkInsertRepository, active with the "inmemory"
+ * Spring profile, so that the CSV import and the dataset generator fill the
+ * in-memory repositories.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryBulkInsertRepository implements BulkInsertRepository {
+
+    private final InMemoryOwnerRepository ownerRepository;
+    private final InMemoryPetRepository petRepository;
+
+    public InMemoryBulkInsertRepository(InMemoryOwnerRepository ownerRepository,
+            InMemoryPetRepository petRepository) {
+        this.ownerRepository = ownerRepository;
+        this.petRepository = petRepository;
+    }
+
+    @Override
+    public Mono<Long> insertOwners(List<Owner> owners) {
+        return Mono.fromSupplier(() -> ownerRepository.storeAll(owners));
+    }
+
+    @Override
+    public Mono<Long> insertPets(List<Pet> pets) {
+        return Mono.fromSupplier(() -> petRepository.storeAll(pets));
+    }
+
+    @Override
+    public Mono<Void> resetOwnerSequence() {
+        // The in-memory sequence already follows the highest stored identifier
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> resetPetSequence() {
+        return Mono.empty();
+    }
+}
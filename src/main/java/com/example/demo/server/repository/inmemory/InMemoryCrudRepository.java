@@ -0,0 +1,208 @@
+package com.example.demo.server.repository.inmemory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Base class for the in-memory implementations of the repositories.
+ *
+ * Entities are stored in a ConcurrentLongMap keyed by identifier. Like a
+ * database, the repository stores and hands out copies, so callers that
+ * modify an entity they read (as the services do before saving) never change
+ * the stored state behind the repository's back.
+ *
+ * Differences from the R2DBC repositories:
+ * - Saving an entity with an identifier that does not exist inserts it instead
+ * of failing, which is what bulk loading needs.
+ * - findAll returns the entities in no particular order.
+ *
+ * @param <T> The entity type.
+ */
+public abstract class InMemoryCrudRepository<T> implements ReactiveCrudRepository<T, Long> {
+
+    protected final ConcurrentLongMap<T> entities = new ConcurrentLongMap<>();
+
+    // Last identifier handed out or stored, so generated ids never collide
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @return The identifier of the entity, or null if it has none.
+     */
+    protected abstract Long idOf(T entity);
+
+    /**
+     * Set the identifier of the entity.
+     */
+    protected abstract void assignId(T entity, Long id);
+
+    /**
+     * @return A copy of the entity.
+     */
+    protected abstract T copy(T entity);
+
+    /**
+     * Hook called while the entity's key is locked, whenever an entity is
+     * inserted, replaced or removed. Either argument may be null.
+     *
+     * @param previous The stored entity before the change.
+     * @param current  The stored entity after the change.
+     */
+    protected void onChange(T previous, T current) {
+    }
+
+    /**
+     * Store an entity, assigning a new identifier if it has none.
+     *
+     * @return The stored entity (the argument, with its identifier set).
+     */
+    protected <S extends T> S store(S entity) {
+        Long id = idOf(entity);
+        if (id == null) {
+            id = sequence.incrementAndGet();
+            assignId(entity, id);
+        } else {
+            long explicitId = id;
+            sequence.accumulateAndGet(explicitId, Math::max);
+        }
+
+        T stored = copy(entity);
+        entities.update(id, previous -> {
+            onChange(previous, stored);
+            return stored;
+        });
+
+        return entity;
+    }
+
+    /**
+     * Store a batch of entities.
+     *
+     * @return The number of stored entities.
+     */
+    public long storeAll(List<? extends T> batch) {
+        for (T entity : batch) {
+            store(entity);
+        }
+        return batch.size();
+    }
+
+    private boolean remove(Long id) {
+        if (id == null) {
+            return false;
+        }
+
+        T removed = entities.update(id, previous -> {
+            if (previous != null) {
+                onChange(previous, null);
+            }
+            return null;
+        });
+        return removed != null;
+    }
+
+    private T load(Long id) {
+        T entity = id == null ? null : entities.get(id);
+        return entity == null ? null : copy(entity);
+    }
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return Mono.fromSupplier(() -> store(entity));
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).map(this::store);
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).map(this::store);
+    }
+
+    @Override
+    public Mono<T> findById(Long id) {
+        return Mono.fromSupplier(() -> load(id));
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        return Mono.fromSupplier(() -> entities.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return Flux.defer(() -> Flux.fromIterable(entities.values())).map(this::copy);
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<Long> ids) {
+        return Flux.fromIterable(ids).mapNotNull(this::load);
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<Long> idStream) {
+        return Flux.from(idStream).mapNotNull(this::load);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) entities.size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return Mono.fromRunnable(() -> remove(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        return deleteById(idOf(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+        return Mono.fromRunnable(() -> ids.forEach(this::remove));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        return Mono.fromRunnable(() -> entities.forEach(entity -> remove(idOf(entity))));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entityStream) {
+        return Flux.from(entityStream).doOnNext(entity -> remove(idOf(entity))).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(() -> {
+            // Removing key by key keeps the hooks (and secondary indexes) consistent
+            for (T entity : entities.values()) {
+                remove(idOf(entity));
+            }
+        });
+    }
+}
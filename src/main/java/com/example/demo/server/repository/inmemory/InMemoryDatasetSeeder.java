@@ -0,0 +1,73 @@
+package com.example.demo.server.repository.inmemory;
+
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetLoader;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.repository.BulkInsertRepository;
+import com.example.demo.server.repository.PetRepository;
+import com.example.demo.server.service.PetsChangedEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the in-memory repositories with a generated dataset on startup, so a
+ * server running with the "inmemory" profile can be used without a database.
+ *
+ * Seeding is skipped when inmemory.seed.pets and inmemory.seed.owners are 0,
+ * or when the repositories were already restored from a snapshot file.
+ */
+@Component
+@Profile("inmemory")
+@Order(0)
+public class InMemoryDatasetSeeder implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryDatasetSeeder.class);
+
+    private final BulkInsertRepository bulkInsertRepository;
+    private final PetRepository petRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DatasetSpec spec;
+
+    public InMemoryDatasetSeeder(BulkInsertRepository bulkInsertRepository, PetRepository petRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${inmemory.seed.seed:42}") long seed,
+            @Value("${inmemory.seed.owners:0}") long owners,
+            @Value("${inmemory.seed.pets:0}") long pets,
+            @Value("${inmemory.seed.owner-skew:1.0}") double ownerSkew) {
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.petRepository = petRepository;
+        this.eventPublisher = eventPublisher;
+        this.spec = new DatasetSpec(seed, owners, pets);
+        this.spec.setOwnerSkew(ownerSkew);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (spec.getOwners() == 0 && spec.getPets() == 0) {
+            logger.info("In-memory repositories start empty.");
+            return;
+        }
+        if (petRepository.count().block() > 0) {
+            logger.info("In-memory repositories already restored, not seeding.");
+            return;
+        }
+
+        logger.info("Seeding in-memory repositories with " + spec.getOwners() + " owners and " + spec.getPets()
+                + " pets (seed " + spec.getSeed() + ")");
+
+        // Blocks startup on purpose: the server should not serve a half-loaded dataset
+        new DatasetLoader(bulkInsertRepository, 10_000, Runtime.getRuntime().availableProcessors())
+                .load(new DatasetGenerator(spec))
+                .block();
+
+        eventPublisher.publishEvent(new PetsChangedEvent("in-memory dataset seeded"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.server.repository.inmemory;
+
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.repository.OwnerRepository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * In-memory implementation of OwnerRepository, active with the "inmemory"
+ * Spring profile.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryOwnerRepository extends InMemoryCrudRepository<Owner> implements OwnerRepository {
+
+    @Override
+    protected Long idOf(Owner owner) {
+        return owner.getIdentifier();
+    }
+
+    @Override
+    protected void assignId(Owner owner, Long id) {
+        owner.setIdentifier(id);
+    }
+
+    @Override
+    protected Owner copy(Owner owner) {
+        return new Owner(owner.getIdentifier(), owner.getName(), owner.getPhone_number());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.server.repository.inmemory;
+
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.PetRepository;
+
+import java.util.Arrays;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * In-memory implementation of PetRepository, active with the "inmemory" Spring
+ * profile.
+ *
+ * Besides the pets keyed by identifier, it keeps a secondary index from owner
+ * identifier to the identifiers of that owner's pets, so findByOwnerid does
+ * not scan every pet.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryPetRepository extends InMemoryCrudRepository<Pet> implements PetRepository {
+
+    private final ConcurrentLongMap<PetIds> petIdsByOwner = new ConcurrentLongMap<>();
+
+    /**
+     * Pet identifiers of one owner. Appends happen in place (amortised O(1), even
+     * for owners with many pets) and removals create a new list, so a reader that
+     * reads `size` first always sees at least that many valid ids without
+     * locking.
+     */
+    private static final class PetIds {
+        private volatile long[] ids;
+        private volatile int size;
+
+        PetIds(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        void add(long petId) {
+            long[] current = ids;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                ids = current;
+            }
+            current[size] = petId;
+            size = size + 1;
+        }
+
+        PetIds without(long petId) {
+            int count = size;
+            long[] current = ids;
+            for (int i = 0; i < count; i++) {
+                if (current[i] == petId) {
+                    if (count == 1) {
+                        // Removes the owner from the index
+                        return null;
+                    }
+                    long[] shrunk = new long[count - 1];
+                    System.arraycopy(current, 0, shrunk, 0, i);
+                    System.arraycopy(current, i + 1, shrunk, i, count - i - 1);
+                    return new PetIds(shrunk, count - 1);
+                }
+            }
+            return this;
+        }
+    }
+
+    @Override
+    protected Long idOf(Pet pet) {
+        return pet.getIdentifier();
+    }
+
+    @Override
+    protected void assignId(Pet pet, Long id) {
+        pet.setIdentifier(id);
+    }
+
+    @Override
+    protected Pet copy(Pet pet) {
+        return new Pet(pet.getIdentifier(), pet.getName(), pet.getSpecies(), pet.getBirth_date(), pet.getWeight(),
+                pet.getOwnerid());
+    }
+
+    /**
+     * Keep the owner index in line with the stored pets. Runs while the pet's
+     * key is locked, so changes to the same pet are applied one at a time.
+     */
+    @Override
+    protected void onChange(Pet previous, Pet current) {
+        Long previousOwner = previous == null ? null : previous.getOwnerid();
+        Long currentOwner = current == null ? null : current.getOwnerid();
+
+        if (previousOwner != null && !previousOwner.equals(currentOwner)) {
+            long petId = previous.getIdentifier();
+            petIdsByOwner.update(previousOwner, ids -> ids == null ? null : ids.without(petId));
+        }
+        if (currentOwner != null && !currentOwner.equals(previousOwner)) {
+            long petId = current.getIdentifier();
+            petIdsByOwner.update(currentOwner, ids -> {
+                PetIds updated = ids == null ? new PetIds(new long[4], 0) : ids;
+                updated.add(petId);
+                return updated;
+            });
+        }
+    }
+
+    @Override
+    public Flux<Pet> findByOwnerid(Long ownerid) {
+        return Flux.defer(() -> {
+            PetIds petIds = ownerid == null ? null : petIdsByOwner.get(ownerid);
+            if (petIds == null) {
+                return Flux.empty();
+            }
+
+            // Size first: the array read afterwards holds at least that many ids
+            int size = petIds.size;
+            long[] ids = petIds.ids;
+
+            return Flux.range(0, size)
+                    .mapNotNull(i -> entities.get(ids[i]))
+                    // Guard against a pet that changed owner after the index was read
+                    .filter(pet -> ownerid.equals(pet.getOwnerid()))
+                    .map(this::copy);
+        });
+    }
+}
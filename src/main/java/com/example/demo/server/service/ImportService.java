@@ -0,0 +1,190 @@
+package com.example.demo.server.service;
+
+import com.example.demo.server.model.ImportReport;
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.BulkInsertRepository;
+import com.example.demo.server.utils.MappedCsvReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Service class responsible for importing reference datasets from CSV files.
+ *
+ * Files are memory-mapped and split into segments that are parsed in parallel.
+ * Parsed rows are grouped into batches and written with multi-row inserts,
+ * so only a bounded number of rows is kept in memory regardless of the file
+ * size.
+ *
+ * Only files in the import directory (`importer.directory`) can be imported:
+ * the paths are resolved against it, and those that lead out of it (through
+ * "..", an absolute path or a symbolic link) are refused.
+ *
+ * Expected columns (an optional header line is skipped), one row per line
+ * (see MappedCsvReader):
+ * - owner: identifier,name,phone_number
+ * - pet: identifier,name,species,birth_date,weight,ownerid
+ */
+@Service
+public class ImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    private final BulkInsertRepository bulkInsertRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int parallelism;
+    private final long segmentBytes;
+    private final Path importDirectory; // Absolute and normalized
+
+    public ImportService(BulkInsertRepository bulkInsertRepository, ApplicationEventPublisher eventPublisher,
+            @Value("${importer.batch-size:1000}") int batchSize,
+            @Value("${importer.parallelism:4}") int parallelism,
+            @Value("${importer.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${importer.directory:import}") String importDirectory) {
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.segmentBytes = segmentSizeMb * 1024L * 1024L;
+        this.importDirectory = Paths.get(importDirectory).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Import owners from a CSV file.
+     *
+     * @param file       The path of the CSV file, relative to the import
+     *                   directory (or absolute, inside it).
+     * @param skipHeader Whether the first line is a header.
+     * @return A reactive stream (Mono) with the import report.
+     */
+    public Mono<ImportReport> importOwners(Path file, boolean skipHeader) {
+        logger.info("Importing owners from " + file);
+
+        return importRows("owner", file, skipHeader, ImportService::parseOwner, bulkInsertRepository::insertOwners)
+                .flatMap(report -> bulkInsertRepository.resetOwnerSequence().thenReturn(report));
+    }
+
+    /**
+     * Import pets from a CSV file.
+     *
+     * @param file       The path of the CSV file, relative to the import
+     *                   directory (or absolute, inside it).
+     * @param skipHeader Whether the first line is a header.
+     * @return A reactive stream (Mono) with the import report.
+     */
+    public Mono<ImportReport> importPets(Path file, boolean skipHeader) {
+        logger.info("Importing pets from " + file);
+
+        return importRows("pet", file, skipHeader, ImportService::parsePet, bulkInsertRepository::insertPets)
+                .flatMap(report -> bulkInsertRepository.resetPetSequence().thenReturn(report))
+                // Even a failed import may have inserted some batches
+                .doFinally(signalType -> eventPublisher.publishEvent(new PetsChangedEvent("pets imported")));
+    }
+
+    /**
+     * Parse the segments of a file in parallel and insert the rows in batches.
+     */
+    private <T> Mono<ImportReport> importRows(String entity, Path requested, boolean skipHeader,
+            Function<MappedCsvReader.Cursor, T> rowParser, Function<List<T>, Mono<Long>> inserter) {
+
+        Path file = importDirectory.resolve(requested).normalize();
+
+        Mono<ImportReport> imported = Mono.fromCallable(() -> MappedCsvReader.open(file, segmentBytes))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(reader -> {
+                    long start = System.nanoTime();
+
+                    // Each segment is parsed on its own worker and inserted batch by batch;
+                    // at most `parallelism` segments are mapped at the same time
+                    return Flux.fromIterable(reader.getSegments())
+                            .flatMap(segment -> reader.rows(segment, skipHeader, rowParser)
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .buffer(batchSize)
+                                    .concatMap(inserter), parallelism)
+                            .reduce(0L, Long::sum)
+                            .map(rows -> new ImportReport(entity, file.toString(), reader.getFileSize(),
+                                    reader.getSegments().size(), rows, (System.nanoTime() - start) / 1_000_000));
+                })
+                .doOnNext(report -> logger.info("Imported " + report.getRows() + " " + entity + " rows in "
+                        + report.getMillis() + " ms (" + String.format("%.0f", report.getRowsPerSecond())
+                        + " rows/s, " + report.getSegments() + " segments)"))
+                // The rows that cannot be parsed
+                .onErrorMap(IllegalArgumentException.class, e -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Malformed " + entity + " file " + requested + ": " + e.getMessage(), e))
+                .onErrorResume(e -> {
+                    logger.error("Error importing " + entity + " rows from " + file, e);
+                    return Mono.error(e);
+                });
+
+        // The checks read the file system, so they run on the bounded elastic scheduler as well
+        return Mono.fromRunnable(() -> checkFile(requested, file))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(imported);
+    }
+
+    /**
+     * @param requested The path of the file, as given.
+     * @param file      The path of the file, absolute and normalized.
+     * @throws ResponseStatusException 403 if the file is outside the import
+     *                                 directory, 404 if it does not exist.
+     */
+    private void checkFile(Path requested, Path file) {
+        if (!isInImportDirectory(file)) {
+            logger.warn("Import file " + requested + " is outside the import directory " + importDirectory + ".");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "File outside the import directory: " + requested);
+        }
+        if (!Files.isRegularFile(file)) {
+            logger.warn("Import file " + file + " does not exist.");
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found: " + requested);
+        }
+    }
+
+    /**
+     * @param file A normalized absolute path.
+     * @return Whether the file is inside the import directory, also once its
+     *         symbolic links are followed.
+     */
+    private boolean isInImportDirectory(Path file) {
+        if (!file.startsWith(importDirectory)) {
+            return false;
+        }
+        try {
+            return !Files.exists(file) || file.toRealPath().startsWith(importDirectory.toRealPath());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Owner parseOwner(MappedCsvReader.Cursor cursor) {
+        long identifier = cursor.nextLong();
+        String name = cursor.nextString();
+        String phoneNumber = cursor.nextString();
+
+        return new Owner(identifier, name, phoneNumber);
+    }
+
+    private static Pet parsePet(MappedCsvReader.Cursor cursor) {
+        long identifier = cursor.nextLong();
+        String name = cursor.nextString();
+        String species = cursor.nextString();
+
+        return new Pet(identifier, name, species, cursor.nextDate(), cursor.nextDouble(), cursor.nextLong());
+    }
+}
@@ -3,6 +3,9 @@ package com.example.demo.server.service;
 import com.example.demo.server.model.Owner;
 import com.example.demo.server.repository.OwnerRepository;
 import com.example.demo.server.repository.PetRepository;
+import com.example.demo.server.utils.Deadlines;
+
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +22,9 @@ import reactor.core.publisher.Mono;
  * Provides CRUD methods, ensuring operations adhere to the project's
  * requirements, especially the constraint
  * related to deleting owners with associated pets.
+ *
+ * The reads are bounded by the deadline of the request, if the client sent
+ * one (see Deadlines): once it passes, the query is cancelled.
  */
 @Service
 public class OwnerService {
@@ -60,11 +66,11 @@ public class OwnerService {
 
         logger.debug("Retrieving all owners");
 
-        return ownerRepository.findAll()
+        return Deadlines.within(ownerRepository.findAll()
                 .onErrorResume(e -> {
                     logger.error("Error retrieving all owners", e);
                     return Flux.error(e);
-                });
+                }));
     }
 
     /**
@@ -76,7 +82,7 @@ public class OwnerService {
     public Mono<Owner> getOwnerById(Long id) {
         logger.debug("Retrieving owner with id: " + id);
 
-        return ownerRepository.findById(id)
+        return Deadlines.within(ownerRepository.findById(id)
                 .switchIfEmpty(Mono.defer(() -> {
                     // Log a warning when no owner with the given id is found
                     logger.warn("No owner found with id: " + id);
@@ -86,7 +92,25 @@ public class OwnerService {
                     // Log an error when an error occurs during retrieval
                     logger.error("Error retrieving owner with id: " + id, e);
                     return Mono.empty();
-                });
+                }));
+    }
+
+    /**
+     * Retrieve the owners with the given identifiers in a single query.
+     * Identifiers without an owner are skipped.
+     * 
+     * @param ids The identifiers of the owners to retrieve.
+     * @return A reactive stream (Flux) with the owners found, in no particular
+     *         order.
+     */
+    public Flux<Owner> getOwnersByIds(List<Long> ids) {
+        logger.debug("Retrieving " + ids.size() + " owners by id");
+
+        return Deadlines.within(ownerRepository.findAllById(ids)
+                .onErrorResume(e -> {
+                    logger.error("Error retrieving owners with ids: " + ids, e);
+                    return Flux.error(e);
+                }));
     }
 
     /**
@@ -0,0 +1,260 @@
+package com.example.demo.server.service;
+
+import com.example.demo.server.analytics.PetColumns;
+import com.example.demo.server.model.OwnerPetCount;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.model.WeightStatistics;
+import com.example.demo.server.repository.PetRepository;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Service class responsible for analytics queries over all the pets.
+ *
+ * Queries run over a PetColumns snapshot instead of streaming every Pet from
+ * the repository. The snapshot is rebuilt after pets change: every
+ * PetsChangedEvent bumps a write counter, and the next query that finds an
+ * older snapshot rebuilds it (concurrent queries share the same rebuild).
+ *
+ * A snapshot read from a snapshot file can be preloaded on startup, so the
+ * first queries do not wait for a rebuild from the repository.
+ */
+@Service
+public class PetAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PetAnalyticsService.class);
+
+    private final PetRepository petRepository;
+    private final boolean parallel;
+
+    // Incremented on every write; a snapshot is current when built at the same count
+    private final AtomicLong writes = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    // Rebuild in progress, shared by the queries that need it (guarded by this)
+    private Mono<Snapshot> refreshing;
+    private long refreshingVersion = -1;
+
+    private final AtomicBoolean firstQuery = new AtomicBoolean();
+
+    private static final class Snapshot {
+        final PetColumns columns;
+        final long version;
+        final String source;
+
+        Snapshot(PetColumns columns, long version, String source) {
+            this.columns = columns;
+            this.version = version;
+            this.source = source;
+        }
+    }
+
+    public PetAnalyticsService(PetRepository petRepository,
+            @Value("${analytics.parallel:true}") boolean parallel) {
+        this.petRepository = petRepository;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Mark the current snapshot as out of date.
+     *
+     * @param event The change that happened.
+     */
+    @EventListener
+    public void onPetsChanged(PetsChangedEvent event) {
+        long version = writes.incrementAndGet();
+        logger.debug("Pets changed (" + event.getReason() + "), analytics snapshot version " + version);
+    }
+
+    /**
+     * Get a snapshot that includes every write made so far, rebuilding it from
+     * the repository if needed.
+     *
+     * @return A reactive stream (Mono) with the columnar snapshot.
+     */
+    public Mono<PetColumns> columns() {
+        return current().map(current -> current.columns);
+    }
+
+    /**
+     * Install columns loaded from elsewhere (e.g. a snapshot file) as the
+     * current snapshot. They are served until the next write, or until rebuild
+     * replaces them.
+     *
+     * @param columns The columns.
+     * @param source  Where the columns come from, for the logs.
+     */
+    public synchronized void preload(PetColumns columns, String source) {
+        install(columns, writes.get(), source);
+        refreshing = null;
+    }
+
+    /**
+     * Rebuild the snapshot from the repository even if it is current, e.g. to
+     * catch up with the database after a preload.
+     *
+     * @return A reactive stream (Mono) with the rebuilt columns.
+     */
+    public Mono<PetColumns> rebuild() {
+        return Mono.defer(() -> refresh(writes.get())).map(current -> current.columns);
+    }
+
+    private Mono<Snapshot> current() {
+        return Mono.defer(() -> {
+            long version = writes.get();
+            Snapshot current = snapshot;
+            if (current != null && current.version == version) {
+                return Mono.just(current);
+            }
+            return refresh(version);
+        });
+    }
+
+    /**
+     * The columns used by a query. The first query also logs how long after
+     * startup it could be answered, to compare cold and warm starts.
+     */
+    private Mono<PetColumns> queryColumns() {
+        return current()
+                .doOnNext(current -> {
+                    if (firstQuery.compareAndSet(false, true)) {
+                        logger.info("First analytics query answered "
+                                + ManagementFactory.getRuntimeMXBean().getUptime()
+                                + " ms after JVM start (pets from " + current.source + ")");
+                    }
+                })
+                .map(current -> current.columns)
+                .publishOn(Schedulers.parallel());
+    }
+
+    private synchronized Mono<Snapshot> refresh(long version) {
+        if (refreshing != null && refreshingVersion == version) {
+            return refreshing;
+        }
+
+        long start = System.nanoTime();
+        refreshingVersion = version;
+        refreshing = petRepository.findAll()
+                .collect(PetColumns::builder, PetColumns.Builder::add)
+                .map(PetColumns.Builder::build)
+                .map(columns -> {
+                    logger.info("Analytics snapshot rebuilt with " + columns.size() + " pets in "
+                            + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    return install(columns, version, "repository");
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error rebuilding the analytics snapshot", e);
+                    synchronized (this) {
+                        refreshing = null;
+                    }
+                    return Mono.error(e);
+                })
+                .cache();
+        return refreshing;
+    }
+
+    /**
+     * Replace the snapshot, unless a newer one is already installed.
+     */
+    private synchronized Snapshot install(PetColumns columns, long version, String source) {
+        Snapshot installed = new Snapshot(columns, version, source);
+        if (snapshot == null || snapshot.version <= version) {
+            snapshot = installed;
+        }
+        return installed;
+    }
+
+    /**
+     * Count the pets, optionally only those of a species and/or heavier than a
+     * weight.
+     *
+     * @param species   The species (case-insensitive), or null for all.
+     * @param minWeight The exclusive minimum weight, or null for any weight.
+     * @return A reactive stream (Mono) with the count.
+     */
+    public Mono<Long> countPets(String species, Double minWeight) {
+        double bound = minWeight == null ? Double.NEGATIVE_INFINITY : minWeight;
+
+        return queryColumns()
+                .map(columns -> columns.count(species, bound, parallel));
+    }
+
+    /**
+     * @return A reactive stream (Mono) with the statistics of the pet weights.
+     */
+    public Mono<WeightStatistics> weightStatistics() {
+        return queryColumns()
+                .map(columns -> {
+                    PetColumns.Moments moments = columns.weightMoments(parallel);
+                    return new WeightStatistics(moments.count, moments.mean, Math.sqrt(moments.variance()),
+                            moments.min, moments.max);
+                });
+    }
+
+    /**
+     * @param k The number of pets to return.
+     * @return A reactive stream (Flux) with the k heaviest pets, heaviest first.
+     */
+    public Flux<Pet> heaviestPets(int k) {
+        return queryColumns()
+                .flatMapMany(columns -> {
+                    int[] rows = columns.heaviestRows(k, parallel);
+                    return Flux.range(0, rows.length).map(i -> columns.pet(rows[i]));
+                });
+    }
+
+    /**
+     * @return A reactive stream (Mono) with the eldest pet, or empty if there are
+     *         no pets.
+     */
+    public Mono<Pet> eldestPet() {
+        return queryColumns()
+                .flatMap(columns -> {
+                    int row = columns.eldestRow(parallel);
+                    return row < 0 ? Mono.empty() : Mono.just(columns.pet(row));
+                });
+    }
+
+    /**
+     * Count the pets of each owner, sorted by number of pets (descending).
+     *
+     * @param minPets Only owners with at least this many pets are returned.
+     * @param limit   The maximum number of owners to return.
+     * @return A reactive stream (Flux) with the owners and their pet counts.
+     */
+    public Flux<OwnerPetCount> petCountsByOwner(int minPets, int limit) {
+        return queryColumns()
+                .flatMapMany(columns -> {
+                    PetColumns.OwnerCounts counts = columns.petCountsByOwner(parallel);
+
+                    // Pack (descending count, position) into one long so a primitive sort orders them
+                    long[] order = new long[counts.size()];
+                    int selected = 0;
+                    for (int i = 0; i < counts.size(); i++) {
+                        if (counts.petCounts[i] >= minPets) {
+                            order[selected++] = ((long) (Integer.MAX_VALUE - counts.petCounts[i]) << 32) | i;
+                        }
+                    }
+                    long[] sorted = Arrays.copyOf(order, selected);
+                    Arrays.sort(sorted);
+
+                    return Flux.range(0, Math.min(limit, selected))
+                            .map(i -> {
+                                int position = (int) sorted[i];
+                                return new OwnerPetCount(counts.ownerIds[position], counts.petCounts[position]);
+                            });
+                });
+    }
+}
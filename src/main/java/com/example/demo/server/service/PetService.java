@@ -3,11 +3,16 @@ package com.example.demo.server.service;
 import com.example.demo.server.model.Pet;
 import com.example.demo.server.repository.PetRepository;
 import com.example.demo.server.repository.OwnerRepository;
+import com.example.demo.server.utils.Deadlines;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -21,6 +26,9 @@ import reactor.core.publisher.Mono;
  * data.
  * Provides CRUD methods and ensures the operations align with the project
  * requirements.
+ *
+ * The reads are bounded by the deadline of the request, if the client sent
+ * one (see Deadlines): once it passes, the query is cancelled.
  */
 @Service
 public class PetService {
@@ -29,10 +37,19 @@ public class PetService {
 
     private final PetRepository petRepository;
     private final OwnerRepository ownerRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PetService(PetRepository petRepository, OwnerRepository ownerRepository) {
+    // Chance that getPetByIdWithDelay is delayed, and by how long
+    @Value("${pet.delay.probability:0.05}")
+    private double delayProbability = 0.05;
+    @Value("${pet.delay.duration:2s}")
+    private Duration delay = Duration.ofSeconds(2);
+
+    public PetService(PetRepository petRepository, OwnerRepository ownerRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.petRepository = petRepository;
         this.ownerRepository = ownerRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -56,10 +73,12 @@ public class PetService {
 
         logger.debug("Creating pet with name: " + pet.getName());
 
-        return petRepository.save(pet).onErrorResume(e -> {
-            logger.error("Error creating pet with name: " + pet.getName(), e);
-            return Mono.error(e);
-        });
+        return petRepository.save(pet)
+                .doOnSuccess(createdPet -> eventPublisher.publishEvent(new PetsChangedEvent("pet created")))
+                .onErrorResume(e -> {
+                    logger.error("Error creating pet with name: " + pet.getName(), e);
+                    return Mono.error(e);
+                });
     }
 
     /**
@@ -70,12 +89,12 @@ public class PetService {
     public Flux<Pet> getAllPets() {
         logger.debug("Retrieving all pets");
 
-        return petRepository
+        return Deadlines.within(petRepository
                 .findAll()
                 .onErrorResume(e -> {
                     logger.error("Error retrieving all pets", e);
                     return Flux.error(e);
-                });
+                }));
 
     }
 
@@ -89,7 +108,7 @@ public class PetService {
     public Mono<Pet> getPetById(Long id) {
         logger.debug("Retrieving pet with id: " + id);
 
-        return petRepository.findById(id)
+        return Deadlines.within(petRepository.findById(id)
                 .switchIfEmpty(Mono.defer(() -> {
                     logger.warn("No pet found with id: " + id);
                     return Mono.empty();
@@ -97,12 +116,31 @@ public class PetService {
                 .onErrorResume(e -> {
                     logger.error("Error retrieving pet with id: " + id, e);
                     return Mono.error(e);
-                });
+                }));
     }
 
     /**
-     * Retrieve a specific pet by its identifier with a simulated delay.
-     * If the pet is not found, an empty Mono is returned.
+     * Retrieve the pets with the given identifiers in a single query.
+     * Identifiers without a pet are skipped.
+     * 
+     * @param ids The identifiers of the pets to retrieve.
+     * @return A reactive stream (Flux) with the pets found, in no particular
+     *         order.
+     */
+    public Flux<Pet> getPetsByIds(List<Long> ids) {
+        logger.debug("Retrieving " + ids.size() + " pets by id");
+
+        return Deadlines.within(petRepository.findAllById(ids)
+                .onErrorResume(e -> {
+                    logger.error("Error retrieving pets with ids: " + ids, e);
+                    return Flux.error(e);
+                }));
+    }
+
+    /**
+     * Retrieve a specific pet by its identifier, delayed by pet.delay.duration
+     * with a chance of pet.delay.probability, like a read that is sometimes
+     * slow. If the pet is not found, an empty Mono is returned.
      * 
      * @param id The identifier of the pet to retrieve.
      * @return A reactive stream (Mono) containing the pet or empty if not found.
@@ -110,16 +148,21 @@ public class PetService {
     public Mono<Pet> getPetByIdWithDelay(Long id) {
         logger.debug("Retrieving pet with id: " + id + " with delay");
 
-        return petRepository.findById(id)
+        Mono<Pet> pet = petRepository.findById(id)
                 .switchIfEmpty(Mono.defer(() -> {
                     logger.warn("No pet found with id: " + id);
                     return Mono.empty();
-                }))
-                .delayElement(Duration.ofSeconds(2))
+                }));
+        if (ThreadLocalRandom.current().nextDouble() < delayProbability) {
+            pet = pet.delayElement(delay);
+        }
+
+        // Bounded as a whole, so the delay is cancelled too once the deadline passes
+        return Deadlines.within(pet
                 .onErrorResume(e -> {
                     logger.error("Error retrieving pet with id: " + id, e);
                     return Mono.error(e);
-                });
+                }));
     }
 
     /**
@@ -144,7 +187,9 @@ public class PetService {
                         existingPet.setOwnerid(updatedPet.getOwnerid());
 
                         // Save the updated pet
-                        return petRepository.save(existingPet);
+                        return petRepository.save(existingPet)
+                                .doOnSuccess(savedPet -> eventPublisher
+                                        .publishEvent(new PetsChangedEvent("pet " + id + " updated")));
                     } else {
                         // Log an error if the pet with the given id doesn't exist
                         logger.warn("Pet with id " + id + " not found.");
@@ -178,7 +223,9 @@ public class PetService {
                 }))
                 .flatMap(existingPet -> {
                     // Delete the pet if it exists
-                    return petRepository.deleteById(id);
+                    return petRepository.deleteById(id)
+                            .doOnSuccess(aVoid -> eventPublisher
+                                    .publishEvent(new PetsChangedEvent("pet " + id + " deleted")));
                 })
                 .onErrorResume(e -> {
                     // Handle any errors that occur during the delete operation
@@ -192,7 +239,7 @@ public class PetService {
         logger.debug("Retrieving pet IDs for owner with id: " + ownerId);
 
         // Check if the owner with the given id exists
-        return ownerRepository.findById(ownerId)
+        return Deadlines.within(ownerRepository.findById(ownerId)
                 .flatMapMany(owner -> {
                     // If the owner exists, retrieve the pet IDs
                     return petRepository.findByOwnerid(ownerId)
@@ -208,7 +255,7 @@ public class PetService {
                         // Log a warning if the owner doesn't exist
                         logger.warn("Owner with id " + ownerId + " does not exist.");
                     }
-                });
+                }));
     }
 
 }
@@ -0,0 +1,19 @@
+package com.example.demo.server.service;
+
+/**
+ * Application event published whenever pets are created, updated, deleted or
+ * imported, so that in-process read structures built from the pets know they
+ * are out of date.
+ */
+public class PetsChangedEvent {
+
+    private final String reason;
+
+    public PetsChangedEvent(String reason) {
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
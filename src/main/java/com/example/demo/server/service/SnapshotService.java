@@ -0,0 +1,169 @@
+package com.example.demo.server.service;
+
+import com.example.demo.server.analytics.PetColumns;
+import com.example.demo.server.analytics.SnapshotFile;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.BulkInsertRepository;
+import com.example.demo.server.repository.OwnerRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Service class responsible for the snapshot file used to warm start the
+ * server.
+ *
+ * When enabled, on startup (before the server reports ready) the snapshot file
+ * is memory-mapped and its pets are preloaded into PetAnalyticsService; with
+ * the "inmemory" profile the in-memory repositories are restored from it too
+ * (otherwise the owners, which the database has, are skipped unread).
+ * The analytics snapshot then catches up with the database in the background,
+ * and a new snapshot file is written periodically.
+ */
+@Service
+@Order(-1) // Before the in-memory seeder, which skips seeding a restored dataset
+public class SnapshotService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final OwnerRepository ownerRepository;
+    private final BulkInsertRepository bulkInsertRepository;
+    private final PetAnalyticsService petAnalyticsService;
+    private final boolean inMemory;
+    private final boolean enabled;
+    private final Path file;
+    private final Duration interval;
+
+    private Disposable writer;
+
+    public SnapshotService(OwnerRepository ownerRepository, BulkInsertRepository bulkInsertRepository,
+            PetAnalyticsService petAnalyticsService, Environment environment,
+            @Value("${snapshot.enabled:false}") boolean enabled,
+            @Value("${snapshot.path:snapshot/pets.snapshot}") String path,
+            @Value("${snapshot.interval:5m}") Duration interval) {
+        this.ownerRepository = ownerRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.petAnalyticsService = petAnalyticsService;
+        this.inMemory = environment.acceptsProfiles(Profiles.of("inmemory"));
+        this.enabled = enabled;
+        this.file = Paths.get(path);
+        this.interval = interval;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        // Blocks startup on purpose: the server reports ready once the snapshot is loaded
+        if (restore() && !inMemory) {
+            petAnalyticsService.rebuild()
+                    .subscribe(columns -> logger.info("Analytics caught up with the database ("
+                            + columns.size() + " pets)"),
+                            e -> logger.error("Error catching up with the database after the snapshot", e));
+        }
+
+        writer = Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> write()
+                        .onErrorResume(e -> {
+                            logger.error("Error writing the snapshot " + file, e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+        logger.info("Writing a snapshot to " + file + " every " + interval);
+    }
+
+    /**
+     * Load the snapshot file, if there is one.
+     *
+     * @return Whether a snapshot was loaded.
+     */
+    private boolean restore() {
+        if (!Files.isRegularFile(file)) {
+            logger.info("No snapshot at " + file + ", starting cold.");
+            return false;
+        }
+
+        long start = System.nanoTime();
+        SnapshotFile snapshot;
+        try {
+            // Only the in-memory repositories are restored from the owners; the database has them
+            snapshot = SnapshotFile.read(file, inMemory);
+        } catch (IOException | IllegalStateException e) {
+            logger.warn("Ignoring unreadable snapshot " + file + ": " + e.getMessage());
+            return false;
+        }
+        long readMillis = (System.nanoTime() - start) / 1_000_000;
+
+        PetColumns pets = snapshot.getPets();
+        if (inMemory) {
+            List<Pet> petList = new ArrayList<>(pets.size());
+            for (int row = 0; row < pets.size(); row++) {
+                petList.add(pets.pet(row));
+            }
+            bulkInsertRepository.insertOwners(snapshot.getOwners())
+                    .then(bulkInsertRepository.insertPets(petList))
+                    .then(bulkInsertRepository.resetOwnerSequence())
+                    .then(bulkInsertRepository.resetPetSequence())
+                    .block();
+        }
+        petAnalyticsService.preload(pets, "snapshot file");
+
+        logger.info("Loaded snapshot " + file + " written at " + Instant.ofEpochMilli(snapshot.getCreatedAt())
+                + " (" + snapshot.getOwnerCount() + " owners, " + pets.size() + " pets) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms (" + readMillis + " ms reading the file)");
+        return true;
+    }
+
+    /**
+     * Write a snapshot of the current owners and pets.
+     *
+     * @return A reactive stream (Mono) with the size of the file in bytes.
+     */
+    public Mono<Long> write() {
+        return Mono.zip(ownerRepository.findAll().collectList(), petAnalyticsService.columns())
+                .publishOn(Schedulers.boundedElastic())
+                .map(data -> {
+                    long start = System.nanoTime();
+                    try {
+                        long bytes = SnapshotFile.write(file, data.getT1(), data.getT2());
+                        logger.info("Wrote snapshot " + file + " (" + data.getT1().size() + " owners, "
+                                + data.getT2().size() + " pets, " + bytes / 1024 + " KiB) in "
+                                + (System.nanoTime() - start) / 1_000_000 + " ms");
+                        return bytes;
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Could not write snapshot " + file, e);
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer != null) {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo.server.service;
+
+import com.example.demo.server.repository.OwnerRepository;
+import com.example.demo.server.repository.PetRepository;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service class responsible for warming up the server before it reports
+ * ready.
+ *
+ * Spring only marks the application as ready (see GET /ready) after every
+ * ApplicationRunner has finished, so while this runner blocks, load balancers
+ * keep traffic away. The warm-up:
+ * 1. opens the R2DBC connection pool (skipped with the "inmemory" profile);
+ * 2. runs the hot repository queries on every pooled connection, so their
+ * prepared statements are cached;
+ * 3. sends synthetic GET requests to the server itself, which exercises
+ * routing, Jackson serialisation and gives the JIT a chance to compile the
+ * request path. These requests carry the X-Warmup header.
+ *
+ * Each phase is timed and logged. Failures are logged and do not stop startup.
+ */
+@Service
+@Order(1) // After the snapshot restore and the in-memory seeder
+public class WarmupService implements ApplicationRunner {
+
+    /**
+     * Header added to the synthetic warm-up requests.
+     */
+    public static final String WARMUP_HEADER = "X-Warmup";
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+    private final PetRepository petRepository;
+    private final OwnerRepository ownerRepository;
+    private final ObjectProvider<ConnectionFactory> connectionFactory;
+    private final WebClient.Builder webClientBuilder;
+    private final Environment environment;
+    private final boolean enabled;
+    private final int requests;
+    private final int concurrency;
+    private final Duration timeout;
+
+    public WarmupService(PetRepository petRepository, OwnerRepository ownerRepository,
+            ObjectProvider<ConnectionFactory> connectionFactory, WebClient.Builder webClientBuilder,
+            Environment environment,
+            @Value("${warmup.enabled:false}") boolean enabled,
+            @Value("${warmup.requests:2000}") int requests,
+            @Value("${warmup.concurrency:8}") int concurrency,
+            @Value("${warmup.timeout:60s}") Duration timeout) {
+        this.petRepository = petRepository;
+        this.ownerRepository = ownerRepository;
+        this.connectionFactory = connectionFactory;
+        this.webClientBuilder = webClientBuilder;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.requests = requests;
+        this.concurrency = concurrency;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        logger.info("Warming up before reporting ready...");
+        long start = System.nanoTime();
+
+        int connections = phase("open connection pool", this::openPool, 1);
+        long pets = phase("prime repository queries", () -> primeQueries(connections), 0L);
+        phase("synthetic requests", () -> syntheticRequests(pets), null);
+
+        logger.info("Warm-up finished in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Run one phase of the warm-up, logging its duration. A failed phase is
+     * logged and yields the fallback value.
+     */
+    private <T> T phase(String name, Supplier<Mono<T>> phase, T fallback) {
+        long start = System.nanoTime();
+        try {
+            T result = phase.get().block(timeout);
+            logger.info("Warm-up phase '" + name + "' took " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return result == null ? fallback : result;
+        } catch (RuntimeException e) {
+            logger.warn("Warm-up phase '" + name + "' failed after " + (System.nanoTime() - start) / 1_000_000
+                    + " ms: " + e.getMessage());
+            return fallback;
+        }
+    }
+
+    /**
+     * Open the pool's initial connections.
+     *
+     * @return The number of connections queries should be primed on.
+     */
+    private Mono<Integer> openPool() {
+        if (environment.acceptsProfiles(Profiles.of("inmemory"))) {
+            return Mono.just(1);
+        }
+
+        ConnectionFactory factory = connectionFactory.getIfAvailable();
+        if (!(factory instanceof ConnectionPool pool)) {
+            return Mono.just(1);
+        }
+
+        int size = pool.getMetrics().map(PoolMetrics::getMaxAllocatedSize).orElse(1);
+        return pool.warmup()
+                .doOnNext(opened -> logger.info("Opened " + opened + " pooled connections (max " + size + ")"))
+                .thenReturn(size);
+    }
+
+    /**
+     * Run the queries behind the hot endpoints once per connection, all at the
+     * same time so that each one runs on a different pooled connection.
+     *
+     * @return The number of pets, used to pick ids for the synthetic requests.
+     */
+    private Mono<Long> primeQueries(int connections) {
+        return Flux.range(0, connections)
+                .flatMap(i -> Mono.when(
+                        petRepository.findById(1L),
+                        petRepository.findByOwnerid(1L).take(1),
+                        ownerRepository.findById(1L)), connections)
+                .then(petRepository.count());
+    }
+
+    /**
+     * Send GET /pet/{id}, /owner/{id} and /pet/owner/{id} requests to this
+     * server and log the latency of the first and last requests.
+     */
+    private Mono<Void> syntheticRequests(long pets) {
+        String port = environment.getProperty("local.server.port");
+        if (port == null || requests <= 0) {
+            logger.info("Skipping synthetic requests (port " + port + ", " + requests + " requests).");
+            return Mono.empty();
+        }
+
+        WebClient webClient = webClientBuilder.baseUrl("http://localhost:" + port)
+                .defaultHeader(WARMUP_HEADER, "true")
+                .build();
+        String[] paths = { "/pet/", "/owner/", "/pet/owner/" };
+        long maxId = Math.max(1, Math.min(pets, 1000));
+        long[] latencies = new long[requests];
+
+        return Flux.range(0, requests)
+                .flatMap(i -> {
+                    long start = System.nanoTime();
+                    return webClient.get()
+                            .uri(paths[i % paths.length] + (i % maxId + 1))
+                            .retrieve()
+                            .toBodilessEntity()
+                            .onErrorResume(e -> Mono.empty())
+                            .doFinally(signal -> latencies[i] = System.nanoTime() - start);
+                }, concurrency)
+                .then(Mono.fromRunnable(() -> {
+                    int tenth = Math.max(1, requests / 10);
+                    logger.info("Synthetic requests: first took " + latencies[0] / 1_000 + " us, first 10% averaged "
+                            + average(latencies, 0, tenth) / 1_000 + " us, last 10% averaged "
+                            + average(latencies, requests - tenth, requests) / 1_000 + " us");
+                }));
+    }
+
+    private static long average(long[] values, int from, int to) {
+        return Arrays.stream(values, from, to).sum() / (to - from);
+    }
+}
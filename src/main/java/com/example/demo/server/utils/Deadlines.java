@@ -0,0 +1,91 @@
+package com.example.demo.server.utils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Deadlines of the requests, propagated from the client.
+ *
+ * The client sends the time it will still wait for an answer, in
+ * milliseconds, in the DEADLINE_HEADER header; DeadlineFilter turns it into
+ * an absolute deadline (in System.nanoTime terms) in the Reactor context of
+ * the request, under CONTEXT_KEY. The services bound their work with
+ * `within`: once the deadline passes, the work is cancelled (the R2DBC
+ * statement with it) and fails with a 504, as nobody waits for its result.
+ */
+public final class Deadlines {
+
+    /**
+     * Header with the milliseconds the client still waits for the answer.
+     */
+    public static final String DEADLINE_HEADER = "X-Request-Timeout";
+
+    /**
+     * Key of the deadline (a Long, in System.nanoTime terms) in the Reactor
+     * context.
+     */
+    public static final String CONTEXT_KEY = "deadline";
+
+    private Deadlines() {
+    }
+
+    /**
+     * Bound some work by the deadline of the request, if it has one.
+     *
+     * @param work The work, cancelled once the deadline passes.
+     * @return The result of the work, or a DeadlineExceededException.
+     */
+    public static <T> Mono<T> within(Mono<T> work) {
+        return Mono.deferContextual(context -> remaining(context)
+                .map(remaining -> remaining.isNegative() ? Mono.<T>error(new DeadlineExceededException())
+                        : work.timeout(remaining, Mono.error(DeadlineExceededException::new)))
+                .orElse(work));
+    }
+
+    /**
+     * Bound some work by the deadline of the request, if it has one. The
+     * deadline applies to the whole stream, not to each element.
+     *
+     * @param work The work, cancelled once the deadline passes.
+     * @return The elements of the work, then a DeadlineExceededException if
+     *         it did not finish in time.
+     */
+    public static <T> Flux<T> within(Flux<T> work) {
+        return Flux.deferContextual(context -> remaining(context)
+                .map(remaining -> {
+                    if (remaining.isNegative()) {
+                        return Flux.<T>error(new DeadlineExceededException());
+                    }
+                    AtomicBoolean expired = new AtomicBoolean();
+                    return work.takeUntilOther(Mono.delay(remaining).doOnNext(tick -> expired.set(true)))
+                            .concatWith(Mono.defer(() -> expired.get() ? Mono.error(new DeadlineExceededException())
+                                    : Mono.empty()));
+                })
+                .orElse(work));
+    }
+
+    /**
+     * @return The time left before the deadline of the request, if it has one.
+     */
+    public static Optional<Duration> remaining(ContextView context) {
+        return context.<Long>getOrEmpty(CONTEXT_KEY)
+                .map(deadline -> Duration.ofNanos(deadline - System.nanoTime()));
+    }
+
+    /**
+     * The deadline of a request passed before its work finished.
+     */
+    public static class DeadlineExceededException extends ResponseStatusException {
+
+        public DeadlineExceededException() {
+            super(HttpStatus.GATEWAY_TIMEOUT, "Deadline exceeded");
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.server.utils;
+
+/**
+ * An adaptive concurrency limit that follows the latency of the requests
+ * (AIMD), shared by the client's AdaptiveLimiter and the server's
+ * AdmissionLimit, which decide what to do with the requests beyond it:
+ * - when the requests are queueing (on the server, for a connection of the
+ * R2DBC pool, a thread, the CPU), or a request fails because of an overload,
+ * the limit is multiplied by `backoff`, at most once per recent latency so
+ * that the requests of one burst count once;
+ * - otherwise, if the requests use at least half the limit, each request that
+ * completes raises the limit by one.
+ *
+ * The requests are taken to be queueing when the recent latency is more than
+ * `tolerance` times the baseline and the requests that this delay amounts
+ * to, limit * (1 - baseline / recent), are more than QUEUE_ALLOWANCE (as in
+ * TCP Vegas). The second condition keeps small limits, whose latencies are
+ * mostly noise, from collapsing to the minimum.
+ *
+ * The recent latency is an average over about the last 10 requests, so a
+ * single slow one does not lower the limit. The baseline follows the faster
+ * requests like the recent latency, but the slower ones only over about the
+ * last 500 requests: it stays near the latency of a server that is not
+ * queueing, yet follows the server when it becomes slower for good.
+ *
+ * Not thread-safe: its owner updates and reads it under its own lock.
+ */
+public class LatencyGradientLimit {
+
+    /**
+     * Requests that may be queueing before the limit decreases.
+     */
+    public static final int QUEUE_ALLOWANCE = 4;
+    private static final double RECENT_WEIGHT = 1.0 / 10;
+    private static final double BASELINE_WEIGHT = 1.0 / 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoff;
+
+    private double limit;
+    private double recentLatency; // 0 until the first request completes
+    private double baselineLatency;
+    private long lastDecreaseNanos;
+    private long decreases;
+    private int lowestLimit;
+    private int highestLimit;
+
+    /**
+     * @param initialLimit The limit until latencies are known.
+     * @param minLimit     The lowest limit, at least 1.
+     * @param maxLimit     The highest limit.
+     * @param tolerance    Latency, relative to the baseline, beyond which the
+     *                     requests are taken to be queueing, e.g. 2.
+     * @param backoff      Factor applied to the limit when it decreases,
+     *                     e.g. 0.9.
+     * @param nowNanos     The current System.nanoTime-like timestamp.
+     */
+    public LatencyGradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoff,
+            long nowNanos) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("The limits must be 1 <= min <= initial <= max: " + minLimit + ", "
+                    + initialLimit + ", " + maxLimit);
+        }
+        if (tolerance <= 1 || backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("The tolerance must be above 1 and the backoff between 0 and 1: "
+                    + tolerance + ", " + backoff);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoff = backoff;
+        this.limit = initialLimit;
+        this.lowestLimit = initialLimit;
+        this.highestLimit = initialLimit;
+        this.lastDecreaseNanos = nowNanos;
+    }
+
+    /**
+     * Adapt the limit to a request that completed.
+     *
+     * @param latencyNanos The latency of the request (above 0), or -1 if it
+     *                     failed because of an overload.
+     * @param used         The requests in flight when it completed, itself
+     *                     included.
+     * @param nowNanos     The current System.nanoTime-like timestamp.
+     */
+    public void update(long latencyNanos, int used, long nowNanos) {
+        if (latencyNanos > 0) {
+            if (baselineLatency == 0) {
+                recentLatency = latencyNanos;
+                baselineLatency = latencyNanos;
+            }
+            recentLatency += (latencyNanos - recentLatency) * RECENT_WEIGHT;
+            // The baseline falls as fast as the recent latency and rises slowly, so that
+            // it stays near the latency of a server that is not queueing
+            baselineLatency += (latencyNanos - baselineLatency)
+                    * (latencyNanos < baselineLatency ? RECENT_WEIGHT : BASELINE_WEIGHT);
+        }
+
+        boolean queueing = recentLatency > baselineLatency * tolerance
+                && limit * (1 - baselineLatency / recentLatency) > QUEUE_ALLOWANCE;
+        if (latencyNanos < 0 || queueing) {
+            long roundTrip = recentLatency == 0 ? 1_000_000_000L : (long) recentLatency;
+            if (nowNanos - lastDecreaseNanos >= roundTrip) {
+                limit = Math.max(minLimit, limit * backoff);
+                lastDecreaseNanos = nowNanos;
+                decreases++;
+            }
+        } else if (used * 2 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        lowestLimit = Math.min(lowestLimit, (int) limit);
+        highestLimit = Math.max(highestLimit, (int) limit);
+    }
+
+    /**
+     * @return The current limit.
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return The recent latency, in nanoseconds (0 until a request
+     *         completes).
+     */
+    public double getRecentNanos() {
+        return recentLatency;
+    }
+
+    /**
+     * @return The baseline latency, in nanoseconds (0 until a request
+     *         completes).
+     */
+    public double getBaselineNanos() {
+        return baselineLatency;
+    }
+
+    /**
+     * @return The number of times the limit was lowered.
+     */
+    public long getDecreases() {
+        return decreases;
+    }
+
+    public int getLowestLimit() {
+        return lowestLimit;
+    }
+
+    public int getHighestLimit() {
+        return highestLimit;
+    }
+}
@@ -0,0 +1,527 @@
+package com.example.demo.server.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Reads CSV files through memory-mapped segments.
+ *
+ * The file is split into segments of roughly the same size, each one ending on
+ * a line break, so that every segment can be mapped and parsed independently
+ * (and in parallel). Only one segment needs to be mapped at a time per worker,
+ * which means files larger than the heap (or larger than 2 GB) can be read.
+ *
+ * Rows are never turned into a String: numbers and dates are decoded straight
+ * from the mapped bytes, and only text fields allocate a String.
+ *
+ * A row is one line: quoted fields may contain commas and quotes but not line
+ * breaks. The segments are split at line breaks without knowing whether they
+ * fall inside quotes, so a line break in a quoted field is reported as a
+ * malformed field, whatever the segment size, rather than read differently
+ * depending on where the segments end.
+ */
+public class MappedCsvReader {
+
+    /**
+     * Size of the buffer used to look for line breaks around segment boundaries.
+     */
+    private static final int BOUNDARY_SCAN_BYTES = 4096;
+
+    private final Path file;
+    private final long fileSize;
+    private final List<Segment> segments;
+
+    /**
+     * A byte range of the file that starts at the beginning of a line and ends
+     * right after a line break (or at the end of the file).
+     */
+    public static final class Segment {
+
+        private final int index;
+        private final long start;
+        private final long end;
+
+        Segment(int index, long start, long end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public long length() {
+            return end - start;
+        }
+    }
+
+    private MappedCsvReader(Path file, long fileSize, List<Segment> segments) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.segments = segments;
+    }
+
+    /**
+     * Opens a CSV file and computes its segments.
+     *
+     * @param file         The CSV file to read.
+     * @param segmentBytes The target size of each segment, in bytes.
+     * @return A reader over the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static MappedCsvReader open(Path file, long segmentBytes) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 1 and " + Integer.MAX_VALUE + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Segment> segments = new ArrayList<>();
+
+            long start = 0;
+            while (start < size) {
+                // Move the tentative end forward to the next line break
+                long end = Math.min(size, start + segmentBytes);
+                if (end < size) {
+                    end = nextLineStart(channel, end, size);
+                }
+
+                segments.add(new Segment(segments.size(), start, end));
+                start = end;
+            }
+
+            return new MappedCsvReader(file, size, segments);
+        }
+    }
+
+    /**
+     * Finds the position right after the first line break at or after the given
+     * position.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        return size;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Streams the rows of a segment, mapping the segment lazily on subscription.
+     * The row parser is called once per row with the cursor positioned on its
+     * first field.
+     *
+     * @param segment    The segment to read.
+     * @param skipHeader Whether the first line of the file is a header (only
+     *                   relevant for the first segment).
+     * @param rowParser  Function that decodes the fields of the current row.
+     * @return A Flux with one element per row of the segment.
+     */
+    public <T> Flux<T> rows(Segment segment, boolean skipHeader, Function<Cursor, T> rowParser) {
+        return Flux.generate(
+                () -> {
+                    MappedByteBuffer buffer;
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                        // The mapping stays valid after the channel is closed
+                        buffer = channel.map(FileChannel.MapMode.READ_ONLY, segment.getStart(), segment.length());
+                    }
+
+                    Cursor cursor = new Cursor(buffer);
+                    if (skipHeader && segment.getStart() == 0) {
+                        cursor.skipLine();
+                    }
+                    return cursor;
+                },
+                (cursor, sink) -> {
+                    if (cursor.nextRow()) {
+                        sink.next(rowParser.apply(cursor));
+                    } else {
+                        sink.complete();
+                    }
+                    return cursor;
+                });
+    }
+
+    /**
+     * Sequential reader of the fields of a mapped segment.
+     *
+     * Each read consumes one field and the delimiter that follows it.
+     */
+    public static final class Cursor {
+
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+        private final ByteBuffer buffer;
+        private final int limit;
+        private int position;
+        private boolean inRow;
+
+        // Reused buffer for text fields, grown when a longer field shows up
+        private byte[] scratch = new byte[64];
+
+        Cursor(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        /**
+         * Moves to the next non-empty line.
+         *
+         * @return true if there is a row to read.
+         */
+        public boolean nextRow() {
+            if (inRow) {
+                skipLine();
+            }
+
+            // Skip blank lines
+            while (position < limit && isLineBreak(buffer.get(position))) {
+                position++;
+            }
+
+            inRow = position < limit;
+            return inRow;
+        }
+
+        /**
+         * Skips the remainder of the current line, including the line break.
+         */
+        void skipLine() {
+            while (position < limit && buffer.get(position) != '\n') {
+                position++;
+            }
+            if (position < limit) {
+                position++;
+            }
+            inRow = false;
+        }
+
+        /**
+         * @return true if the current field is empty.
+         */
+        public boolean isEmptyField() {
+            return position >= limit || isDelimiter(buffer.get(position));
+        }
+
+        /**
+         * Skips the current field.
+         */
+        public void skipField() {
+            while (position < limit && !isDelimiter(buffer.get(position))) {
+                position++;
+            }
+            consumeDelimiter();
+        }
+
+        /**
+         * Reads the current field as a long.
+         *
+         * @throws IllegalArgumentException If the field is not an integer or
+         *                                  does not fit in a long.
+         */
+        public long nextLong() {
+            int start = position;
+            boolean negative = false;
+            if (position < limit && buffer.get(position) == '-') {
+                negative = true;
+                position++;
+            }
+
+            // Accumulated as a negative number, as Long.parseLong does, so that
+            // Long.MIN_VALUE fits too
+            long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long value = 0;
+            int digits = 0;
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                int digit = b - '0';
+                if (value < bound / 10 || value * 10 < bound + digit) {
+                    throw malformed("integer", start);
+                }
+                value = value * 10 - digit;
+                digits++;
+                position++;
+            }
+
+            if (digits == 0 || (position < limit && !isDelimiter(buffer.get(position)))) {
+                throw malformed("integer", start);
+            }
+
+            consumeDelimiter();
+            return negative ? value : -value;
+        }
+
+        /**
+         * Reads the current field as a double.
+         *
+         * Plain decimals with up to 15 significant digits are decoded directly;
+         * anything else (exponents, very long mantissas) falls back to
+         * {@link Double#parseDouble(String)}. Only digits, a sign, a dot and an
+         * exponent are accepted, so NaN, Infinity, hexadecimal and the d or f
+         * suffixes of Java literals are malformed, as are a lone sign or dot.
+         *
+         * @throws IllegalArgumentException If the field is not a decimal.
+         */
+        public double nextDouble() {
+            int start = position;
+            boolean negative = false;
+            if (position < limit && buffer.get(position) == '-') {
+                negative = true;
+                position++;
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int significantDigits = 0;
+            int fractionDigits = 0;
+            boolean seenDot = false;
+            boolean fastPath = true;
+
+            while (position < limit && !isDelimiter(buffer.get(position))) {
+                byte b = buffer.get(position);
+                if (b >= '0' && b <= '9') {
+                    digits++;
+                    if (significantDigits > 0 || b != '0') {
+                        significantDigits++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (seenDot) {
+                        fractionDigits++;
+                    }
+                } else if (b == '.' && !seenDot) {
+                    seenDot = true;
+                } else if (b == 'e' || b == 'E' || b == '+' || b == '-' || b == '.') {
+                    fastPath = false;
+                } else {
+                    throw malformed("decimal", start);
+                }
+                position++;
+            }
+
+            if (digits == 0) {
+                throw malformed("decimal", start);
+            }
+
+            if (!fastPath || significantDigits > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+                String text = decode(start, position - start);
+                consumeDelimiter();
+                try {
+                    return Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    throw malformed("decimal", start);
+                }
+            }
+
+            consumeDelimiter();
+            // Both values are exact doubles, so the division is correctly rounded
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        /**
+         * Reads the current field as an ISO date (yyyy-MM-dd).
+         */
+        public LocalDate nextDate() {
+            int start = position;
+            int year = readDigits(4, start);
+            expect('-', start);
+            int month = readDigits(2, start);
+            expect('-', start);
+            int day = readDigits(2, start);
+
+            if (position < limit && !isDelimiter(buffer.get(position))) {
+                throw malformed("date", start);
+            }
+
+            consumeDelimiter();
+            try {
+                return LocalDate.of(year, month, day);
+            } catch (DateTimeException e) {
+                throw malformed("date", start); // Such as 2024-13-45 or 2023-02-29
+            }
+        }
+
+        /**
+         * Reads the current field as text. Double-quoted fields may contain commas
+         * and escaped quotes (""), but not line breaks (see MappedCsvReader).
+         *
+         * @throws IllegalArgumentException If a quoted field is not closed on
+         *                                  its line.
+         */
+        public String nextString() {
+            if (position < limit && buffer.get(position) == '"') {
+                return nextQuotedString();
+            }
+
+            int start = position;
+            while (position < limit && !isDelimiter(buffer.get(position))) {
+                position++;
+            }
+
+            String value = decode(start, position - start);
+            consumeDelimiter();
+            return value;
+        }
+
+        private String nextQuotedString() {
+            int start = position;
+            position++; // Opening quote
+
+            int length = 0;
+            while (true) {
+                if (position >= limit || isLineBreak(buffer.get(position))) {
+                    throw new IllegalArgumentException("Malformed quoted text field, not closed on its line: '"
+                            + decode(start, position - start) + "'");
+                }
+
+                byte b = buffer.get(position++);
+                if (b == '"') {
+                    // A doubled quote is an escaped quote, anything else closes the field
+                    if (position < limit && buffer.get(position) == '"') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+
+                ensureScratch(length + 1);
+                scratch[length++] = b;
+            }
+
+            consumeDelimiter();
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private String decode(int start, int length) {
+            ensureScratch(length);
+            buffer.get(start, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void ensureScratch(int length) {
+            if (length > scratch.length) {
+                byte[] grown = new byte[Math.max(length, scratch.length * 2)];
+                System.arraycopy(scratch, 0, grown, 0, scratch.length);
+                scratch = grown;
+            }
+        }
+
+        private int readDigits(int count, int fieldStart) {
+            int value = 0;
+            for (int i = 0; i < count; i++) {
+                if (position >= limit) {
+                    throw malformed("date", fieldStart);
+                }
+                byte b = buffer.get(position++);
+                if (b < '0' || b > '9') {
+                    throw malformed("date", fieldStart);
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private void expect(char expected, int fieldStart) {
+            if (position >= limit || buffer.get(position) != expected) {
+                throw malformed("date", fieldStart);
+            }
+            position++;
+        }
+
+        /**
+         * Consumes the delimiter after a field: a comma, or a line break that also
+         * ends the row.
+         */
+        private void consumeDelimiter() {
+            if (position >= limit) {
+                inRow = false;
+                return;
+            }
+
+            byte b = buffer.get(position);
+            if (b == ',') {
+                position++;
+                return;
+            }
+
+            if (b == '\r') {
+                position++;
+                if (position < limit && buffer.get(position) == '\n') {
+                    position++;
+                }
+                inRow = false;
+            } else if (b == '\n') {
+                position++;
+                inRow = false;
+            }
+        }
+
+        private IllegalArgumentException malformed(String type, int fieldStart) {
+            int end = fieldStart;
+            while (end < limit && !isDelimiter(buffer.get(end))) {
+                end++;
+            }
+            return new IllegalArgumentException(
+                    "Malformed " + type + " field: '" + decode(fieldStart, end - fieldStart) + "'");
+        }
+
+        private static boolean isDelimiter(byte b) {
+            return b == ',' || isLineBreak(b);
+        }
+
+        private static boolean isLineBreak(byte b) {
+            return b == '\n' || b == '\r';
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.client.Tasks;
+import com.example.demo.client.join.Joins;
+import com.example.demo.client.utils.ExternalSorter;
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+/**
+ * The client tasks that sort, in the memory-bounded mode (--max-in-memory),
+ * over up to 10^7 pets with a 128 MB heap.
+ *
+ * The pets are generated as they are consumed rather than replayed from a
+ * list, standing in for a GET /pet that is read as it arrives, so the heap
+ * only has to hold what the tasks keep: at most maxInMemory elements per sort,
+ * plus the head of each spilled run. Sorting 10^7 pets in memory
+ * (maxInMemory=0) does not fit in this heap: task 4 then does little but
+ * collect garbage until JMH's 10 minute timeout interrupts it.
+ *
+ * Each measurement is a single run (one external sort of about 10^7 elements
+ * takes tens of seconds).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx128m" })
+public class BoundedMemoryBenchmark {
+
+    @Param({ "1000000", "10000000" })
+    public int pets;
+
+    @Param({ "100000" })
+    public int maxInMemory;
+
+    private DatasetGenerator generator;
+    private Tasks tasks;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() {
+        generator = new DatasetGenerator(new DatasetSpec(42, Math.max(1, pets / 10), pets));
+        tasks = new Tasks(null, maxInMemory);
+
+        // Every task prints its duration; keep the benchmark output readable
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+        System.out.println("Sorted externally " + tasks.getSorters());
+    }
+
+    @Benchmark
+    public Pet task4PetsSortedByWeight() {
+        return tasks.petsSortedByWeight(generator.pets().limitRate(256)).block();
+    }
+
+    /**
+     * Tasks 7, 8 and 9 from the merge join, as ClientApplication runs them
+     * with --join=merge --max-in-memory.
+     */
+    @Benchmark
+    public void tasks7To9MergeJoin() {
+        ExternalSorter<Owner> ownersById = ExternalSorter.json("ownersById", Owner.class,
+                Comparator.comparing(Owner::getIdentifier), maxInMemory);
+        ExternalSorter<Pet> petsByOwner = ExternalSorter.json("petsByOwner", Pet.class,
+                Comparator.comparing(Pet::getOwnerid), maxInMemory);
+        Flux<Tuple2<Owner, List<Pet>>> ownersWithPets = Joins.mergeGroupJoin(
+                ownersById.sort(generator.owners().limitRate(256)), Owner::getIdentifier,
+                petsByOwner.sort(generator.pets().limitRate(256)), Pet::getOwnerid).publish().autoConnect(3);
+
+        Mono.when(
+                tasks.averagePetsPerOwnerJoined(ownersWithPets),
+                tasks.ownerNamesAndPetCountsSortedJoined(ownersWithPets),
+                tasks.ownerNamesAndPetNamesForTask9Joined(ownersWithPets))
+                .block();
+    }
+}
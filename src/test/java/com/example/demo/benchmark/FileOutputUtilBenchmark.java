@@ -0,0 +1,68 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.client.utils.AsyncFileOutput;
+import com.example.demo.client.utils.FileOutputUtil;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Benchmarks of FileOutputUtil, which the tasks used to write their results,
+ * and of AsyncFileOutput, which replaced it.
+ *
+ * Files are written to the output/ directory under the working directory (the
+ * benchmark profile runs in target/jmh); the file is cleared before every
+ * iteration so that appends do not grow it without bounds.
+ */
+@SuppressWarnings("deprecation") // FileOutputUtil is measured on purpose, as the baseline
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileOutputUtilBenchmark {
+
+    private static final String FILE = "Benchmark_fileOutput.txt";
+
+    @Param({ "100", "1000000" })
+    public int bytes;
+
+    private String data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = "x".repeat(bytes);
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        FileOutputUtil.clearFile(FILE);
+    }
+
+    @Benchmark
+    public void writeToFile() {
+        FileOutputUtil.writeToFile(FILE, data);
+    }
+
+    /**
+     * What every task did with its result: clear the file, then write it.
+     */
+    @Benchmark
+    public void clearAndWrite() {
+        FileOutputUtil.clearFile(FILE);
+        FileOutputUtil.writeToFile(FILE, data);
+    }
+
+    /**
+     * What every task does now: write its result to a temporary file that
+     * then replaces the file.
+     */
+    @Benchmark
+    public void asyncWriteLines() {
+        AsyncFileOutput.writeLines(FILE, Mono.just(data)).block();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.client.stats.KeyCounter;
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Pet;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * The pets per owner of Task 7 counted in a HashMap of boxed ids and counts,
+ * as Task 7 used to, and in a KeyCounter, as it does now.
+ *
+ * Run with -prof gc to compare the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupByBenchmark {
+
+    @Param({ "100000", "1000000" })
+    public int pets;
+
+    private List<Pet> petList;
+
+    @Setup
+    public void setUp() {
+        DatasetGenerator generator = new DatasetGenerator(new DatasetSpec(42, Math.max(1, pets / 10), pets));
+        petList = generator.pets().collectList().block();
+    }
+
+    @Benchmark
+    public int petsPerOwnerHashMap() {
+        return Flux.fromIterable(petList)
+                .collect(HashMap<Long, Long>::new, (map, pet) -> map.merge(pet.getOwnerid(), 1L, Long::sum))
+                .block()
+                .size();
+    }
+
+    @Benchmark
+    public int petsPerOwnerKeyCounter() {
+        return Flux.fromIterable(petList)
+                .collect(KeyCounter::new, (counter, pet) -> counter.increment(pet.getOwnerid()))
+                .block()
+                .size();
+    }
+}
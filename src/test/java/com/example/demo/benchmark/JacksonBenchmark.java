@@ -0,0 +1,76 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Benchmarks of the JSON encoding and decoding of Pet and Owner lists, with
+ * the same ObjectMapper settings as the server (ISO dates, Java time module).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonBenchmark {
+
+    private static final TypeReference<List<Pet>> PET_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Owner>> OWNER_LIST = new TypeReference<>() {
+    };
+
+    @Param({ "100", "10000" })
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Pet> pets;
+    private List<Owner> owners;
+    private byte[] petsJson;
+    private byte[] ownersJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        DatasetGenerator generator = new DatasetGenerator(new DatasetSpec(42, size, size));
+        pets = generator.pets().collectList().block();
+        owners = generator.owners().collectList().block();
+        petsJson = objectMapper.writeValueAsBytes(pets);
+        ownersJson = objectMapper.writeValueAsBytes(owners);
+    }
+
+    @Benchmark
+    public byte[] encodePets() throws IOException {
+        return objectMapper.writeValueAsBytes(pets);
+    }
+
+    @Benchmark
+    public List<Pet> decodePets() throws IOException {
+        return objectMapper.readValue(petsJson, PET_LIST);
+    }
+
+    @Benchmark
+    public byte[] encodeOwners() throws IOException {
+        return objectMapper.writeValueAsBytes(owners);
+    }
+
+    @Benchmark
+    public List<Owner> decodeOwners() throws IOException {
+        return objectMapper.readValue(ownersJson, OWNER_LIST);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.client.Tasks;
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Pet;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Scaling of the CPU-heavy client tasks with --rails: the aggregations of
+ * tasks 3, 5 and 7 and of the single pass on parallel rails, and the sort of
+ * Task 4 on a fork-join pool; rails=1 is the sequential path.
+ *
+ * The pets are replayed from memory, so only the computation (and the file
+ * output) is measured. Run on a machine with at least as many cores as the
+ * largest number of rails, e.g. with -p rails=1,2,4,8.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelRailsBenchmark {
+
+    @Param({ "1000000" })
+    public int pets;
+
+    @Param({ "1", "2", "4" })
+    public int rails;
+
+    private Tasks tasks;
+    private List<Pet> petList;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() {
+        DatasetGenerator generator = new DatasetGenerator(new DatasetSpec(42, Math.max(1, pets / 10), pets));
+        petList = generator.pets().collectList().block();
+        tasks = new Tasks(null, 0, 0, rails);
+
+        // Every task prints its duration; keep the benchmark output readable
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    private Flux<Pet> allPets() {
+        return Flux.fromIterable(petList);
+    }
+
+    @Benchmark
+    public void task3NumberOfDogs() {
+        tasks.numberOfDogs(allPets()).block();
+    }
+
+    @Benchmark
+    public Pet task4PetsSortedByWeight() {
+        return tasks.petsSortedByWeight(allPets()).block();
+    }
+
+    @Benchmark
+    public void task5AverageAndStdDevOfWeights() {
+        tasks.averageAndStdDevOfWeights(allPets()).block();
+    }
+
+    @Benchmark
+    public void task7AveragePetsPerOwner() {
+        tasks.averagePetsPerOwner(allPets()).block();
+    }
+
+    @Benchmark
+    public void petStatisticsSinglePass() {
+        tasks.petStatisticsSinglePass(allPets()).block();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.server.analytics.PetColumns;
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Pet;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares the analytics queries over a PetColumns snapshot with the same
+ * queries written as Flux pipelines over Pet objects (which is how they are
+ * computed when streaming from the repository).
+ *
+ * Run with (after `mvn test-compile`):
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main PetAnalytics
+ * where cp.txt comes from `mvn dependency:build-classpath -Dmdep.outputFile=cp.txt`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PetAnalyticsBenchmark {
+
+    @Param({ "100000", "1000000" })
+    public int pets;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private List<Pet> objects;
+    private PetColumns columns;
+
+    @Setup
+    public void setUp() {
+        DatasetGenerator generator = new DatasetGenerator(new DatasetSpec(42, pets / 10, pets));
+        objects = generator.pets().collectList().block();
+
+        PetColumns.Builder builder = PetColumns.builder();
+        objects.forEach(builder::add);
+        columns = builder.build();
+    }
+
+    private Flux<Pet> stream() {
+        return Flux.fromIterable(objects);
+    }
+
+    @Benchmark
+    public long countDogsFlux() {
+        return stream().filter(pet -> "dog".equalsIgnoreCase(pet.getSpecies()) && pet.getWeight() > 10).count().block();
+    }
+
+    @Benchmark
+    public long countDogsColumns() {
+        return columns.count("dog", 10, parallel);
+    }
+
+    @Benchmark
+    public double weightStatisticsFlux() {
+        // Sum and sum of squares, as the existing client tasks compute it
+        double[] sums = stream().reduce(new double[3], (acc, pet) -> {
+            acc[0]++;
+            acc[1] += pet.getWeight();
+            acc[2] += pet.getWeight() * pet.getWeight();
+            return acc;
+        }).block();
+        double mean = sums[1] / sums[0];
+        return Math.sqrt(sums[2] / sums[0] - mean * mean);
+    }
+
+    @Benchmark
+    public double weightStatisticsColumns() {
+        return Math.sqrt(columns.weightMoments(parallel).variance());
+    }
+
+    @Benchmark
+    public List<Pet> heaviestFlux() {
+        return stream().sort(Comparator.comparingDouble(Pet::getWeight).reversed()).take(10).collectList().block();
+    }
+
+    @Benchmark
+    public int[] heaviestColumns() {
+        return columns.heaviestRows(10, parallel);
+    }
+
+    @Benchmark
+    public Map<Long, Long> petCountsByOwnerFlux() {
+        return stream().groupBy(Pet::getOwnerid)
+                .flatMap(group -> group.count().map(count -> Map.entry(group.key(), count)), Integer.MAX_VALUE)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+    }
+
+    @Benchmark
+    public PetColumns.OwnerCounts petCountsByOwnerColumns() {
+        return columns.petCountsByOwner(parallel);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.inmemory.InMemoryOwnerRepository;
+import com.example.demo.server.repository.inmemory.InMemoryPetRepository;
+import com.example.demo.server.service.OwnerService;
+import com.example.demo.server.service.PetService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the PetService and OwnerService methods behind the REST
+ * endpoints, over the in-memory repositories so that only the service and
+ * reactive overhead is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int pets;
+
+    private int owners;
+    private PetService petService;
+    private OwnerService ownerService;
+    private Pet updatedPet;
+    private Owner updatedOwner;
+
+    @Setup
+    public void setUp() {
+        owners = Math.max(1, pets / 10);
+        DatasetGenerator generator = new DatasetGenerator(new DatasetSpec(42, owners, pets));
+
+        InMemoryPetRepository petRepository = new InMemoryPetRepository();
+        InMemoryOwnerRepository ownerRepository = new InMemoryOwnerRepository();
+        ownerRepository.storeAll(generator.owners().collectList().block());
+        petRepository.storeAll(generator.pets().collectList().block());
+
+        petService = new PetService(petRepository, ownerRepository, event -> {
+        });
+        ownerService = new OwnerService(ownerRepository, petRepository);
+        updatedPet = generator.pet(1);
+        updatedOwner = generator.owner(1);
+    }
+
+    private long randomPetId() {
+        return ThreadLocalRandom.current().nextLong(pets) + 1;
+    }
+
+    private long randomOwnerId() {
+        return ThreadLocalRandom.current().nextLong(owners) + 1;
+    }
+
+    @Benchmark
+    public Pet getPetById() {
+        return petService.getPetById(randomPetId()).block();
+    }
+
+    @Benchmark
+    public Long getPetIdsByOwnerId() {
+        return petService.getPetIdsByOwnerId(randomOwnerId()).count().block();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Long getAllPets() {
+        return petService.getAllPets().count().block();
+    }
+
+    @Benchmark
+    public Pet updatePet() {
+        return petService.updatePet(1L, updatedPet).block();
+    }
+
+    @Benchmark
+    public Owner getOwnerById() {
+        return ownerService.getOwnerById(randomOwnerId()).block();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Long getAllOwners() {
+        return ownerService.getAllOwners().count().block();
+    }
+
+    @Benchmark
+    public Owner updateOwner() {
+        return ownerService.updateOwner(1L, updatedOwner).block();
+    }
+}
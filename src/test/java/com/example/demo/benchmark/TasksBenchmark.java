@@ -0,0 +1,105 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.client.Tasks;
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Benchmarks of the client Tasks 1-7 over generated inputs of increasing size.
+ *
+ * The inputs are replayed from memory, so the results measure the reactive
+ * pipelines and the file output of each task without the network. Tasks 8-10
+ * call the server for every owner and are not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TasksBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int pets;
+
+    private Tasks tasks;
+    private Tasks top10Tasks;
+    private List<Pet> petList;
+    private List<Owner> ownerList;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() {
+        DatasetGenerator generator = new DatasetGenerator(new DatasetSpec(42, Math.max(1, pets / 10), pets));
+        petList = generator.pets().collectList().block();
+        ownerList = generator.owners().collectList().block();
+        tasks = new Tasks(null);
+        top10Tasks = new Tasks(null, 0, 10);
+
+        // Every task prints its duration; keep the benchmark output readable
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    private Flux<Pet> allPets() {
+        return Flux.fromIterable(petList);
+    }
+
+    @Benchmark
+    public void task1OwnersNamesPhones() {
+        tasks.ownersNamesPhones(Flux.fromIterable(ownerList)).block();
+    }
+
+    @Benchmark
+    public void task2NumberOfPets() {
+        tasks.numberOfPets(allPets()).block();
+    }
+
+    @Benchmark
+    public void task3NumberOfDogs() {
+        tasks.numberOfDogs(allPets()).block();
+    }
+
+    @Benchmark
+    public Pet task4PetsSortedByWeight() {
+        return tasks.petsSortedByWeight(allPets()).block();
+    }
+
+    /**
+     * Task 4 with --limit=10: the 10 lightest pets, without sorting them all.
+     */
+    @Benchmark
+    public Pet task4PetsSortedByWeightTop10() {
+        return top10Tasks.petsSortedByWeight(allPets()).block();
+    }
+
+    @Benchmark
+    public void task5AverageAndStdDevOfWeights() {
+        tasks.averageAndStdDevOfWeights(allPets()).block();
+    }
+
+    @Benchmark
+    public void task6NameOfEldestPet() {
+        tasks.nameOfEldestPet(allPets()).block();
+    }
+
+    @Benchmark
+    public void task7AveragePetsPerOwner() {
+        tasks.averagePetsPerOwner(allPets()).block();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.client;
+
+import com.example.demo.client.exceptions.ClientException;
+import com.example.demo.client.utils.AdaptiveLimiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Test class for AdaptiveLimiter.
+ *
+ * This class checks that no more requests than the limit are in flight and
+ * the others wait in order, that the limit rises while the round-trip time
+ * stays low and falls, once per round trip, when it rises or the server is
+ * overloaded, but not when the limit is too small for the server to queue,
+ * and that cancelled requests free their place.
+ */
+public class AdaptiveLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final List<Sinks.One<String>> answers = new ArrayList<>();
+    private final List<String> received = new ArrayList<>();
+
+    private AdaptiveLimiter limiter(int initialLimit) {
+        return new AdaptiveLimiter("test", initialLimit, 1, 100, 2.0, 0.5, clock::get);
+    }
+
+    /**
+     * Send a request whose answer is given later through its sink.
+     */
+    private Disposable send(AdaptiveLimiter limiter) {
+        return limiter.limit(() -> {
+            Sinks.One<String> answer = Sinks.one();
+            answers.add(answer);
+            return answer.asMono();
+        }).subscribe(received::add, error -> received.add("error"));
+    }
+
+    private void answer(int request) {
+        answers.get(request).tryEmitValue("answer " + request);
+    }
+
+    /**
+     * Test that requests beyond the limit wait and start in order as places
+     * are freed.
+     */
+    @Test
+    public void limitTest() {
+        AdaptiveLimiter limiter = limiter(2);
+        for (int i = 0; i < 4; i++) {
+            send(limiter);
+        }
+        assertEquals(2, answers.size());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(2, limiter.getQueued());
+
+        clock.addAndGet(10_000_000);
+        answer(1);
+        assertEquals(3, limiter.getLimit()); // A fast answer with the places all used
+        assertEquals(4, answers.size());
+        answer(0);
+        answer(2);
+        answer(3);
+
+        assertEquals(List.of("answer 1", "answer 0", "answer 2", "answer 3"), received);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(2, limiter.getRequestsQueued());
+        assertEquals(2, limiter.getMaxQueued());
+    }
+
+    /**
+     * Test that the limit rises with fast answers, falls once when the
+     * answers slow down, and falls again on overload errors.
+     */
+    @Test
+    public void adaptTest() {
+        AdaptiveLimiter limiter = limiter(20);
+
+        // Fast answers, with all the places used: the limit rises
+        for (int i = 0; i < 20; i++) {
+            send(limiter);
+        }
+        clock.addAndGet(10_000_000);
+        for (int i = 0; i < 20; i++) {
+            answer(i);
+        }
+        int raised = limiter.getLimit();
+        assertTrue(raised > 20, "limit " + raised);
+
+        // A client error is an answer like any other
+        limiter.limit(() -> Mono.error(new ClientException("Not found", 404))).subscribe(value -> {
+        }, error -> {
+        });
+        assertEquals(0, limiter.getDecreases());
+
+        // Answers 5 times slower than the baseline: one decrease for the burst
+        int sent = answers.size();
+        for (int i = 0; i < raised; i++) {
+            send(limiter);
+        }
+        clock.addAndGet(50_000_000);
+        for (int i = sent; i < answers.size(); i++) {
+            answer(i);
+        }
+        int lowered = limiter.getLimit();
+        assertTrue(lowered < raised, "limit " + lowered);
+        assertEquals(1, limiter.getDecreases());
+
+        // A server error a round trip later: another decrease
+        clock.addAndGet(100_000_000);
+        limiter.limit(() -> Mono.error(new ClientException("Unavailable", 503))).subscribe(value -> {
+        }, error -> {
+        });
+        assertEquals(lowered / 2, limiter.getLimit());
+        assertEquals(2, limiter.getDecreases());
+    }
+
+    /**
+     * Test that answers slowing down twentyfold do not lower a limit no
+     * larger than the queue allowance: so few requests cannot be what the
+     * server is queueing.
+     */
+    @Test
+    public void smallLimitTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 2, 1, 4, 2.0, 0.5, clock::get);
+        for (int round = 1; round <= 20; round++) {
+            int sent = answers.size();
+            send(limiter);
+            send(limiter);
+            clock.addAndGet(round * 1_000_000L);
+            answer(sent);
+            answer(sent + 1);
+        }
+        assertEquals(0, limiter.getDecreases());
+        assertEquals(4, limiter.getLimit());
+    }
+
+    /**
+     * Test that a cancelled request frees its place, or its turn in the queue,
+     * without changing the limit.
+     */
+    @Test
+    public void cancelTest() {
+        AdaptiveLimiter limiter = limiter(1);
+        Disposable first = send(limiter);
+        Disposable second = send(limiter);
+        send(limiter);
+        assertEquals(2, limiter.getQueued());
+
+        second.dispose();
+        assertEquals(1, limiter.getQueued());
+        first.dispose();
+        assertEquals(2, answers.size()); // The third request took the place
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getLimit());
+
+        answer(1);
+        assertEquals(List.of("answer 1"), received);
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.client;
+
+import com.example.demo.client.utils.AsyncFileOutput;
+import com.example.demo.client.utils.FileOutputUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for AsyncFileOutput.
+ *
+ * This class checks that the lines are written in order and replace the file
+ * only once complete, and, with BlockHound, that writing from a non-blocking
+ * thread does not block it (while FileOutputUtil does).
+ */
+public class AsyncFileOutputTest {
+
+    private static final String NON_BLOCKING_THREAD = "non-blocking-test";
+
+    private static Scheduler nonBlocking;
+
+    @TempDir
+    Path directory;
+
+    private static final List<Throwable> workerFailures = new CopyOnWriteArrayList<>();
+
+    /**
+     * Check blocking calls only on the threads of this test's scheduler, which
+     * stands for the Netty event loops, so that other tests are not affected.
+     * The executor behind the scheduler parks its idle workers, which is
+     * allowed as in Reactor's own BlockHound integration.
+     */
+    @BeforeAll
+    public static void installBlockHound() {
+        String delayedWorkQueue = ScheduledThreadPoolExecutor.class.getName() + "$DelayedWorkQueue";
+        BlockHound.builder()
+                .nonBlockingThreadPredicate(current -> thread -> thread.getName().startsWith(NON_BLOCKING_THREAD))
+                .allowBlockingCallsInside(delayedWorkQueue, "offer")
+                .allowBlockingCallsInside(delayedWorkQueue, "take")
+                .allowBlockingCallsInside(delayedWorkQueue, "remove")
+                .allowBlockingCallsInside(ThreadPoolExecutor.class.getName(), "processWorkerExit")
+                .install();
+        Schedulers.onHandleError(NON_BLOCKING_THREAD, (thread, error) -> workerFailures.add(error));
+
+        // Errors outside of the tasks (e.g. while a worker waits for one) end up in the thread's handler
+        AtomicInteger threads = new AtomicInteger();
+        nonBlocking = Schedulers.newParallel(2, task -> {
+            Thread thread = new Thread(task, NON_BLOCKING_THREAD + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((failed, error) -> workerFailures.add(error));
+            return thread;
+        });
+    }
+
+    @AfterAll
+    public static void disposeScheduler() {
+        nonBlocking.dispose();
+        Schedulers.resetOnHandleError(NON_BLOCKING_THREAD);
+    }
+
+    /**
+     * No worker of the scheduler may die of an error (a blocking call outside
+     * of the pipelines under test).
+     */
+    @AfterEach
+    public void checkNoWorkerFailed() {
+        assertEquals(List.of(), workerFailures);
+    }
+
+    /**
+     * Test that many lines, spanning several batches, are written in order.
+     */
+    @Test
+    public void writeLinesTest() throws IOException {
+        Path file = directory.resolve("lines.txt");
+        List<String> lines = IntStream.range(0, 50_000).mapToObj(i -> "Line " + i).collect(Collectors.toList());
+
+        StepVerifier.create(AsyncFileOutput.writeLines(file, Flux.fromIterable(lines))).verifyComplete();
+
+        assertEquals(lines, Files.readAllLines(file));
+        assertEquals(1, Files.list(directory).count());
+    }
+
+    /**
+     * Test that a failed write leaves the previous file in place and removes
+     * its temporary file.
+     */
+    @Test
+    public void failedWriteKeepsFileTest() throws IOException {
+        Path file = directory.resolve("kept.txt");
+        Files.writeString(file, "previous\n");
+
+        Flux<String> failing = Flux.range(0, 100_000).map(i -> "Line " + i)
+                .concatWith(Flux.error(new IllegalStateException("failed")));
+        StepVerifier.create(AsyncFileOutput.writeLines(file, failing)).expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals("previous\n", Files.readString(file));
+        assertEquals(1, Files.list(directory).count());
+    }
+
+    /**
+     * Test that lines produced on a non-blocking thread are written without
+     * blocking it, whereas FileOutputUtil blocks it.
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void noBlockingOnNonBlockingThreadTest() throws IOException {
+        Path file = directory.resolve("nonblocking.txt");
+
+        // After: the lines are produced and handed to the file channel on the non-blocking thread
+        Flux<String> lines = Flux.range(0, 20_000).map(i -> "Line " + i).publishOn(nonBlocking);
+        StepVerifier.create(AsyncFileOutput.writeLines(file, lines)).verifyComplete();
+        assertEquals(20_000, Files.readAllLines(file).size());
+
+        // Before: FileOutputUtil opens and writes the file on the calling thread
+        AtomicBoolean blocked = new AtomicBoolean();
+        Mono.fromRunnable(() -> FileOutputUtil.writeToFile("blockhound.txt", "data"))
+                .subscribeOn(nonBlocking)
+                .onErrorResume(BlockingOperationError.class, e -> {
+                    blocked.set(true);
+                    return Mono.empty();
+                })
+                .block();
+        assertTrue(blocked.get());
+        Files.deleteIfExists(Path.of("output", "blockhound.txt"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.client;
+
+import com.example.demo.client.service.BatchLoader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for BatchLoader.
+ *
+ * This class checks that loads are grouped into batches by window and size,
+ * that repeated keys are requested once, and that every caller gets its own
+ * result.
+ */
+public class BatchLoaderTest {
+
+    private static final Map<Long, String> VALUES = Map.of(1L, "one", 2L, "two", 3L, "three");
+
+    private static Function<List<Long>, Flux<String>> recording(List<List<Long>> batches) {
+        return keys -> {
+            batches.add(keys);
+            return Flux.fromIterable(keys).filter(VALUES::containsKey).map(VALUES::get);
+        };
+    }
+
+    private static Long keyOf(String value) {
+        return VALUES.entrySet().stream().filter(e -> e.getValue().equals(value)).findFirst().get().getKey();
+    }
+
+    /**
+     * Test that loads within the window share one deduplicated batch, and that
+     * a key without a value completes empty.
+     */
+    @Test
+    public void windowTest() {
+        List<List<Long>> batches = new CopyOnWriteArrayList<>();
+        BatchLoader<Long, String> loader = new BatchLoader<>("test", recording(batches), BatchLoaderTest::keyOf,
+                Duration.ofMillis(50), 100);
+
+        StepVerifier.create(Flux.just(1L, 2L, 1L, 9L, 3L).flatMapSequential(id -> loader.load(id)
+                .defaultIfEmpty("none")).collectList())
+                .expectNext(List.of("one", "two", "one", "none", "three"))
+                .verifyComplete();
+
+        assertEquals(List.of(List.of(1L, 2L, 9L, 3L)), batches);
+        assertEquals(5, loader.getLoads());
+        assertEquals(1, loader.getDeduplicated());
+        assertEquals(4.0, loader.getAverageBatchSize());
+        assertTrue(loader.getMaxWaitMicros() >= 40_000, loader.toString());
+    }
+
+    /**
+     * Test that a batch is sent as soon as it reaches the maximum size.
+     */
+    @Test
+    public void maxBatchSizeTest() {
+        List<List<Long>> batches = new CopyOnWriteArrayList<>();
+        BatchLoader<Long, String> loader = new BatchLoader<>("test", recording(batches), BatchLoaderTest::keyOf,
+                Duration.ofSeconds(10), 2);
+
+        StepVerifier.create(Flux.just(1L, 2L, 3L, 1L).flatMapSequential(loader::load).collectList())
+                .expectNext(List.of("one", "two", "three", "one"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L, 1L)), batches);
+    }
+
+    /**
+     * Test that a failed batch fails every load in it.
+     */
+    @Test
+    public void errorTest() {
+        BatchLoader<Long, String> loader = new BatchLoader<>("test",
+                keys -> Flux.error(new IllegalStateException("down")), BatchLoaderTest::keyOf,
+                Duration.ofMillis(10), 100);
+
+        StepVerifier.create(Mono.zip(loader.load(1L).onErrorReturn("failed"), loader.load(2L).onErrorReturn("failed")))
+                .expectNextMatches(results -> results.getT1().equals("failed") && results.getT2().equals("failed"))
+                .verifyComplete();
+    }
+}
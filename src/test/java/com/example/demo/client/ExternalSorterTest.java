@@ -0,0 +1,124 @@
+package com.example.demo.client;
+
+import com.example.demo.client.utils.ExternalSorter;
+import com.example.demo.server.model.Pet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for ExternalSorter.
+ *
+ * This class checks that the external sort gives the same, stable, order as
+ * an in-memory sort, whether it fits in memory, spills a few runs or has to
+ * merge them in several passes, and that the spilled runs are deleted.
+ */
+public class ExternalSorterTest {
+
+    private static final Comparator<long[]> BY_KEY = Comparator.comparingLong(pair -> pair[0]);
+
+    /**
+     * A sorter of (key, position) pairs, by key only, to check stability.
+     */
+    private static ExternalSorter<long[]> sorter(int maxInMemory) {
+        return new ExternalSorter<>("test", BY_KEY, maxInMemory, pair -> pair[0] + "," + pair[1], line -> {
+            int comma = line.indexOf(',');
+            return new long[] { Long.parseLong(line.substring(0, comma)), Long.parseLong(line.substring(comma + 1)) };
+        });
+    }
+
+    private static List<long[]> pairs(int count, int distinctKeys) {
+        Random random = new Random(42);
+        List<long[]> pairs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pairs.add(new long[] { random.nextInt(distinctKeys), i });
+        }
+        return pairs;
+    }
+
+    private static void assertSorted(List<long[]> pairs, ExternalSorter<long[]> sorter) {
+        List<long[]> expected = new ArrayList<>(pairs);
+        expected.sort(BY_KEY);
+
+        List<long[]> sorted = sorter.sort(Flux.fromIterable(pairs)).collectList().block();
+
+        assertEquals(expected.size(), sorted.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i)[0], sorted.get(i)[0], "key at " + i);
+            assertEquals(expected.get(i)[1], sorted.get(i)[1], "position at " + i);
+        }
+    }
+
+    /**
+     * Test that a source that fits in memory is sorted without spilling.
+     */
+    @Test
+    public void inMemoryTest() {
+        ExternalSorter<long[]> sorter = sorter(1000);
+        assertSorted(pairs(500, 50), sorter);
+        assertEquals(0, sorter.getRuns());
+    }
+
+    /**
+     * Test that spilled runs are merged in a stable order and deleted.
+     */
+    @Test
+    public void spilledRunsTest() throws IOException {
+        ExternalSorter<long[]> sorter = sorter(100);
+        assertSorted(pairs(1050, 50), sorter);
+        assertEquals(10, sorter.getRuns());
+        assertEquals(1000, sorter.getSpilled());
+        assertEquals(0, countRunFiles());
+    }
+
+    /**
+     * Test that more runs than can be merged at once are merged in several
+     * passes, still in a stable order.
+     */
+    @Test
+    public void multiPassMergeTest() throws IOException {
+        ExternalSorter<long[]> sorter = sorter(10);
+        assertSorted(pairs(5_000, 100), sorter);
+        assertEquals(500, sorter.getRuns());
+        assertEquals(0, countRunFiles());
+    }
+
+    /**
+     * Test that pets survive the JSON runs and that a cancelled sort deletes
+     * its runs.
+     */
+    @Test
+    public void jsonAndCancelTest() throws IOException {
+        ExternalSorter<Pet> sorter = ExternalSorter.json("test", Pet.class, Comparator.comparingDouble(Pet::getWeight),
+                10);
+        Flux<Pet> pets = Flux.range(0, 100).map(i -> new Pet((long) i, "Pet " + i, "dog",
+                LocalDate.of(2020, 1, 1).plusDays(i), (double) ((i * 37) % 100), 1L));
+
+        StepVerifier.create(sorter.sort(pets).take(3))
+                .expectNextMatches(pet -> pet.getWeight() == 0 && pet.getBirth_date().equals(LocalDate.of(2020, 1, 1)))
+                .expectNextMatches(pet -> pet.getWeight() == 1 && pet.getName().equals("Pet 73"))
+                .expectNextMatches(pet -> pet.getWeight() == 2)
+                .verifyComplete();
+        assertEquals(0, countRunFiles());
+    }
+
+    private static long countRunFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("sort-test-")).count();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.client;
+
+import com.example.demo.client.utils.HedgedRequests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for HedgedRequests.
+ *
+ * This class checks that a slow request is hedged and the loser cancelled,
+ * that fast requests are not hedged, that the budget limits the hedges and
+ * that the delay follows the observed latencies.
+ */
+public class HedgedRequestsTest {
+
+    /**
+     * Test that the hedge answers for a slow request, which is cancelled.
+     */
+    @Test
+    public void slowRequestIsHedgedTest() {
+        HedgedRequests hedging = new HedgedRequests("test", 0.9, Duration.ofMillis(1), Duration.ofMillis(20), 0.1,
+                100);
+        AtomicInteger sent = new AtomicInteger();
+        AtomicBoolean firstCancelled = new AtomicBoolean();
+
+        Mono<String> hedged = hedging.hedge(() -> sent.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(5)).thenReturn("first").doOnCancel(() -> firstCancelled.set(true))
+                : Mono.just("second"));
+
+        StepVerifier.create(hedged).expectNext("second").verifyComplete();
+        assertEquals(2, sent.get());
+        assertTrue(firstCancelled.get());
+        assertEquals(1, hedging.getHedges());
+        assertEquals(1, hedging.getHedgesWon());
+    }
+
+    /**
+     * Test that a request answering before the delay is not hedged, including
+     * an empty answer and an error.
+     */
+    @Test
+    public void fastRequestIsNotHedgedTest() {
+        HedgedRequests hedging = new HedgedRequests("test", 0.9, Duration.ofMillis(1), Duration.ofMillis(200), 0.1,
+                100);
+        AtomicInteger sent = new AtomicInteger();
+
+        StepVerifier.create(hedging.hedge(() -> {
+            sent.incrementAndGet();
+            return Mono.just("value");
+        })).expectNext("value").verifyComplete();
+        StepVerifier.create(hedging.hedge(() -> {
+            sent.incrementAndGet();
+            return Mono.empty();
+        })).verifyComplete();
+        StepVerifier.create(hedging.hedge(() -> {
+            sent.incrementAndGet();
+            return Mono.error(new IllegalStateException("failed"));
+        })).expectError(IllegalStateException.class).verify();
+
+        assertEquals(3, sent.get());
+        assertEquals(0, hedging.getHedges());
+    }
+
+    /**
+     * Test that hedges beyond the budget are not sent.
+     */
+    @Test
+    public void budgetTest() {
+        HedgedRequests hedging = new HedgedRequests("test", 0.9, Duration.ofMillis(1), Duration.ofMillis(5), 0,
+                100);
+
+        // Every request is slower than the delay, but the budget only has its initial 10 hedges
+        StepVerifier.create(Flux.range(0, 15)
+                .flatMap(i -> hedging.hedge(() -> Mono.delay(Duration.ofMillis(50)).thenReturn(i)))
+                .count())
+                .expectNext(15L)
+                .verifyComplete();
+
+        assertEquals(15, hedging.getRequests());
+        assertEquals(10, hedging.getHedges());
+        assertEquals(5, hedging.getHedgesDenied());
+    }
+
+    /**
+     * Test that the delay moves from the maximum to the quantile of the
+     * latencies once enough are known.
+     */
+    @Test
+    public void adaptiveDelayTest() {
+        HedgedRequests hedging = new HedgedRequests("test", 0.5, Duration.ofMillis(1), Duration.ofSeconds(1), 0.1,
+                100);
+        assertEquals(Duration.ofSeconds(1).toNanos(), hedging.getDelayNanos());
+
+        StepVerifier.create(Flux.range(0, 64)
+                .concatMap(i -> hedging.hedge(() -> Mono.delay(Duration.ofMillis(5)).thenReturn(i)))
+                .count())
+                .expectNext(64L)
+                .verifyComplete();
+
+        long delayMillis = hedging.getDelayNanos() / 1_000_000;
+        assertTrue(delayMillis >= 4 && delayMillis < 100, hedging.toString());
+        assertEquals(0, hedging.getHedges());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.client;
+
+import com.example.demo.client.join.Joins;
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuple2;
+
+/**
+ * Test class for Joins.
+ *
+ * This class checks the hash and merge joins of owners and pets against the
+ * expected groups, including owners without pets and pets without a known
+ * owner.
+ */
+public class JoinsTest {
+
+    private static final Flux<Owner> OWNERS = Flux.range(1, 4)
+            .map(i -> new Owner((long) i, "Owner " + i, "91000000" + i));
+
+    // Owner 3 has no pets, owner 9 does not exist; sorted by owner id
+    private static final Flux<Pet> PETS = Flux.just(
+            pet(10, 1), pet(11, 1), pet(12, 2), pet(13, 4), pet(14, 4), pet(15, 4), pet(16, 9));
+
+    private static Pet pet(long id, long ownerId) {
+        return new Pet(id, "Pet " + id, "dog", LocalDate.of(2020, 1, 1), 10.0, ownerId);
+    }
+
+    private static List<String> groups(Flux<Tuple2<Owner, List<Pet>>> joined) {
+        return joined.map(tuple -> tuple.getT1().getName() + ": "
+                + tuple.getT2().stream().map(Pet::getName).collect(Collectors.joining(", ")))
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Test that the hash and merge group joins give every owner its pets, in
+     * order, and drop pets of unknown owners.
+     */
+    @Test
+    public void groupJoinTest() {
+        List<String> expected = List.of("Owner 1: Pet 10, Pet 11", "Owner 2: Pet 12", "Owner 3: ",
+                "Owner 4: Pet 13, Pet 14, Pet 15");
+
+        assertEquals(expected, groups(Joins.groupJoin(OWNERS, Owner::getIdentifier, PETS, Pet::getOwnerid)));
+        assertEquals(expected, groups(Joins.mergeGroupJoin(OWNERS, Owner::getIdentifier, PETS, Pet::getOwnerid)));
+    }
+
+    /**
+     * Test that the hash join pairs each pet with its owner.
+     */
+    @Test
+    public void hashJoinTest() {
+        StepVerifier.create(Joins.hashJoin(OWNERS, Owner::getIdentifier, PETS, Pet::getOwnerid,
+                (owner, pet) -> pet.getName() + " of " + owner.getName()).collectList())
+                .expectNext(List.of("Pet 10 of Owner 1", "Pet 11 of Owner 1", "Pet 12 of Owner 2", "Pet 13 of Owner 4",
+                        "Pet 14 of Owner 4", "Pet 15 of Owner 4"))
+                .verifyComplete();
+    }
+
+    /**
+     * Test that the merge join fails when a side is not sorted by key.
+     */
+    @Test
+    public void mergeJoinUnsortedTest() {
+        StepVerifier.create(Joins.mergeGroupJoin(OWNERS, Owner::getIdentifier, Flux.just(pet(1, 2), pet(2, 1)),
+                Pet::getOwnerid).collectList())
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+}
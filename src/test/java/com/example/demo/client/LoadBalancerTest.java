@@ -0,0 +1,152 @@
+package com.example.demo.client;
+
+import com.example.demo.client.utils.LoadBalancer;
+import com.example.demo.client.utils.LoadBalancer.Instance;
+import com.example.demo.client.utils.LoadBalancer.Strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Test class for LoadBalancer.
+ *
+ * This class starts several local servers on their own ports to check that
+ * the requests go to the less busy instances with both strategies, that
+ * failing and unreachable instances are ejected and come back after the
+ * ejection, and that each instance keeps its statistics.
+ */
+public class LoadBalancerTest {
+
+    private final List<DisposableServer> servers = new ArrayList<>();
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    /**
+     * A server that answers its name after the delay, or a 500 if failing.
+     */
+    private String server(String name, Duration delay, boolean failing) {
+        DisposableServer server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get("/name", (request, response) -> failing
+                        ? response.status(500).send()
+                        : response.sendString(Mono.just(name).delayElement(delay))))
+                .bindNow();
+        servers.add(server);
+        return "http://localhost:" + server.port();
+    }
+
+    @AfterEach
+    public void stopServers() {
+        servers.forEach(DisposableServer::disposeNow);
+    }
+
+    private static WebClient webClient(LoadBalancer balancer) {
+        // The base URL is replaced by the instances'; only its path is kept
+        return WebClient.builder().baseUrl("http://unused:1").filter(balancer).build();
+    }
+
+    private static Mono<String> name(WebClient webClient) {
+        return webClient.get().uri("/name").retrieve().bodyToMono(String.class)
+                .onErrorResume(error -> Mono.just("error"));
+    }
+
+    /**
+     * Send the requests with the given number in flight at once.
+     */
+    private static List<String> send(WebClient webClient, int requests, int concurrency) {
+        return Flux.range(0, requests).flatMap(i -> name(webClient), concurrency).collectList()
+                .block(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Test that with the least outstanding requests most requests go to the
+     * fast instance, and that the latency of each instance is kept.
+     */
+    @Test
+    public void leastOutstandingTest() {
+        LoadBalancer balancer = new LoadBalancer(List.of(server("fast", Duration.ZERO, false),
+                server("slow", Duration.ofMillis(200), false)), Strategy.LEAST_OUTSTANDING, 5,
+                Duration.ofSeconds(10), System::nanoTime);
+
+        List<String> names = send(webClient(balancer), 60, 3);
+
+        long fast = names.stream().filter("fast"::equals).count();
+        assertEquals(60, fast + names.stream().filter("slow"::equals).count());
+        assertTrue(fast > 45, "fast answered " + fast);
+        Instance slowInstance = balancer.getInstances().get(1);
+        assertEquals(60 - fast, slowInstance.getRequests());
+        assertTrue(slowInstance.getLatencyMillis(0.5) >= 150, slowInstance.toString());
+        balancer.getInstances().forEach(instance -> assertEquals(0, instance.getOutstanding()));
+    }
+
+    /**
+     * Test that the power of two choices spreads the requests over all the
+     * instances but sends fewer to the slow one.
+     */
+    @Test
+    public void powerOfTwoChoicesTest() {
+        LoadBalancer balancer = new LoadBalancer(List.of(server("a", Duration.ofMillis(5), false),
+                server("b", Duration.ofMillis(5), false), server("slow", Duration.ofMillis(200), false)),
+                Strategy.of("p2c"), 5, Duration.ofSeconds(10), System::nanoTime);
+
+        List<String> names = send(webClient(balancer), 90, 6);
+
+        long a = names.stream().filter("a"::equals).count();
+        long b = names.stream().filter("b"::equals).count();
+        long slow = names.stream().filter("slow"::equals).count();
+        assertEquals(90, a + b + slow);
+        assertTrue(a > slow && b > slow, a + " " + b + " " + slow);
+        assertThrows(IllegalArgumentException.class, () -> Strategy.of("round-robin"));
+    }
+
+    /**
+     * Test that an instance answering 500 and an unreachable one are ejected
+     * after the failures in a row, that all requests then go to the healthy
+     * one, and that an instance comes back after its ejection and is ejected
+     * again, for longer, by one more failure.
+     */
+    @Test
+    public void ejectionTest() {
+        DisposableServer down = HttpServer.create().port(0).bindNow();
+        String unreachable = "http://localhost:" + down.port();
+        down.disposeNow();
+        LoadBalancer balancer = new LoadBalancer(List.of(server("ok", Duration.ZERO, false),
+                server("failing", Duration.ZERO, true), unreachable), Strategy.LEAST_OUTSTANDING, 2,
+                Duration.ofSeconds(10), clock::get);
+        WebClient webClient = webClient(balancer);
+        Instance failing = balancer.getInstances().get(1);
+        Instance downInstance = balancer.getInstances().get(2);
+
+        // One at a time: every instance is idle, so the choice is random until two are ejected
+        List<String> names = send(webClient, 30, 1);
+        assertTrue(failing.isEjected());
+        assertTrue(downInstance.isEjected());
+        assertEquals(2, failing.getRequests());
+        assertEquals(2, downInstance.getRequests());
+        assertEquals(4, names.stream().filter("error"::equals).count());
+
+        // Back after the ejection: the next failure ejects it again, for twice as long
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertFalse(failing.isEjected());
+        send(webClient, 30, 1);
+        assertEquals(3, failing.getRequests());
+        assertEquals(2, failing.getEjections());
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(failing.isEjected());
+        assertEquals(0, balancer.getAllEjected());
+    }
+}
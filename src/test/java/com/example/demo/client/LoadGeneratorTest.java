@@ -0,0 +1,150 @@
+package com.example.demo.client;
+
+import com.example.demo.client.load.EndpointMix;
+import com.example.demo.client.load.LoadEndpoint;
+import com.example.demo.client.load.LoadGenerator;
+import com.example.demo.client.load.LoadReport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Test class for EndpointMix and LoadGenerator.
+ *
+ * This class checks that endpoint mixes are parsed, and malformed weights
+ * rejected, and that in the open model the latency of a request is measured
+ * from when it was scheduled to start, not from when it was sent (coordinated
+ * omission). The requests are answered by a fake exchange in virtual time,
+ * which is also the clock of the generator.
+ */
+public class LoadGeneratorTest {
+
+    /**
+     * Test that a mix is parsed with its endpoints in order, that a missing
+     * weight is 1, and that the endpoints are chosen by their weights.
+     */
+    @Test
+    public void parseMixTest() {
+        EndpointMix mix = EndpointMix.parse(" pet:60, OWNER:30 ,pet-count");
+        assertEquals(List.of(LoadEndpoint.PET, LoadEndpoint.OWNER, LoadEndpoint.PET_COUNT), mix.getEndpoints());
+
+        Map<LoadEndpoint, Integer> chosen = new EnumMap<>(LoadEndpoint.class);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 91_000; i++) {
+            chosen.merge(mix.next(random), 1, Integer::sum);
+        }
+        // Expected 60 000, 30 000 and 1 000
+        assertTrue(Math.abs(chosen.get(LoadEndpoint.PET) - 60_000) < 1_000, chosen.toString());
+        assertTrue(Math.abs(chosen.get(LoadEndpoint.OWNER) - 30_000) < 1_000, chosen.toString());
+        assertTrue(Math.abs(chosen.get(LoadEndpoint.PET_COUNT) - 1_000) < 200, chosen.toString());
+
+        // A zero weight is allowed, as long as another is positive: that endpoint is never chosen
+        EndpointMix withZero = EndpointMix.parse("pet:0,owner:1");
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(LoadEndpoint.OWNER, withZero.next(random));
+        }
+    }
+
+    /**
+     * Test that malformed mixes are rejected: weights that are not numbers,
+     * negative or not finite, no positive weight, extra fields and unknown
+     * endpoints.
+     */
+    @Test
+    public void badMixTest() {
+        for (String mix : List.of("pet:abc", "pet:", "pet:-1,owner:2", "pet:NaN", "pet:Infinity", "pet:0",
+                "pet:0,owner:0", "pet:1:2", "cat:1", "pet:1,,owner:1")) {
+            assertThrows(IllegalArgumentException.class, () -> EndpointMix.parse(mix), mix);
+        }
+    }
+
+    /**
+     * A generator whose requests are answered after the given virtual delays,
+     * one per request in order (the last one repeats), and whose clock is the
+     * virtual time.
+     */
+    private static LoadGenerator generator(VirtualTimeScheduler scheduler, Duration... delays) {
+        AtomicInteger sent = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono
+                        .delay(delays[Math.min(sent.getAndIncrement(), delays.length - 1)], scheduler)
+                        .thenReturn(ClientResponse.create(HttpStatus.OK).build()))
+                .build();
+        return new LoadGenerator(webClient, EndpointMix.parse("pet"), 100, 10, 42, null,
+                () -> scheduler.now(TimeUnit.NANOSECONDS));
+    }
+
+    private static Histogram run(VirtualTimeScheduler scheduler, LoadGenerator generator, Duration warmup) {
+        LoadReport[] report = new LoadReport[1];
+        // 10 requests per second, one in flight at a time
+        StepVerifier.withVirtualTime(() -> generator.runOpen(10, warmup, Duration.ofSeconds(1).minus(warmup), 1),
+                () -> scheduler, Long.MAX_VALUE)
+                .thenAwait(Duration.ofSeconds(10))
+                .assertNext(result -> report[0] = result)
+                .verifyComplete();
+        return report[0].getStats().get(LoadEndpoint.PET).getHistogram();
+    }
+
+    /**
+     * Test that requests answered on time have the latency of the server.
+     */
+    @Test
+    public void onTimeLatencyTest() {
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+        Histogram latencies = run(scheduler, generator(scheduler, Duration.ofMillis(10)), Duration.ZERO);
+
+        assertEquals(10, latencies.getTotalCount());
+        assertEquals(10_000, latencies.getMinValue(), 10);
+        assertEquals(10_000, latencies.getMaxValue(), 10);
+    }
+
+    /**
+     * Test that when the first request takes a second, the requests
+     * scheduled meanwhile wait for it with at most one in flight, and that
+     * this wait counts in their latency: request k (k > 0), scheduled at
+     * k * 100 ms and answered at 1000 + 10 * k ms, takes 1000 - 90 * k ms,
+     * not the 10 ms the server took. Requests of the warm-up are not
+     * recorded.
+     */
+    @Test
+    public void coordinatedOmissionTest() {
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+        Histogram latencies = run(scheduler,
+                generator(scheduler, Duration.ofSeconds(1), Duration.ofMillis(10)), Duration.ZERO);
+
+        assertEquals(10, latencies.getTotalCount());
+        assertEquals(1_000_000, latencies.getMaxValue(), 1_000);
+        assertEquals(190_000, latencies.getMinValue(), 1_000);
+        // (1000 + 910 + 820 + ... + 190) / 10
+        assertEquals(595_000, latencies.getMean(), 1_000);
+
+        // With a warm-up of 2 requests, the 8 others are recorded: from 820 ms down to 190 ms
+        scheduler = VirtualTimeScheduler.create();
+        latencies = run(scheduler, generator(scheduler, Duration.ofSeconds(1), Duration.ofMillis(10)),
+                Duration.ofMillis(200));
+
+        assertEquals(8, latencies.getTotalCount());
+        assertEquals(820_000, latencies.getMaxValue(), 1_000);
+        assertEquals(190_000, latencies.getMinValue(), 1_000);
+    }
+}
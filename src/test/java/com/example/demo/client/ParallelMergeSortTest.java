@@ -0,0 +1,55 @@
+package com.example.demo.client;
+
+import com.example.demo.client.utils.ParallelMergeSort;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for ParallelMergeSort.
+ *
+ * This class checks that the parallel sort gives the same, stable, order as
+ * Arrays.sort, whatever the size of the pool and of the array.
+ */
+public class ParallelMergeSortTest {
+
+    private static final Comparator<long[]> BY_KEY = Comparator.comparingLong(pair -> pair[0]);
+
+    /**
+     * (key, position) pairs with many equal keys, to check stability.
+     */
+    private static long[][] pairs(int count, int distinctKeys) {
+        Random random = new Random(42);
+        long[][] pairs = new long[count][];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = new long[] { random.nextInt(distinctKeys), i };
+        }
+        return pairs;
+    }
+
+    @Test
+    public void sameOrderAsArraysSortTest() {
+        for (int threads : new int[] { 1, 2, 3, 4 }) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (int count : new int[] { 0, 1, 1000, 100_003 }) {
+                    long[][] expected = pairs(count, 100);
+                    long[][] sorted = expected.clone();
+                    Arrays.sort(expected, BY_KEY);
+
+                    ParallelMergeSort.sort(sorted, BY_KEY, pool);
+
+                    assertArrayEquals(expected, sorted, threads + " threads, " + count + " elements");
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
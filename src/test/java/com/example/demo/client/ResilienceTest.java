@@ -0,0 +1,212 @@
+package com.example.demo.client;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.exceptions.ClientException;
+import com.example.demo.client.utils.CircuitBreaker;
+import com.example.demo.client.utils.NetworkResilienceUtil;
+import com.example.demo.client.utils.RequestDeadline;
+import com.example.demo.client.utils.RetryBudget;
+import com.example.demo.server.utils.Deadlines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for the resilience layer.
+ *
+ * This class checks the circuit breaker's transitions, the retry budget, that
+ * NetworkResilienceUtil retries only retryable failures, and that it sends
+ * the deadlines of the calls to the server.
+ */
+public class ResilienceTest {
+
+    private static ClientProperties fastRetries() {
+        ClientProperties properties = new ClientProperties();
+        properties.setRetryInitialBackoff(Duration.ofMillis(1));
+        properties.setRetryMaxBackoff(Duration.ofMillis(5));
+        properties.setAttemptTimeout(Duration.ofMillis(200));
+        return properties;
+    }
+
+    /**
+     * Test that the breaker opens at the failure rate, rejects calls while
+     * open, and closes after successful half-open probes or reopens on a
+     * failed one.
+     */
+    @Test
+    public void circuitBreakerTest() {
+        AtomicLong clock = new AtomicLong();
+        List<String> transitions = new CopyOnWriteArrayList<>();
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 10, 4, Duration.ofSeconds(1), 2, clock::get,
+                (name, from, to) -> transitions.add(from + "->" + to));
+
+        // Below the minimum calls the breaker stays closed
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+
+        // After the open duration two probes are let through; a failure reopens
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Two successful probes close it
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess();
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate());
+
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN", "OPEN->HALF_OPEN",
+                "HALF_OPEN->CLOSED"), transitions);
+        assertEquals(5, breaker.getTransitions());
+    }
+
+    /**
+     * Test that the budget allows retries from its initial balance, the calls'
+     * deposits and the time-based minimum, and denies them beyond that.
+     */
+    @Test
+    public void retryBudgetTest() {
+        AtomicLong clock = new AtomicLong();
+        RetryBudget budget = new RetryBudget(0.5, 1, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budget.tryWithdraw());
+        }
+        assertFalse(budget.tryWithdraw());
+
+        budget.deposit();
+        budget.deposit();
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertEquals(2.0, budget.getBalance(), 1e-9);
+    }
+
+    /**
+     * Test that 5xx responses and timeouts are retried until they succeed,
+     * while 4xx responses are not retried.
+     */
+    @Test
+    public void retryOnlyRetryableTest() {
+        NetworkResilienceUtil resilience = new NetworkResilienceUtil("test", fastRetries());
+
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> unavailableTwice = Mono.defer(() -> attempts.incrementAndGet() <= 2
+                ? Mono.error(new ClientException("unavailable", 503))
+                : Mono.just("ok"));
+        StepVerifier.create(resilience.protect(unavailableTwice)).expectNext("ok").verifyComplete();
+        assertEquals(3, attempts.get());
+
+        AtomicInteger slowAttempts = new AtomicInteger();
+        Mono<String> slowOnce = Mono.defer(() -> slowAttempts.incrementAndGet() == 1
+                ? Mono.<String>never()
+                : Mono.just("ok"));
+        StepVerifier.create(resilience.protect(slowOnce)).expectNext("ok").verifyComplete();
+        assertEquals(2, slowAttempts.get());
+
+        AtomicInteger notFoundAttempts = new AtomicInteger();
+        Mono<String> notFound = Mono.defer(() -> {
+            notFoundAttempts.incrementAndGet();
+            return Mono.error(new ClientException("not found", 404));
+        });
+        StepVerifier.create(resilience.protect(notFound))
+                .expectErrorMatches(e -> e instanceof ClientException && ((ClientException) e).getStatusCode() == 404)
+                .verify();
+        assertEquals(1, notFoundAttempts.get());
+
+        assertEquals(3, resilience.getCalls());
+        assertEquals(3, resilience.getRetries());
+        assertEquals(1, resilience.getTimeouts());
+        assertTrue(NetworkResilienceUtil.isRetryable(new TimeoutException()));
+        assertFalse(NetworkResilienceUtil.isRetryable(new IllegalStateException()));
+    }
+
+    /**
+     * Test that a stream is retried if it fails before its first element but
+     * not once it has emitted, and that an open breaker fails calls fast.
+     */
+    @Test
+    public void streamAndOpenBreakerTest() {
+        ClientProperties properties = fastRetries();
+        properties.setMaxRetries(0);
+        properties.setCircuitMinimumCalls(2);
+        properties.setCircuitWindowSize(2);
+        NetworkResilienceUtil noRetries = new NetworkResilienceUtil("test", properties);
+        NetworkResilienceUtil resilience = new NetworkResilienceUtil("test", fastRetries());
+
+        AtomicInteger attempts = new AtomicInteger();
+        Flux<Integer> failsAfterOne = Flux.defer(() -> {
+            attempts.incrementAndGet();
+            return Flux.just(1).concatWith(Flux.error(new ClientException("unavailable", 503)));
+        });
+        StepVerifier.create(resilience.protect(failsAfterOne)).expectNext(1).expectError(ClientException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+
+        Mono<String> unavailable = Mono.error(new ClientException("unavailable", 503));
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(noRetries.protect(unavailable)).expectError(ClientException.class).verify();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, noRetries.getCircuitBreaker().getState());
+        StepVerifier.create(noRetries.protect(Mono.just("ok")))
+                .expectErrorMatches(e -> e.getMessage().contains("is open"))
+                .verify();
+        assertEquals(1, noRetries.getRejected());
+    }
+
+    /**
+     * Test that each attempt of a call sends the time left before its
+     * deadline, and that streams are sent without one.
+     */
+    @Test
+    public void deadlinePropagationTest() {
+        List<String> deadlines = new CopyOnWriteArrayList<>();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    deadlines.add(String.valueOf(request.headers().getFirst(Deadlines.DEADLINE_HEADER)));
+                    return Mono.just(ClientResponse.create(HttpStatus.OK).body("1").build());
+                })
+                .filter(RequestDeadline.propagate())
+                .build();
+        NetworkResilienceUtil resilience = new NetworkResilienceUtil("test", fastRetries());
+
+        StepVerifier.create(resilience.protect(webClient.get().uri("/pet/1").retrieve().bodyToMono(String.class)))
+                .expectNext("1").verifyComplete();
+        StepVerifier.create(resilience.protect(webClient.get().uri("/pet").retrieve().bodyToFlux(String.class)))
+                .expectNext("1").verifyComplete();
+
+        long millis = Long.parseLong(deadlines.get(0));
+        assertTrue(millis > 0 && millis <= 200, "deadline " + millis); // The attempt timeout of fastRetries
+        assertEquals("null", deadlines.get(1));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.client;
+
+import com.example.demo.client.utils.SharedSource;
+import com.example.demo.server.model.Pet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for SharedSource.
+ *
+ * This class checks that the upstream is fetched only once no matter how many
+ * tasks subscribe, that the elements reach the subscribers as they arrive,
+ * and that elements spilled to disk are replayed unchanged.
+ */
+public class SharedSourceTest {
+
+    private static Flux<Pet> pets(int count, AtomicInteger subscriptions) {
+        return Flux.range(1, count)
+                .map(i -> new Pet((long) i, "Pet " + i, i % 2 == 0 ? "dog" : "cat", LocalDate.of(2020, 1, 1).plusDays(i),
+                        i / 10.0, (long) i % 7))
+                .doOnSubscribe(subscription -> subscriptions.incrementAndGet());
+    }
+
+    /**
+     * Test that concurrent and later subscribers share one upstream subscription.
+     */
+    @Test
+    public void fetchesOnceTest() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        SharedSource<Pet> source = new SharedSource<>("pets", pets(100, subscriptions), Pet.class, 1000);
+
+        StepVerifier.create(Mono.zip(source.flux().count(), source.flux().count(), source.flux().count()))
+                .expectNextMatches(counts -> counts.getT1() == 100 && counts.getT2() == 100 && counts.getT3() == 100)
+                .verifyComplete();
+        StepVerifier.create(source.flux().count())
+                .expectNext(100L)
+                .verifyComplete();
+
+        assertEquals(1, subscriptions.get());
+    }
+
+    /**
+     * Test that elements beyond the memory budget are spilled and replayed in
+     * order and unchanged.
+     */
+    @Test
+    public void spillsBeyondMemoryBudgetTest() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        try (SharedSource<Pet> source = new SharedSource<>("pets", pets(500, subscriptions), Pet.class, 50)) {
+            StepVerifier.create(source.flux().collectList())
+                    .expectNextMatches(pets -> pets.equals(pets(500, new AtomicInteger()).collectList().block()))
+                    .verifyComplete();
+        }
+    }
+
+    /**
+     * Test that the subscribers get the elements as the upstream produces
+     * them, in memory and spilled, before it completes, and that a later
+     * subscriber replays them from the start.
+     */
+    @Test
+    public void streamsBeforeCompletionTest() {
+        Sinks.Many<Pet> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<Pet> pets = pets(600, new AtomicInteger()).collectList().block();
+        try (SharedSource<Pet> source = new SharedSource<>("pets", upstream.asFlux(), Pet.class, 100)) {
+            StepVerifier.create(source.flux())
+                    .then(() -> pets.subList(0, 3).forEach(upstream::tryEmitNext))
+                    .expectNextSequence(pets.subList(0, 3))
+                    // Spilled elements are seen a flush at a time: 100 in memory and 256 on disk
+                    .then(() -> pets.subList(3, 400).forEach(upstream::tryEmitNext))
+                    .expectNextSequence(pets.subList(3, 356))
+                    .then(() -> StepVerifier.create(source.flux().take(356))
+                            .expectNextSequence(pets.subList(0, 356))
+                            .verifyComplete())
+                    .then(() -> {
+                        pets.subList(400, 600).forEach(upstream::tryEmitNext);
+                        upstream.tryEmitComplete();
+                    })
+                    .expectNextSequence(pets.subList(356, 600))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(10));
+        }
+    }
+
+    /**
+     * Test that an upstream error reaches every subscriber after the elements
+     * fetched before it.
+     */
+    @Test
+    public void upstreamErrorTest() {
+        Flux<Pet> failing = pets(10, new AtomicInteger()).concatWith(Mono.error(new IllegalStateException("Boom")));
+        SharedSource<Pet> source = new SharedSource<>("pets", failing, Pet.class, 5);
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(source.flux())
+                    .expectNextCount(10)
+                    .expectErrorMessage("Boom")
+                    .verify(Duration.ofSeconds(10));
+        }
+        source.close();
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo.client;
+
+import com.example.demo.client.stats.KeyCounter;
+import com.example.demo.client.stats.PetStatistics;
+import com.example.demo.client.stats.QuantileSketch;
+import com.example.demo.client.stats.RunningStats;
+import com.example.demo.client.stats.TopK;
+import com.example.demo.server.model.Pet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+/**
+ * Test class for the streaming statistics.
+ *
+ * This class checks the single-pass results against exact ones, and that
+ * statistics merged from separate parts equal those over the whole stream.
+ * The top-k results must equal the start of a stable sort.
+ */
+public class StreamingStatsTest {
+
+    /**
+     * Test that the variance stays accurate for values with a large mean and a
+     * small spread, where the sum of squares loses it.
+     */
+    @Test
+    public void runningStatsAccuracyTest() {
+        RunningStats stats = new RunningStats();
+        for (int i = 0; i < 1000; i++) {
+            stats.accept(1e9 + (i % 2 == 0 ? 1 : -1));
+        }
+
+        assertEquals(1e9, stats.getMean(), 1e-6);
+        assertEquals(1.0, stats.getVariance(), 1e-6);
+        assertEquals(1e9 - 1, stats.getMin());
+        assertEquals(1e9 + 1, stats.getMax());
+    }
+
+    /**
+     * Test that merging the statistics of two halves gives the same result as
+     * one pass over both.
+     */
+    @Test
+    public void mergeTest() {
+        SplittableRandom random = new SplittableRandom(7);
+        RunningStats all = new RunningStats();
+        RunningStats first = new RunningStats();
+        RunningStats second = new RunningStats();
+        KeyCounter allCounts = new KeyCounter();
+        KeyCounter firstCounts = new KeyCounter();
+        KeyCounter secondCounts = new KeyCounter(4);
+
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextDouble(0, 50);
+            long key = random.nextLong(500);
+            all.accept(value);
+            allCounts.increment(key);
+            (i < 3_000 ? first : second).accept(value);
+            (i < 3_000 ? firstCounts : secondCounts).increment(key);
+        }
+        first.merge(second);
+        firstCounts.merge(secondCounts);
+
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMean(), first.getMean(), 1e-9);
+        assertEquals(all.getVariance(), first.getVariance(), 1e-9);
+        assertEquals(allCounts.size(), firstCounts.size());
+        assertEquals(10_000, firstCounts.total());
+        allCounts.forEach((key, count) -> assertEquals(count, firstCounts.get(key)));
+    }
+
+    /**
+     * Test that the quantiles are within the relative accuracy of the exact
+     * ones.
+     */
+    @Test
+    public void quantileSketchTest() {
+        SplittableRandom random = new SplittableRandom(11);
+        double[] values = new double[20_000];
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextDouble(-3, 7));
+            sketch.accept(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : new double[] { 0, 0.1, 0.5, 0.9, 0.99, 1 }) {
+            double exact = values[(int) (quantile * (values.length - 1))];
+            double estimate = sketch.quantile(quantile);
+            assertTrue(Math.abs(estimate - exact) <= 0.01 * exact, quantile + ": " + estimate + " vs " + exact);
+        }
+    }
+
+    /**
+     * Test the pet statistics, sequential and on parallel rails, against the
+     * values the individual tasks compute.
+     */
+    @Test
+    public void petStatisticsTest() {
+        Flux<Pet> pets = Flux.range(1, 1000)
+                .map(i -> new Pet((long) i, "Pet " + i, i % 3 == 0 ? "Dog" : "cat",
+                        LocalDate.of(2000, 1, 1).plusDays(i == 500 ? -1 : i), 1.0 + i % 40, (long) i % 250));
+
+        PetStatistics sequential = PetStatistics.of(pets).block();
+        PetStatistics parallel = PetStatistics.of(pets, 4).block();
+
+        for (PetStatistics stats : new PetStatistics[] { sequential, parallel }) {
+            assertEquals(1000, stats.getCount());
+            assertEquals(333, stats.getDogs());
+            assertEquals(20.5, stats.getWeights().getMean(), 1e-9);
+            assertEquals(Math.sqrt((40 * 40 - 1) / 12.0), stats.getWeights().getStandardDeviation(), 1e-9);
+            assertEquals("Pet 500", stats.getEldest().getName());
+            assertEquals(4.0, stats.getAveragePetsPerOwner(), 1e-9);
+        }
+    }
+
+    /**
+     * Test that the pets without an owner are left out of the pets per owner,
+     * as the join leaves them out, instead of counting as one more owner.
+     */
+    @Test
+    public void petsWithoutOwnerTest() {
+        Flux<Pet> pets = Flux.range(1, 10)
+                .map(i -> new Pet((long) i, "Pet " + i, "cat", LocalDate.of(2000, 1, i), 1.0,
+                        i <= 6 ? (long) i % 2 : null));
+
+        PetStatistics stats = PetStatistics.of(pets).block();
+
+        assertEquals(10, stats.getCount());
+        assertEquals(2, stats.getPetsPerOwner().size());
+        assertEquals(3.0, stats.getAveragePetsPerOwner(), 1e-9);
+    }
+
+    /**
+     * Test that among pets born the same day the eldest is the one with the
+     * lowest id, whatever the order of the pets and of the rails, so that the
+     * single pass on rails, sequentially and Task 6 agree.
+     */
+    @Test
+    public void eldestTiesTest() {
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            // Every tenth pet is born the earliest day, the lowest id among them in the middle
+            LocalDate birthDate = LocalDate.of(2000, 1, 1).plusDays(i % 10 == 0 ? 0 : 1 + i % 7);
+            pets.add(new Pet((long) (i + 5_000) % 10_000, "Pet " + i, "cat", birthDate, 1.0, 1L));
+        }
+        List<Pet> reversed = new ArrayList<>(pets);
+        Collections.reverse(reversed);
+
+        for (List<Pet> order : List.of(pets, reversed)) {
+            assertEquals(0L, PetStatistics.of(Flux.fromIterable(order)).block().getEldest().getIdentifier());
+            assertEquals(0L, Flux.fromIterable(order)
+                    .reduce((pet1, pet2) -> PetStatistics.ELDEST_FIRST.compare(pet1, pet2) <= 0 ? pet1 : pet2)
+                    .block().getIdentifier());
+            for (int run = 0; run < 20; run++) {
+                assertEquals(0L, PetStatistics.of(Flux.fromIterable(order), 4).block().getEldest().getIdentifier());
+            }
+        }
+    }
+
+    /**
+     * Test that the top k by weight, by birth date and by a count, with many
+     * ties, are the first k elements of a stable sort, also when merged from
+     * two parts.
+     */
+    @Test
+    public void topKTest() {
+        SplittableRandom random = new SplittableRandom(13);
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            pets.add(new Pet((long) i, "Pet " + i, "dog", LocalDate.of(2000, 1, 1).plusDays(random.nextInt(300)),
+                    (double) random.nextInt(50), (long) random.nextInt(100)));
+        }
+
+        List<Comparator<Pet>> orders = List.of(
+                Comparator.comparingDouble(Pet::getWeight),
+                Comparator.comparing(Pet::getBirth_date),
+                Comparator.comparingLong(Pet::getOwnerid).reversed());
+        for (Comparator<Pet> order : orders) {
+            List<Pet> sorted = new ArrayList<>(pets);
+            sorted.sort(order);
+
+            for (int k : new int[] { 0, 1, 10, 500, 10_000 }) {
+                List<Pet> expected = sorted.subList(0, Math.min(k, sorted.size()));
+                assertEquals(expected, Flux.fromIterable(pets).transform(TopK.top(k, order)).collectList().block());
+
+                TopK<Pet> first = new TopK<>(k, order);
+                TopK<Pet> second = new TopK<>(k, order);
+                for (int i = 0; i < pets.size(); i++) {
+                    (i < 1_700 ? first : second).accept(pets.get(i));
+                }
+                assertEquals(expected, first.merge(second).toList());
+                assertEquals(5_000, first.getCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.client;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.engine.Report;
+import com.example.demo.client.engine.TaskEngine;
+import com.example.demo.client.engine.TaskTiming;
+import com.example.demo.client.engine.Workload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for TaskEngine.
+ *
+ * This class checks that each source is fetched once for all its readers,
+ * that the concurrency limit holds without deadlocking the readers of a
+ * published source, that every report is awaited and timed even when one
+ * fails, and that the graph is checked.
+ */
+public class TaskEngineTest {
+
+    private final AtomicInteger numberFetches = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private TaskEngine engine(int concurrency) {
+        TaskEngine engine = new TaskEngine(concurrency, 1000, new ClientProperties(), null);
+        engine.source("numbers", Integer.class, () -> Flux.range(1, 100)
+                .doOnSubscribe(subscription -> numberFetches.incrementAndGet()));
+        engine.source("squares", null, List.of("numbers"),
+                context -> context.<Integer>source("numbers").map(number -> List.of(number, number * number)));
+        return engine;
+    }
+
+    /**
+     * A report that sums a source slowly, tracking how many run at once.
+     */
+    private Report sum(String name, String source) {
+        return Report.of(name, Workload.CPU, List.of(source), context -> Mono.defer(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            return context.source(source)
+                    .delayElements(Duration.ofMillis(1))
+                    .count()
+                    .doOnTerminate(running::decrementAndGet);
+        }));
+    }
+
+    /**
+     * Test that a source read by several reports is fetched once and that the
+     * timings come in the order of the reports.
+     */
+    @Test
+    public void sourceFetchedOnceTest() {
+        List<TaskTiming> timings = engine(0).run(List.of(sum("a", "numbers"), sum("b", "numbers"),
+                sum("c", "numbers"))).block();
+
+        assertEquals(1, numberFetches.get());
+        assertEquals(List.of("a", "b", "c"), timings.stream().map(TaskTiming::getName).collect(Collectors.toList()));
+        for (TaskTiming timing : timings) {
+            assertNull(timing.getError());
+            assertTrue(timing.getEnd().compareTo(timing.getStart()) > 0);
+            assertTrue(timing.getCpuNanos() >= 0);
+        }
+    }
+
+    /**
+     * Test that no more reports than the concurrency run at once, and that the
+     * readers of a published source (one that cannot be replayed) still all
+     * get it: they run as one unit.
+     */
+    @Test
+    public void concurrencyTest() {
+        List<TaskTiming> timings = engine(1).run(List.of(sum("a", "numbers"), sum("b", "numbers"),
+                sum("c", "squares"), sum("d", "squares"))).block();
+
+        assertEquals(4, timings.size());
+        timings.forEach(timing -> assertNull(timing.getError()));
+        assertEquals(2, maxRunning.get()); // c and d, which read "squares" together
+        assertEquals(1, numberFetches.get());
+    }
+
+    /**
+     * Test that a failing report does not stop the others, and that its
+     * error is recorded.
+     */
+    @Test
+    public void failureTest() {
+        Report failing = Report.of("failing", Workload.NON_BLOCKING, List.of("numbers"),
+                context -> context.source("numbers").then(Mono.error(new IllegalStateException("failed"))));
+        Report undeclared = Report.of("undeclared", Workload.NON_BLOCKING, List.of("numbers"),
+                context -> context.source("squares").then());
+
+        List<TaskTiming> timings = engine(0).run(List.of(failing, sum("a", "numbers"), undeclared)).block();
+
+        assertTrue(timings.get(0).getError() instanceof IllegalStateException);
+        assertNull(timings.get(1).getError());
+        assertTrue(timings.get(2).getError() instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Test that unknown sources and cycles are rejected before running.
+     */
+    @Test
+    public void graphTest() {
+        TaskEngine engine = engine(0);
+        assertThrows(IllegalArgumentException.class, () -> engine.run(List.of(sum("a", "unknown"))).block());
+
+        engine.source("first", Integer.class, List.of("second"), context -> context.source("second"));
+        engine.source("second", Integer.class, List.of("first"), context -> context.source("first"));
+        IllegalArgumentException cycle = assertThrows(IllegalArgumentException.class,
+                () -> engine.run(List.of(sum("a", "first"))).block());
+        assertTrue(cycle.getMessage().contains("a -> first -> second -> first"), cycle.getMessage());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.client;
+
+import com.example.demo.client.config.ClientProperties;
+import com.example.demo.client.config.WebClientConfig;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Test class for WebClientConfig.
+ *
+ * This class runs the configured WebClient against a local server to check
+ * that requests go to the base URL with gzip and (optionally) h2c, and that
+ * the pool metrics follow the connection.
+ */
+public class WebClientConfigTest {
+
+    private static DisposableServer server() {
+        return HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .compress(true)
+                .route(routes -> routes.get("/echo", (request, response) -> response.sendString(Mono.just(
+                        // HTTP/2 requests reach the handler converted, with their stream id as a header
+                        request.requestHeaders().get("x-http2-stream-id") + " "
+                                + request.requestHeaders().get("Accept-Encoding")))))
+                .bindNow();
+    }
+
+    /**
+     * Test that options are read into the properties and unknown ones are
+     * rejected.
+     */
+    @Test
+    public void fromOptionsTest() {
+        ClientProperties properties = ClientProperties.fromOptions(Map.of("base-url", "http://server:9000",
+                "max-connections", "16", "response-timeout", "2s", "http2", "true", "join", "hash"));
+
+        assertEquals("http://server:9000", properties.getBaseUrl());
+        assertEquals(16, properties.getMaxConnections());
+        assertEquals(Duration.ofSeconds(2), properties.getResponseTimeout());
+        assertEquals(true, properties.isHttp2());
+        assertEquals("hash", properties.getJoin());
+        assertThrows(IllegalArgumentException.class, () -> ClientProperties.fromOptions(Map.of("base-ulr", "x")));
+    }
+
+    /**
+     * Test that requests use the base URL, gzip and HTTP/1.1 or h2c, and that
+     * the pool metrics show the connection afterwards.
+     */
+    @Test
+    public void transportTest() {
+        DisposableServer server = server();
+        try {
+            for (boolean http2 : new boolean[] { false, true }) {
+                ClientProperties properties = new ClientProperties();
+                properties.setBaseUrl("http://localhost:" + server.port());
+                properties.setHttp2(http2);
+                WebClientConfig config = new WebClientConfig(properties);
+                WebClient webClient = config.webClient();
+
+                String echo = webClient.get().uri("/echo").retrieve().bodyToMono(String.class)
+                        .block(Duration.ofSeconds(5));
+
+                // The h2c upgrade request is stream 1
+                assertEquals((http2 ? "1" : "null") + " gzip", echo);
+                // An HTTP/1.1 connection goes back to the pool just after the body is read; an
+                // HTTP/2 connection stays acquired while it is open
+                int expectedActive = http2 ? 1 : 0;
+                Mono.fromCallable(() -> config.getPoolStats().getActive())
+                        .filter(active -> active == expectedActive)
+                        .repeatWhenEmpty(100, repeat -> repeat.delayElements(Duration.ofMillis(10)))
+                        .block();
+                assertEquals(expectedActive, config.getPoolStats().getActive(), config.getPoolStats().toString());
+                assertEquals(1 - expectedActive, config.getPoolStats().getIdle(), config.getPoolStats().toString());
+                assertEquals(0, config.getPoolStats().getPending(), config.getPoolStats().toString());
+                config.dispose();
+            }
+        } finally {
+            server.disposeNow();
+        }
+    }
+}
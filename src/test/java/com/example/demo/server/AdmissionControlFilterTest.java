@@ -0,0 +1,183 @@
+package com.example.demo.server;
+
+import com.example.demo.server.filter.AdmissionControlFilter;
+import com.example.demo.server.filter.AdmissionControlFilter.RouteClass;
+import com.example.demo.server.filter.AdmissionLimit;
+import com.example.demo.server.service.WarmupService;
+import com.example.demo.server.utils.Deadlines.DeadlineExceededException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Test class for AdmissionControlFilter.
+ *
+ * This class checks how requests are classified, that the requests beyond
+ * the limit of their class get a 503 with a Retry-After, that scans give way
+ * to saturated point reads, that the limit falls on server errors but not
+ * on client errors nor expired deadlines, and that the warm-up requests are
+ * not limited.
+ */
+public class AdmissionControlFilterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final List<Sinks.Empty<Void>> handled = new ArrayList<>();
+
+    // Keeps each request in flight until its sink completes
+    private final WebFilterChain chain = exchange -> {
+        Sinks.Empty<Void> done = Sinks.empty();
+        handled.add(done);
+        return done.asMono();
+    };
+
+    private AdmissionControlFilter filter(int pointLimit, int scanLimit) {
+        return new AdmissionControlFilter(true, pointLimit, scanLimit, 10, 2.0, 0.5, clock::get);
+    }
+
+    private MockServerWebExchange send(AdmissionControlFilter filter, MockServerHttpRequest request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chain).subscribe(done -> {
+        }, error -> {
+        });
+        return exchange;
+    }
+
+    /**
+     * Test that the id lookups and writes are point requests, the full
+     * listings scans, and the other routes are not limited.
+     */
+    @Test
+    public void classifyTest() {
+        assertEquals(RouteClass.POINT, AdmissionControlFilter.classify(MockServerHttpRequest.get("/pet/7").build()));
+        assertEquals(RouteClass.POINT,
+                AdmissionControlFilter.classify(MockServerHttpRequest.get("/owner/batch?ids=1,2").build()));
+        assertEquals(RouteClass.POINT, AdmissionControlFilter.classify(MockServerHttpRequest.post("/pet").build()));
+        assertEquals(RouteClass.SCAN, AdmissionControlFilter.classify(MockServerHttpRequest.get("/owner").build()));
+        assertEquals(RouteClass.DELAY,
+                AdmissionControlFilter.classify(MockServerHttpRequest.get("/pet/delay/7").build()));
+        assertNull(AdmissionControlFilter.classify(MockServerHttpRequest.get("/ready").build()));
+        assertNull(AdmissionControlFilter.classify(MockServerHttpRequest.get("/analytics/pet/count").build()));
+        assertNull(AdmissionControlFilter.classify(MockServerHttpRequest.get("/petshop").build()));
+    }
+
+    /**
+     * Test that the requests beyond the limit are refused at once with a 503
+     * and a Retry-After, and that a completed request frees its place.
+     */
+    @Test
+    public void rejectTest() {
+        AdmissionControlFilter filter = filter(2, 2);
+        send(filter, MockServerHttpRequest.get("/pet/1").build());
+        send(filter, MockServerHttpRequest.get("/pet/2").build());
+        MockServerWebExchange refused = send(filter, MockServerHttpRequest.get("/pet/3").build());
+
+        assertEquals(2, handled.size());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getResponse().getStatusCode());
+        assertEquals("1", refused.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        clock.addAndGet(1_000_000);
+        handled.get(0).tryEmitEmpty();
+        MockServerWebExchange accepted = send(filter, MockServerHttpRequest.get("/pet/4").build());
+        assertEquals(3, handled.size());
+        assertNull(accepted.getResponse().getStatusCode());
+
+        AdmissionLimit point = filter.getLimit(RouteClass.POINT);
+        assertEquals(3, point.getAccepted());
+        assertEquals(1, point.getRejected());
+        assertEquals(2, point.getInFlight());
+    }
+
+    /**
+     * Test that scans and delayed reads are refused while the point reads use
+     * all their places.
+     */
+    @Test
+    public void priorityTest() {
+        AdmissionControlFilter filter = filter(1, 2);
+        send(filter, MockServerHttpRequest.get("/pet").build());
+        send(filter, MockServerHttpRequest.get("/pet/1").build());
+        MockServerWebExchange scan = send(filter, MockServerHttpRequest.get("/owner").build());
+        MockServerWebExchange delayed = send(filter, MockServerHttpRequest.get("/pet/delay/1").build());
+
+        assertEquals(2, handled.size());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, scan.getResponse().getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, delayed.getResponse().getStatusCode());
+        assertEquals(1, filter.getLimit(RouteClass.SCAN).getRejected());
+        assertEquals(1, filter.getLimit(RouteClass.SCAN).getInFlight());
+        assertEquals(1, filter.getLimit(RouteClass.DELAY).getRejected());
+    }
+
+    /**
+     * Test that a server error lowers the limit and a client error does not.
+     */
+    @Test
+    public void errorTest() {
+        AdmissionControlFilter filter = filter(8, 2);
+        AdmissionLimit point = filter.getLimit(RouteClass.POINT);
+        send(filter, MockServerHttpRequest.get("/pet/1").build());
+        send(filter, MockServerHttpRequest.get("/pet/2").build());
+
+        clock.addAndGet(2_000_000_000L);
+        handled.get(0).tryEmitError(new ResponseStatusException(HttpStatus.NOT_FOUND));
+        assertEquals(0, point.getDecreases());
+        handled.get(1).tryEmitError(new IllegalStateException("Pool exhausted"));
+        assertEquals(1, point.getDecreases());
+        assertEquals(4, point.getLimit());
+        assertEquals(0, point.getInFlight());
+    }
+
+    /**
+     * Test that requests whose deadline expired, with an error or a 504
+     * response, free their place without lowering the limit.
+     */
+    @Test
+    public void deadlineExceededTest() {
+        AdmissionControlFilter filter = filter(8, 2);
+        AdmissionLimit point = filter.getLimit(RouteClass.POINT);
+        send(filter, MockServerHttpRequest.get("/pet/1").build());
+        MockServerWebExchange expired = send(filter, MockServerHttpRequest.get("/pet/2").build());
+
+        clock.addAndGet(2_000_000_000L);
+        handled.get(0).tryEmitError(new DeadlineExceededException());
+        expired.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+        handled.get(1).tryEmitEmpty();
+        assertEquals(0, point.getDecreases());
+        assertEquals(8, point.getLimit());
+        assertEquals(0, point.getInFlight());
+    }
+
+    /**
+     * Test that the warm-up requests are passed through without taking a
+     * place, even beyond the limit.
+     */
+    @Test
+    public void warmupTest() {
+        AdmissionControlFilter filter = filter(1, 1);
+        for (int i = 0; i < 5; i++) {
+            MockServerWebExchange warmup = send(filter,
+                    MockServerHttpRequest.get("/pet/" + i).header(WarmupService.WARMUP_HEADER, "true").build());
+            assertNull(warmup.getResponse().getStatusCode());
+        }
+
+        assertEquals(5, handled.size());
+        handled.forEach(done -> done.tryEmitError(new IllegalStateException("Pool exhausted")));
+        AdmissionLimit point = filter.getLimit(RouteClass.POINT);
+        assertEquals(0, point.getAccepted());
+        assertEquals(0, point.getRejected());
+        assertEquals(0, point.getDecreases());
+        assertEquals(0, point.getInFlight());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.server;
+
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetLoader;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.BulkInsertRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for DatasetGenerator and DatasetLoader.
+ *
+ * This class checks that the same seed and spec always produce the same
+ * rows, whether generated whole or in ranges, and that the loader inserts
+ * every owner before the first pet.
+ */
+public class DatasetGeneratorTest {
+
+    private static DatasetSpec spec(long seed) {
+        DatasetSpec spec = new DatasetSpec(seed, 200, 2000);
+        spec.setOwnerSkew(2.0);
+        return spec;
+    }
+
+    /**
+     * Test that two generators with the same seed and spec produce the same
+     * owners and pets, that ranges add up to the whole dataset, and that
+     * another seed produces other rows.
+     */
+    @Test
+    public void reproducibleTest() {
+        DatasetGenerator first = new DatasetGenerator(spec(7));
+        DatasetGenerator second = new DatasetGenerator(spec(7));
+
+        List<Owner> owners = first.owners().collectList().block();
+        List<Pet> pets = first.pets().collectList().block();
+        assertEquals(200, owners.size());
+        assertEquals(2000, pets.size());
+        assertEquals(owners, second.owners().collectList().block());
+        assertEquals(pets, second.pets().collectList().block());
+
+        List<Pet> ranges = Flux.concat(second.pets(1001, 2001), second.pets(1, 1001))
+                .sort((pet1, pet2) -> Long.compare(pet1.getIdentifier(), pet2.getIdentifier()))
+                .collectList().block();
+        assertEquals(pets, ranges);
+        assertEquals(pets.get(1233), second.pet(1234));
+        assertTrue(pets.stream().allMatch(pet -> pet.getOwnerid() >= 1 && pet.getOwnerid() <= 200));
+
+        assertNotEquals(pets, new DatasetGenerator(spec(8)).pets().collectList().block());
+    }
+
+    /**
+     * Test that the pets are only inserted once all the owners and the owner
+     * sequence are, even with several batches in flight.
+     */
+    @Test
+    public void ownersBeforePetsTest() {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        BulkInsertRepository repository = new BulkInsertRepository() {
+            @Override
+            public Mono<Long> insertOwners(List<Owner> owners) {
+                // Slow owners, so pets inserted at the same time would come first
+                return Mono.delay(Duration.ofMillis(20)).map(tick -> {
+                    events.add("owners");
+                    return (long) owners.size();
+                });
+            }
+
+            @Override
+            public Mono<Long> insertPets(List<Pet> pets) {
+                return Mono.fromSupplier(() -> {
+                    events.add("pets");
+                    return (long) pets.size();
+                });
+            }
+
+            @Override
+            public Mono<Void> resetOwnerSequence() {
+                return Mono.fromRunnable(() -> events.add("owner sequence"));
+            }
+
+            @Override
+            public Mono<Void> resetPetSequence() {
+                return Mono.fromRunnable(() -> events.add("pet sequence"));
+            }
+        };
+
+        StepVerifier.create(new DatasetLoader(repository, 50, 4).load(new DatasetGenerator(spec(7))))
+                .expectNext(2200L)
+                .verifyComplete();
+
+        assertEquals(4 + 1 + 40 + 1, events.size());
+        assertEquals(Collections.nCopies(4, "owners"), events.subList(0, 4));
+        assertEquals("owner sequence", events.get(4));
+        assertEquals(Collections.nCopies(40, "pets"), events.subList(5, 45));
+        assertEquals("pet sequence", events.get(45));
+    }
+}
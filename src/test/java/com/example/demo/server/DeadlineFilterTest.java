@@ -0,0 +1,109 @@
+package com.example.demo.server;
+
+import com.example.demo.server.filter.DeadlineFilter;
+import com.example.demo.server.model.DeadlineStats;
+import com.example.demo.server.utils.Deadlines;
+import com.example.demo.server.utils.Deadlines.DeadlineExceededException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for DeadlineFilter and Deadlines.
+ *
+ * This class checks that the work of a request with a deadline is cancelled
+ * once it passes, that a request whose deadline has passed is not handled,
+ * that requests without a deadline are left alone, and that the outcomes are
+ * counted.
+ */
+public class DeadlineFilterTest {
+
+    private final DeadlineFilter filter = new DeadlineFilter(Duration.ofSeconds(60));
+    private final AtomicBoolean workCancelled = new AtomicBoolean();
+
+    private static MockServerWebExchange exchange(String deadline) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/pet/delay/1");
+        if (deadline != null) {
+            request.header(Deadlines.DEADLINE_HEADER, deadline);
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    /**
+     * Test that a slow read is cancelled at the deadline and fails with a
+     * 504, and that a stream is cut at the deadline.
+     */
+    @Test
+    public void expiredTest() {
+        WebFilterChain slowRead = exchange -> Deadlines.within(Mono.never()
+                .doOnCancel(() -> workCancelled.set(true))).then();
+        StepVerifier.create(filter.filter(exchange("100"), slowRead))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+        assertTrue(workCancelled.get());
+
+        WebFilterChain endlessStream = exchange -> Deadlines.within(Flux.interval(Duration.ofMillis(10))).then();
+        StepVerifier.create(filter.filter(exchange("100"), endlessStream))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+
+        DeadlineStats stats = filter.getStats();
+        assertEquals(2, stats.getRequests());
+        assertEquals(2, stats.getExpired());
+        assertEquals(0, stats.getCompleted());
+    }
+
+    /**
+     * Test that a request whose deadline has passed gets a 504 without being
+     * handled.
+     */
+    @Test
+    public void expiredOnArrivalTest() {
+        MockServerWebExchange exchange = exchange("0");
+        AtomicBoolean handled = new AtomicBoolean();
+        filter.filter(exchange, e -> Mono.fromRunnable(() -> handled.set(true))).block();
+
+        assertFalse(handled.get());
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, exchange.getResponse().getStatusCode());
+        assertEquals(1, filter.getStats().getExpired());
+    }
+
+    /**
+     * Test that work within the deadline completes, that requests without a
+     * deadline are not bounded nor counted, and that a client going away is
+     * counted as cancelled.
+     */
+    @Test
+    public void completedAndCancelledTest() {
+        WebFilterChain fastStream = exchange -> Deadlines.within(Flux.range(1, 100)).then();
+        StepVerifier.create(filter.filter(exchange("1000"), fastStream)).verifyComplete();
+
+        WebFilterChain unbounded = exchange -> Deadlines.within(Mono.delay(Duration.ofMillis(200))).then();
+        StepVerifier.create(filter.filter(exchange(null), unbounded)).verifyComplete();
+
+        Disposable request = filter.filter(exchange("10000"), exchange -> Deadlines.within(Mono.never()
+                .doOnCancel(() -> workCancelled.set(true))).then()).subscribe();
+        request.dispose();
+        assertTrue(workCancelled.get());
+
+        DeadlineStats stats = filter.getStats();
+        assertEquals(2, stats.getRequests());
+        assertEquals(1, stats.getCompleted());
+        assertEquals(1, stats.getCancelled());
+        assertEquals(0, stats.getExpired());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.server;
+
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.BulkInsertRepository;
+import com.example.demo.server.service.ImportService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for ImportService.
+ *
+ * This class checks that only the files of the import directory are
+ * imported: paths leading out of it through "..", an absolute path or a
+ * symbolic link are refused before the file is opened. It also checks that
+ * missing files and malformed rows are client errors.
+ */
+public class ImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path importDirectory;
+    private final AtomicLong importedOwners = new AtomicLong();
+    private ImportService importService;
+
+    @BeforeEach
+    public void createImportService() throws IOException {
+        importDirectory = Files.createDirectory(tempDir.resolve("import"));
+        BulkInsertRepository repository = new BulkInsertRepository() {
+            @Override
+            public Mono<Long> insertOwners(List<Owner> owners) {
+                return Mono.fromSupplier(() -> importedOwners.addAndGet(owners.size()))
+                        .thenReturn((long) owners.size());
+            }
+
+            @Override
+            public Mono<Long> insertPets(List<Pet> pets) {
+                return Mono.just((long) pets.size());
+            }
+
+            @Override
+            public Mono<Void> resetOwnerSequence() {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<Void> resetPetSequence() {
+                return Mono.empty();
+            }
+        };
+        importService = new ImportService(repository, event -> {
+        }, 10, 2, 1, importDirectory.toString());
+    }
+
+    private static void writeOwners(Path file) throws IOException {
+        Files.writeString(file, "identifier,name,phone_number\n1,Ana,555-0001\n2,\"Rui, Jr.\",555-0002\n");
+    }
+
+    /**
+     * Test that files inside the import directory are imported, given
+     * relative to it or as an absolute path.
+     */
+    @Test
+    public void importsInsideDirectoryTest() throws IOException {
+        Files.createDirectory(importDirectory.resolve("owners"));
+        writeOwners(importDirectory.resolve("owners/owners.csv"));
+
+        StepVerifier.create(importService.importOwners(Paths.get("owners/owners.csv"), true))
+                .assertNext(report -> assertEquals(2, report.getRows()))
+                .verifyComplete();
+        StepVerifier.create(importService.importOwners(importDirectory.resolve("owners/../owners/owners.csv"), true))
+                .assertNext(report -> assertEquals(2, report.getRows()))
+                .verifyComplete();
+        assertEquals(4, importedOwners.get());
+    }
+
+    /**
+     * Test that files outside the import directory are refused with a 403,
+     * even when they exist, and that nothing is imported from them.
+     */
+    @Test
+    public void refusesOutsideDirectoryTest() throws IOException {
+        Path outside = tempDir.resolve("secret.csv");
+        writeOwners(outside);
+        Files.createDirectory(tempDir.resolve("import-other"));
+        writeOwners(tempDir.resolve("import-other/owners.csv"));
+        Path link = importDirectory.resolve("link.csv");
+        Files.createSymbolicLink(link, outside);
+
+        for (Path file : List.of(Paths.get("../secret.csv"), outside, Paths.get("../import-other/owners.csv"),
+                Paths.get("link.csv"), Paths.get("/etc/passwd"))) {
+            StepVerifier.create(importService.importOwners(file, true))
+                    .expectErrorSatisfies(error -> assertEquals(HttpStatus.FORBIDDEN,
+                            ((ResponseStatusException) error).getStatusCode()))
+                    .verify();
+        }
+        assertEquals(0, importedOwners.get());
+    }
+
+    /**
+     * Test that a missing file is answered with a 404 and a malformed one
+     * with a 400.
+     */
+    @Test
+    public void missingOrMalformedFileTest() throws IOException {
+        StepVerifier.create(importService.importOwners(Paths.get("missing.csv"), true))
+                .expectErrorSatisfies(error -> assertEquals(HttpStatus.NOT_FOUND,
+                        ((ResponseStatusException) error).getStatusCode()))
+                .verify();
+
+        Files.writeString(importDirectory.resolve("pets.csv"),
+                "identifier,name,species,birth_date,weight,ownerid\n1,Rex,dog,2024-13-45,1.5,3\n");
+        StepVerifier.create(importService.importPets(Paths.get("pets.csv"), true))
+                .expectErrorSatisfies(error -> assertEquals(HttpStatus.BAD_REQUEST,
+                        ((ResponseStatusException) error).getStatusCode()))
+                .verify();
+    }
+}
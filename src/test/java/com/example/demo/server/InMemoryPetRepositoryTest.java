@@ -0,0 +1,130 @@
+package com.example.demo.server;
+
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.repository.inmemory.InMemoryPetRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+/**
+ * Test class for InMemoryPetRepository.
+ *
+ * This class checks the repository contract used by PetService (save,
+ * findById, findByOwnerid, delete) and that the owner index stays consistent
+ * when many threads write at the same time.
+ */
+public class InMemoryPetRepositoryTest {
+
+    private InMemoryPetRepository petRepository;
+
+    @BeforeEach
+    public void setUp() {
+        petRepository = new InMemoryPetRepository();
+    }
+
+    private static Pet pet(Long id, String name, long ownerId) {
+        return new Pet(id, name, "dog", LocalDate.of(2020, 1, 1), 10.0, ownerId);
+    }
+
+    /**
+     * Test that saving a pet without identifier assigns one, and that the stored
+     * pet is a copy that does not change when the caller modifies its object.
+     */
+    @Test
+    public void saveAssignsIdentifierAndStoresCopyTest() {
+        Pet pet = pet(null, "Buddy", 1L);
+
+        StepVerifier.create(petRepository.save(pet))
+                .expectNextMatches(saved -> saved.getIdentifier() != null)
+                .verifyComplete();
+
+        pet.setName("Changed without saving");
+
+        StepVerifier.create(petRepository.findById(pet.getIdentifier()))
+                .expectNextMatches(found -> "Buddy".equals(found.getName()))
+                .verifyComplete();
+    }
+
+    /**
+     * Test that the owner index follows updates that move a pet to another owner
+     * and deletions.
+     */
+    @Test
+    public void findByOwneridFollowsUpdatesAndDeletesTest() {
+        petRepository.save(pet(1L, "Max", 10L)).block();
+        petRepository.save(pet(2L, "Luna", 10L)).block();
+        petRepository.save(pet(3L, "Rex", 20L)).block();
+
+        // Move Luna to owner 20 and delete Rex
+        petRepository.save(pet(2L, "Luna", 20L)).block();
+        petRepository.deleteById(3L).block();
+
+        StepVerifier.create(petRepository.findByOwnerid(10L).map(Pet::getName))
+                .expectNext("Max")
+                .verifyComplete();
+        StepVerifier.create(petRepository.findByOwnerid(20L).map(Pet::getName))
+                .expectNext("Luna")
+                .verifyComplete();
+        StepVerifier.create(petRepository.count())
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    /**
+     * Test that concurrent writers, including writers that keep moving the same
+     * pets between owners, leave the primary map and the owner index consistent.
+     */
+    @Test
+    public void concurrentWritesTest() throws InterruptedException {
+        int threads = 8;
+        int petsPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < petsPerThread; i++) {
+                    long id = (long) thread * petsPerThread + i + 1;
+                    petRepository.save(pet(id, "Pet " + id, id % 50)).block();
+                    // Pets 1..100 are shared by all threads and keep changing owner
+                    petRepository.save(pet((long) (i % 100) + 1, "Shared", thread)).block();
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        long total = (long) threads * petsPerThread;
+        assertEquals(total, petRepository.count().block());
+
+        // Every pet is listed exactly once, under its current owner
+        long indexed = 0;
+        for (long owner = 0; owner < 50; owner++) {
+            long currentOwner = owner;
+            indexed += petRepository.findByOwnerid(owner)
+                    .filter(pet -> pet.getOwnerid() == currentOwner)
+                    .count()
+                    .block();
+        }
+        assertEquals(total, indexed);
+        assertEquals(total, petRepository.findAll().count().block());
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.server;
+
+import com.example.demo.server.model.Pet;
+import com.example.demo.server.utils.MappedCsvReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+
+/**
+ * Test class for MappedCsvReader.
+ *
+ * This class checks that CSV files are split into line-aligned segments and
+ * that the fields of every row are decoded correctly, whatever the segment
+ * size, and that malformed fields are rejected.
+ */
+public class MappedCsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Pet parsePet(MappedCsvReader.Cursor cursor) {
+        long identifier = cursor.nextLong();
+        String name = cursor.nextString();
+        String species = cursor.nextString();
+        return new Pet(identifier, name, species, cursor.nextDate(), cursor.nextDouble(), cursor.nextLong());
+    }
+
+    private List<Pet> readAll(Path file, long segmentBytes) throws IOException {
+        MappedCsvReader reader = MappedCsvReader.open(file, segmentBytes);
+        return Flux.fromIterable(reader.getSegments())
+                .concatMap(segment -> reader.rows(segment, true, MappedCsvReaderTest::parsePet))
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Test that every row is read exactly once when the file is split into many
+     * small segments.
+     */
+    @Test
+    public void readsAllRowsAcrossSegmentsTest() throws IOException {
+        StringBuilder csv = new StringBuilder("identifier,name,species,birth_date,weight,ownerid\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append(i).append(",Pet ").append(i).append(",dog,2020-01-")
+                    .append(String.format("%02d", i % 28 + 1)).append(",").append(i % 40).append(".25,")
+                    .append(i % 7).append("\n");
+        }
+        Path file = tempDir.resolve("pets.csv");
+        Files.writeString(file, csv);
+
+        MappedCsvReader reader = MappedCsvReader.open(file, 256);
+        assertTrue(reader.getSegments().size() > 1);
+
+        List<Pet> pets = readAll(file, 256);
+
+        assertEquals(500, pets.size());
+        for (int i = 0; i < 500; i++) {
+            Pet pet = pets.get(i);
+            assertEquals(i, pet.getIdentifier());
+            assertEquals("Pet " + i, pet.getName());
+            assertEquals(i % 40 + 0.25, pet.getWeight());
+            assertEquals(i % 7, pet.getOwnerid());
+        }
+    }
+
+    /**
+     * Test the decoding of quoted text, CRLF line breaks, negative and
+     * exponent-formatted numbers, and blank lines.
+     */
+    @Test
+    public void decodesFieldsTest() throws IOException {
+        String csv = "identifier,name,species,birth_date,weight,ownerid\r\n"
+                + "1,\"Rex, \"\"the\"\" dog\",dog,2019-12-31,1.5e1,-3\r\n"
+                + "\r\n"
+                + "2,Tareco,gato,2023-10-23,69.69,0";
+        Path file = tempDir.resolve("quoted.csv");
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+
+        List<Pet> pets = readAll(file, 1024);
+
+        assertEquals(2, pets.size());
+        assertEquals("Rex, \"the\" dog", pets.get(0).getName());
+        assertEquals(LocalDate.of(2019, 12, 31), pets.get(0).getBirth_date());
+        assertEquals(15.0, pets.get(0).getWeight());
+        assertEquals(-3L, pets.get(0).getOwnerid());
+        assertEquals("Tareco", pets.get(1).getName());
+        assertEquals(69.69, pets.get(1).getWeight());
+        assertEquals(0L, pets.get(1).getOwnerid());
+    }
+
+    /**
+     * Test that malformed numeric fields are reported instead of silently
+     * producing wrong values.
+     */
+    @Test
+    public void rejectsMalformedFieldsTest() throws IOException {
+        Path file = tempDir.resolve("malformed.csv");
+        Files.writeString(file, "1,Rex,dog,2019-12-31,heavy,3\n");
+
+        MappedCsvReader reader = MappedCsvReader.open(file, 1024);
+
+        assertThrows(IllegalArgumentException.class, () -> reader
+                .rows(reader.getSegments().get(0), false, MappedCsvReaderTest::parsePet)
+                .blockLast());
+    }
+
+    private List<Pet> readRow(String row) throws IOException {
+        Path file = tempDir.resolve("row.csv");
+        Files.writeString(file, row);
+        return readAll(file, 1024);
+    }
+
+    /**
+     * Test that integers at the limits of a long are read, those beyond them
+     * rejected, and that decimals need digits and a plain number syntax.
+     */
+    @Test
+    public void rejectsMalformedNumbersTest() throws IOException {
+        String header = "identifier,name,species,birth_date,weight,ownerid\n";
+
+        List<Pet> pets = readRow(header + Long.MAX_VALUE + ",Rex,dog,2019-12-31,-.5," + Long.MIN_VALUE + "\n");
+        assertEquals(Long.MAX_VALUE, pets.get(0).getIdentifier());
+        assertEquals(-0.5, pets.get(0).getWeight());
+        assertEquals(Long.MIN_VALUE, pets.get(0).getOwnerid());
+
+        for (String identifier : List.of("9223372036854775808", "-9223372036854775809", "99999999999999999999",
+                "-", "1-2")) {
+            String row = header + identifier + ",Rex,dog,2019-12-31,1.5,3\n";
+            assertThrows(IllegalArgumentException.class, () -> readRow(row), identifier);
+        }
+        for (String weight : List.of("-", ".", "-.", "1.2.3", "NaN", "Infinity", "1d", "0x1p3", "1e")) {
+            String row = header + "1,Rex,dog,2019-12-31," + weight + ",3\n";
+            assertThrows(IllegalArgumentException.class, () -> readRow(row), weight);
+        }
+    }
+
+    /**
+     * Test that dates in the right format but not in the calendar are
+     * reported as malformed fields, like the other fields.
+     */
+    @Test
+    public void rejectsInvalidDatesTest() throws IOException {
+        String header = "identifier,name,species,birth_date,weight,ownerid\n";
+
+        assertEquals(LocalDate.of(2024, 2, 29), readRow(header + "1,Rex,dog,2024-02-29,1.5,3\n").get(0).getBirth_date());
+        for (String date : List.of("2024-13-45", "2023-02-29", "2024-00-10", "2024-04-31")) {
+            String row = header + "1,Rex,dog," + date + ",1.5,3\n";
+            assertThrows(IllegalArgumentException.class, () -> readRow(row), date);
+        }
+    }
+
+    /**
+     * Test that a quoted field with a line break is rejected, whether or not
+     * the segments split the row, instead of reading part of it as a row.
+     */
+    @Test
+    public void rejectsLineBreakInQuotesTest() throws IOException {
+        Path file = tempDir.resolve("multiline.csv");
+        Files.writeString(file, "identifier,name,species,birth_date,weight,ownerid\n"
+                + "1,\"Rex\nthe dog\",dog,2019-12-31,1.5,3\n2,Tareco,gato,2023-10-23,69.69,0\n");
+
+        for (long segmentBytes : new long[] { 56, 1024 }) {
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> readAll(file, segmentBytes));
+            assertTrue(error.getMessage().contains("quoted text"), error.getMessage());
+        }
+    }
+}
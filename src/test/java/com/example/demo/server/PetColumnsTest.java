@@ -0,0 +1,172 @@
+package com.example.demo.server;
+
+import com.example.demo.server.analytics.PetColumns;
+import com.example.demo.server.generator.DatasetGenerator;
+import com.example.demo.server.generator.DatasetSpec;
+import com.example.demo.server.model.Pet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for PetColumns.
+ *
+ * This class checks that the queries give the same answer scanned in parallel
+ * and sequentially, that ties are broken by row, that pets without a birth
+ * date are never the eldest, and that the counts per owner are those of the
+ * pets grouped by owner.
+ */
+public class PetColumnsTest {
+
+    // Large enough to be split over the fork-join pool
+    private static final int ROWS = 100_000;
+
+    private static List<Pet> generatedPets() {
+        DatasetSpec spec = new DatasetSpec(11, 3_000, ROWS);
+        spec.setOwnerSkew(1.5);
+        return new DatasetGenerator(spec).pets().collectList().block();
+    }
+
+    private static PetColumns columns(List<Pet> pets) {
+        PetColumns.Builder builder = PetColumns.builder();
+        pets.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static Pet pet(long id, LocalDate birthDate, double weight, long ownerId) {
+        return new Pet(id, "Pet " + id, id % 2 == 0 ? "dog" : "Cat", birthDate, weight, ownerId);
+    }
+
+    /**
+     * Test that every query gives the same answer in parallel and
+     * sequentially, on generated pets with many equal birth dates.
+     */
+    @Test
+    public void parallelMatchesSequentialTest() {
+        PetColumns columns = columns(generatedPets());
+
+        assertEquals(columns.count("dog", 10.0, false), columns.count("dog", 10.0, true));
+        assertEquals(ROWS, columns.count(null, Double.NEGATIVE_INFINITY, false));
+        assertEquals(ROWS, columns.count(null, Double.NEGATIVE_INFINITY, true));
+
+        PetColumns.Moments sequential = columns.weightMoments(false);
+        PetColumns.Moments parallel = columns.weightMoments(true);
+        assertEquals(sequential.count, parallel.count);
+        assertEquals(sequential.mean, parallel.mean, 1e-9);
+        assertEquals(sequential.variance(), parallel.variance(), 1e-6);
+        assertEquals(sequential.min, parallel.min);
+        assertEquals(sequential.max, parallel.max);
+
+        assertEquals(columns.eldestRow(false), columns.eldestRow(true));
+        assertArrayEquals(columns.heaviestRows(25, false), columns.heaviestRows(25, true));
+
+        PetColumns.OwnerCounts sequentialCounts = columns.petCountsByOwner(false);
+        PetColumns.OwnerCounts parallelCounts = columns.petCountsByOwner(true);
+        assertArrayEquals(sequentialCounts.ownerIds, parallelCounts.ownerIds);
+        assertArrayEquals(sequentialCounts.petCounts, parallelCounts.petCounts);
+    }
+
+    /**
+     * Test that with many equal weights and birth dates the heaviest and the
+     * eldest pets are the first rows among the ties, in parallel too.
+     */
+    @Test
+    public void tiesTest() {
+        LocalDate day = LocalDate.of(2010, 5, 1);
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            pets.add(pet(i, day.plusDays(1 + i % 7), i % 5, 1 + i % 100));
+        }
+        // Three pets share the earliest date, the first of them in the second half
+        pets.set(70_001, pet(70_001, day, 1, 1));
+        pets.set(40_000, pet(40_000, day, 1, 1));
+        pets.set(99_999, pet(99_999, day, 1, 1));
+        PetColumns columns = columns(pets);
+
+        // The rows weighing 4 are 4, 9, 14, ...: the heaviest are the first 10 of them
+        int[] expected = IntStream.range(0, 10).map(i -> 4 + 5 * i).toArray();
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertArrayEquals(expected, columns.heaviestRows(10, parallel));
+            assertEquals(40_000, columns.eldestRow(parallel));
+        }
+    }
+
+    /**
+     * Test that a k beyond the number of pets returns them all, heaviest
+     * first, without allocating k rows, and that a k of 0 or less returns
+     * none.
+     */
+    @Test
+    public void heaviestBeyondSizeTest() {
+        List<Pet> pets = generatedPets();
+        PetColumns columns = columns(pets);
+        int[] expected = IntStream.range(0, ROWS).boxed()
+                .sorted((row1, row2) -> pets.get(row1).getWeight().equals(pets.get(row2).getWeight())
+                        ? Integer.compare(row1, row2)
+                        : Double.compare(pets.get(row2).getWeight(), pets.get(row1).getWeight()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertArrayEquals(expected, columns.heaviestRows(Integer.MAX_VALUE, parallel));
+            assertEquals(0, columns.heaviestRows(0, parallel).length);
+            assertEquals(0, columns.heaviestRows(-5, parallel).length);
+        }
+    }
+
+    /**
+     * Test that pets without a birth date are never the eldest, that no pet
+     * is when none has a birth date, and that the missing date is kept.
+     */
+    @Test
+    public void eldestWithoutBirthDateTest() {
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            pets.add(pet(i, i < ROWS / 2 ? null : LocalDate.of(2015, 1, 1).plusDays(i % 300), 5.0, 1));
+        }
+        pets.set(ROWS - 1, pet(ROWS - 1, LocalDate.of(1971, 1, 1), 5.0, 1));
+        PetColumns columns = columns(pets);
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertEquals(ROWS - 1, columns.eldestRow(parallel));
+        }
+        assertNull(columns.pet(0).getBirth_date());
+        assertEquals(LocalDate.of(1971, 1, 1), columns.pet(ROWS - 1).getBirth_date());
+
+        PetColumns undated = columns(List.of(pet(1, null, 1.0, 1), pet(2, null, 2.0, 1)));
+        assertEquals(-1, undated.eldestRow(false));
+        assertEquals(-1, columns(List.of()).eldestRow(true));
+    }
+
+    /**
+     * Test that the pet counts per owner are those of the pets grouped by
+     * owner id.
+     */
+    @Test
+    public void petCountsByOwnerTest() {
+        List<Pet> pets = generatedPets();
+        Map<Long, Long> expected = pets.stream()
+                .collect(Collectors.groupingBy(Pet::getOwnerid, TreeMap::new, Collectors.counting()));
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            PetColumns.OwnerCounts counts = columns(pets).petCountsByOwner(parallel);
+            Map<Long, Long> actual = new TreeMap<>();
+            for (int i = 0; i < counts.size(); i++) {
+                actual.put(counts.ownerIds[i], (long) counts.petCounts[i]);
+            }
+            assertEquals(expected, actual);
+            assertArrayEquals(expected.keySet().stream().mapToLong(Long::longValue).toArray(), counts.ownerIds);
+        }
+    }
+}
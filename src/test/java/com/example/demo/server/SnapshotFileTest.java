@@ -0,0 +1,124 @@
+package com.example.demo.server;
+
+import com.example.demo.server.analytics.PetColumns;
+import com.example.demo.server.analytics.SnapshotFile;
+import com.example.demo.server.model.Owner;
+import com.example.demo.server.model.Pet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for SnapshotFile.
+ *
+ * This class checks that owners and pets survive a write/read round trip,
+ * that the owners can be skipped, and that files which are not complete
+ * snapshots are rejected, also when a count or length in them is corrupted.
+ */
+public class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    private static PetColumns pets() {
+        return PetColumns.builder()
+                .add(new Pet(1L, "Bolinhas", "dog", LocalDate.of(2015, 3, 2), 12.5, 1L))
+                .add(new Pet(2L, "Faísca", "Cat", LocalDate.of(2019, 7, 30), 4.25, 2L))
+                .add(new Pet(3L, null, "dog", LocalDate.of(2010, 1, 1), 30.0, 1L))
+                .build();
+    }
+
+    /**
+     * Test that every owner and pet read back equals the one written, including
+     * null and non-ASCII strings.
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        Path file = directory.resolve("pets.snapshot");
+        List<Owner> owners = List.of(new Owner(1L, "João Nunes", "912345678"), new Owner(2L, "Rita", null));
+        PetColumns pets = pets();
+
+        SnapshotFile.write(file, owners, pets);
+        SnapshotFile snapshot = SnapshotFile.read(file);
+
+        assertEquals(owners, snapshot.getOwners());
+        assertEquals(pets.size(), snapshot.getPets().size());
+        for (int row = 0; row < pets.size(); row++) {
+            assertEquals(pets.pet(row), snapshot.getPets().pet(row));
+        }
+        assertArrayEquals(pets.getSpeciesDictionary(), snapshot.getPets().getSpeciesDictionary());
+        assertEquals(2, snapshot.getPets().count("dog", 0, false));
+    }
+
+    /**
+     * Test that a truncated snapshot and a file in another format are rejected.
+     */
+    @Test
+    public void rejectsInvalidFilesTest() throws IOException {
+        Path file = directory.resolve("pets.snapshot");
+        SnapshotFile.write(file, List.of(new Owner(1L, "Rita", "912345678")), pets());
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.read(file));
+
+        Files.writeString(file, "identifier,name,phone_number\n");
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.read(file));
+    }
+
+    /**
+     * Test that the owners can be skipped while the pets are still read.
+     */
+    @Test
+    public void skipOwnersTest() throws IOException {
+        Path file = directory.resolve("pets.snapshot");
+        SnapshotFile.write(file, List.of(new Owner(1L, "João Nunes", "912345678"), new Owner(2L, "Rita", null)),
+                pets());
+
+        SnapshotFile snapshot = SnapshotFile.read(file, false);
+
+        assertEquals(List.of(), snapshot.getOwners());
+        assertEquals(2, snapshot.getOwnerCount());
+        assertEquals(pets().pet(1), snapshot.getPets().pet(1));
+    }
+
+    /**
+     * Test that a huge string length, owner count or pet count is reported as
+     * a corrupt snapshot instead of being allocated.
+     */
+    @Test
+    public void rejectsCorruptLengthsTest() throws IOException {
+        Path file = directory.resolve("pets.snapshot");
+        SnapshotFile.write(file, List.of(new Owner(1L, "Rita", "912345678")), pets());
+        byte[] bytes = Files.readAllBytes(file);
+
+        // Header (magic, version, creation time), then the owner count, then the first owner
+        int ownerCount = 4 + 2 + 8;
+        int nameLength = ownerCount + 4 + 8;
+        int petCount = nameLength + 4 + "Rita".length() + 4 + "912345678".length();
+        for (int offset : new int[] { ownerCount, nameLength, petCount }) {
+            byte[] corrupted = bytes.clone();
+            ByteBuffer.wrap(corrupted).putInt(offset, Integer.MAX_VALUE - 1);
+            Files.write(file, corrupted);
+
+            for (boolean withOwners : new boolean[] { true, false }) {
+                IllegalStateException error = assertThrows(IllegalStateException.class,
+                        () -> SnapshotFile.read(file, withOwners));
+                assertTrue(error.getMessage().startsWith("Corrupt snapshot"), error.getMessage());
+            }
+        }
+    }
+}